@@ -19,6 +19,12 @@
 
 package space.arim.libertybans.api.punish;
 
+import space.arim.omnibus.util.concurrent.ReactionStage;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 /**
  * Initial point for drafting punishments and calculated sanctions
  *
@@ -39,4 +45,24 @@ public interface PunishmentDrafter {
 	 */
 	CalculablePunishmentBuilder calculablePunishmentBuilder();
 
+	/**
+	 * Enacts many draft punishments together, adding them to the database as punishments,
+	 * then enforces them according to the given options. <br>
+	 * <br>
+	 * This is equivalent to calling {@link DraftPunishment#enactPunishment(EnforcementOptions)}
+	 * for each draft punishment, but is considerably more efficient for large numbers of punishments.
+	 * Each result is independent: if the punishment type is a ban or mute, and there is already an
+	 * active ban or mute for the victim, the result for that draft punishment is an empty optional,
+	 * while the other draft punishments are still enacted. This includes conflicts between
+	 * the draft punishments themselves.
+	 *
+	 * @param draftPunishments the draft punishments to enact
+	 * @param enforcementOptions the enforcement options applying to all punishments. Can be used to
+	 *                           disable enforcement entirely
+	 * @return a future which yields one result for each draft punishment, in iteration order.
+	 * Each result is the punishment or an empty optional if there was a conflict
+	 */
+	ReactionStage<List<Optional<Punishment>>> enactPunishments(Collection<? extends DraftPunishment> draftPunishments,
+															   EnforcementOptions enforcementOptions);
+
 }
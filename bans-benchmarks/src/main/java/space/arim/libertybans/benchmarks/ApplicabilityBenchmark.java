@@ -0,0 +1,80 @@
+/*
+ * LibertyBans
+ * Copyright © 2023 Anand Beh
+ *
+ * LibertyBans is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * LibertyBans is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with LibertyBans. If not, see <https://www.gnu.org/licenses/>
+ * and navigate to version 3 of the GNU Affero General Public License.
+ */
+
+package space.arim.libertybans.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import space.arim.libertybans.api.PunishmentType;
+import space.arim.libertybans.api.punish.Punishment;
+import space.arim.libertybans.api.select.AddressStrictness;
+import space.arim.libertybans.api.select.SortPunishments;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the selection of applicable punishments, as performed on login and chat,
+ * for each address strictness
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ApplicabilityBenchmark {
+
+	@Param({"LENIENT", "NORMAL", "STERN", "STRICT"})
+	public AddressStrictness addressStrictness;
+
+	private Optional<Punishment> selectApplicable(SeededInstance seeded, PunishmentType type) {
+		int index = seeded.randomIndex();
+		return seeded.selector()
+				.selectionByApplicabilityBuilder(
+						DatabaseSeeder.uuid(index), DatabaseSeeder.address(index - index % 10)
+				)
+				.addressStrictness(addressStrictness)
+				.type(type)
+				.build()
+				.getFirstSpecificPunishment(SortPunishments.LATEST_END_DATE_FIRST)
+				.toCompletableFuture()
+				.join();
+	}
+
+	@Benchmark
+	public Optional<Punishment> selectApplicableBan(SeededInstance seeded) {
+		return selectApplicable(seeded, PunishmentType.BAN);
+	}
+
+	@Benchmark
+	public Optional<Punishment> selectApplicableMute(SeededInstance seeded) {
+		return selectApplicable(seeded, PunishmentType.MUTE);
+	}
+
+}
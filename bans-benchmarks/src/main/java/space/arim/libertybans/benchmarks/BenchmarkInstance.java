@@ -0,0 +1,84 @@
+/*
+ * LibertyBans
+ * Copyright © 2023 Anand Beh
+ *
+ * LibertyBans is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * LibertyBans is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with LibertyBans. If not, see <https://www.gnu.org/licenses/>
+ * and navigate to version 3 of the GNU Affero General Public License.
+ */
+
+package space.arim.libertybans.benchmarks;
+
+import org.slf4j.LoggerFactory;
+import space.arim.injector.Injector;
+import space.arim.libertybans.bootstrap.BaseFoundation;
+import space.arim.libertybans.env.standalone.ConsoleAudienceToLogger;
+import space.arim.libertybans.env.standalone.StandaloneLauncher;
+import space.arim.omnibus.DefaultOmnibus;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * A standalone instance using the default configuration, and thus the embedded HSQLDB,
+ * in a temporary directory which is deleted on close
+ *
+ */
+final class BenchmarkInstance implements AutoCloseable {
+
+	private final Path folder;
+	private final Injector injector;
+	private final BaseFoundation base;
+
+	private BenchmarkInstance(Path folder, Injector injector, BaseFoundation base) {
+		this.folder = folder;
+		this.injector = injector;
+		this.base = base;
+	}
+
+	static BenchmarkInstance start() {
+		Path folder;
+		try {
+			folder = Files.createTempDirectory("libertybans-benchmark");
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+		Injector injector = new StandaloneLauncher(folder, new DefaultOmnibus()).createInjector(
+				new ConsoleAudienceToLogger(LoggerFactory.getLogger(BenchmarkInstance.class))
+		);
+		BaseFoundation base = injector.request(BaseFoundation.class);
+		base.startup();
+		return new BenchmarkInstance(folder, injector, base);
+	}
+
+	<T> T request(Class<T> type) {
+		return injector.request(type);
+	}
+
+	@Override
+	public void close() {
+		base.shutdown();
+		try (Stream<Path> files = Files.walk(folder)) {
+			for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+				Files.delete(file);
+			}
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+}
@@ -0,0 +1,162 @@
+/*
+ * LibertyBans
+ * Copyright © 2023 Anand Beh
+ *
+ * LibertyBans is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * LibertyBans is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with LibertyBans. If not, see <https://www.gnu.org/licenses/>
+ * and navigate to version 3 of the GNU Affero General Public License.
+ */
+
+package space.arim.libertybans.benchmarks;
+
+import org.jooq.DSLContext;
+import org.jooq.InsertValuesStep2;
+import space.arim.libertybans.api.ConsoleOperator;
+import space.arim.libertybans.api.NetworkAddress;
+import space.arim.libertybans.api.PunishmentType;
+import space.arim.libertybans.api.Victim;
+import space.arim.libertybans.api.punish.Punishment;
+import space.arim.libertybans.core.database.execute.QueryExecutor;
+import space.arim.libertybans.core.database.sql.EmptyData;
+import space.arim.libertybans.core.database.sql.TableForType;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import static space.arim.libertybans.core.schema.tables.Addresses.ADDRESSES;
+import static space.arim.libertybans.core.schema.tables.History.HISTORY;
+import static space.arim.libertybans.core.schema.tables.Punishments.PUNISHMENTS;
+import static space.arim.libertybans.core.schema.tables.Victims.VICTIMS;
+
+/**
+ * Seeds the database with generated punishments, bypassing the enactment logic for speed.
+ * Identifiers are assigned directly rather than from sequences, so the seeded database
+ * is only suitable for read-only benchmarks. <br>
+ * <br>
+ * Punishment {@code n} (1-based) has its own victim, which is an address victim for every
+ * tenth punishment and otherwise a player victim. Player victims are associated with the
+ * address of the preceding address victim, so that each address is shared by nine accounts.
+ * Types rotate between ban, mute, warn, and kick.
+ *
+ */
+final class DatabaseSeeder {
+
+	private final QueryExecutor queryExecutor;
+
+	private static final int BATCH_SIZE = 5_000;
+	private static final PunishmentType[] TYPES = {
+			PunishmentType.BAN, PunishmentType.MUTE, PunishmentType.WARN, PunishmentType.KICK
+	};
+
+	DatabaseSeeder(QueryExecutor queryExecutor) {
+		this.queryExecutor = queryExecutor;
+	}
+
+	static UUID uuid(int index) {
+		return new UUID(0x6c6962657274794cL, index);
+	}
+
+	static NetworkAddress address(int index) {
+		return NetworkAddress.of(new byte[] {
+				10, (byte) (index >>> 16), (byte) (index >>> 8), (byte) index
+		});
+	}
+
+	static PunishmentType type(int index) {
+		return TYPES[index % TYPES.length];
+	}
+
+	static boolean isAddressVictim(int index) {
+		return index % 10 == 0;
+	}
+
+	void seed(int punishmentCount) {
+		for (int start = 1; start <= punishmentCount; start += BATCH_SIZE) {
+			int from = start;
+			int to = Math.min(start + BATCH_SIZE - 1, punishmentCount);
+			queryExecutor.execute((context) -> insertBatch(context, from, to)).join();
+		}
+	}
+
+	private void insertBatch(DSLContext context, int from, int to) {
+		var victims = context
+				.insertInto(VICTIMS)
+				.columns(VICTIMS.ID, VICTIMS.TYPE, VICTIMS.UUID, VICTIMS.ADDRESS);
+		var addresses = context
+				.insertInto(ADDRESSES)
+				.columns(ADDRESSES.UUID, ADDRESSES.ADDRESS, ADDRESSES.UPDATED);
+		var punishments = context
+				.insertInto(PUNISHMENTS)
+				.columns(
+						PUNISHMENTS.ID, PUNISHMENTS.TYPE, PUNISHMENTS.OPERATOR, PUNISHMENTS.REASON,
+						PUNISHMENTS.SCOPE, PUNISHMENTS.START, PUNISHMENTS.END,
+						PUNISHMENTS.TRACK, PUNISHMENTS.SCOPE_ID
+				);
+		var history = context
+				.insertInto(HISTORY)
+				.columns(HISTORY.ID, HISTORY.VICTIM);
+		var bans = activeTable(context, PunishmentType.BAN);
+		var mutes = activeTable(context, PunishmentType.MUTE);
+		var warns = activeTable(context, PunishmentType.WARN);
+
+		int[] activeCounts = new int[TYPES.length];
+		boolean anyAddresses = false;
+		for (int index = from; index <= to; index++) {
+			if (isAddressVictim(index)) {
+				victims = victims.values(index, Victim.VictimType.ADDRESS, EmptyData.UUID, address(index));
+			} else {
+				victims = victims.values(index, Victim.VictimType.PLAYER, uuid(index), EmptyData.ADDRESS);
+				addresses = addresses.values(uuid(index), address(index - index % 10), Instant.EPOCH);
+				anyAddresses = true;
+			}
+			PunishmentType type = type(index);
+			punishments = punishments.values(
+					(long) index, type, ConsoleOperator.INSTANCE, "Benchmark punishment " + index,
+					"", Instant.ofEpochSecond(index), Punishment.PERMANENT_END_DATE,
+					null, null
+			);
+			history = history.values((long) index, index);
+			activeCounts[type.ordinal()]++;
+			switch (type) {
+			case BAN -> bans = bans.values((long) index, index);
+			case MUTE -> mutes = mutes.values((long) index, index);
+			case WARN -> warns = warns.values((long) index, index);
+			case KICK -> {} // Kicks are never active
+			}
+		}
+		// Empty inserts are not valid SQL
+		victims.execute();
+		if (anyAddresses) {
+			addresses.execute();
+		}
+		punishments.execute();
+		history.execute();
+		if (activeCounts[PunishmentType.BAN.ordinal()] != 0) {
+			bans.execute();
+		}
+		if (activeCounts[PunishmentType.MUTE.ordinal()] != 0) {
+			mutes.execute();
+		}
+		if (activeCounts[PunishmentType.WARN.ordinal()] != 0) {
+			warns.execute();
+		}
+	}
+
+	private static InsertValuesStep2<?, Long, Integer> activeTable(DSLContext context, PunishmentType type) {
+		var dataTable = new TableForType(type).dataTable();
+		return context
+				.insertInto(dataTable.table())
+				.columns(dataTable.id(), dataTable.victimId());
+	}
+
+}
@@ -0,0 +1,123 @@
+/*
+ * LibertyBans
+ * Copyright © 2023 Anand Beh
+ *
+ * LibertyBans is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * LibertyBans is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with LibertyBans. If not, see <https://www.gnu.org/licenses/>
+ * and navigate to version 3 of the GNU Affero General Public License.
+ */
+
+package space.arim.libertybans.benchmarks;
+
+import net.kyori.adventure.text.Component;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import space.arim.api.jsonchat.adventure.util.ComponentText;
+import space.arim.libertybans.api.LibertyBans;
+import space.arim.libertybans.api.PlayerVictim;
+import space.arim.libertybans.api.PunishmentType;
+import space.arim.libertybans.api.punish.DraftPunishment;
+import space.arim.libertybans.api.punish.EnforcementOptions;
+import space.arim.libertybans.api.punish.Punishment;
+import space.arim.libertybans.core.config.InternalFormatter;
+import space.arim.libertybans.core.database.execute.QueryExecutor;
+import space.arim.libertybans.core.punish.Association;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures formatting of a message with all punishment variables
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class FormatterBenchmark {
+
+	private BenchmarkInstance instance;
+	private InternalFormatter formatter;
+	private Punishment punishment;
+
+	private static final ComponentText MESSAGE = ComponentText.create(Component.text(
+			"&c&lBanned&r by %OPERATOR% (%OPERATOR_ID%)\n" +
+			"&7%VICTIM% (%VICTIM_ID%) was %TYPE_VERB% for %REASON%\n" +
+			"&7ID: %ID% | Scope: %SCOPE% | Track: %TRACK%\n" +
+			"&7Started %START_DATE%, %TIME_PASSED% ago, lasting %DURATION%\n" +
+			"&7Ends %END_DATE%, in %TIME_REMAINING% (%TIME_REMAINING_SIMPLE%)"
+	));
+
+	@Setup(Level.Trial)
+	public void setup() {
+		instance = BenchmarkInstance.start();
+		formatter = instance.request(InternalFormatter.class);
+
+		UUID uuid = DatabaseSeeder.uuid(1);
+		instance.request(QueryExecutor.class).execute((context) -> {
+			new Association(uuid, context).associateCurrentName("BenchmarkUser", Instant.EPOCH);
+		}).join();
+		DraftPunishment draftPunishment = instance.request(LibertyBans.class)
+				.getDrafter()
+				.draftBuilder()
+				.type(PunishmentType.BAN)
+				.victim(PlayerVictim.of(uuid))
+				.reason("Benchmarking the formatter")
+				.duration(Duration.ofDays(30L))
+				.build();
+		punishment = draftPunishment
+				.enactPunishment(draftPunishment.enforcementOptionsBuilder()
+						.enforcement(EnforcementOptions.Enforcement.NONE)
+						.build())
+				.toCompletableFuture()
+				.join()
+				.orElseThrow();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		instance.close();
+	}
+
+	@Benchmark
+	public Component formatWithPunishment() {
+		return formatter.formatWithPunishment(MESSAGE, punishment).join();
+	}
+
+	@Benchmark
+	public Component getPunishmentMessage() {
+		return formatter.getPunishmentMessage(punishment).join();
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.Throughput)
+	@OutputTimeUnit(TimeUnit.SECONDS)
+	public Component getPunishmentMessageThroughput() {
+		return formatter.getPunishmentMessage(punishment).join();
+	}
+
+}
@@ -0,0 +1,107 @@
+/*
+ * LibertyBans
+ * Copyright © 2023 Anand Beh
+ *
+ * LibertyBans is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * LibertyBans is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with LibertyBans. If not, see <https://www.gnu.org/licenses/>
+ * and navigate to version 3 of the GNU Affero General Public License.
+ */
+package space.arim.libertybans.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import space.arim.libertybans.core.selector.MuteCommandMatcher;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures matching of executed commands against the default mute commands, comparing the
+ * precompiled matcher with splitting each command into words. <br>
+ * <br>
+ * Run with {@code -prof gc} to compare allocation rates.
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class MuteCommandMatchingBenchmark {
+
+	private static final Set<String> MUTE_COMMANDS = Set.of(
+			"me", "say", "msg", "reply", "r", "whisper", "w", "tell", "t", "clan chat"
+	);
+
+	@Param({
+			"spawn",
+			"msg Player1 hello there, how are you?",
+			"essentials:tell Player1 hello",
+			"clan chat hello everyone",
+			"clan invite Player1"
+	})
+	public String command;
+
+	private MuteCommandMatcher matcher;
+
+	@Setup
+	public void setup() {
+		matcher = MuteCommandMatcher.compile(MUTE_COMMANDS);
+	}
+
+	@Benchmark
+	public boolean precompiledMatcher() {
+		return matcher.matches(command);
+	}
+
+	@Benchmark
+	public boolean splitIntoWords() {
+		String[] words = command.split(" ");
+		if (words[0].indexOf(':') != -1) {
+			words[0] = words[0].split(":", 2)[1];
+		}
+		for (String muteCommand : MUTE_COMMANDS) {
+			if (words[0].equalsIgnoreCase(muteCommand)) {
+				return true;
+			}
+			if (muteCommand.indexOf(' ') != -1) {
+				String[] muteCommandWords = muteCommand.split(" ");
+				if (muteCommandWords.length > words.length) {
+					continue;
+				}
+				boolean matches = true;
+				for (int n = 0; n < muteCommandWords.length; n++) {
+					if (!muteCommandWords[n].equalsIgnoreCase(words[n])) {
+						matches = false;
+						break;
+					}
+				}
+				if (matches) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+}
@@ -0,0 +1,88 @@
+/*
+ * LibertyBans
+ * Copyright © 2023 Anand Beh
+ *
+ * LibertyBans is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * LibertyBans is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with LibertyBans. If not, see <https://www.gnu.org/licenses/>
+ * and navigate to version 3 of the GNU Affero General Public License.
+ */
+
+package space.arim.libertybans.benchmarks;
+
+import org.jooq.DSLContext;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import space.arim.libertybans.api.PunishmentType;
+import space.arim.libertybans.api.select.AddressStrictness;
+import space.arim.libertybans.core.selector.InternalSelector;
+import space.arim.libertybans.core.selector.SelectionBaseSQL;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the construction and rendering of applicability queries, without executing them
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class QueryRenderingBenchmark {
+
+	@Param({"LENIENT", "NORMAL", "STERN", "STRICT"})
+	public AddressStrictness addressStrictness;
+
+	@Param({"HSQLDB", "MARIADB", "POSTGRES"})
+	public SQLDialect dialect;
+
+	private BenchmarkInstance instance;
+	private SelectionBaseSQL selection;
+	private DSLContext context;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		instance = BenchmarkInstance.start();
+		selection = (SelectionBaseSQL) instance.request(InternalSelector.class)
+				.selectionByApplicabilityBuilder(DatabaseSeeder.uuid(1), DatabaseSeeder.address(1))
+				.addressStrictness(addressStrictness)
+				.type(PunishmentType.BAN)
+				.build();
+		context = DSL.using(dialect);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		instance.close();
+	}
+
+	@Benchmark
+	public String renderApplicableBanQuery() {
+		return selection.renderSingleApplicablePunishmentSQL(context);
+	}
+
+}
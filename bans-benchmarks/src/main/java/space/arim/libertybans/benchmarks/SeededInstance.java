@@ -0,0 +1,70 @@
+/*
+ * LibertyBans
+ * Copyright © 2023 Anand Beh
+ *
+ * LibertyBans is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * LibertyBans is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with LibertyBans. If not, see <https://www.gnu.org/licenses/>
+ * and navigate to version 3 of the GNU Affero General Public License.
+ */
+
+package space.arim.libertybans.benchmarks;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import space.arim.libertybans.api.LibertyBans;
+import space.arim.libertybans.api.select.PunishmentSelector;
+import space.arim.libertybans.core.database.execute.QueryExecutor;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Benchmark state providing an instance whose database is seeded with punishments. <br>
+ * <br>
+ * The amount of punishments may be set on the command line, for example
+ * {@code -p punishmentCount=10000,100000,1000000,5000000}
+ *
+ */
+@State(Scope.Benchmark)
+public class SeededInstance {
+
+	@Param("10000")
+	public int punishmentCount;
+
+	private BenchmarkInstance instance;
+	private PunishmentSelector selector;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		instance = BenchmarkInstance.start();
+		new DatabaseSeeder(instance.request(QueryExecutor.class)).seed(punishmentCount);
+		selector = instance.request(LibertyBans.class).getSelector();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		instance.close();
+	}
+
+	PunishmentSelector selector() {
+		return selector;
+	}
+
+	int randomIndex() {
+		return ThreadLocalRandom.current().nextInt(1, punishmentCount + 1);
+	}
+
+}
@@ -0,0 +1,83 @@
+/*
+ * LibertyBans
+ * Copyright © 2023 Anand Beh
+ *
+ * LibertyBans is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * LibertyBans is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with LibertyBans. If not, see <https://www.gnu.org/licenses/>
+ * and navigate to version 3 of the GNU Affero General Public License.
+ */
+
+package space.arim.libertybans.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import space.arim.libertybans.api.PunishmentType;
+import space.arim.libertybans.api.punish.Punishment;
+import space.arim.libertybans.api.select.SortPunishments;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures selection queries end-to-end: query construction, execution, and record mapping
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class SelectionBenchmark {
+
+	@Benchmark
+	public List<Punishment> selectNewestActiveBans(SeededInstance seeded) {
+		return seeded.selector()
+				.selectionBuilder()
+				.type(PunishmentType.BAN)
+				.limitToRetrieve(50)
+				.build()
+				.getAllSpecificPunishments(SortPunishments.NEWEST_FIRST)
+				.toCompletableFuture()
+				.join();
+	}
+
+	@Benchmark
+	public List<Punishment> selectHistoryPage(SeededInstance seeded) {
+		return seeded.selector()
+				.selectionBuilder()
+				.selectAll()
+				.skipFirstRetrieved(seeded.punishmentCount / 2)
+				.limitToRetrieve(50)
+				.build()
+				.getAllSpecificPunishments(SortPunishments.NEWEST_FIRST)
+				.toCompletableFuture()
+				.join();
+	}
+
+	@Benchmark
+	public int countActiveMutes(SeededInstance seeded) {
+		return seeded.selector()
+				.selectionBuilder()
+				.type(PunishmentType.MUTE)
+				.build()
+				.countNumberOfPunishments()
+				.toCompletableFuture()
+				.join();
+	}
+
+}
@@ -0,0 +1,87 @@
+/*
+ * LibertyBans
+ * Copyright © 2023 Anand Beh
+ *
+ * LibertyBans is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * LibertyBans is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with LibertyBans. If not, see <https://www.gnu.org/licenses/>
+ * and navigate to version 3 of the GNU Affero General Public License.
+ */
+
+package space.arim.libertybans.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import space.arim.libertybans.api.ConsoleOperator;
+import space.arim.libertybans.api.PunishmentType;
+import space.arim.libertybans.api.punish.EnforcementOptions;
+import space.arim.libertybans.core.punish.EnforcementOpts;
+import space.arim.libertybans.core.punish.sync.MessageReceiver;
+import space.arim.libertybans.core.punish.sync.PacketEnforceUnenforce;
+import space.arim.libertybans.core.punish.sync.SynchronizationPacket;
+import space.arim.libertybans.core.punish.sync.SynchronizationProtocol;
+import space.arim.omnibus.util.concurrent.FactoryOfTheFuture;
+import space.arim.omnibus.util.concurrent.impl.IndifferentFactoryOfTheFuture;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures serialization and deserialization of synchronization messages
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class SynchronizationProtocolBenchmark {
+
+	private final FactoryOfTheFuture futuresFactory = new IndifferentFactoryOfTheFuture();
+	// Separate instances, since a protocol ignores its own messages
+	private final SynchronizationProtocol sender = new SynchronizationProtocol(futuresFactory);
+	private final SynchronizationProtocol receiver = new SynchronizationProtocol(futuresFactory);
+
+	private final SynchronizationPacket packet = new PacketEnforceUnenforce(
+			123456L, PunishmentType.BAN, space.arim.libertybans.core.punish.Mode.UNDO,
+			EnforcementOpts.builder()
+					.enforcement(EnforcementOptions.Enforcement.GLOBAL)
+					.broadcasting(EnforcementOptions.Broadcasting.NORMAL)
+					.targetArgument("BenchmarkUser")
+					.unOperator(ConsoleOperator.INSTANCE)
+					.build()
+	);
+	private final byte[] serializedPacket = sender.serializeMessage(packet);
+
+	@Benchmark
+	public byte[] serializeMessage() {
+		return sender.serializeMessage(packet);
+	}
+
+	@Benchmark
+	public void receiveMessage(Blackhole blackhole) {
+		MessageReceiver messageReceiver = (message) -> {
+			blackhole.consume(message);
+			return futuresFactory.completedFuture(null);
+		};
+		receiver.receiveMessage(serializedPacket, messageReceiver).toCompletableFuture().join();
+	}
+
+}
@@ -25,11 +25,18 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import space.arim.libertybans.api.LibertyBans;
 import space.arim.libertybans.core.addon.AddonCenter;
+import space.arim.libertybans.core.alts.AltCheckQueue;
 import space.arim.libertybans.core.commands.extra.TabCompletion;
 import space.arim.libertybans.core.config.Configs;
 import space.arim.libertybans.core.database.DatabaseManager;
 import space.arim.libertybans.core.env.EnvironmentManager;
+import space.arim.libertybans.core.punish.AssociationQueue;
+import space.arim.libertybans.core.selector.AccountClustering;
+import space.arim.libertybans.core.selector.cache.ActiveBanIndex;
 import space.arim.libertybans.core.selector.cache.MuteCache;
+import space.arim.libertybans.core.selector.cache.MuteCacheWarmup;
+import space.arim.libertybans.core.selector.cache.PunishmentCounts;
+import space.arim.libertybans.core.selector.cache.ServerSwitchBanCache;
 import space.arim.libertybans.core.service.AsynchronicityManager;
 import space.arim.libertybans.core.uuid.UUIDManager;
 import space.arim.omnibus.registry.Registration;
@@ -43,7 +50,14 @@ public class LifecycleGodfather extends AbstractBaseFoundation {
 	private final Configs configs;
 	private final DatabaseManager databaseManager;
 	private final UUIDManager uuidManager;
+	private final AccountClustering accountClustering;
 	private final MuteCache muteCache;
+	private final MuteCacheWarmup muteCacheWarmup;
+	private final ActiveBanIndex activeBanIndex;
+	private final ServerSwitchBanCache serverSwitchBanCache;
+	private final PunishmentCounts punishmentCounts;
+	private final AssociationQueue associationQueue;
+	private final AltCheckQueue altCheckQueue;
 	private final TabCompletion tabCompletion;
 	private final EnvironmentManager envManager;
 	private final AddonCenter addonCenter;
@@ -55,14 +69,24 @@ public class LifecycleGodfather extends AbstractBaseFoundation {
 
 	@Inject
 	public LifecycleGodfather(AsynchronicityManager asyncManager, Configs configs, DatabaseManager databaseManager,
-							  UUIDManager uuidManager, MuteCache muteCache, TabCompletion tabCompletion,
+							  UUIDManager uuidManager, AccountClustering accountClustering, MuteCache muteCache,
+							  MuteCacheWarmup muteCacheWarmup, ActiveBanIndex activeBanIndex,
+							  ServerSwitchBanCache serverSwitchBanCache, PunishmentCounts punishmentCounts,
+							  AssociationQueue associationQueue, AltCheckQueue altCheckQueue, TabCompletion tabCompletion,
 							  EnvironmentManager envManager, AddonCenter addonCenter,
 							  LibertyBans api) {
 		this.asyncManager = asyncManager;
 		this.configs = configs;
 		this.databaseManager = databaseManager;
 		this.uuidManager = uuidManager;
+		this.accountClustering = accountClustering;
 		this.muteCache = muteCache;
+		this.muteCacheWarmup = muteCacheWarmup;
+		this.activeBanIndex = activeBanIndex;
+		this.serverSwitchBanCache = serverSwitchBanCache;
+		this.punishmentCounts = punishmentCounts;
+		this.associationQueue = associationQueue;
+		this.altCheckQueue = altCheckQueue;
 		this.tabCompletion = tabCompletion;
 		this.envManager = envManager;
 		this.addonCenter = addonCenter;
@@ -76,10 +100,18 @@ public class LifecycleGodfather extends AbstractBaseFoundation {
 		configs.startup();
 		databaseManager.startup();
 		uuidManager.startup();
+		accountClustering.startup();
 		muteCache.startup();
+		activeBanIndex.startup();
+		serverSwitchBanCache.startup();
+		punishmentCounts.startup();
+		associationQueue.startup();
+		altCheckQueue.startup();
 		tabCompletion.startup();
 		addonCenter.startup();
 		envManager.startup();
+		// Players may already be online, such as if the plugin was reloaded
+		muteCacheWarmup.warmup();
 
 		apiRegistration = api.getOmnibus().getRegistry()
 				.register(LibertyBans.class, RegistryPriorities.LOWEST, api, "Reference impl");
@@ -91,14 +123,26 @@ public class LifecycleGodfather extends AbstractBaseFoundation {
 	@Override
 	void restart0() {
 		envManager.shutdown();
+		// Flush queued associations to the previous database
+		associationQueue.shutdown();
+		altCheckQueue.shutdown();
+		// Record the progress of account clusters in the previous database
+		accountClustering.shutdown();
 		asyncManager.restart();
 		configs.restart();
 		databaseManager.restart();
 		uuidManager.restart();
+		accountClustering.startup();
 		muteCache.restart();
+		activeBanIndex.restart();
+		serverSwitchBanCache.restart();
+		punishmentCounts.restart();
+		associationQueue.startup();
+		altCheckQueue.startup();
 		tabCompletion.restart();
 		addonCenter.restart();
 		envManager.startup();
+		muteCacheWarmup.warmup();
 	}
 
 	@Override
@@ -106,7 +150,13 @@ public class LifecycleGodfather extends AbstractBaseFoundation {
 		envManager.shutdown();
 		addonCenter.shutdown();
 		tabCompletion.shutdown();
+		altCheckQueue.shutdown();
+		associationQueue.shutdown();
+		punishmentCounts.shutdown();
+		serverSwitchBanCache.shutdown();
+		activeBanIndex.shutdown();
 		muteCache.shutdown();
+		accountClustering.shutdown();
 		uuidManager.shutdown();
 		configs.shutdown();
 		asyncManager.shutdown();
@@ -23,6 +23,7 @@ import jakarta.inject.Inject;
 import jakarta.inject.Provider;
 import space.arim.libertybans.api.select.PunishmentSelector;
 import space.arim.libertybans.core.database.InternalDatabase;
+import space.arim.libertybans.core.selector.cache.PunishmentCounts;
 import space.arim.omnibus.util.concurrent.CentralisedFuture;
 
 import static space.arim.libertybans.core.schema.tables.Punishments.PUNISHMENTS;
@@ -31,11 +32,14 @@ public final class RollbackExecutor {
 
 	private final Provider<InternalDatabase> dbProvider;
 	private final PunishmentSelector selector;
+	private final PunishmentCounts punishmentCounts;
 
 	@Inject
-	public RollbackExecutor(Provider<InternalDatabase> dbProvider, PunishmentSelector selector) {
+	public RollbackExecutor(Provider<InternalDatabase> dbProvider, PunishmentSelector selector,
+							PunishmentCounts punishmentCounts) {
 		this.dbProvider = dbProvider;
 		this.selector = selector;
+		this.punishmentCounts = punishmentCounts;
 	}
 
 	public CentralisedFuture<Integer> previewCount(PreparedRollback rollback) {
@@ -56,6 +60,10 @@ public final class RollbackExecutor {
 					.where(PUNISHMENTS.OPERATOR.eq(rollback.operator()))
 					.and(PUNISHMENTS.START.between(rollback.minStartTime(), rollback.maxStartTime()))
 					.execute();
+		}).thenApply((count) -> {
+			// The deleted punishments may belong to any victim
+			punishmentCounts.invalidateAll();
+			return count;
 		});
 	}
 }
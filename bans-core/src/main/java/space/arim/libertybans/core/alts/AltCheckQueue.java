@@ -0,0 +1,168 @@
+/*
+ * LibertyBans
+ * Copyright © 2023 Anand Beh
+ *
+ * LibertyBans is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * LibertyBans is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with LibertyBans. If not, see <https://www.gnu.org/licenses/>
+ * and navigate to version 3 of the GNU Affero General Public License.
+ */
+
+package space.arim.libertybans.core.alts;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import space.arim.libertybans.api.NetworkAddress;
+import space.arim.libertybans.core.Part;
+import space.arim.libertybans.core.config.Configs;
+import space.arim.libertybans.core.selector.EnforcementConfig;
+import space.arim.libertybans.core.service.SimpleThreadFactory;
+import space.arim.libertybans.core.service.Time;
+import space.arim.omnibus.util.ThisClass;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the alt-checks of joining players after they have logged in, on a dedicated
+ * and bounded executor. Repeated joins of the same player are coalesced.
+ *
+ */
+@Singleton
+public final class AltCheckQueue implements Part {
+
+	private final Configs configs;
+	private final AltDetection altDetection;
+	private final AltNotification altNotification;
+	private final Time time;
+
+	private volatile Running running;
+
+	/**
+	 * The amount of alt-checks which may run at once. Kept low, so that alt-checks
+	 * never occupy more than a small part of the connection pool
+	 */
+	private static final int CONCURRENT_CHECKS = 2;
+
+	private static final Logger logger = LoggerFactory.getLogger(ThisClass.get());
+
+	@Inject
+	public AltCheckQueue(Configs configs, AltDetection altDetection, AltNotification altNotification, Time time) {
+		this.configs = configs;
+		this.altDetection = altDetection;
+		this.altNotification = altNotification;
+		this.time = time;
+	}
+
+	private record Running(ThreadPoolExecutor executor, Cache<UUID, Boolean> recentChecks) { }
+
+	@Override
+	public void startup() {
+		EnforcementConfig.AltsAutoShow altsAutoShow = configs.getMainConfig().enforcement().altsAutoShow();
+		if (!altsAutoShow.enable() || !altsAutoShow.runAfterLogin()) {
+			return;
+		}
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(
+				CONCURRENT_CHECKS, CONCURRENT_CHECKS, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(altsAutoShow.maxPendingChecks()),
+				SimpleThreadFactory.create("AltCheck")
+		);
+		Cache<UUID, Boolean> recentChecks = Caffeine.newBuilder()
+				.expireAfterWrite(Duration.ofSeconds(altsAutoShow.coalesceWindowSeconds()))
+				.ticker(time.toCaffeineTicker())
+				.build();
+		running = new Running(executor, recentChecks);
+	}
+
+	@Override
+	public void restart() {
+		shutdown();
+		startup();
+	}
+
+	@Override
+	public void shutdown() {
+		Running running = this.running;
+		if (running == null) {
+			return;
+		}
+		this.running = null;
+		// Pending alt-checks are discarded; there is no point notifying staff while shutting down
+		running.executor.shutdownNow();
+		try {
+			boolean terminated = running.executor.awaitTermination(5L, TimeUnit.SECONDS);
+			if (!terminated) {
+				logger.warn("Reached timeout while waiting for alt-checks");
+			}
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			logger.warn("Interrupted while waiting for alt-checks", ex);
+		}
+	}
+
+	/**
+	 * Whether alt-checks of joining players should be submitted here, rather than run during the login
+	 *
+	 * @return true if enabled
+	 */
+	public boolean isEnabled() {
+		return running != null && configs.getMainConfig().enforcement().altsAutoShow().enable();
+	}
+
+	/**
+	 * Submits the alt-check for a player who has been allowed to join. The player's current address
+	 * must already be recorded. Does nothing if not enabled, or if the same player was checked recently
+	 *
+	 * @param uuid the player's uuid
+	 * @param name the player's name
+	 * @param address the player's address
+	 */
+	public void submit(UUID uuid, String name, NetworkAddress address) {
+		Running running = this.running;
+		if (running == null) {
+			return;
+		}
+		EnforcementConfig.AltsAutoShow altsAutoShow = configs.getMainConfig().enforcement().altsAutoShow();
+		if (!altsAutoShow.enable()) {
+			return;
+		}
+		if (running.recentChecks.asMap().putIfAbsent(uuid, Boolean.TRUE) != null) {
+			logger.trace("Coalescing alt-check of {}", uuid);
+			return;
+		}
+		WhichAlts whichAlts = altsAutoShow.showWhichAlts();
+		try {
+			running.executor.execute(() -> {
+				try {
+					List<DetectedAlt> detectedAlts = altDetection.detectAlts(uuid, address, whichAlts).join();
+					altNotification.notifyFoundAlts(uuid, name, address, detectedAlts);
+				} catch (RuntimeException ex) {
+					logger.warn("Failed to run alt-check of {}", uuid, ex);
+				}
+			});
+		} catch (RejectedExecutionException ex) {
+			// Allow the player to be checked again when they next join
+			running.recentChecks.invalidate(uuid);
+			logger.debug("Skipping alt-check of {} because too many alt-checks are pending", uuid);
+		}
+	}
+
+}
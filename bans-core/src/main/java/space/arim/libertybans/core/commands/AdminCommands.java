@@ -29,9 +29,13 @@ import space.arim.libertybans.core.addon.AddonCenter;
 import space.arim.libertybans.core.config.MessagesConfig;
 import space.arim.libertybans.core.env.CmdSender;
 import space.arim.libertybans.core.env.Environment;
+import space.arim.libertybans.core.punish.AssociationQueue;
+import space.arim.libertybans.core.selector.cache.AlwaysAvailableMuteCache;
+import space.arim.libertybans.core.selector.cache.MuteCache;
 import space.arim.omnibus.util.concurrent.CentralisedFuture;
 import space.arim.omnibus.util.concurrent.ReactionStage;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
@@ -44,15 +48,20 @@ public final class AdminCommands extends AbstractSubCommandGroup {
 	private final Provider<Environment> environment;
 	private final AddonCenter addonCenter;
 	private final PlatformHandle envHandle;
+	private final AssociationQueue associationQueue;
+	private final MuteCache muteCache;
 
 	@Inject
 	public AdminCommands(Dependencies dependencies, Provider<BaseFoundation> foundation,
-						 Provider<Environment> environment, AddonCenter addonCenter, PlatformHandle envHandle) {
+						 Provider<Environment> environment, AddonCenter addonCenter, PlatformHandle envHandle,
+						 AssociationQueue associationQueue, MuteCache muteCache) {
 		super(dependencies, Arrays.stream(Type.values()).map(Type::toString));
 		this.foundation = foundation;
 		this.environment = environment;
 		this.addonCenter = addonCenter;
 		this.envHandle = envHandle;
+		this.associationQueue = associationQueue;
+		this.muteCache = muteCache;
 	}
 
 	private MessagesConfig.Admin adminConfig() {
@@ -152,10 +161,24 @@ public final class AdminCommands extends AbstractSubCommandGroup {
 
 		private void debugCmd() {
 			String environmentImplName = environment.get().getClass().getSimpleName();
-			List<String> debugInfo = List.of(
+			List<String> debugInfo = new ArrayList<>(List.of(
 					"Version: " + PluginInfo.VERSION,
 					"Platform Category: " + environmentImplName.substring(0, environmentImplName.length() - 3),
-					"Platform Version: " + envHandle.getPlatformVersion()); // TODO add more debug information
+					"Platform Version: " + envHandle.getPlatformVersion())); // TODO add more debug information
+			if (associationQueue.isEnabled()) {
+				AssociationQueue.Statistics statistics = associationQueue.statistics();
+				debugInfo.add("Association Queue: " + statistics.queueDepth() + " queued, "
+						+ statistics.flushedAssociations() + " written, last flush "
+						+ statistics.lastFlushLatency().toMillis() + " ms, slowest flush "
+						+ statistics.maxFlushLatency().toMillis() + " ms");
+			}
+			if (muteCache instanceof AlwaysAvailableMuteCache alwaysAvailableMuteCache) {
+				AlwaysAvailableMuteCache.PurgeStatistics statistics = alwaysAvailableMuteCache.purgeStatistics();
+				debugInfo.add("Mute Cache Purge: " + statistics.lastEvicted() + " evicted last, "
+						+ statistics.totalEvicted() + " evicted in total, last purge "
+						+ statistics.lastPurgeDuration().toMillis() + " ms, slowest purge "
+						+ statistics.maxPurgeDuration().toMillis() + " ms");
+			}
 			debugInfo.forEach(sender()::sendLiteralMessage);
 		}
 		
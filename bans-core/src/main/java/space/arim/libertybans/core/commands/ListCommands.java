@@ -36,6 +36,7 @@ import space.arim.libertybans.api.select.SelectionBuilderBase;
 import space.arim.libertybans.api.select.SelectionOrderBuilder;
 import space.arim.libertybans.api.select.SelectionPredicate;
 import space.arim.libertybans.core.commands.extra.AsCompositeWildcard;
+import space.arim.libertybans.core.commands.extra.ListPagination;
 import space.arim.libertybans.core.commands.extra.ParseScope;
 import space.arim.libertybans.core.commands.extra.ParseVictim;
 import space.arim.libertybans.core.commands.extra.TabCompletion;
@@ -62,14 +63,16 @@ public class ListCommands extends AbstractSubCommandGroup {
 	private final PunishmentSelector selector;
 	private final InternalFormatter formatter;
 	private final TabCompletion tabCompletion;
+	private final ListPagination pagination;
 
 	@Inject
 	public ListCommands(Dependencies dependencies, PunishmentSelector selector,
-						InternalFormatter formatter, TabCompletion tabCompletion) {
+						InternalFormatter formatter, TabCompletion tabCompletion, ListPagination pagination) {
 		super(dependencies, "banlist", "mutelist", "history", "warns", "blame");
 		this.selector = selector;
 		this.formatter = formatter;
 		this.tabCompletion = tabCompletion;
+		this.pagination = pagination;
 	}
 
 	@Override
@@ -196,12 +199,19 @@ public class ListCommands extends AbstractSubCommandGroup {
 				return completedFuture(null);
 			}
 			int perPage = section.perPage();
-			SelectionBase selection = selectionBuilder
-					.scopes(scopeSelection)
-					.skipFirstRetrieved(perPage * (selectedPage - 1))
-					.limitToRetrieve(perPage)
-					.build();
-			return continueWithPageAndSelection(selection, selectedPage);
+			SelectionBase listing = selectionBuilder.scopes(scopeSelection).build();
+			ListPagination.PageKey pageKey = new ListPagination.PageKey(
+					sender().getOperator(), listing, perPage, selectedPage
+			);
+			ListPagination.Cursor cursor = pagination.cursorForPage(pageKey);
+			if (cursor == null) {
+				// First page, or a page not reached from a neighbouring page
+				selectionBuilder.skipFirstRetrieved(perPage * (selectedPage - 1));
+			} else {
+				selectionBuilder.seekBefore(cursor.startTime(), cursor.id());
+			}
+			SelectionBase selection = selectionBuilder.limitToRetrieve(perPage).build();
+			return continueWithPageAndSelection(pageKey, selection);
 		}
 
 		private int parsePage() {
@@ -217,12 +227,33 @@ public class ListCommands extends AbstractSubCommandGroup {
 			return page;
 		}
 
-		private ReactionStage<Void> continueWithPageAndSelection(SelectionBase selection, int page) {
+		private ReactionStage<Void> continueWithPageAndSelection(ListPagination.PageKey pageKey,
+																 SelectionBase selection) {
+			int page = pageKey.page();
 			return selection.getAllSpecificPunishments().thenCompose((punishments) -> {
-				return showPunishmentsOnPage(punishments, page);
+				pagination.recordPage(pageKey, punishments);
+				if (punishments.isEmpty()
+						|| !mentionsTotal(section.layoutHeader()) && !mentionsTotal(section.layoutFooter())) {
+					return showPunishmentsOnPage(punishments, page, -1);
+				}
+				return pagination.estimateTotal(pageKey.listing()).thenCompose((total) -> {
+					return showPunishmentsOnPage(punishments, page, total);
+				});
 			});
 		}
 
+		private boolean mentionsTotal(ComponentText layout) {
+			// Counting is only worthwhile if the count is displayed
+			boolean[] mentionsTotal = new boolean[1];
+			layout.replaceText((str) -> {
+				if (str.contains("%TOTAL%") || str.contains("%MAXPAGE%")) {
+					mentionsTotal[0] = true;
+				}
+				return str;
+			});
+			return mentionsTotal[0];
+		}
+
 		private String replaceTargetIn(String str) {
 			return (target == null) ? str : str.replace("%TARGET%", target);
 		}
@@ -242,7 +273,7 @@ public class ListCommands extends AbstractSubCommandGroup {
 			}
 		}
 
-		private CentralisedFuture<Void> showPunishmentsOnPage(List<Punishment> punishments, int page) {
+		private CentralisedFuture<Void> showPunishmentsOnPage(List<Punishment> punishments, int page, int total) {
 			if (punishments.isEmpty()) {
 				noPunishmentsOnThisPage(page);
 				return completedFuture(null);
@@ -263,6 +294,11 @@ public class ListCommands extends AbstractSubCommandGroup {
 					str = str.replace("%PAGE%", pageString)
 							.replace("%NEXTPAGE%", nextPageString)
 							.replace("%PREVIOUSPAGE%", previousPageString);
+					if (total != -1) {
+						int perPage = section.perPage();
+						str = str.replace("%TOTAL%", Integer.toString(total))
+								.replace("%MAXPAGE%", Integer.toString((total + perPage - 1) / perPage));
+					}
 					return replaceTargetIn(str);
 				}
 			}
@@ -0,0 +1,150 @@
+/*
+ * LibertyBans
+ * Copyright © 2023 Anand Beh
+ *
+ * LibertyBans is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * LibertyBans is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with LibertyBans. If not, see <https://www.gnu.org/licenses/>
+ * and navigate to version 3 of the GNU Affero General Public License.
+ */
+package space.arim.libertybans.core.commands.extra;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import space.arim.libertybans.api.Operator;
+import space.arim.libertybans.api.punish.Punishment;
+import space.arim.libertybans.api.select.SelectionBase;
+import space.arim.libertybans.core.service.Time;
+import space.arim.omnibus.util.concurrent.FactoryOfTheFuture;
+import space.arim.omnibus.util.concurrent.ReactionStage;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Keyset pagination for list commands. <br>
+ * <br>
+ * When a page of a listing is shown, the position of the following page is remembered for the viewer.
+ * Moving to the next or previous page then seeks directly to that position, instead of skipping
+ * all the punishments on the pages before it. Jumping to a page never visited falls back to
+ * skipping punishments. <br>
+ * <br>
+ * Listings are assumed to be ordered by {@link space.arim.libertybans.api.select.SortPunishments#NEWEST_FIRST}.
+ *
+ */
+@Singleton
+public class ListPagination {
+
+	private final FactoryOfTheFuture futuresFactory;
+
+	private final Cache<PageKey, Cursor> cursors;
+	private final Cache<SelectionBase, Integer> totalCounts;
+
+	@Inject
+	public ListPagination(FactoryOfTheFuture futuresFactory, Time time) {
+		this.futuresFactory = futuresFactory;
+		cursors = Caffeine.newBuilder()
+				.expireAfterAccess(Duration.ofMinutes(15L))
+				.maximumSize(10_000L)
+				.ticker(time.toCaffeineTicker())
+				.build();
+		totalCounts = Caffeine.newBuilder()
+				.expireAfterWrite(Duration.ofSeconds(30L))
+				.maximumSize(1_000L)
+				.ticker(time.toCaffeineTicker())
+				.build();
+	}
+
+	/**
+	 * A page of a listing, as seen by a viewer
+	 *
+	 * @param viewer the viewer
+	 * @param listing the selection of all punishments in the listing, without paging
+	 * @param perPage the amount of punishments per page
+	 * @param page the page number, starting at 1
+	 */
+	public record PageKey(Operator viewer, SelectionBase listing, int perPage, int page) {
+
+		PageKey withPage(int page) {
+			return new PageKey(viewer, listing, perPage, page);
+		}
+	}
+
+	/**
+	 * The position at which a page begins. The page consists of punishments whose start time
+	 * and ID are at most those of the cursor, per {@code seekBefore}
+	 *
+	 * @param startTime the maximum start time
+	 * @param id the maximum ID for punishments with the maximum start time
+	 */
+	public record Cursor(Instant startTime, long id) { }
+
+	/**
+	 * Gets the position of a page, if known
+	 *
+	 * @param pageKey the page
+	 * @return the cursor, or {@code null} if unknown
+	 */
+	public Cursor cursorForPage(PageKey pageKey) {
+		if (pageKey.page() == 1) {
+			// The first page always begins at the start
+			return null;
+		}
+		return cursors.getIfPresent(pageKey);
+	}
+
+	/**
+	 * Remembers the positions of a page which was shown and of the page following it
+	 *
+	 * @param pageKey the page
+	 * @param punishments the punishments shown on the page
+	 */
+	public void recordPage(PageKey pageKey, List<Punishment> punishments) {
+		if (punishments.isEmpty()) {
+			return;
+		}
+		if (pageKey.page() != 1) {
+			Punishment first = punishments.get(0);
+			cursors.put(pageKey, new Cursor(first.getStartDate(), first.getIdentifier()));
+		}
+		if (punishments.size() >= pageKey.perPage()) {
+			Punishment last = punishments.get(punishments.size() - 1);
+			// Seek before is inclusive, so exclude the last punishment shown
+			cursors.put(
+					pageKey.withPage(pageKey.page() + 1),
+					new Cursor(last.getStartDate(), last.getIdentifier() - 1L)
+			);
+		}
+	}
+
+	/**
+	 * Counts the punishments in a listing. The count is cached for a short while,
+	 * so it is an estimate if punishments were added or removed in the meantime
+	 *
+	 * @param listing the selection of all punishments in the listing, without paging
+	 * @return a future yielding the total amount of punishments
+	 */
+	public ReactionStage<Integer> estimateTotal(SelectionBase listing) {
+		Integer cached = totalCounts.getIfPresent(listing);
+		if (cached != null) {
+			return futuresFactory.completedFuture(cached);
+		}
+		return listing.countNumberOfPunishments().thenApply((count) -> {
+			totalCounts.put(listing, count);
+			return count;
+		});
+	}
+
+}
@@ -19,6 +19,9 @@
 
 package space.arim.libertybans.core.config;
 
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import jakarta.inject.Inject;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.ComponentLike;
@@ -51,12 +54,14 @@ import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.StringJoiner;
 import java.util.UUID;
-import java.util.function.UnaryOperator;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 public class Formatter implements InternalFormatter {
 
@@ -67,6 +72,11 @@ public class Formatter implements InternalFormatter {
 	private final Time time;
 	private final ComponentSerializer<Component, ? extends Component, String> messageParser;
 
+	/** Compiled message fragments, keyed by the source text */
+	private final Cache<String, MessageTemplate> templates = Caffeine.newBuilder().maximumSize(1000L).build();
+	/** Punishment messages with unchanging variables already formatted, keyed by punishment ID */
+	private final AsyncCache<Long, CachedMessage> punishmentMessages;
+
 	private static final long MARGIN_OF_INITIATION = 10; // seconds
 	
 	@Inject
@@ -83,6 +93,11 @@ public class Formatter implements InternalFormatter {
 		this.uuidManager = uuidManager;
 		this.time = time;
 		this.messageParser = messageParser;
+		punishmentMessages = Caffeine.newBuilder()
+				.maximumSize(1000L)
+				.expireAfterWrite(Duration.ofMinutes(10L))
+				.ticker(time.toCaffeineTicker())
+				.buildAsync();
 	}
 	
 	private MessagesConfig messages() {
@@ -106,7 +121,110 @@ public class Formatter implements InternalFormatter {
 	
 	@Override
 	public CentralisedFuture<Component> getPunishmentMessage(Punishment punishment) {
-		return formatWithPunishment(messages().additions().forType(punishment.getType()).layout(), punishment);
+		MessagesConfig messagesConfig = messages();
+		MainConfig mainConfig = configs.getMainConfig();
+		long id = punishment.getIdentifier();
+		// Concurrent requests for the same punishment share one computation
+		CompletableFuture<CachedMessage> cachedFuture = punishmentMessages.get(id, (key, executor) -> {
+			return cacheMessage(punishment, messagesConfig, mainConfig).toCompletableFuture();
+		});
+		return futuresFactory.copyFuture(cachedFuture).thenCompose((cached) -> {
+			if (cached.isValidFor(punishment, messagesConfig, mainConfig)) {
+				return cached.render(punishment);
+			}
+			CompletableFuture<CachedMessage> replacement = cacheMessage(
+					punishment, messagesConfig, mainConfig
+			).toCompletableFuture();
+			// Does not replace an entry which was added meanwhile
+			punishmentMessages.asMap().replace(id, cachedFuture, replacement);
+			return futuresFactory.copyFuture(replacement).thenCompose((newlyCached) -> newlyCached.render(punishment));
+		});
+	}
+
+	private CentralisedFuture<CachedMessage> cacheMessage(Punishment punishment,
+														  MessagesConfig messagesConfig, MainConfig mainConfig) {
+		ComponentText layout = messagesConfig.additions().forType(punishment.getType()).layout();
+		return valuesOfVariables(layout, punishment, null, true).thenApply((valueOfVariable) -> {
+			Map<String, MessageTemplate> fragments = new HashMap<>();
+			Component message = layout.replaceText((text) -> {
+				MessageTemplate fragment = fragments.computeIfAbsent(
+						text, (t) -> compileTemplate(t).renderPartially(valueOfVariable)
+				);
+				return fragment.render((variable) -> null);
+			}).asComponent();
+			for (MessageTemplate fragment : fragments.values()) {
+				if (fragment.hasVariables()) {
+					return new CachedMessage(punishment, messagesConfig, mainConfig, null, layout, fragments);
+				}
+			}
+			return new CachedMessage(punishment, messagesConfig, mainConfig, message, null, null);
+		});
+	}
+
+	@Override
+	public void clearCachedPunishmentMessage(long id) {
+		punishmentMessages.synchronous().invalidate(id);
+	}
+
+	/**
+	 * A punishment message which is either completely formatted, or whose fragments have only
+	 * the time-dependent variables and names remaining to be formatted
+	 *
+	 */
+	private final class CachedMessage {
+
+		private final Punishment punishment;
+		private final MessagesConfig messagesConfig;
+		private final MainConfig mainConfig;
+		private final Component message;
+		private final ComponentText layout;
+		/** The fragments of the layout with unchanging variables formatted, keyed by the source text */
+		private final Map<String, MessageTemplate> deferredFragments;
+
+		CachedMessage(Punishment punishment, MessagesConfig messagesConfig, MainConfig mainConfig,
+					  Component message, ComponentText layout, Map<String, MessageTemplate> deferredFragments) {
+			this.punishment = punishment;
+			this.messagesConfig = messagesConfig;
+			this.mainConfig = mainConfig;
+			this.message = message;
+			this.layout = layout;
+			this.deferredFragments = deferredFragments;
+		}
+
+		boolean isValidFor(Punishment punishment, MessagesConfig messagesConfig, MainConfig mainConfig) {
+			// Configuration reloads create new instances
+			if (this.messagesConfig != messagesConfig || this.mainConfig != mainConfig) {
+				return false;
+			}
+			// Guard against details modified without enforcement
+			Punishment cachedPunishment = this.punishment;
+			return cachedPunishment.getType() == punishment.getType()
+					&& cachedPunishment.getEndDateSeconds() == punishment.getEndDateSeconds()
+					&& cachedPunishment.getReason().equals(punishment.getReason())
+					&& cachedPunishment.getScope().equals(punishment.getScope())
+					&& cachedPunishment.getEscalationTrack().equals(punishment.getEscalationTrack());
+		}
+
+		CentralisedFuture<Component> render(Punishment punishment) {
+			if (deferredFragments == null) {
+				return futuresFactory.completedFuture(message);
+			}
+			Map<FutureReplaceable, CentralisedFuture<String>> futureReplacements = futureReplacements(layout, punishment, null);
+			return futuresFactory.allOf(futureReplacements.values()).thenApply((ignore) -> {
+				Function<String, String> valueOfVariable = valueOfVariable(
+						new SimpleReplacements(punishment, null), futureReplacements, false
+				);
+				// Only the deferred variables are rendered. Fragments without them are literal text
+				return layout.replaceText((text) -> {
+					MessageTemplate fragment = deferredFragments.get(text);
+					if (fragment == null) {
+						// Not visited when cached, so no variables are formatted yet
+						fragment = compileTemplate(text);
+					}
+					return fragment.render(valueOfVariable);
+				}).asComponent();
+			});
+		}
 	}
 	
 	@Override
@@ -123,6 +241,41 @@ public class Formatter implements InternalFormatter {
 
 	private CentralisedFuture<Component> formatWithPunishment(ComponentText componentText,
 															  Punishment punishment, Operator unOperator) {
+		return valuesOfVariables(componentText, punishment, unOperator, false).thenApply((valueOfVariable) -> {
+			return componentText.replaceText((text) -> compileTemplate(text).render(valueOfVariable)).asComponent();
+		});
+	}
+
+	private MessageTemplate compileTemplate(String text) {
+		return templates.get(text, (t) -> MessageTemplate.compile(t, Formatter::isVariable));
+	}
+
+	/**
+	 * Computes the values of variables
+	 *
+	 * @param componentText the text whose variables are needed
+	 * @param punishment the punishment
+	 * @param unOperator the undoing operator, or null if not applicable
+	 * @param deferChanging whether to leave as is the variables which may change while the punishment
+	 *                      details do not. These are the time-dependent variables, and names, which may change
+	 *                      whenever players rename themselves
+	 * @return a future yielding the value of each variable, or null for variables left as is
+	 */
+	private CentralisedFuture<Function<String, String>> valuesOfVariables(ComponentText componentText,
+																		  Punishment punishment, Operator unOperator,
+																		  boolean deferChanging) {
+		Map<FutureReplaceable, CentralisedFuture<String>> futureReplacements = (deferChanging) ?
+				Map.of() : futureReplacements(componentText, punishment, unOperator);
+		return futuresFactory.supplyAsync(() -> new SimpleReplacements(punishment, unOperator))
+				.thenCompose((simpleReplacements) -> {
+			return futuresFactory.allOf(futureReplacements.values()).thenApply((ignore) -> {
+				return valueOfVariable(simpleReplacements, futureReplacements, deferChanging);
+			});
+		});
+	}
+
+	private Map<FutureReplaceable, CentralisedFuture<String>> futureReplacements(ComponentText componentText,
+																				 Punishment punishment, Operator unOperator) {
 		Map<FutureReplaceable, CentralisedFuture<String>> futureReplacements = new EnumMap<>(FutureReplaceable.class);
 		for (FutureReplaceable futureReplaceable : FutureReplaceable.values()) {
 
@@ -134,10 +287,27 @@ public class Formatter implements InternalFormatter {
 				futureReplacements.put(futureReplaceable, replacement);
 			}
 		}
-		return futuresFactory.supplyAsync(() -> getSimpleReplacements(punishment, unOperator))
-				.thenCompose((simpleReplacements) -> {
-			return formatWithPunishment0(componentText, simpleReplacements, futureReplacements);
-		});
+		return futureReplacements;
+	}
+
+	// The future replacements must be complete
+	private static Function<String, String> valueOfVariable(SimpleReplacements simpleReplacements,
+															Map<FutureReplaceable, CentralisedFuture<String>> futureReplacements,
+															boolean deferTimeDependent) {
+		return (variable) -> {
+			SimpleReplaceable simpleReplaceable = SIMPLE_REPLACEABLES.get(variable);
+			if (simpleReplaceable != null) {
+				if (deferTimeDependent && simpleReplaceable.timeDependent) {
+					// Left as is, to be formatted later
+					return null;
+				}
+				return simpleReplacements.get(simpleReplaceable);
+			}
+			FutureReplaceable futureReplaceable = FUTURE_REPLACEABLES.get(variable);
+			CentralisedFuture<String> futureReplacement = (futureReplaceable == null) ?
+					null : futureReplacements.get(futureReplaceable);
+			return (futureReplacement == null) ? null : futureReplacement.join();
+		};
 	}
 	
 	private enum SimpleReplaceable {
@@ -151,21 +321,26 @@ public class Formatter implements InternalFormatter {
 		SCOPE,
 		DURATION,
 		START_DATE,
-		TIME_PASSED,
-		TIME_PASSED_SIMPLE,
+		TIME_PASSED(true),
+		TIME_PASSED_SIMPLE(true),
 		END_DATE,
-		TIME_REMAINING,
-		TIME_REMAINING_SIMPLE,
-		HAS_EXPIRED,
+		TIME_REMAINING(true),
+		TIME_REMAINING_SIMPLE(true),
+		HAS_EXPIRED(true),
 		TRACK,
 		TRACK_ID,
-		TRACK_NAMESPACE,
-		;
+		TRACK_NAMESPACE;
 
-		String getVariable() {
-			return "%" + name() + "%";
+		/** Whether the value changes as time passes */
+		final boolean timeDependent;
+
+		SimpleReplaceable(boolean timeDependent) {
+			this.timeDependent = timeDependent;
+		}
+
+		SimpleReplaceable() {
+			this(false);
 		}
-		
 	}
 	
 	private enum FutureReplaceable {
@@ -177,119 +352,140 @@ public class Formatter implements InternalFormatter {
 			return "%" + name() + "%";
 		}
 	}
-	
-	private Map<SimpleReplaceable, String> getSimpleReplacements(Punishment punishment, Operator unOperator) {
-		MessagesConfig.Formatting formatting = messages().formatting();
-
-		Map<SimpleReplaceable, String> simpleReplacements = new EnumMap<>(SimpleReplaceable.class);
-		simpleReplacements.put(SimpleReplaceable.ID, Long.toString(punishment.getIdentifier()));
-		simpleReplacements.put(SimpleReplaceable.TYPE, formatPunishmentType(punishment.getType()));
-		simpleReplacements.put(SimpleReplaceable.TYPE_VERB, formatPunishmentTypeVerb(punishment.getType()));
-		simpleReplacements.put(SimpleReplaceable.VICTIM_ID, formatVictimId(punishment.getVictim()));
-		simpleReplacements.put(SimpleReplaceable.OPERATOR_ID, formatOperatorId(punishment.getOperator()));
-		if (unOperator != null)
-			simpleReplacements.put(SimpleReplaceable.UNOPERATOR_ID, formatOperatorId(unOperator));
-		simpleReplacements.put(SimpleReplaceable.REASON, punishment.getReason());
-		simpleReplacements.put(SimpleReplaceable.SCOPE, formatScope(punishment.getScope()));
-		{
-			final long now = time.currentTime();
-			final long start = punishment.getStartDateSeconds();
 
-			final long timePassed = now - start;
-
-			final String durationFormatted;
-			final String relativeEndFormatted, relativeEndFormattedSimple;
-			boolean notExpired = false;
+	private static final Map<String, SimpleReplaceable> SIMPLE_REPLACEABLES = new HashMap<>();
+	private static final Map<String, FutureReplaceable> FUTURE_REPLACEABLES = new HashMap<>();
 
-			if (punishment.isPermanent()) {
-				// Permanent punishment
-				MessagesConfig.Formatting.PermanentDisplay display = formatting.permanentDisplay();
-				durationFormatted = display.duration();
-				relativeEndFormatted = display.relative();
-				relativeEndFormattedSimple = relativeEndFormatted;
-				notExpired = true;
-
-			} else {
-				final long end = punishment.getEndDateSeconds();
-				assert end != 0 : end;
-				// Temporary punishment
-				long duration = end - start;
-				durationFormatted = formatRelative(duration);
-
-				if (timePassed < MARGIN_OF_INITIATION) {
-					// Punishment recently enacted
-					// Using a margin of initiation prevents the "29 days, 23 hours, 59 minutes" issue
-					relativeEndFormatted = durationFormatted;
-					relativeEndFormattedSimple = formatRelativeSimple(duration);
-					notExpired = true;
-
-				} else if (timePassed >= duration) {
-					// Expired punishment
-					relativeEndFormatted = formatting.noTimeRemainingDisplay();
-					relativeEndFormattedSimple = relativeEndFormatted;
-				} else {
-					// Punishment still active
-					long timeRemaining = end - now;
-					relativeEndFormatted = formatRelative(timeRemaining);
-					relativeEndFormattedSimple = formatRelativeSimple(timeRemaining);
-					notExpired = true;
-				}
-			}
-			simpleReplacements.put(SimpleReplaceable.DURATION, durationFormatted);
-			simpleReplacements.put(SimpleReplaceable.START_DATE, formatAbsoluteDate(punishment.getStartDate()));
-			simpleReplacements.put(SimpleReplaceable.TIME_PASSED, formatRelative(timePassed));
-			simpleReplacements.put(SimpleReplaceable.TIME_PASSED_SIMPLE, formatRelativeSimple(timePassed));
-			simpleReplacements.put(SimpleReplaceable.END_DATE, formatAbsoluteDate(punishment.getEndDate()));
-			simpleReplacements.put(SimpleReplaceable.TIME_REMAINING, relativeEndFormatted);
-			simpleReplacements.put(SimpleReplaceable.TIME_REMAINING_SIMPLE, relativeEndFormattedSimple);
-			MessagesConfig.Formatting.PunishmentExpiredDisplay display = formatting.punishmentExpiredDisplay();
-			simpleReplacements.put(SimpleReplaceable.HAS_EXPIRED, (notExpired) ? display.notExpired() : display.expired());
+	static {
+		for (SimpleReplaceable simpleReplaceable : SimpleReplaceable.values()) {
+			SIMPLE_REPLACEABLES.put(simpleReplaceable.name(), simpleReplaceable);
 		}
-		String track, trackId, trackNamespace;
-		MessagesConfig.Formatting.TrackDisplay trackDisplay = formatting.trackDisplay();
-		EscalationTrack escalationTrack = punishment.getEscalationTrack().orElse(null);
-		if (escalationTrack == null) {
-			track = trackDisplay.noTrack();
-			trackId = trackDisplay.noTrackId();
-			trackNamespace = trackDisplay.noTrackNamespace();
-		} else {
-			String id = escalationTrack.getValue();
-			track = trackDisplay.trackDisplayNames().getOrDefault(id, id);
-			trackId = id;
-			trackNamespace = escalationTrack.getNamespace();
+		for (FutureReplaceable futureReplaceable : FutureReplaceable.values()) {
+			FUTURE_REPLACEABLES.put(futureReplaceable.name(), futureReplaceable);
 		}
-		simpleReplacements.put(SimpleReplaceable.TRACK, track);
-		simpleReplacements.put(SimpleReplaceable.TRACK_ID, trackId);
-		simpleReplacements.put(SimpleReplaceable.TRACK_NAMESPACE, trackNamespace);
+	}
 
-		return simpleReplacements;
+	private static boolean isVariable(String name) {
+		return SIMPLE_REPLACEABLES.containsKey(name) || FUTURE_REPLACEABLES.containsKey(name);
 	}
 
-	private CentralisedFuture<Component> formatWithPunishment0(ComponentText componentText,
-															   Map<SimpleReplaceable, String> simpleReplacements,
-															   Map<FutureReplaceable, CentralisedFuture<String>> futureReplacements) {
-		return futuresFactory.allOf(futureReplacements.values()).thenApply((ignore) -> {
+	/**
+	 * Computes simple replacements as they are needed. Each replacement is computed at most once
+	 *
+	 */
+	private final class SimpleReplacements {
 
-			class Replacer implements UnaryOperator<String> {
-				@Override
-				public String apply(String text) {
-					for (Map.Entry<SimpleReplaceable, String> simpleReplacement : simpleReplacements.entrySet()) {
-						text = text.replace(
-								simpleReplacement.getKey().getVariable(),
-								simpleReplacement.getValue());
-					}
-					for (Map.Entry<FutureReplaceable, CentralisedFuture<String>> futureReplacement : futureReplacements.entrySet()) {
-						text = text.replace(
-								futureReplacement.getKey().getVariable(),
-								futureReplacement.getValue().join());
+		private final Punishment punishment;
+		private final Operator unOperator;
+		private final long now = time.currentTime();
+
+		private final Map<SimpleReplaceable, String> computed = new EnumMap<>(SimpleReplaceable.class);
+		private RelativeEnd relativeEnd;
+
+		SimpleReplacements(Punishment punishment, Operator unOperator) {
+			this.punishment = punishment;
+			this.unOperator = unOperator;
+		}
+
+		String get(SimpleReplaceable simpleReplaceable) {
+			if (simpleReplaceable == SimpleReplaceable.UNOPERATOR_ID && unOperator == null) {
+				return null;
+			}
+			String value = computed.get(simpleReplaceable);
+			if (value == null) {
+				value = compute(simpleReplaceable);
+				computed.put(simpleReplaceable, value);
+			}
+			return value;
+		}
+
+		private String compute(SimpleReplaceable simpleReplaceable) {
+			MessagesConfig.Formatting formatting = messages().formatting();
+			return switch (simpleReplaceable) {
+				case ID -> Long.toString(punishment.getIdentifier());
+				case TYPE -> formatPunishmentType(punishment.getType());
+				case TYPE_VERB -> formatPunishmentTypeVerb(punishment.getType());
+				case VICTIM_ID -> formatVictimId(punishment.getVictim());
+				case OPERATOR_ID -> formatOperatorId(punishment.getOperator());
+				case UNOPERATOR_ID -> formatOperatorId(unOperator);
+				case REASON -> punishment.getReason();
+				case SCOPE -> formatScope(punishment.getScope());
+				case DURATION -> relativeEnd().durationFormatted;
+				case START_DATE -> formatAbsoluteDate(punishment.getStartDate());
+				case TIME_PASSED -> formatRelative(now - punishment.getStartDateSeconds());
+				case TIME_PASSED_SIMPLE -> formatRelativeSimple(now - punishment.getStartDateSeconds());
+				case END_DATE -> formatAbsoluteDate(punishment.getEndDate());
+				case TIME_REMAINING -> relativeEnd().relativeEndFormatted;
+				case TIME_REMAINING_SIMPLE -> relativeEnd().relativeEndFormattedSimple;
+				case HAS_EXPIRED -> {
+					MessagesConfig.Formatting.PunishmentExpiredDisplay display = formatting.punishmentExpiredDisplay();
+					yield (relativeEnd().notExpired) ? display.notExpired() : display.expired();
+				}
+				case TRACK, TRACK_ID, TRACK_NAMESPACE -> {
+					MessagesConfig.Formatting.TrackDisplay trackDisplay = formatting.trackDisplay();
+					EscalationTrack escalationTrack = punishment.getEscalationTrack().orElse(null);
+					if (escalationTrack == null) {
+						yield switch (simpleReplaceable) {
+							case TRACK -> trackDisplay.noTrack();
+							case TRACK_ID -> trackDisplay.noTrackId();
+							default -> trackDisplay.noTrackNamespace();
+						};
 					}
-					return text;
+					String id = escalationTrack.getValue();
+					yield switch (simpleReplaceable) {
+						case TRACK -> trackDisplay.trackDisplayNames().getOrDefault(id, id);
+						case TRACK_ID -> id;
+						default -> escalationTrack.getNamespace();
+					};
 				}
+			};
+		}
+
+		private RelativeEnd relativeEnd() {
+			if (relativeEnd == null) {
+				relativeEnd = computeRelativeEnd();
 			}
-			return componentText.replaceText(new Replacer()).asComponent();
-		});
+			return relativeEnd;
+		}
+
+		private RelativeEnd computeRelativeEnd() {
+			final long start = punishment.getStartDateSeconds();
+			final long timePassed = now - start;
+
+			if (punishment.isPermanent()) {
+				// Permanent punishment
+				MessagesConfig.Formatting.PermanentDisplay display = messages().formatting().permanentDisplay();
+				String relativeEndFormatted = display.relative();
+				return new RelativeEnd(display.duration(), relativeEndFormatted, relativeEndFormatted, true);
+			}
+			final long end = punishment.getEndDateSeconds();
+			assert end != 0 : end;
+			// Temporary punishment
+			long duration = end - start;
+			String durationFormatted = formatRelative(duration);
+
+			if (timePassed < MARGIN_OF_INITIATION) {
+				// Punishment recently enacted
+				// Using a margin of initiation prevents the "29 days, 23 hours, 59 minutes" issue
+				return new RelativeEnd(durationFormatted, durationFormatted, formatRelativeSimple(duration), true);
+
+			} else if (timePassed >= duration) {
+				// Expired punishment
+				String relativeEndFormatted = messages().formatting().noTimeRemainingDisplay();
+				return new RelativeEnd(durationFormatted, relativeEndFormatted, relativeEndFormatted, false);
+			} else {
+				// Punishment still active
+				long timeRemaining = end - now;
+				return new RelativeEnd(
+						durationFormatted, formatRelative(timeRemaining), formatRelativeSimple(timeRemaining), true
+				);
+			}
+		}
 	}
-	
+
+	private record RelativeEnd(String durationFormatted, String relativeEndFormatted,
+							   String relativeEndFormattedSimple, boolean notExpired) { }
+
 	private CentralisedFuture<String> getFutureReplacement(FutureReplaceable futureReplaceable, Punishment punishment,
 			Operator unOperator) {
 		return switch (futureReplaceable) {
@@ -54,6 +54,14 @@ public interface InternalFormatter extends PunishmentFormatter {
 	 * @return a future yielding the formatted sendable message
 	 */
 	CentralisedFuture<Component> getPunishmentMessage(Punishment punishment);
+
+	/**
+	 * Discards the punishment message cached for a punishment, if any. Used when the punishment's
+	 * details are updated, or it is revoked.
+	 *
+	 * @param id the punishment ID
+	 */
+	void clearCachedPunishmentMessage(long id);
 	
 	/**
 	 * Parses and formats a message with a punishment
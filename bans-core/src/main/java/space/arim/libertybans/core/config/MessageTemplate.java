@@ -0,0 +1,139 @@
+/*
+ * LibertyBans
+ * Copyright © 2023 Anand Beh
+ *
+ * LibertyBans is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * LibertyBans is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with LibertyBans. If not, see <https://www.gnu.org/licenses/>
+ * and navigate to version 3 of the GNU Affero General Public License.
+ */
+package space.arim.libertybans.core.config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * A message fragment compiled into literal text and variables, such as {@literal %REASON%}.
+ * Rendering a compiled template is a single pass, and only the variables present are computed.
+ *
+ */
+final class MessageTemplate {
+
+	/** One more literal than there are variables. Literals may be empty */
+	private final String[] literals;
+	private final String[] variables;
+
+	private MessageTemplate(String[] literals, String[] variables) {
+		this.literals = literals;
+		this.variables = variables;
+	}
+
+	/**
+	 * Compiles the given text
+	 *
+	 * @param text the text
+	 * @param isVariable whether a name enclosed in percent signs is a variable
+	 * @return the compiled template
+	 */
+	static MessageTemplate compile(String text, Predicate<String> isVariable) {
+		List<String> literals = new ArrayList<>();
+		List<String> variables = new ArrayList<>();
+		int literalStart = 0;
+		int searchFrom = 0;
+		int percent;
+		while ((percent = text.indexOf('%', searchFrom)) != -1) {
+			int closingPercent = text.indexOf('%', percent + 1);
+			if (closingPercent == -1) {
+				break;
+			}
+			String name = text.substring(percent + 1, closingPercent);
+			if (isVariable.test(name)) {
+				literals.add(text.substring(literalStart, percent));
+				variables.add(name);
+				literalStart = closingPercent + 1;
+				searchFrom = literalStart;
+			} else {
+				// The closing percent sign may begin a variable
+				searchFrom = closingPercent;
+			}
+		}
+		literals.add(text.substring(literalStart));
+		return new MessageTemplate(literals.toArray(String[]::new), variables.toArray(String[]::new));
+	}
+
+	/**
+	 * Whether this template contains any variables
+	 *
+	 * @return true if there are variables
+	 */
+	boolean hasVariables() {
+		return variables.length != 0;
+	}
+
+	/**
+	 * Renders the variables whose values are available now, leaving the others to be rendered later.
+	 * Values become literal text, so they are never scanned for variables themselves
+	 *
+	 * @param valueOfVariable computes the value of a variable, or yields null to defer the variable
+	 * @return a template containing only the deferred variables
+	 */
+	MessageTemplate renderPartially(Function<String, String> valueOfVariable) {
+		if (variables.length == 0) {
+			return this;
+		}
+		List<String> literals = new ArrayList<>();
+		List<String> deferred = new ArrayList<>();
+		StringBuilder literal = new StringBuilder(this.literals[0]);
+		for (int n = 0; n < variables.length; n++) {
+			String variable = variables[n];
+			String value = valueOfVariable.apply(variable);
+			if (value == null) {
+				literals.add(literal.toString());
+				deferred.add(variable);
+				literal.setLength(0);
+			} else {
+				literal.append(value);
+			}
+			literal.append(this.literals[n + 1]);
+		}
+		literals.add(literal.toString());
+		return new MessageTemplate(literals.toArray(String[]::new), deferred.toArray(String[]::new));
+	}
+
+	/**
+	 * Renders this template
+	 *
+	 * @param valueOfVariable computes the value of a variable, or yields null to leave the variable as is
+	 * @return the rendered text
+	 */
+	String render(Function<String, String> valueOfVariable) {
+		if (variables.length == 0) {
+			return literals[0];
+		}
+		StringBuilder builder = new StringBuilder();
+		for (int n = 0; n < variables.length; n++) {
+			builder.append(literals[n]);
+			String variable = variables[n];
+			String value = valueOfVariable.apply(variable);
+			if (value == null) {
+				builder.append('%').append(variable).append('%');
+			} else {
+				builder.append(value);
+			}
+		}
+		builder.append(literals[variables.length]);
+		return builder.toString();
+	}
+
+}
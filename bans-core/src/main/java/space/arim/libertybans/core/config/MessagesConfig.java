@@ -77,6 +77,8 @@ import space.arim.libertybans.core.alts.AltsSection;
 		"%TARGET% - the original target argument of a command. For example, in '/ipban Player1', %TARGET% is Player1",
 		"%NEXTPAGE% - the number of the next page of a list like history",
 		"%PREVIOUSPAGE% - the number of the previous page of a list like history",
+		"%TOTAL% - the approximate number of punishments in a list like history",
+		"%MAXPAGE% - the approximate number of pages of a list like history",
 		"",
 		""})
 public interface MessagesConfig {
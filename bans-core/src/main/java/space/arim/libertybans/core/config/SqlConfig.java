@@ -20,6 +20,7 @@
 package space.arim.libertybans.core.config;
 
 import space.arim.dazzleconf.annote.ConfComments;
+import space.arim.dazzleconf.annote.ConfDefault.DefaultBoolean;
 import space.arim.dazzleconf.annote.ConfDefault.DefaultInteger;
 import space.arim.dazzleconf.annote.ConfDefault.DefaultString;
 import space.arim.dazzleconf.annote.ConfHeader;
@@ -98,6 +99,99 @@ public interface SqlConfig extends DatabaseSettingsConfig {
 			EXPIRE_AFTER_ACCESS,
 			EXPIRE_AFTER_WRITE
 		}
+
+		@ConfKey("persist-across-restarts")
+		@ConfComments({"Whether to save the mute cache when LibertyBans shuts down or restarts, and to restore it",
+				"afterward. This avoids querying the database for every online player after a restart or reload.",
+				"The restored cache is validated against the database using a single query.",
+				"",
+				"This is only relevant on platforms where mutes must be available immediately, such as Bukkit and Sponge.",
+				"The cache is saved in the internal folder."})
+		@DefaultBoolean(true)
+		boolean persistAcrossRestarts();
+	}
+
+	@ConfKey("ban-indexing")
+	@SubSection
+	BanIndexing banIndexing();
+
+	@ConfHeader({"Optionally, all active bans may be kept in memory so that incoming connections",
+			"can be checked without querying the database.",
+			"",
+			"This is useful for large networks which experience many connections at once, such as after a proxy restart.",
+			"The index is loaded at startup and kept up-to-date by punishment enforcement, including synchronization.",
+			"",
+			"Note: The index is only used with the LENIENT and NORMAL address strictness settings."})
+	interface BanIndexing {
+
+		@ConfComments("Whether to enable the active ban index")
+		@DefaultBoolean(false)
+		boolean enable();
+
+		@ConfKey("reconciliation-interval-seconds")
+		@ConfComments({"How often the index is fully reloaded from the database, in seconds.",
+				"This picks up changes made without enforcement, such as by other software or by the API."})
+		@IntegerRange(min = 30L)
+		@DefaultInteger(600)
+		int reconciliationIntervalSeconds();
+	}
+
+	@ConfKey("write-behind-associations")
+	@SubSection
+	WriteBehindAssociations writeBehindAssociations();
+
+	@ConfHeader({"When a player joins, their name and address are recorded in the database.",
+			"Optionally, these records may be queued and written in batches, rather than during the login itself.",
+			"",
+			"Name records are always written in the background when this is enabled. Address records are",
+			"written in the background only with the LENIENT address strictness, and with the connection limiter",
+			"and alts auto-show disabled; otherwise, address records are needed by the login checks",
+			"and are written immediately.",
+			"",
+			"Queued records are flushed when LibertyBans shuts down or restarts."})
+	interface WriteBehindAssociations {
+
+		@ConfComments("Whether to enable write-behind association")
+		@DefaultBoolean(false)
+		boolean enable();
+
+		@ConfKey("flush-interval-millis")
+		@ConfComments("How frequently queued records are written to the database, in milliseconds.")
+		@IntegerRange(min = 100L, max = 60_000L)
+		@DefaultInteger(2000)
+		long flushIntervalMillis();
+
+		@ConfKey("max-queue-size")
+		@ConfComments({"The maximum number of records which may be queued.",
+				"If the queue is full, records will be written immediately during the login."})
+		@IntegerRange(min = 1L)
+		@DefaultInteger(10000)
+		int maxQueueSize();
+	}
+
+	@ConfKey("account-clustering")
+	@SubSection
+	AccountClustering accountClustering();
+
+	@ConfHeader({"The STERN and STRICT address strictness settings link accounts which have shared an address.",
+			"On large networks with many accounts behind shared addresses, such as schools or mobile carriers,",
+			"finding these links becomes slow, because every account on a shared address is linked to every other one.",
+			"",
+			"Optionally, linked accounts may be grouped into clusters which are stored in the database and updated",
+			"as players join. Linked accounts are then found through a simple lookup of the cluster.",
+			"",
+			"Note well: clusters are transitive. If account A shared an address with B, and B shared a different",
+			"address with C, then A and C are in the same cluster even though they never shared an address.",
+			"Therefore, STERN and STRICT punishments apply more broadly when this option is enabled.",
+			"",
+			"Clusters are built when first enabled, which may take some time on large databases.",
+			"Afterward, at startup, only the addresses used since the last shutdown are linked.",
+			"If using multiple instances, enable this on all of them."})
+	interface AccountClustering {
+
+		@ConfComments("Whether to enable account clustering")
+		@DefaultBoolean(false)
+		boolean enable();
 	}
 
 	@SubSection
@@ -128,6 +222,19 @@ public interface SqlConfig extends DatabaseSettingsConfig {
 		@DefaultInteger(4000)
 		long pollRateMillis();
 
+		@ConfKey("push-notifications")
+		@ConfComments({"Whether to use push notifications, where supported by the database. Currently, only PostgreSQL",
+				"supports this. Other instances are notified of new messages immediately, rather than waiting for",
+				"the next poll, which reduces both latency and database load.",
+				"",
+				"When enabled and supported, the database is polled only infrequently, as a safety net.",
+				"If notifications become unavailable, for example because of a connection failure,",
+				"polling resumes at the poll rate until notifications are restored.",
+				"",
+				"Note that this holds one connection from the connection pool for receiving notifications."})
+		@DefaultBoolean(true)
+		boolean pushNotifications();
+
 		default boolean enabled() {
 			return mode() == SyncMode.ANSI_SQL;
 		}
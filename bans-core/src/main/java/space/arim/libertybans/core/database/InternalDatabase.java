@@ -23,6 +23,7 @@ import org.jooq.DSLContext;
 import space.arim.libertybans.api.PunishmentType;
 import space.arim.libertybans.api.database.PunishmentDatabase;
 import space.arim.libertybans.core.database.execute.QueryExecutor;
+import space.arim.libertybans.core.database.sql.IdentifierCache;
 
 import java.sql.Connection;
 import java.sql.SQLException;
@@ -36,6 +37,13 @@ public interface InternalDatabase extends QueryExecutor {
 
 	void clearExpiredPunishments(DSLContext context, PunishmentType type, Instant currentTime);
 
+	/**
+	 * Gets the cache of victim, scope, and track identifiers for this database
+	 *
+	 * @return the identifier cache
+	 */
+	IdentifierCache identifierCache();
+
 	/**
 	 * Designed to be used by testing, to clear all tables after one integration test
 	 * 
@@ -31,6 +31,7 @@ import java.sql.SQLException;
 import java.time.Duration;
 import java.time.Instant;
 
+import static org.jooq.impl.DSL.max;
 import static space.arim.libertybans.core.schema.tables.Messages.MESSAGES;
 
 /**
@@ -78,10 +79,19 @@ public final class RefreshTaskRunnable implements Runnable {
 			if (manager.configs().getSqlConfig().synchronization().enabled()) {
 				Instant deleteMessagesBefore = currentTime.minus(MESSAGE_EXPIRATION_TIME);
 				database.executeWithExistingConnection(connection, (context, transaction) -> {
-					context
-							.deleteFrom(MESSAGES)
+					// Messages are polled by identifier, so delete up to an identifier watermark
+					Long watermark = context
+							.select(max(MESSAGES.ID))
+							.from(MESSAGES)
 							.where(MESSAGES.TIME.lessOrEqual(deleteMessagesBefore))
-							.execute();
+							.fetchSingle()
+							.value1();
+					if (watermark != null) {
+						context
+								.deleteFrom(MESSAGES)
+								.where(MESSAGES.ID.lessOrEqual(watermark))
+								.execute();
+					}
 				});
 			}
 		} catch (SQLException ex) {
@@ -32,6 +32,7 @@ import space.arim.libertybans.core.database.execute.SQLFunction;
 import space.arim.libertybans.core.database.execute.SQLRunnable;
 import space.arim.libertybans.core.database.execute.SQLTransactionalFunction;
 import space.arim.libertybans.core.database.execute.SQLTransactionalRunnable;
+import space.arim.libertybans.core.database.sql.IdentifierCache;
 import space.arim.libertybans.core.database.sql.TableForType;
 import space.arim.libertybans.core.service.Time;
 import space.arim.omnibus.util.ThisClass;
@@ -58,9 +59,11 @@ public final class StandardDatabase implements InternalDatabase, AutoCloseable {
 	private final QueryExecutor queryExecutor;
 	private final ExecutorService threadPool;
 	private final PunishmentDatabase external = new External();
+	private final IdentifierCache identifierCache = new IdentifierCache();
 
 	private ScheduledTask expirationRefreshTask;
 	private ScheduledTask synchronizationPollTask;
+	private SyncNotificationListener synchronizationListener;
 
 	private static final Logger logger = LoggerFactory.getLogger(ThisClass.get());
 
@@ -88,11 +91,15 @@ public final class StandardDatabase implements InternalDatabase, AutoCloseable {
 		);
 		var synchronizationConf = manager.configs().getSqlConfig().synchronization();
 		if (synchronizationConf.enabled()) {
-			synchronizationPollTask = enhancedExecutor.scheduleRepeating(
-					manager.globalEnforcement(),
-					Duration.ofMillis(synchronizationConf.pollRateMillis()),
-					DelayCalculators.fixedDelay()
-			);
+			Duration pollRate = Duration.ofMillis(synchronizationConf.pollRateMillis());
+			if (synchronizationConf.pushNotifications() && vendor.supportsListenNotify()) {
+				synchronizationListener = new SyncNotificationListener(this, manager.globalEnforcement(), pollRate);
+				synchronizationListener.start();
+			} else {
+				synchronizationPollTask = enhancedExecutor.scheduleRepeating(
+						manager.globalEnforcement(), pollRate, DelayCalculators.fixedDelay()
+				);
+			}
 		}
 	}
 
@@ -102,6 +109,10 @@ public final class StandardDatabase implements InternalDatabase, AutoCloseable {
 			synchronizationPollTask.cancel();
 			synchronizationPollTask = null;
 		}
+		if (synchronizationListener != null) {
+			synchronizationListener.stop();
+			synchronizationListener = null;
+		}
 	}
 
 	@Override
@@ -136,6 +147,11 @@ public final class StandardDatabase implements InternalDatabase, AutoCloseable {
 		return vendor;
 	}
 
+	@Override
+	public IdentifierCache identifierCache() {
+		return identifierCache;
+	}
+
 	@Override
 	public void executeWithExistingConnection(Connection connection, SQLTransactionalRunnable command) throws SQLException {
 		queryExecutor.executeWithExistingConnection(connection, command);
@@ -182,6 +198,7 @@ public final class StandardDatabase implements InternalDatabase, AutoCloseable {
 				context.deleteFrom(table).execute();
 			}
 		}).join();
+		identifierCache.clear();
 	}
 
 	@Override
@@ -0,0 +1,224 @@
+/*
+ * LibertyBans
+ * Copyright © 2023 Anand Beh
+ *
+ * LibertyBans is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * LibertyBans is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with LibertyBans. If not, see <https://www.gnu.org/licenses/>
+ * and navigate to version 3 of the GNU Affero General Public License.
+ */
+
+package space.arim.libertybans.core.database;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import space.arim.libertybans.core.service.SimpleThreadFactory;
+import space.arim.omnibus.util.ThisClass;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+/**
+ * Drives synchronization polling using PostgreSQL's LISTEN/NOTIFY. The poll task is run
+ * whenever a notification is received, and otherwise at a low frequency as a safety net.
+ * If notifications are unavailable, the poll task is run at the regular poll rate
+ * while periodically attempting to restore notifications. <br>
+ * <br>
+ * The PostgreSQL driver is accessed reflectively, since it is only a runtime dependency. If the
+ * driver cannot be used, notifications are no longer attempted and regular polling continues.
+ *
+ */
+final class SyncNotificationListener implements Runnable {
+
+	private final InternalDatabase database;
+	private final Runnable pollTask;
+	private final Duration pollRate;
+
+	private final Thread thread;
+	private volatile boolean stopped;
+	private Connection connection;
+	private Object pgConnection;
+	private long lastConnectAttempt;
+	private boolean driverUnusable;
+
+	/** The poll rate while notifications are working */
+	private static final Duration SAFETY_POLL_RATE = Duration.ofMillis(RefreshTaskRunnable.MAX_POLL_RATE_MILLIS);
+	/** How long to block at once, so that stopping is responsive */
+	private static final int WAIT_TIMEOUT_MILLIS = 500;
+	private static final Duration RECONNECT_INTERVAL = Duration.ofSeconds(30L);
+
+	private static final Logger logger = LoggerFactory.getLogger(ThisClass.get());
+
+	SyncNotificationListener(InternalDatabase database, Runnable pollTask, Duration pollRate) {
+		this.database = database;
+		this.pollTask = pollTask;
+		this.pollRate = pollRate;
+		thread = SimpleThreadFactory.create("SyncListener").newThread(this);
+		thread.setDaemon(true);
+	}
+
+	void start() {
+		thread.start();
+	}
+
+	void stop() {
+		stopped = true;
+		thread.interrupt();
+		try {
+			thread.join(Duration.ofSeconds(5L).toMillis());
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+		if (thread.isAlive()) {
+			logger.warn("Synchronization listener did not stop in time");
+		}
+	}
+
+	@Override
+	public void run() {
+		try {
+			while (!stopped) {
+				if (!awaitNotifications()) {
+					// Notifications are unavailable; use regular polling
+					Thread.sleep(pollRate.toMillis());
+				}
+				if (!stopped) {
+					runPollTask();
+				}
+			}
+		} catch (InterruptedException ignored) {
+			// Stopped
+		} finally {
+			closeConnection();
+		}
+	}
+
+	private void runPollTask() {
+		try {
+			pollTask.run();
+		} catch (RuntimeException ex) {
+			logger.warn("Exception while polling for synchronization messages", ex);
+		}
+	}
+
+	/**
+	 * Waits for notifications, up to the safety poll rate
+	 *
+	 * @return true if notifications are working, false otherwise
+	 */
+	private boolean awaitNotifications() {
+		if (driverUnusable) {
+			return false;
+		}
+		try {
+			if (pgConnection == null) {
+				long currentTime = System.nanoTime();
+				if (lastConnectAttempt != 0L && currentTime - lastConnectAttempt < RECONNECT_INTERVAL.toNanos()) {
+					return false;
+				}
+				lastConnectAttempt = currentTime;
+				listen();
+				logger.debug("Listening for synchronization notifications");
+			}
+			long waitUntil = System.nanoTime() + SAFETY_POLL_RATE.toNanos();
+			while (!stopped && System.nanoTime() - waitUntil < 0) {
+				if (PgDriver.receiveNotifications(pgConnection, WAIT_TIMEOUT_MILLIS)) {
+					break;
+				}
+			}
+			return true;
+		} catch (SQLException ex) {
+			if (!stopped) {
+				logger.warn("Synchronization notifications are unavailable. Falling back to polling.", ex);
+			}
+			closeConnection();
+			return false;
+		} catch (RuntimeException | LinkageError ex) {
+			// For example, the driver is missing or failed to initialize. Retrying will not help
+			logger.warn("Synchronization notifications are not supported by the database driver. " +
+					"Falling back to polling.", ex);
+			driverUnusable = true;
+			closeConnection();
+			return false;
+		}
+	}
+
+	private void listen() throws SQLException {
+		connection = database.getConnection();
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("LISTEN \"" + DatabaseConstants.SYNCHRONIZATION_CHANNEL + '"');
+		}
+		if (!connection.getAutoCommit()) {
+			connection.commit();
+		}
+		pgConnection = PgDriver.unwrap(connection);
+	}
+
+	private void closeConnection() {
+		pgConnection = null;
+		if (connection != null) {
+			try {
+				connection.close();
+			} catch (SQLException ex) {
+				logger.debug("Failed to close listener connection", ex);
+			}
+			connection = null;
+		}
+	}
+
+	private static final class PgDriver {
+
+		private static final Class<?> PG_CONNECTION;
+		private static final MethodHandle GET_NOTIFICATIONS;
+
+		static {
+			try {
+				PG_CONNECTION = Class.forName("org.postgresql.PGConnection");
+				Class<?> pgNotification = Class.forName("org.postgresql.PGNotification");
+				GET_NOTIFICATIONS = MethodHandles.publicLookup().findVirtual(
+						PG_CONNECTION, "getNotifications", MethodType.methodType(pgNotification.arrayType(), int.class)
+				);
+			} catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException ex) {
+				throw new ExceptionInInitializerError(ex);
+			}
+		}
+
+		static Object unwrap(Connection connection) throws SQLException {
+			return connection.unwrap(PG_CONNECTION);
+		}
+
+		/**
+		 * Blocks until notifications are received or the timeout elapses
+		 *
+		 * @param pgConnection the driver connection
+		 * @param timeoutMillis the timeout
+		 * @return true if any notifications were received
+		 * @throws SQLException if the connection failed
+		 */
+		static boolean receiveNotifications(Object pgConnection, int timeoutMillis) throws SQLException {
+			try {
+				Object[] notifications = (Object[]) GET_NOTIFICATIONS.invoke(pgConnection, timeoutMillis);
+				return notifications != null && notifications.length != 0;
+			} catch (SQLException | RuntimeException | Error ex) {
+				throw ex;
+			} catch (Throwable ex) {
+				throw new SQLException("Unexpected exception receiving notifications", ex);
+			}
+		}
+	}
+
+}
@@ -59,6 +59,15 @@ public enum Vendor {
 		return driver == JdbcDriver.PG_JDBC;
 	}
 
+	/**
+	 * Whether LISTEN and NOTIFY are supported. CockroachDB does not implement them
+	 *
+	 * @return true if supported
+	 */
+	public boolean supportsListenNotify() {
+		return this == POSTGRES;
+	}
+
 	public SQLDialect dialect() {
 		return switch (this) {
 			case HSQLDB -> SQLDialect.HSQLDB;
@@ -156,6 +156,7 @@ public final class JooqQueryExecutor implements QueryExecutor {
 						}
 						throw unableToCommit(connection, ex);
 					}
+					transaction.runCommitActions();
 				}
 				if (retry != 0) {
 					logger.trace("Database operation succeeded after {} tries", retry);
@@ -194,6 +195,7 @@ public final class JooqQueryExecutor implements QueryExecutor {
 			} catch (SQLException ex) {
 				throw unableToCommit(connection, ex);
 			}
+			transaction.runCommitActions();
 		}
 	}
 
@@ -25,6 +25,8 @@ import org.jooq.exception.DataAccessException;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 
 final class RollbackTrackingTransaction implements Transaction {
@@ -33,6 +35,7 @@ final class RollbackTrackingTransaction implements Transaction {
 	private final Connection connection;
 	private boolean rolledBack;
 	private int savepointCounter;
+	private final List<Runnable> commitActions = new ArrayList<>();
 
 	RollbackTrackingTransaction(DSLContext context, Connection connection) {
 		this.context = Objects.requireNonNull(context, "context");
@@ -43,6 +46,18 @@ final class RollbackTrackingTransaction implements Transaction {
 		return !rolledBack;
 	}
 
+	/**
+	 * Runs the actions registered with {@link #afterCommit(Runnable)}. Should be called
+	 * once the transaction has been committed.
+	 *
+	 */
+	void runCommitActions() {
+		for (Runnable action : commitActions) {
+			action.run();
+		}
+		commitActions.clear();
+	}
+
 	@Override
 	public void setIsolation(int level) {
 		try {
@@ -60,15 +75,21 @@ final class RollbackTrackingTransaction implements Transaction {
 			throw new DataAccessException("Failed to rollback", ex);
 		} finally {
 			rolledBack = true;
+			commitActions.clear();
 		}
 	}
 
+	@Override
+	public void afterCommit(Runnable action) {
+		commitActions.add(Objects.requireNonNull(action, "action"));
+	}
+
 	@Override
 	public <R> R executeNested(SQLTransactionalFunction<R> command) {
 		R value;
 		try {
 			Savepoint savepoint = connection.setSavepoint("Savepoint-" + savepointCounter++);
-			NestedTransaction nested = new NestedTransaction(savepoint);
+			NestedTransaction nested = new NestedTransaction(savepoint, commitActions.size());
 			value = command.obtain(context, nested);
 			if (!nested.rolledBack) {
 				connection.releaseSavepoint(savepoint);
@@ -91,10 +112,12 @@ final class RollbackTrackingTransaction implements Transaction {
 	private final class NestedTransaction implements Transaction {
 
 		private final Savepoint savepoint;
+		private final int commitActionsMark;
 		private boolean rolledBack;
 
-		private NestedTransaction(Savepoint savepoint) {
+		private NestedTransaction(Savepoint savepoint, int commitActionsMark) {
 			this.savepoint = Objects.requireNonNull(savepoint, "savepoint");
+			this.commitActionsMark = commitActionsMark;
 		}
 
 		@Override
@@ -110,6 +133,13 @@ final class RollbackTrackingTransaction implements Transaction {
 			} catch (SQLException ex) {
 				throw new DataAccessException("Failed to rollback to savepoint", ex);
 			}
+			// Discard actions registered since the savepoint
+			commitActions.subList(Math.min(commitActionsMark, commitActions.size()), commitActions.size()).clear();
+		}
+
+		@Override
+		public void afterCommit(Runnable action) {
+			RollbackTrackingTransaction.this.afterCommit(action);
 		}
 
 		@Override
@@ -39,6 +39,16 @@ public interface Transaction {
 	 */
 	void rollback();
 
+	/**
+	 * Registers an action to be run once the enclosing transaction commits. If the enclosing scope
+	 * is rolled back, the action is discarded and never run. <br>
+	 * <br>
+	 * Useful for updating in-memory state which should only reflect committed data.
+	 *
+	 * @param action the action to run after commit
+	 */
+	void afterCommit(Runnable action);
+
 	/**
 	 * Executes a nested transaction, using savepoints
 	 *
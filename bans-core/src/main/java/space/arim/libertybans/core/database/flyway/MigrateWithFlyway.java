@@ -56,6 +56,7 @@ public final class MigrateWithFlyway {
 		var classProvider = migrationState.asClassProvider(List.of(
 				V1__Principle.class, V16__Complete_migration_from_08x.class,
 				V31__Track_identifier_sequence.class, V34__Scope_identifier_sequence.class, V38__Scope_migration.class,
+				V39__Message_identifier_sequence.class,
 				R__Set_Revision.class
 		));
 		return Flyway
@@ -0,0 +1,130 @@
+/*
+ * LibertyBans
+ * Copyright © 2023 Anand Beh
+ *
+ * LibertyBans is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * LibertyBans is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with LibertyBans. If not, see <https://www.gnu.org/licenses/>
+ * and navigate to version 3 of the GNU Affero General Public License.
+ */
+
+package space.arim.libertybans.core.database.sql;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import space.arim.libertybans.api.Victim;
+import space.arim.libertybans.api.punish.EscalationTrack;
+import space.arim.libertybans.api.scope.ServerScope;
+import space.arim.libertybans.core.database.execute.Transaction;
+
+import java.util.Objects;
+
+/**
+ * Caches the identifiers of victims, scopes, and escalation tracks, so that resolving them
+ * does not require querying the database each time. Thread safe. <br>
+ * <br>
+ * Rows in the victims, scopes, and tracks tables are never deleted nor changed once created.
+ * However, an identifier is only cached once the transaction which observed it commits; if the
+ * transaction is rolled back, the identifier may never have existed. This is accomplished with
+ * {@link Transaction#afterCommit(Runnable)}.
+ *
+ */
+public final class IdentifierCache {
+
+	private final Cache<Victim, Integer> victimIds;
+	private final Cache<ServerScope, Integer> scopeIds;
+	private final Cache<EscalationTrack, Integer> trackIds;
+
+	public IdentifierCache() {
+		victimIds = Caffeine.newBuilder().maximumSize(10_000L).build();
+		// Scopes and tracks are few in number and rarely change
+		scopeIds = Caffeine.newBuilder().maximumSize(1_000L).build();
+		trackIds = Caffeine.newBuilder().maximumSize(1_000L).build();
+	}
+
+	/**
+	 * Gets the victim identifiers, within the given transaction
+	 *
+	 * @param transaction the transaction
+	 * @return the victim identifiers
+	 */
+	public Lookup<Victim> victimIds(Transaction transaction) {
+		return new Lookup<>(victimIds, Objects.requireNonNull(transaction, "transaction"));
+	}
+
+	/**
+	 * Gets the scope identifiers, within the given transaction
+	 *
+	 * @param transaction the transaction
+	 * @return the scope identifiers
+	 */
+	public Lookup<ServerScope> scopeIds(Transaction transaction) {
+		return new Lookup<>(scopeIds, Objects.requireNonNull(transaction, "transaction"));
+	}
+
+	/**
+	 * Gets the track identifiers, within the given transaction
+	 *
+	 * @param transaction the transaction
+	 * @return the track identifiers
+	 */
+	public Lookup<EscalationTrack> trackIds(Transaction transaction) {
+		return new Lookup<>(trackIds, Objects.requireNonNull(transaction, "transaction"));
+	}
+
+	/**
+	 * Clears all cached identifiers. Must be used if the database is modified such that
+	 * an identifier may no longer be valid, such as by truncating tables.
+	 *
+	 */
+	public void clear() {
+		victimIds.invalidateAll();
+		scopeIds.invalidateAll();
+		trackIds.invalidateAll();
+	}
+
+	/**
+	 * Access to cached identifiers from within a transaction
+	 *
+	 * @param <K> the key type
+	 */
+	public static final class Lookup<K> {
+
+		private final Cache<K, Integer> cache;
+		private final Transaction transaction;
+
+		private Lookup(Cache<K, Integer> cache, Transaction transaction) {
+			this.cache = cache;
+			this.transaction = transaction;
+		}
+
+		/**
+		 * A lookup which caches nothing
+		 *
+		 * @param <K> the key type
+		 * @return a lookup which never caches
+		 */
+		static <K> Lookup<K> disabled() {
+			return new Lookup<>(null, null);
+		}
+
+		Integer get(K key) {
+			return (cache == null) ? null : cache.getIfPresent(key);
+		}
+
+		void remember(K key, int id) {
+			if (cache != null) {
+				transaction.afterCommit(() -> cache.put(key, id));
+			}
+		}
+	}
+}
@@ -32,11 +32,18 @@ import static space.arim.libertybans.core.schema.tables.Scopes.SCOPES;
 
 public final class ScopeIdSequenceValue extends SequenceValue<Integer> {
 
+	private final IdentifierCache.Lookup<ServerScope> cachedIds;
+
 	public ScopeIdSequenceValue(DSLContext context) {
+		this(context, IdentifierCache.Lookup.disabled());
+	}
+
+	public ScopeIdSequenceValue(DSLContext context, IdentifierCache.Lookup<ServerScope> cachedIds) {
 		super(context, LIBERTYBANS_SCOPE_IDS);
+		this.cachedIds = cachedIds;
 	}
 
-	private RetrieveOrGenerate retrieveOrGenerate(ScopeType type, String value) {
+	private RetrieveOrGenerate retrieveOrGenerate(ServerScope scope, ScopeType type, String value) {
 		return new RetrieveOrGenerate(
 				SCOPES, SCOPES.ID,
 				SCOPES.TYPE.eq(type).and(SCOPES.VALUE.eq(value)),
@@ -46,7 +53,8 @@ public final class ScopeIdSequenceValue extends SequenceValue<Integer> {
 							.columns(SCOPES.ID, SCOPES.TYPE, SCOPES.VALUE)
 							.values(newId, val(type), val(value))
 							.execute();
-				}
+				},
+				(id) -> cachedIds.remember(scope, id)
 		);
 	}
 
@@ -55,7 +63,11 @@ public final class ScopeIdSequenceValue extends SequenceValue<Integer> {
 			if (type == ScopeType.GLOBAL) {
 				return castNull(Integer.class);
 			}
-			return retrieveOrGenerate(type, value).execute();
+			Integer cachedId = cachedIds.get(scope);
+			if (cachedId != null) {
+				return val(cachedId);
+			}
+			return retrieveOrGenerate(scope, type, value).execute();
 		});
 	}
 
@@ -64,7 +76,11 @@ public final class ScopeIdSequenceValue extends SequenceValue<Integer> {
 			if (type == ScopeType.GLOBAL) {
 				return null;
 			}
-			return retrieveOrGenerate(type, value).executeReified();
+			Integer cachedId = cachedIds.get(scope);
+			if (cachedId != null) {
+				return cachedId;
+			}
+			return retrieveOrGenerate(scope, type, value).executeReified();
 		});
 	}
 
@@ -108,13 +108,29 @@ public class SequenceValue<R extends Number> {
 		private final Field<R> sequenceValueField;
 		private final Condition matchExisting;
 		private final Consumer<Field<R>> insertNew;
+		private final Consumer<R> identified;
 
 		RetrieveOrGenerate(Table<?> table, Field<R> sequenceValueField,
 						   Condition matchExisting, Consumer<Field<R>> insertNew) {
+			this(table, sequenceValueField, matchExisting, insertNew, (id) -> {});
+		}
+
+		/**
+		 * Creates from the given details
+		 *
+		 * @param table the table
+		 * @param sequenceValueField the identifier field
+		 * @param matchExisting the condition matching an existing row
+		 * @param insertNew inserts a new row with the given identifier
+		 * @param identified receives the identifier whenever its value is known without further queries
+		 */
+		RetrieveOrGenerate(Table<?> table, Field<R> sequenceValueField,
+						   Condition matchExisting, Consumer<Field<R>> insertNew, Consumer<R> identified) {
 			this.table = table;
 			this.sequenceValueField = sequenceValueField;
 			this.matchExisting = matchExisting;
 			this.insertNew = insertNew;
+			this.identified = identified;
 		}
 
 		Field<R> execute() {
@@ -124,6 +140,7 @@ public class SequenceValue<R extends Number> {
 					.where(matchExisting)
 					.fetchOne(sequenceValueField);
 			if (existingId != null) {
+				identified.accept(existingId);
 				return val(existingId);
 			}
 			insertNew.accept(nextValue());
@@ -137,10 +154,13 @@ public class SequenceValue<R extends Number> {
 					.where(matchExisting)
 					.fetchOne(sequenceValueField);
 			if (existingId != null) {
+				identified.accept(existingId);
 				return existingId;
 			}
 			insertNew.accept(nextValue());
-			return context.select(lastValueInSession()).fetchSingle(sequenceValueField);
+			R newId = context.select(lastValueInSession()).fetchSingle(sequenceValueField);
+			identified.accept(newId);
+			return newId;
 		}
 	}
 
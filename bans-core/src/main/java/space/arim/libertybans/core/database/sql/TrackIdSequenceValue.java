@@ -30,14 +30,18 @@ import static space.arim.libertybans.core.schema.tables.Tracks.TRACKS;
 
 public final class TrackIdSequenceValue extends SequenceValue<Integer> {
 
+	private final IdentifierCache.Lookup<EscalationTrack> cachedIds;
+
 	public TrackIdSequenceValue(DSLContext context) {
+		this(context, IdentifierCache.Lookup.disabled());
+	}
+
+	public TrackIdSequenceValue(DSLContext context, IdentifierCache.Lookup<EscalationTrack> cachedIds) {
 		super(context, LIBERTYBANS_TRACK_IDS);
+		this.cachedIds = cachedIds;
 	}
 
-	public Field<Integer> retrieveTrackId(EscalationTrack escalationTrack) {
-		if (escalationTrack == null) {
-			return castNull(Integer.class);
-		}
+	private RetrieveOrGenerate retrieveOrGenerate(EscalationTrack escalationTrack) {
 		return new RetrieveOrGenerate(
 				TRACKS, TRACKS.ID,
 				TRACKS.NAMESPACE.eq(escalationTrack.getNamespace())
@@ -48,8 +52,31 @@ public final class TrackIdSequenceValue extends SequenceValue<Integer> {
 							.columns(TRACKS.ID, TRACKS.NAMESPACE, TRACKS.VALUE)
 							.values(newId, val(escalationTrack.getNamespace()), val(escalationTrack.getValue()))
 							.execute();
-				}
-		).execute();
+				},
+				(id) -> cachedIds.remember(escalationTrack, id)
+		);
+	}
+
+	public Field<Integer> retrieveTrackId(EscalationTrack escalationTrack) {
+		if (escalationTrack == null) {
+			return castNull(Integer.class);
+		}
+		Integer cachedId = cachedIds.get(escalationTrack);
+		if (cachedId != null) {
+			return val(cachedId);
+		}
+		return retrieveOrGenerate(escalationTrack).execute();
+	}
+
+	public Integer retrieveTrackIdReified(EscalationTrack escalationTrack) {
+		if (escalationTrack == null) {
+			return null;
+		}
+		Integer cachedId = cachedIds.get(escalationTrack);
+		if (cachedId != null) {
+			return cachedId;
+		}
+		return retrieveOrGenerate(escalationTrack).executeReified();
 	}
 
 }
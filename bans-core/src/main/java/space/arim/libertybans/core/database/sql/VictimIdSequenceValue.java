@@ -29,11 +29,18 @@ import static space.arim.libertybans.core.schema.tables.Victims.VICTIMS;
 
 public final class VictimIdSequenceValue extends SequenceValue<Integer> {
 
+	private final IdentifierCache.Lookup<Victim> cachedIds;
+
 	public VictimIdSequenceValue(DSLContext context) {
+		this(context, IdentifierCache.Lookup.disabled());
+	}
+
+	public VictimIdSequenceValue(DSLContext context, IdentifierCache.Lookup<Victim> cachedIds) {
 		super(context, LIBERTYBANS_VICTIM_IDS);
+		this.cachedIds = cachedIds;
 	}
 
-	public Field<Integer> retrieveVictimId(Victim victim) {
+	private RetrieveOrGenerate retrieveOrGenerate(Victim victim) {
 		VictimData victimData = FixedVictimData.from(new SerializedVictim(victim));
 		return new RetrieveOrGenerate(
 				VICTIMS, VICTIMS.ID,
@@ -49,8 +56,25 @@ public final class VictimIdSequenceValue extends SequenceValue<Integer> {
 									val(victimData.address(), VICTIMS.ADDRESS)
 							)
 							.execute();
-				}
-		).execute();
+				},
+				(id) -> cachedIds.remember(victim, id)
+		);
+	}
+
+	public Field<Integer> retrieveVictimId(Victim victim) {
+		Integer cachedId = cachedIds.get(victim);
+		if (cachedId != null) {
+			return val(cachedId);
+		}
+		return retrieveOrGenerate(victim).execute();
+	}
+
+	public int retrieveVictimIdReified(Victim victim) {
+		Integer cachedId = cachedIds.get(victim);
+		if (cachedId != null) {
+			return cachedId;
+		}
+		return retrieveOrGenerate(victim).executeReified();
 	}
 
 }
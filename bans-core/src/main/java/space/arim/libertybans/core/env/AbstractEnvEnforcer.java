@@ -30,10 +30,10 @@ import space.arim.omnibus.util.ThisClass;
 import space.arim.omnibus.util.concurrent.CentralisedFuture;
 import space.arim.omnibus.util.concurrent.FactoryOfTheFuture;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Objects;
+import java.util.UUID;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 public abstract class AbstractEnvEnforcer<P> implements EnvEnforcer<P> {
 
@@ -41,15 +41,36 @@ public abstract class AbstractEnvEnforcer<P> implements EnvEnforcer<P> {
 	private final InternalFormatter formatter;
 	private final Interlocutor interlocutor;
 	private final AudienceRepresenter<? super P> audienceRepresenter;
+	private final StaffAudience<P> staffAudience;
+	private final EnforcementBatcher<P> batcher;
 
 	private static final Logger logger = LoggerFactory.getLogger(ThisClass.get());
 
 	protected AbstractEnvEnforcer(FactoryOfTheFuture futuresFactory, InternalFormatter formatter,
 								  Interlocutor interlocutor, AudienceRepresenter<? super P> audienceRepresenter) {
+		this(futuresFactory, formatter, interlocutor, audienceRepresenter, null);
+	}
+
+	/**
+	 * Creates the enforcer for a platform which can look up online players by uuid directly. The direct
+	 * lookup is used by batches of a single action, rather than indexing all online players
+	 *
+	 * @param futuresFactory the futures factory
+	 * @param formatter the formatter
+	 * @param interlocutor the interlocutor
+	 * @param audienceRepresenter the audience representer
+	 * @param directLookup finds an online player by uuid, returning null if not online. Called within
+	 *                     {@link #doForAllPlayers(Consumer)}
+	 */
+	protected AbstractEnvEnforcer(FactoryOfTheFuture futuresFactory, InternalFormatter formatter,
+								  Interlocutor interlocutor, AudienceRepresenter<? super P> audienceRepresenter,
+								  Function<UUID, P> directLookup) {
 		this.futuresFactory = Objects.requireNonNull(futuresFactory, "futuresFactory");
 		this.formatter = Objects.requireNonNull(formatter, "formatter");
 		this.interlocutor = Objects.requireNonNull(interlocutor, "interlocutor");
 		this.audienceRepresenter = Objects.requireNonNull(audienceRepresenter, "audienceRepresenter");
+		staffAudience = new StaffAudience<>(this, System::nanoTime);
+		batcher = new EnforcementBatcher<>(futuresFactory, this, staffAudience, directLookup);
 	}
 
 	protected FactoryOfTheFuture futuresFactory() {
@@ -70,28 +91,58 @@ public abstract class AbstractEnvEnforcer<P> implements EnvEnforcer<P> {
 	}
 
 	private CentralisedFuture<Void> sendToThoseWithPermissionNoPrefix(String permission, Component message) {
-		Consumer<P> callback;
 		if (interlocutor.shouldFilterIpAddresses()) {
-			Component stripped = interlocutor.stripIpAddresses(message);
-			callback = (player) -> {
-				if (hasPermission(player, permission)) {
+			return batcher.submit((onlinePlayers) -> {
+				Component stripped = null;
+				for (P player : onlinePlayers.withPermission(permission)) {
 					Component chosen;
+					// Checked live, so that staff stop seeing IP addresses as soon as the permission is removed
 					if (hasPermission(player, Interlocutor.PERMISSION_TO_VIEW_IPS)) {
 						chosen = message;
 					} else {
+						// Only strip IP addresses if somebody will see the stripped message
+						if (stripped == null) {
+							stripped = interlocutor.stripIpAddresses(message);
+						}
 						chosen = stripped;
 					}
 					sendMessageNoPrefix(player, chosen);
 				}
-			};
-		} else {
-			callback = (player) -> {
-				if (hasPermission(player, permission)) {
-					sendMessageNoPrefix(player, message);
-				}
-			};
+			});
 		}
-		return doForAllPlayers((players) -> players.forEach(callback));
+		return batcher.submit((onlinePlayers) -> {
+			for (P player : onlinePlayers.withPermission(permission)) {
+				sendMessageNoPrefix(player, message);
+			}
+		});
+	}
+
+	/**
+	 * Informs this enforcer that a player joined, so that the player receives the notifications
+	 * for which they have permission. Should be called by a platform listener
+	 *
+	 * @param player the player
+	 */
+	public final void playerJoined(P player) {
+		staffAudience.playerJoined(player);
+	}
+
+	/**
+	 * Informs this enforcer that a player quit. Should be called by a platform listener
+	 *
+	 * @param player the player
+	 */
+	public final void playerQuit(P player) {
+		staffAudience.playerQuit(player);
+	}
+
+	/**
+	 * Rebuilds the players known to have the permissions for notifications when next needed.
+	 * Should be called when a platform listener for joins and quits is registered, since
+	 * players may have joined or quit while it was not
+	 */
+	public final void refreshStaffAudience() {
+		staffAudience.clear();
 	}
 
 	@Override
@@ -123,16 +174,29 @@ public abstract class AbstractEnvEnforcer<P> implements EnvEnforcer<P> {
 
 	@Override
 	public final CentralisedFuture<Void> enforceMatcher(TargetMatcher<P> matcher) {
-		return doForAllPlayers((players) -> {
-			List<P> matchedPlayers = new ArrayList<>();
+		return batcher.submit((onlinePlayers) -> {
 			// Some platforms do not provide guarantees about concurrent iteration in presence of kicks
 			// Proxies effectively must, but game server APIs like Bukkit and Sponge need not
-			for (P player : players) {
-				if (matcher.matches(getUniqueIdFor(player), getAddressFor(player))) {
-					matchedPlayers.add(player);
-				}
+			// Therefore, players are matched before the callback is invoked
+			onlinePlayers.matching(matcher).forEach(matcher.callback());
+		});
+	}
+
+	/**
+	 * Implements {@link #doForPlayerIfOnline(UUID, Consumer)} for platforms where
+	 * {@link #doForAllPlayers(Consumer)} switches threads, by coalescing the lookup
+	 * with other pending enforcement
+	 *
+	 * @param uuid the uuid
+	 * @param callback the callback
+	 * @return a future completed when the operation is done
+	 */
+	protected final CentralisedFuture<Void> doForPlayerIfOnlineInBatch(UUID uuid, Consumer<P> callback) {
+		return batcher.submit((onlinePlayers) -> {
+			P player = onlinePlayers.byUuid(uuid);
+			if (player != null) {
+				callback.accept(player);
 			}
-			matchedPlayers.forEach(matcher.callback());
 		});
 	}
 
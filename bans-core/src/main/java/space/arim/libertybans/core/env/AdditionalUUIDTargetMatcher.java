@@ -34,6 +34,14 @@ public final class AdditionalUUIDTargetMatcher<P> implements TargetMatcher<P> {
 		this.delegate = Objects.requireNonNull(delegate, "delegate");
 	}
 
+	UUID uuid() {
+		return uuid;
+	}
+
+	TargetMatcher<P> delegate() {
+		return delegate;
+	}
+
 	@Override
 	public boolean matches(UUID uuid, InetAddress address) {
 		return this.uuid.equals(uuid) || delegate.matches(uuid, address);
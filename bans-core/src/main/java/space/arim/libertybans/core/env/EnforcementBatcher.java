@@ -0,0 +1,248 @@
+/*
+ * LibertyBans
+ * Copyright © 2023 Anand Beh
+ *
+ * LibertyBans is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * LibertyBans is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with LibertyBans. If not, see <https://www.gnu.org/licenses/>
+ * and navigate to version 3 of the GNU Affero General Public License.
+ */
+package space.arim.libertybans.core.env;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+import space.arim.omnibus.util.concurrent.CentralisedFuture;
+import space.arim.omnibus.util.concurrent.FactoryOfTheFuture;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Coalesces actions which require the online players, such that the actions pending at the same
+ * time are run in a single task. On platforms where {@link EnvEnforcer#doForAllPlayers(Consumer)}
+ * switches to the main thread, this is one main thread task per batch, rather than one per action. <br>
+ * <br>
+ * No delay is added: a batch consists of the actions submitted until the task begins running.
+ * Within a batch, the online players are indexed by uuid and address as needed. A batch holding a
+ * single action looks up players by uuid directly instead, if the platform supports it.
+ *
+ * @param <P> the player type
+ */
+final class EnforcementBatcher<P> {
+
+	private final FactoryOfTheFuture futuresFactory;
+	private final EnvEnforcer<P> envEnforcer;
+	private final StaffAudience<P> staffAudience;
+	private final @Nullable Function<UUID, @Nullable P> directLookup;
+
+	private final Object lock = new Object();
+	/** Guarded by lock */
+	private List<PendingAction<P>> pendingActions = new ArrayList<>();
+	/** Guarded by lock */
+	private boolean batchScheduled;
+
+	/**
+	 * Creates the batcher
+	 *
+	 * @param futuresFactory the futures factory
+	 * @param envEnforcer the enforcer
+	 * @param staffAudience the staff audience
+	 * @param directLookup finds an online player by uuid, or null if the platform cannot do so directly.
+	 *                     Called within {@link EnvEnforcer#doForAllPlayers(Consumer)}
+	 */
+	EnforcementBatcher(FactoryOfTheFuture futuresFactory, EnvEnforcer<P> envEnforcer, StaffAudience<P> staffAudience,
+					   @Nullable Function<UUID, @Nullable P> directLookup) {
+		this.futuresFactory = futuresFactory;
+		this.envEnforcer = envEnforcer;
+		this.staffAudience = staffAudience;
+		this.directLookup = directLookup;
+	}
+
+	private record PendingAction<P>(Consumer<OnlinePlayers<P>> action, CentralisedFuture<Void> future) { }
+
+	/**
+	 * Submits an action to be run in the next batch
+	 *
+	 * @param action the action
+	 * @return a future completed once the action has run
+	 */
+	CentralisedFuture<Void> submit(Consumer<OnlinePlayers<P>> action) {
+		CentralisedFuture<Void> future = futuresFactory.newIncompleteFuture();
+		List<PendingAction<P>> batch;
+		boolean scheduleBatch;
+		synchronized (lock) {
+			pendingActions.add(new PendingAction<>(action, future));
+			scheduleBatch = !batchScheduled;
+			batchScheduled = true;
+			// The pending actions are replaced when drained, so this list is exactly the scheduled batch
+			batch = pendingActions;
+		}
+		if (scheduleBatch) {
+			envEnforcer.doForAllPlayers(this::runBatch).whenComplete((ignore, ex) -> {
+				if (ex != null) {
+					failBatch(batch, ex);
+				}
+			});
+		}
+		return future;
+	}
+
+	private void failBatch(List<PendingAction<P>> batch, Throwable ex) {
+		synchronized (lock) {
+			if (pendingActions == batch) {
+				// The batch never ran, so later actions must be scheduled in a new batch
+				pendingActions = new ArrayList<>();
+				batchScheduled = false;
+			}
+		}
+		// Actions which already ran are unaffected, since their futures are complete
+		for (PendingAction<P> pendingAction : batch) {
+			pendingAction.future.completeExceptionally(ex);
+		}
+	}
+
+	private List<PendingAction<P>> drainPendingActions() {
+		synchronized (lock) {
+			List<PendingAction<P>> drained = pendingActions;
+			pendingActions = new ArrayList<>();
+			batchScheduled = false;
+			return drained;
+		}
+	}
+
+	private void runBatch(Collection<? extends P> players) {
+		List<PendingAction<P>> actions = drainPendingActions();
+		OnlinePlayers<P> onlinePlayers = new OnlinePlayers<>(
+				envEnforcer, staffAudience, players, (actions.size() == 1) ? directLookup : null
+		);
+		for (PendingAction<P> pendingAction : actions) {
+			try {
+				pendingAction.action.accept(onlinePlayers);
+			} catch (RuntimeException ex) {
+				pendingAction.future.completeExceptionally(ex);
+				continue;
+			}
+			pendingAction.future.complete(null);
+		}
+	}
+
+	/**
+	 * The online players during a batch. Indexes are computed when first needed, then reused
+	 * by the remaining actions in the batch. If a direct lookup is given, it is used instead of
+	 * the uuid index
+	 *
+	 * @param <P> the player type
+	 */
+	static final class OnlinePlayers<P> {
+
+		private final EnvEnforcer<P> envEnforcer;
+		private final StaffAudience<P> staffAudience;
+		private final Collection<? extends P> onlinePlayers;
+		private final @Nullable Function<UUID, @Nullable P> directLookup;
+
+		// Copied, because some platforms do not permit kicking players while iterating
+		private List<P> players;
+		private Map<UUID, P> byUuid;
+		private Map<InetAddress, List<P>> byAddress;
+
+		OnlinePlayers(EnvEnforcer<P> envEnforcer, StaffAudience<P> staffAudience, Collection<? extends P> players,
+					  @Nullable Function<UUID, @Nullable P> directLookup) {
+			this.envEnforcer = envEnforcer;
+			this.staffAudience = staffAudience;
+			this.onlinePlayers = players;
+			this.directLookup = directLookup;
+		}
+
+		private List<P> players() {
+			if (players == null) {
+				players = new ArrayList<>(onlinePlayers);
+			}
+			return players;
+		}
+
+		@Nullable P byUuid(UUID uuid) {
+			if (directLookup != null) {
+				return directLookup.apply(uuid);
+			}
+			if (byUuid == null) {
+				List<P> players = players();
+				byUuid = new HashMap<>(players.size() * 2);
+				for (P player : players) {
+					byUuid.put(envEnforcer.getUniqueIdFor(player), player);
+				}
+			}
+			return byUuid.get(uuid);
+		}
+
+		List<P> byAddress(InetAddress address) {
+			if (byAddress == null) {
+				List<P> players = players();
+				byAddress = new HashMap<>(players.size() * 2);
+				for (P player : players) {
+					byAddress.computeIfAbsent(envEnforcer.getAddressFor(player), (a) -> new ArrayList<>(1)).add(player);
+				}
+			}
+			return byAddress.getOrDefault(address, List.of());
+		}
+
+		/**
+		 * Finds the online players with a permission. Should only be used for the permissions
+		 * of notifications, since the players with them are tracked across batches by the staff audience
+		 *
+		 * @param permission the permission
+		 * @return the players with the permission
+		 */
+		Collection<P> withPermission(String permission) {
+			return staffAudience.withPermission(permission, players());
+		}
+
+		Set<P> matching(TargetMatcher<P> matcher) {
+			Set<P> matched = new LinkedHashSet<>();
+			addMatching(matcher, matched);
+			return matched;
+		}
+
+		private void addMatching(TargetMatcher<P> matcher, Set<P> matched) {
+			if (matcher instanceof UUIDTargetMatcher<P> uuidMatcher) {
+				for (UUID uuid : uuidMatcher.uuids()) {
+					P player = byUuid(uuid);
+					if (player != null) {
+						matched.add(player);
+					}
+				}
+			} else if (matcher instanceof ExactTargetMatcher<P> exactMatcher) {
+				matched.addAll(byAddress(exactMatcher.address()));
+			} else if (matcher instanceof AdditionalUUIDTargetMatcher<P> additionalUuidMatcher) {
+				P player = byUuid(additionalUuidMatcher.uuid());
+				if (player != null) {
+					matched.add(player);
+				}
+				addMatching(additionalUuidMatcher.delegate(), matched);
+			} else {
+				for (P player : players()) {
+					if (matcher.matches(envEnforcer.getUniqueIdFor(player), envEnforcer.getAddressFor(player))) {
+						matched.add(player);
+					}
+				}
+			}
+		}
+	}
+
+}
@@ -39,6 +39,10 @@ public class ExactTargetMatcher<@PlatformPlayer P> extends AbstractTargetMatcher
 		this(address.toInetAddress(), callback);
 	}
 
+	InetAddress address() {
+		return address;
+	}
+
 	@Override
 	public boolean matches(UUID uuid, InetAddress address) {
 		return this.address.equals(address);
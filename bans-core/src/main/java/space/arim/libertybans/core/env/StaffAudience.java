@@ -0,0 +1,117 @@
+/*
+ * LibertyBans
+ * Copyright © 2023 Anand Beh
+ *
+ * LibertyBans is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * LibertyBans is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with LibertyBans. If not, see <https://www.gnu.org/licenses/>
+ * and navigate to version 3 of the GNU Affero General Public License.
+ */
+package space.arim.libertybans.core.env;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Keeps the set of online players holding each permission used for notifications, so that
+ * broadcasts iterate the staff who receive them rather than every online player. <br>
+ * <br>
+ * The set for a permission is built from the online players when first needed. Afterward it
+ * is kept up to date as players join and quit, and rebuilt once older than the refresh interval.
+ * Changes to permissions of players already online are therefore noticed within the refresh interval.
+ *
+ * @param <P> the player type
+ */
+final class StaffAudience<P> {
+
+	private final EnvEnforcer<P> envEnforcer;
+	private final LongSupplier nanoTime;
+
+	private final Map<String, Holders<P>> holdersByPermission = new ConcurrentHashMap<>();
+
+	static final long REFRESH_INTERVAL_NANOS = Duration.ofSeconds(30L).toNanos();
+
+	StaffAudience(EnvEnforcer<P> envEnforcer, LongSupplier nanoTime) {
+		this.envEnforcer = envEnforcer;
+		this.nanoTime = nanoTime;
+	}
+
+	private record Holders<P>(long refreshedAt, Map<UUID, P> players) {
+
+		boolean isExpired(long now) {
+			return now - refreshedAt >= REFRESH_INTERVAL_NANOS;
+		}
+	}
+
+	/**
+	 * Gets the online players with a permission. The online players are only checked if the set
+	 * of players with the permission has not yet been built, or is due to be refreshed
+	 *
+	 * @param permission the permission
+	 * @param onlinePlayers all online players
+	 * @return the online players with the permission
+	 */
+	Collection<P> withPermission(String permission, Collection<? extends P> onlinePlayers) {
+		long now = nanoTime.getAsLong();
+		Holders<P> holders = holdersByPermission.get(permission);
+		if (holders == null || holders.isExpired(now)) {
+			Map<UUID, P> players = new ConcurrentHashMap<>();
+			for (P player : onlinePlayers) {
+				if (envEnforcer.hasPermission(player, permission)) {
+					players.put(envEnforcer.getUniqueIdFor(player), player);
+				}
+			}
+			holders = new Holders<>(now, players);
+			holdersByPermission.put(permission, holders);
+		}
+		return holders.players.values();
+	}
+
+	/**
+	 * Adds a player who joined to the sets of the permissions the player holds
+	 *
+	 * @param player the player
+	 */
+	void playerJoined(P player) {
+		UUID uuid = envEnforcer.getUniqueIdFor(player);
+		holdersByPermission.forEach((permission, holders) -> {
+			if (envEnforcer.hasPermission(player, permission)) {
+				holders.players.put(uuid, player);
+			}
+		});
+	}
+
+	/**
+	 * Removes a player who quit from all sets
+	 *
+	 * @param player the player
+	 */
+	void playerQuit(P player) {
+		UUID uuid = envEnforcer.getUniqueIdFor(player);
+		for (Holders<P> holders : holdersByPermission.values()) {
+			holders.players.remove(uuid);
+		}
+	}
+
+	/**
+	 * Forgets all sets, such that each is built again when next needed. Used when joins
+	 * and quits may have been missed, such as while listeners were unregistered
+	 */
+	void clear() {
+		holdersByPermission.clear();
+	}
+
+}
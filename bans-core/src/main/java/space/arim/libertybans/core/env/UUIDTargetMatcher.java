@@ -33,6 +33,10 @@ public class UUIDTargetMatcher<@PlatformPlayer P> extends AbstractTargetMatcher<
 		super(callback);
 		this.uuids = Set.copyOf(uuids);
 	}
+
+	Set<UUID> uuids() {
+		return uuids;
+	}
 	
 	@Override
 	public boolean matches(UUID uuid, InetAddress address) {
@@ -36,6 +36,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.Instant;
 import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.UUID;
 import java.util.stream.Stream;
 
@@ -71,6 +72,23 @@ public class AdvancedBanImportSource implements ImportSource {
 				.map(AdvancedBanUniquePunishmentDetails::portablePunishment);
 	}
 
+	@Override
+	public OptionalLong estimatedPunishmentCount() {
+		DatabaseStream databaseStream = new DatabaseStream(
+				config.advancedBan().toConnectionSource(), config.retrievalSize());
+		// Overestimates, since duplicates are not counted separately
+		return OptionalLong.of(
+				databaseStream.countRows(new RowMapper(true)) + databaseStream.countRows(new RowMapper(false))
+		);
+	}
+
+	@Override
+	public Optional<CheckpointKey> checkpointKey(PortablePunishment punishment) {
+		// Duplicates are removed deterministically, so the same row is always kept
+		String table = punishment.active() ? "punishments" : "punishmenthistory";
+		return punishment.foreignId().map((foreignId) -> new CheckpointKey("advancedban_" + table, foreignId));
+	}
+
 	private class RowMapper implements SchemaRowMapper<PortablePunishment> {
 
 		private final boolean active;
@@ -22,6 +22,7 @@ package space.arim.libertybans.core.importing;
 import jakarta.inject.Inject;
 import space.arim.libertybans.api.NetworkAddress;
 import space.arim.libertybans.api.PunishmentType;
+import space.arim.libertybans.api.Victim;
 import space.arim.libertybans.api.punish.Punishment;
 import space.arim.libertybans.api.scope.ScopeManager;
 import space.arim.libertybans.core.config.Configs;
@@ -31,6 +32,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.Instant;
 import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.UUID;
 import java.util.stream.Stream;
 
@@ -69,6 +71,29 @@ public class BanManagerImportSource implements ImportSource {
 				.flatMap(databaseStream::streamRows);
 	}
 
+	@Override
+	public OptionalLong estimatedPunishmentCount() {
+		DatabaseStream databaseStream = databaseStream();
+		// The console uuid is not needed to count rows
+		return OptionalLong.of(Stream.of(BanManagerTable.values())
+				.map((table) -> new RowMapper(table, null))
+				.mapToLong(databaseStream::countRows)
+				.sum());
+	}
+
+	@Override
+	public Optional<CheckpointKey> checkpointKey(PortablePunishment punishment) {
+		PunishmentType type = punishment.knownDetails().type();
+		Victim.VictimType victimType = punishment.victimInfo().overrideVictim().map(Victim::getType).orElse(null);
+		// Kicks are sourced from an active table, but are never active themselves
+		boolean activeTable = punishment.active() || type == PunishmentType.KICK;
+		return punishment.foreignId().flatMap((foreignId) -> Stream.of(BanManagerTable.values())
+				.filter((table) -> table.type == type && table.victimKind.victimType == victimType)
+				.filter((table) -> table.active == activeTable)
+				.findAny()
+				.map((table) -> new CheckpointKey("banmanager_" + table.tableName(""), foreignId)));
+	}
+
 	/**
 	 * Mapper for BanManager. Unlike other import sources, BanManager has a robust database schem
 	 * which maintains integrity, so we do not need null checks on NONNULL columns.
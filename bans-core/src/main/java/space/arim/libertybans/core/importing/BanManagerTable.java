@@ -63,16 +63,34 @@ public enum BanManagerTable {
 		return tablePrefix + name().toLowerCase(Locale.ROOT);
 	}
 
-	interface VictimKind {
+	enum VictimKind {
+		PLAYER(Victim.VictimType.PLAYER) {
+			@Override
+			Victim mapVictim(ResultSet resultSet) throws SQLException {
+				return PlayerVictim.of(UUIDUtil.fromByteArray(resultSet.getBytes("player_id")));
+			}
+		},
+		ADDRESS(Victim.VictimType.ADDRESS) {
+			@Override
+			Victim mapVictim(ResultSet resultSet) throws SQLException {
+				return AddressVictim.of(resultSet.getBytes("ip"));
+			}
+		};
 
-		Victim mapVictim(ResultSet resultSet) throws SQLException;
+		final Victim.VictimType victimType;
+
+		VictimKind(Victim.VictimType victimType) {
+			this.victimType = victimType;
+		}
+
+		abstract Victim mapVictim(ResultSet resultSet) throws SQLException;
 
 		static VictimKind uuid() {
-			return resultSet -> PlayerVictim.of(UUIDUtil.fromByteArray(resultSet.getBytes("player_id")));
+			return PLAYER;
 		}
 
 		static VictimKind ipAddress() {
-			return resultSet -> AddressVictim.of(resultSet.getBytes("ip"));
+			return ADDRESS;
 		}
 	}
 
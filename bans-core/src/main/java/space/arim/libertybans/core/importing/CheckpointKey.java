@@ -0,0 +1,39 @@
+/*
+ * LibertyBans
+ * Copyright © 2023 Anand Beh
+ *
+ * LibertyBans is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * LibertyBans is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with LibertyBans. If not, see <https://www.gnu.org/licenses/>
+ * and navigate to version 3 of the GNU Affero General Public License.
+ */
+
+package space.arim.libertybans.core.importing;
+
+import java.util.Objects;
+
+/**
+ * Identifies a punishment in the import source, for the purpose of resuming an interrupted import
+ *
+ * @param source the foreign table, qualified by the plugin name, e.g. "litebans_bans"
+ * @param foreignId the foreign punishment ID, unique within the source
+ */
+public record CheckpointKey(String source, int foreignId) {
+
+	public CheckpointKey {
+		Objects.requireNonNull(source, "source");
+		if (source.isEmpty() || source.length() > 64) {
+			throw new IllegalArgumentException("Invalid source " + source);
+		}
+	}
+
+}
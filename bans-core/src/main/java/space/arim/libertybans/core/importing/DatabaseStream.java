@@ -20,6 +20,8 @@
 package space.arim.libertybans.core.importing;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Objects;
 import java.util.Spliterator;
@@ -70,5 +72,24 @@ class DatabaseStream {
 				});
 	}
 
+	/**
+	 * Counts the rows which would be streamed by the given row mapper
+	 *
+	 * @param schemaRowMapper the row mapper
+	 * @return the row count
+	 */
+	long countRows(SchemaRowMapper<?> schemaRowMapper) {
+		String countStatement = "SELECT COUNT(*) FROM (" + schemaRowMapper.selectStatement() + ") counted_rows";
+		try (Connection connection = connectionSource.openConnection();
+			 PreparedStatement prepStmt = connection.prepareStatement(countStatement);
+			 ResultSet resultSet = prepStmt.executeQuery()) {
+			if (!resultSet.next()) {
+				throw new ImportException("No result from count statement");
+			}
+			return resultSet.getLong(1);
+		} catch (SQLException ex) {
+			throw new ImportException("Unable to count rows to import", ex);
+		}
+	}
 
 }
@@ -0,0 +1,141 @@
+/*
+ * LibertyBans
+ * Copyright © 2023 Anand Beh
+ *
+ * LibertyBans is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * LibertyBans is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with LibertyBans. If not, see <https://www.gnu.org/licenses/>
+ * and navigate to version 3 of the GNU Affero General Public License.
+ */
+
+package space.arim.libertybans.core.importing;
+
+import org.jooq.Condition;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Query;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import space.arim.omnibus.util.ThisClass;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.jooq.impl.DSL.count;
+import static org.jooq.impl.DSL.max;
+import static org.jooq.impl.DSL.or;
+import static space.arim.libertybans.core.schema.tables.ImportCheckpoints.IMPORT_CHECKPOINTS;
+
+/**
+ * Checkpoints of imported punishments, mapping foreign IDs to LibertyBans punishment IDs. <br>
+ * <br>
+ * A checkpoint is written in the same transaction as the punishment it records. If an import is
+ * interrupted and run again, the punishments which were already committed are therefore skipped,
+ * and no punishment is imported twice. Checkpoints are cleared once the import completes, so that
+ * the same source can be imported again from the start.
+ *
+ */
+final class ImportCheckpoints {
+
+	private static final Logger logger = LoggerFactory.getLogger(ThisClass.get());
+
+	private ImportCheckpoints() {}
+
+	/**
+	 * Finds all punishments previously imported, using a single query
+	 *
+	 * @param context the database context
+	 * @return the keys of all recorded checkpoints
+	 */
+	static Set<CheckpointKey> findAllRecorded(DSLContext context) {
+		return context
+				.select(IMPORT_CHECKPOINTS.SOURCE, IMPORT_CHECKPOINTS.FOREIGN_ID)
+				.from(IMPORT_CHECKPOINTS)
+				.fetchSet((record) -> new CheckpointKey(record.value1(), record.value2()));
+	}
+
+	/**
+	 * Finds which of the given punishments were previously imported, using a single query
+	 *
+	 * @param context the database context
+	 * @param keys the checkpoint keys
+	 * @return the subset of keys which were imported
+	 */
+	static Set<CheckpointKey> findRecorded(DSLContext context, Collection<CheckpointKey> keys) {
+		if (keys.isEmpty()) {
+			return Set.of();
+		}
+		Map<String, List<Integer>> foreignIdsBySource = new HashMap<>();
+		for (CheckpointKey key : keys) {
+			foreignIdsBySource.computeIfAbsent(key.source(), (s) -> new ArrayList<>()).add(key.foreignId());
+		}
+		List<Condition> conditions = new ArrayList<>(foreignIdsBySource.size());
+		foreignIdsBySource.forEach((source, foreignIds) -> {
+			conditions.add(IMPORT_CHECKPOINTS.SOURCE.eq(source).and(IMPORT_CHECKPOINTS.FOREIGN_ID.in(foreignIds)));
+		});
+		return context
+				.select(IMPORT_CHECKPOINTS.SOURCE, IMPORT_CHECKPOINTS.FOREIGN_ID)
+				.from(IMPORT_CHECKPOINTS)
+				.where(or(conditions))
+				.fetchSet((record) -> new CheckpointKey(record.value1(), record.value2()));
+	}
+
+	/**
+	 * Creates a query which records a checkpoint
+	 *
+	 * @param context the database context
+	 * @param key the checkpoint key
+	 * @param punishmentId the LibertyBans punishment ID, or null if the punishment was skipped
+	 * @return the query
+	 */
+	static Query recordQuery(DSLContext context, CheckpointKey key, Long punishmentId) {
+		return context
+				.insertInto(IMPORT_CHECKPOINTS)
+				.columns(IMPORT_CHECKPOINTS.SOURCE, IMPORT_CHECKPOINTS.FOREIGN_ID, IMPORT_CHECKPOINTS.PUNISHMENT)
+				.values(key.source(), key.foreignId(), punishmentId);
+	}
+
+	/**
+	 * Clears all checkpoints, after an import has completed
+	 *
+	 * @param context the database context
+	 */
+	static void clear(DSLContext context) {
+		context.deleteFrom(IMPORT_CHECKPOINTS).execute();
+	}
+
+	/**
+	 * Logs the position of each source table, if a previous import was performed
+	 *
+	 * @param context the database context
+	 */
+	static void logResumption(DSLContext context) {
+		Field<Integer> highestId = max(IMPORT_CHECKPOINTS.FOREIGN_ID);
+		Field<Integer> imported = count();
+		context
+				.select(IMPORT_CHECKPOINTS.SOURCE, highestId, imported)
+				.from(IMPORT_CHECKPOINTS)
+				.groupBy(IMPORT_CHECKPOINTS.SOURCE)
+				.orderBy(IMPORT_CHECKPOINTS.SOURCE)
+				.fetch()
+				.forEach((record) -> {
+					logger.info(
+							"Resuming from a previous import of {}: {} punishments up to ID {} were already " +
+									"imported and will be skipped.",
+							record.value1(), record.value3(), record.value2());
+				});
+	}
+}
@@ -64,6 +64,53 @@ public interface ImportConfig {
 	@IntegerRange(min = 1)
 	int retrievalSize();
 
+	@ConfKey("parallel")
+	@SubSection
+	ParallelSettings parallel();
+
+	@ConfHeader({
+			"",
+			"-- Parallel importing --",
+			"",
+			"By default, punishments are imported one at a time, committing each to the database separately.",
+			"For large imports, consisting of hundreds of thousands of punishments or more, this can take hours.",
+			"",
+			"The parallel import instead groups punishments into batches, looks up the uuids of operators",
+			"and victims for an entire batch at once, and writes each batch in a single transaction.",
+			"Multiple batches are written at the same time, using multiple database connections.",
+			"Conflicting active punishments are still detected, like with the default import. However,",
+			"when two imported punishments conflict, which one is kept is not guaranteed.",
+			"",
+			"The progress of the import is logged periodically."})
+	interface ParallelSettings {
+
+		@ConfComments("Whether to use the parallel import")
+		@ConfDefault.DefaultBoolean(false)
+		boolean enable();
+
+		@ConfKey("writer-threads")
+		@ConfComments({
+				"How many batches may be written at once. Each requires its own database connection,",
+				"so this should be less than your connection pool size."})
+		@ConfDefault.DefaultInteger(4)
+		@IntegerRange(min = 1, max = 64)
+		int writerThreads();
+
+		@ConfKey("batch-size")
+		@ConfComments("How many punishments or name and address records are written in one transaction")
+		@ConfDefault.DefaultInteger(500)
+		@IntegerRange(min = 1, max = 10000)
+		int batchSize();
+
+		@ConfKey("queue-capacity")
+		@ConfComments({
+				"How many batches may be waiting to be written, in addition to those being written.",
+				"Once this limit is reached, reading from the import source pauses until writing catches up."})
+		@ConfDefault.DefaultInteger(8)
+		@IntegerRange(min = 1, max = 1000)
+		int queueCapacity();
+	}
+
 	@ConfKey("advancedban")
 	@SubSection
 	AdvancedBanSettings advancedBan();
@@ -23,49 +23,63 @@ import jakarta.inject.Inject;
 import jakarta.inject.Provider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import space.arim.libertybans.api.punish.Punishment;
-import space.arim.libertybans.core.service.Time;
+import space.arim.libertybans.core.config.Configs;
 import space.arim.libertybans.core.database.InternalDatabase;
+import space.arim.libertybans.core.database.execute.SQLFunction;
+import space.arim.libertybans.core.database.execute.SQLRunnable;
+import space.arim.libertybans.core.database.sql.IdentifierCache;
 import space.arim.libertybans.core.punish.Enaction;
 import space.arim.libertybans.core.punish.PunishmentCreator;
+import space.arim.libertybans.core.selector.AccountClustering;
+import space.arim.libertybans.core.selector.cache.PunishmentCounts;
 import space.arim.omnibus.util.ThisClass;
 import space.arim.omnibus.util.concurrent.CentralisedFuture;
 import space.arim.omnibus.util.concurrent.FactoryOfTheFuture;
 
 import java.sql.SQLException;
-import java.time.Instant;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.UUID;
+import java.util.Set;
 import java.util.stream.Stream;
 
 public class ImportExecutor {
 
 	private final FactoryOfTheFuture futuresFactory;
+	private final Configs configs;
 	private final ImportFunction importFunction;
 	private final Provider<InternalDatabase> dbProvider;
 	private final PunishmentCreator creator;
-	private final Time time;
+	private final AccountClustering accountClustering;
+	private final PunishmentCounts punishmentCounts;
 
 	private static final Logger logger = LoggerFactory.getLogger(ThisClass.get());
 
 	@Inject
-	public ImportExecutor(FactoryOfTheFuture futuresFactory, ImportFunction importFunction,
-						  Provider<InternalDatabase> dbProvider, PunishmentCreator creator, Time time) {
+	public ImportExecutor(FactoryOfTheFuture futuresFactory, Configs configs, ImportFunction importFunction,
+						  Provider<InternalDatabase> dbProvider, PunishmentCreator creator,
+						  AccountClustering accountClustering, PunishmentCounts punishmentCounts) {
 		this.futuresFactory = futuresFactory;
+		this.configs = configs;
 		this.importFunction = importFunction;
 		this.dbProvider = dbProvider;
 		this.creator = creator;
-		this.time = time;
+		this.accountClustering = accountClustering;
+		this.punishmentCounts = punishmentCounts;
 	}
 
 	public CentralisedFuture<ImportStatistics> performImport(ImportSource importSource) {
+		return performImport(importSource, configs.getImportConfig().parallel());
+	}
+
+	public CentralisedFuture<ImportStatistics> performImport(ImportSource importSource,
+															 ImportConfig.ParallelSettings parallelSettings) {
 		Objects.requireNonNull(importSource, "importSource");
+		Objects.requireNonNull(parallelSettings, "parallelSettings");
 
 		CentralisedFuture<ImportStatistics> future = futuresFactory.newIncompleteFuture();
 		new Thread(() -> {
 			try {
-				future.complete(runImport(importSource));
+				future.complete(runImport(importSource, parallelSettings));
 			} catch (Throwable ex) {
 				future.completeExceptionally(ex);
 			}
@@ -73,65 +87,85 @@ public class ImportExecutor {
 		return future;
 	}
 
-	private ImportStatistics runImport(ImportSource importSource) {
+	private ImportStatistics runImport(ImportSource importSource, ImportConfig.ParallelSettings parallelSettings) {
 		ImportStatistics statistics = new ImportStatistics();
-		try (BatchOperationExecutor batchExecutor = new BatchOperationExecutor(dbProvider.get())) {
-
-			ImportSink importSink = new ImportSink(batchExecutor, statistics);
-			transferPunishments(importSource, importSink);
-			transferExplicitNameAddressRecords(importSource, importSink);
-
+		try {
+			InternalDatabase database = dbProvider.get();
+			database.execute(SQLRunnable.readOnly(ImportCheckpoints::logResumption)).join();
+			if (parallelSettings.enable()) {
+				new ParallelImport(
+						importFunction, database, creator, parallelSettings, statistics
+				).run(importSource);
+			} else {
+				runSequentialImport(database, importSource, statistics);
+			}
+			// Completed, so the same source may be imported again from the start
+			database.execute(ImportCheckpoints::clear).join();
+			// Imported addresses are not linked as they are written
+			accountClustering.rebuild().join();
 			logger.info("Import completed successfully. {}", statistics);
 
 		} catch (ImportException | SQLException ex) {
 			logger.error(
-					"Unable to complete import successfully. It is recommended to remove " +
-							"any partially completed data, investigate the cause of failure, and " +
-							"try again when you are sure the problem has been corrected.", ex);
+					"Unable to complete import successfully. Please investigate the cause of failure, and " +
+							"try again when you are sure the problem has been corrected. When importing from " +
+							"LiteBans, AdvancedBan, or BanManager, the import resumes where it left off, without " +
+							"importing the same punishments twice. For other sources, it is recommended to remove " +
+							"any partially completed data first.", ex);
 			statistics.markFailed();
+		} finally {
+			// Imported punishments, even from a failed import, are not counted as they are written
+			punishmentCounts.invalidateAll();
 		}
 		return statistics;
 	}
 
+	private void runSequentialImport(InternalDatabase database, ImportSource importSource,
+									 ImportStatistics statistics) throws SQLException {
+		Set<CheckpointKey> previouslyImported = database.query(
+				SQLFunction.readOnly(ImportCheckpoints::findAllRecorded)
+		).join();
+		try (BatchOperationExecutor batchExecutor = new BatchOperationExecutor(database)) {
+
+			ImportSink importSink = new ImportSink(batchExecutor, statistics, previouslyImported);
+			transferPunishments(importSource, importSink);
+			transferExplicitNameAddressRecords(importSource, importSink);
+		}
+	}
+
 	private void transferPunishments(ImportSource importSource, ImportSink importSink) {
+		IdentifierCache identifierCache = dbProvider.get().identifierCache();
 		try (Stream<PortablePunishment> punishmentStream = importSource.sourcePunishments()) {
 			punishmentStream.forEach(punishment -> {
+				Optional<CheckpointKey> checkpointKey = importSource.checkpointKey(punishment);
+				if (checkpointKey.isPresent() && importSink.isPreviouslyImported(checkpointKey.get())) {
+					return;
+				}
 				Optional<Enaction.OrderDetails> enactionOrder = importFunction.createOrder(punishment, importSink);
 				if (enactionOrder.isEmpty()) {
 					logger.info("Skipped imported punishment with ID {} applying to victim {}",
 							punishment.foreignId(), punishment.victimInfo());
 					return;
 				}
-				addEnaction(importSink, punishment, new Enaction(enactionOrder.get(), creator));
+				addEnaction(
+						importSink, punishment, new Enaction(enactionOrder.get(), creator, identifierCache), checkpointKey
+				);
 				addImplicitNameAddressRecord(importSink, punishment);
 			});
 		}
 	}
 
-	private void addEnaction(ImportSink importSink, PortablePunishment punishment, Enaction enaction) {
-		Instant end = punishment.knownDetails().end();
-		// Check whether active and non-expired
-		if (punishment.active() &&
-				(end.equals(Punishment.PERMANENT_END_DATE) || end.compareTo(time.currentTimestamp()) > 0)) {
-			importSink.addActivePunishment(enaction);
+	private void addEnaction(ImportSink importSink, PortablePunishment punishment, Enaction enaction,
+							 Optional<CheckpointKey> checkpointKey) {
+		if (importFunction.isActiveAndUnexpired(punishment)) {
+			importSink.addActivePunishment(enaction, checkpointKey);
 		} else {
-			importSink.addHistoricalPunishment(enaction);
+			importSink.addHistoricalPunishment(enaction, checkpointKey);
 		}
 	}
 
 	private void addImplicitNameAddressRecord(ImportSink importSink, PortablePunishment punishment) {
-		Instant startTime = punishment.knownDetails().start();
-		PortablePunishment.VictimInfo victimInfo = punishment.victimInfo();
-		victimInfo.uuid().ifPresent((uuid) -> {
-			importSink.addNameAddressRecord(new NameAddressRecord(
-					uuid, victimInfo.name().orElse(null), victimInfo.address().orElse(null), startTime));
-		});
-		PortablePunishment.OperatorInfo operatorInfo = punishment.operatorInfo();
-		Optional<UUID> operatorUuid = operatorInfo.uuid();
-		if (!operatorInfo.console() && operatorUuid.isPresent()) {
-			importSink.addNameAddressRecord(new NameAddressRecord(
-					operatorUuid.get(), operatorInfo.name().orElse(null), null, startTime));
-		}
+		ImportFunction.implicitNameAddressRecords(punishment, importSink::addNameAddressRecord);
 	}
 
 	private void transferExplicitNameAddressRecords(ImportSource importSource, ImportSink importSink) {
@@ -29,13 +29,20 @@ import space.arim.libertybans.api.Operator;
 import space.arim.libertybans.api.PlayerOperator;
 import space.arim.libertybans.api.PlayerVictim;
 import space.arim.libertybans.api.Victim;
+import space.arim.libertybans.api.punish.Punishment;
 import space.arim.libertybans.core.punish.Enaction;
 import space.arim.libertybans.core.service.Time;
 import space.arim.libertybans.core.uuid.UUIDManager;
 import space.arim.omnibus.util.ThisClass;
+import space.arim.omnibus.util.concurrent.CentralisedFuture;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 public class ImportFunction {
 
@@ -51,11 +58,29 @@ public class ImportFunction {
 	}
 
 	Optional<Enaction.OrderDetails> createOrder(PortablePunishment punishment, ImportSink importSink) {
-		Victim victim = toVictim(punishment.victimInfo(), importSink);
+		return createOrder(
+				punishment,
+				(name) -> uuidManager.lookupUUIDFromExactName(name).join(),
+				importSink::addNameAddressRecord
+		);
+	}
+
+	/**
+	 * Creates an enaction order from the given punishment
+	 *
+	 * @param punishment the punishment
+	 * @param uuidLookup looks up the uuid of a player by exact name, for victims and operators lacking a uuid
+	 * @param nameAddressRecords receives name records for players whose uuid was looked up
+	 * @return the order, or an empty optional if the punishment should be skipped
+	 */
+	Optional<Enaction.OrderDetails> createOrder(PortablePunishment punishment,
+												Function<String, Optional<UUID>> uuidLookup,
+												Consumer<NameAddressRecord> nameAddressRecords) {
+		Victim victim = toVictim(punishment.victimInfo(), uuidLookup, nameAddressRecords);
 		if (victim == null) {
 			return Optional.empty();
 		}
-		Operator operator = toOperator(punishment.operatorInfo(), importSink);
+		Operator operator = toOperator(punishment.operatorInfo(), uuidLookup, nameAddressRecords);
 		if (operator == null) {
 			return Optional.empty();
 		}
@@ -67,7 +92,79 @@ public class ImportFunction {
 		));
 	}
 
-	private Victim toVictim(PortablePunishment.VictimInfo victimInfo, ImportSink importSink) {
+	/**
+	 * Determines whether the given punishment should be imported as an active punishment
+	 *
+	 * @param punishment the punishment
+	 * @return true if active and not expired
+	 */
+	boolean isActiveAndUnexpired(PortablePunishment punishment) {
+		Instant end = punishment.knownDetails().end();
+		return punishment.active() &&
+				(end.equals(Punishment.PERMANENT_END_DATE) || end.compareTo(time.currentTimestamp()) > 0);
+	}
+
+	/**
+	 * Creates the name and address records implied by the given punishment
+	 *
+	 * @param punishment the punishment
+	 * @param nameAddressRecords receives the name and address records
+	 */
+	static void implicitNameAddressRecords(PortablePunishment punishment, Consumer<NameAddressRecord> nameAddressRecords) {
+		Instant startTime = punishment.knownDetails().start();
+		PortablePunishment.VictimInfo victimInfo = punishment.victimInfo();
+		victimInfo.uuid().ifPresent((uuid) -> {
+			nameAddressRecords.accept(new NameAddressRecord(
+					uuid, victimInfo.name().orElse(null), victimInfo.address().orElse(null), startTime));
+		});
+		PortablePunishment.OperatorInfo operatorInfo = punishment.operatorInfo();
+		Optional<UUID> operatorUuid = operatorInfo.uuid();
+		if (!operatorInfo.console() && operatorUuid.isPresent()) {
+			nameAddressRecords.accept(new NameAddressRecord(
+					operatorUuid.get(), operatorInfo.name().orElse(null), null, startTime));
+		}
+	}
+
+	/**
+	 * Finds the names whose uuids must be looked up in order to create an order from the given punishment
+	 *
+	 * @param punishment the punishment
+	 * @param names receives the names requiring lookup
+	 */
+	static void namesRequiringLookup(PortablePunishment punishment, Consumer<String> names) {
+		PortablePunishment.VictimInfo victimInfo = punishment.victimInfo();
+		if (victimInfo.overrideVictim().isEmpty() && victimInfo.uuid().isEmpty() && victimInfo.address().isEmpty()) {
+			victimInfo.name().ifPresent(names);
+		}
+		PortablePunishment.OperatorInfo operatorInfo = punishment.operatorInfo();
+		if (!operatorInfo.console() && operatorInfo.uuid().isEmpty()) {
+			operatorInfo.name().ifPresent(names);
+		}
+	}
+
+	/**
+	 * Looks up the uuid of a player by exact name
+	 *
+	 * @param name the name
+	 * @return a future yielding the uuid if found
+	 */
+	CentralisedFuture<Optional<UUID>> lookupUUID(String name) {
+		return uuidManager.lookupUUIDFromExactName(name);
+	}
+
+	/**
+	 * Looks up the uuids of players by exact name in bulk, without checking online players
+	 * or external services
+	 *
+	 * @param names the names
+	 * @return a future yielding the uuids found, keyed by name
+	 */
+	CentralisedFuture<Map<String, UUID>> lookupKnownUUIDs(Collection<String> names) {
+		return uuidManager.lookupKnownUUIDsFromExactNames(names);
+	}
+
+	private Victim toVictim(PortablePunishment.VictimInfo victimInfo,
+							Function<String, Optional<UUID>> uuidLookup, Consumer<NameAddressRecord> nameAddressRecords) {
 		Optional<Victim> overrideVictim = victimInfo.overrideVictim();
 		if (overrideVictim.isPresent()) {
 			return overrideVictim.get();
@@ -82,16 +179,17 @@ public class ImportFunction {
 		}
 		String name = victimInfo.name()
 				.orElseThrow(() -> new ImportException("Victim name must be present if uuid is not"));
-		UUID foundUUID = uuidManager.lookupUUIDFromExactName(name).join().orElse(null);
+		UUID foundUUID = uuidLookup.apply(name).orElse(null);
 		if (foundUUID == null) {
 			logger.warn("Skipping punishment because victim uuid could not be found for name {}", victimInfo.name());
 			return null;
 		}
-		importSink.addNameAddressRecord(new NameAddressRecord(foundUUID, name, null, time.currentTimestamp()));
+		nameAddressRecords.accept(new NameAddressRecord(foundUUID, name, null, time.currentTimestamp()));
 		return PlayerVictim.of(foundUUID);
 	}
 
-	private Operator toOperator(PortablePunishment.OperatorInfo operatorInfo, ImportSink importSink) {
+	private Operator toOperator(PortablePunishment.OperatorInfo operatorInfo,
+								Function<String, Optional<UUID>> uuidLookup, Consumer<NameAddressRecord> nameAddressRecords) {
 		if (operatorInfo.console()) {
 			return ConsoleOperator.INSTANCE;
 		}
@@ -101,12 +199,12 @@ public class ImportFunction {
 		}
 		String name = operatorInfo.name()
 				.orElseThrow(() -> new ImportException("Operator name must be present if uuid is not"));
-		UUID foundUUID = uuidManager.lookupUUIDFromExactName(name).join().orElse(null);
+		UUID foundUUID = uuidLookup.apply(name).orElse(null);
 		if (foundUUID == null) {
 			logger.warn("Skipping punishment because operator uuid could not be found for name {}", name);
 			return null;
 		}
-		importSink.addNameAddressRecord(new NameAddressRecord(foundUUID, name, null, time.currentTimestamp()));
+		nameAddressRecords.accept(new NameAddressRecord(foundUUID, name, null, time.currentTimestamp()));
 		return PlayerOperator.of(foundUUID);
 	}
 }
@@ -27,33 +27,47 @@ import space.arim.libertybans.core.punish.Enaction;
 import space.arim.omnibus.util.ThisClass;
 
 import java.time.Instant;
+import java.util.Optional;
+import java.util.Set;
 
 class ImportSink {
 
 	private final BatchOperationExecutor batchExecutor;
 	private final ImportStatistics statistics;
+	private final Set<CheckpointKey> previouslyImported;
 
 	private static final Logger logger = LoggerFactory.getLogger(ThisClass.get());
 
-	ImportSink(BatchOperationExecutor batchExecutor, ImportStatistics statistics) {
+	ImportSink(BatchOperationExecutor batchExecutor, ImportStatistics statistics,
+			   Set<CheckpointKey> previouslyImported) {
 		this.batchExecutor = batchExecutor;
 		this.statistics = statistics;
+		this.previouslyImported = previouslyImported;
 	}
 
-	void addActivePunishment(Enaction enaction) {
-		addPunishment(enaction, true);
+	boolean isPreviouslyImported(CheckpointKey checkpointKey) {
+		boolean recorded = previouslyImported.contains(checkpointKey);
+		if (recorded) {
+			statistics.skippedPreviouslyImported();
+		}
+		return recorded;
+	}
+
+	void addActivePunishment(Enaction enaction, Optional<CheckpointKey> checkpointKey) {
+		addPunishment(enaction, true, checkpointKey);
 		statistics.transferredActive();
 	}
 
-	void addHistoricalPunishment(Enaction enaction) {
-		addPunishment(enaction, false);
+	void addHistoricalPunishment(Enaction enaction, Optional<CheckpointKey> checkpointKey) {
+		addPunishment(enaction, false, checkpointKey);
 		statistics.transferredHistorical();
 	}
 
-	private void addPunishment(Enaction enaction, boolean active) {
+	private void addPunishment(Enaction enaction, boolean active, Optional<CheckpointKey> checkpointKey) {
 		batchExecutor.runOperation((context, transaction) -> {
+			Punishment enacted;
 			if (active) {
-				Punishment enacted = transaction.executeNested(enaction::enactActive);
+				enacted = transaction.executeNested(enaction::enactActive);
 				if (enacted == null) {
 					logger.warn(
 							"There is a conflicting active punishment: {}. For example two bans for the same user. " +
@@ -61,7 +75,12 @@ class ImportSink {
 							enaction.orderDetails());
 				}
 			} else {
-				enaction.enactHistorical(context);
+				enacted = enaction.enactHistorical(context, transaction);
+			}
+			// Record the checkpoint in the same transaction, so that it is committed with the punishment
+			if (checkpointKey.isPresent()) {
+				Long punishmentId = (enacted == null) ? null : enacted.getIdentifier();
+				ImportCheckpoints.recordQuery(context, checkpointKey.get(), punishmentId).execute();
 			}
 		});
 	}
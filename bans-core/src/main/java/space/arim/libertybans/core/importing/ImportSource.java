@@ -19,6 +19,8 @@
 
 package space.arim.libertybans.core.importing;
 
+import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.stream.Stream;
 
 public interface ImportSource {
@@ -29,4 +31,24 @@ public interface ImportSource {
 		return Stream.empty();
 	}
 
+	/**
+	 * Estimates the amount of punishments which will be sourced. Used only for progress reporting
+	 *
+	 * @return the estimated punishment count, or an empty optional if not known
+	 */
+	default OptionalLong estimatedPunishmentCount() {
+		return OptionalLong.empty();
+	}
+
+	/**
+	 * Identifies a sourced punishment so that, if the import is interrupted, the punishment is skipped
+	 * when the import is run again. Without a checkpoint key, the punishment is imported each time.
+	 *
+	 * @param punishment a punishment from {@link #sourcePunishments()}
+	 * @return the checkpoint key, or an empty optional if the punishment cannot be identified
+	 */
+	default Optional<CheckpointKey> checkpointKey(PortablePunishment punishment) {
+		return Optional.empty();
+	}
+
 }
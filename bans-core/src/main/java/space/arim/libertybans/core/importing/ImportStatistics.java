@@ -19,20 +19,39 @@
 
 package space.arim.libertybans.core.importing;
 
+import java.time.Duration;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Statistics for an import. Thread safe, since the parallel import writes from multiple threads.
+ *
+ */
 public final class ImportStatistics {
 
-	private int active;
-	private int historical;
-	private int nameAddressRecord;
+	private final AtomicInteger active = new AtomicInteger();
+	private final AtomicInteger historical = new AtomicInteger();
+	private final AtomicInteger nameAddressRecord = new AtomicInteger();
+	private final AtomicInteger previouslyImported = new AtomicInteger();
 
-	private boolean failed;
+	private volatile boolean failed;
+
+	// Progress reporting
+	private final long startNanos = System.nanoTime();
+	private volatile OptionalLong expectedPunishments = OptionalLong.empty();
 
 	public ImportStatistics() {}
 
 	public ImportStatistics(int active, int historical, int nameAddressRecord) {
-		this.active = active;
-		this.historical = historical;
-		this.nameAddressRecord = nameAddressRecord;
+		this.active.set(active);
+		this.historical.set(historical);
+		this.nameAddressRecord.set(nameAddressRecord);
+	}
+
+	public ImportStatistics(int active, int historical, int nameAddressRecord, int previouslyImported) {
+		this(active, historical, nameAddressRecord);
+		this.previouslyImported.set(previouslyImported);
 	}
 
 	public boolean success() {
@@ -44,15 +63,91 @@ public final class ImportStatistics {
 	}
 
 	void transferredActive() {
-		active++;
+		active.incrementAndGet();
 	}
 
 	void transferredHistorical() {
-		historical++;
+		historical.incrementAndGet();
 	}
 
 	void transferredNameAddressRecord() {
-		nameAddressRecord++;
+		nameAddressRecord.incrementAndGet();
+	}
+
+	void skippedPreviouslyImported() {
+		previouslyImported.incrementAndGet();
+	}
+
+	/**
+	 * Sets the expected amount of punishments to be transferred, used to estimate the time remaining
+	 *
+	 * @param expectedPunishments the expected punishment count, if known
+	 */
+	void expectPunishments(OptionalLong expectedPunishments) {
+		this.expectedPunishments = expectedPunishments;
+	}
+
+	/**
+	 * Gets the total count of punishments transferred so far
+	 *
+	 * @return the transferred punishment count
+	 */
+	public int transferredPunishments() {
+		return active.get() + historical.get();
+	}
+
+	/**
+	 * Gets the count of punishments skipped because a previous import already transferred them
+	 *
+	 * @return the previously imported punishment count
+	 */
+	public int previouslyImportedPunishments() {
+		return previouslyImported.get();
+	}
+
+	/**
+	 * Gets the rate at which punishments have been transferred since the import started
+	 *
+	 * @return the amount of punishments transferred per second
+	 */
+	public double punishmentsPerSecond() {
+		long elapsedNanos = System.nanoTime() - startNanos;
+		if (elapsedNanos <= 0L) {
+			return 0D;
+		}
+		return transferredPunishments() / (elapsedNanos / 1_000_000_000D);
+	}
+
+	/**
+	 * Estimates the time remaining to transfer all punishments. Unavailable if the
+	 * import source cannot estimate its size, or if nothing has been transferred yet.
+	 *
+	 * @return the estimated time remaining, if available
+	 */
+	public Optional<Duration> estimatedTimeRemaining() {
+		OptionalLong expected = expectedPunishments;
+		double rate = punishmentsPerSecond();
+		if (expected.isEmpty() || rate <= 0D) {
+			return Optional.empty();
+		}
+		long remaining = Math.max(0L, expected.getAsLong() - transferredPunishments() - previouslyImported.get());
+		return Optional.of(Duration.ofSeconds((long) Math.ceil(remaining / rate)));
+	}
+
+	/**
+	 * Describes the progress of the import so far
+	 *
+	 * @return a progress report suitable for logging
+	 */
+	public String progress() {
+		OptionalLong expected = expectedPunishments;
+		String transferred = expected.isPresent() ?
+				transferredPunishments() + " of about " + expected.getAsLong() : Integer.toString(transferredPunishments());
+		String eta = estimatedTimeRemaining()
+				.map((duration) -> ", about " + duration.toMinutes() + " minutes remaining")
+				.orElse("");
+		return "Transferred " + transferred + " punishments (" + Math.round(punishmentsPerSecond()) + " per second" + eta
+				+ "), and " + nameAddressRecord.get() + " name or address history records";
 	}
 
 	@Override
@@ -60,15 +155,17 @@ public final class ImportStatistics {
 		if (this == o) return true;
 		if (o == null || getClass() != o.getClass()) return false;
 		ImportStatistics that = (ImportStatistics) o;
-		return active == that.active && historical == that.historical
-				&& nameAddressRecord == that.nameAddressRecord && failed == that.failed;
+		return active.get() == that.active.get() && historical.get() == that.historical.get()
+				&& nameAddressRecord.get() == that.nameAddressRecord.get()
+				&& previouslyImported.get() == that.previouslyImported.get() && failed == that.failed;
 	}
 
 	@Override
 	public int hashCode() {
-		int result = active;
-		result = 31 * result + historical;
-		result = 31 * result + nameAddressRecord;
+		int result = active.get();
+		result = 31 * result + historical.get();
+		result = 31 * result + nameAddressRecord.get();
+		result = 31 * result + previouslyImported.get();
 		result = 31 * result + (failed ? 1 : 0);
 		return result;
 	}
@@ -77,8 +174,9 @@ public final class ImportStatistics {
 	public String toString() {
 		String failure = (failed) ? "(FAILED) " : "";
 		return "-- Import statistics " + failure + "-- \n" +
-				"Active punishments: " + active + "\n" +
-				"Historical punishments: " + historical + "\n" +
-				"Name or address history records: " + nameAddressRecord;
+				"Active punishments: " + active.get() + "\n" +
+				"Historical punishments: " + historical.get() + "\n" +
+				"Name or address history records: " + nameAddressRecord.get() + "\n" +
+				"Previously imported punishments (skipped): " + previouslyImported.get();
 	}
 }
@@ -40,6 +40,7 @@ import java.time.Instant;
 import java.util.Arrays;
 import java.util.Locale;
 import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.UUID;
 import java.util.stream.Stream;
 
@@ -73,6 +74,24 @@ public class LiteBansImportSource implements ImportSource {
 				.flatMap(databaseStream::streamRows);
 	}
 
+	@Override
+	public OptionalLong estimatedPunishmentCount() {
+		DatabaseStream databaseStream = databaseStream();
+		return OptionalLong.of(Arrays.stream(LiteBansTable.values())
+				.map(PunishmentRowMapper::new)
+				.mapToLong(databaseStream::countRows)
+				.sum());
+	}
+
+	@Override
+	public Optional<CheckpointKey> checkpointKey(PortablePunishment punishment) {
+		PunishmentType type = punishment.knownDetails().type();
+		return punishment.foreignId().flatMap((foreignId) -> Arrays.stream(LiteBansTable.values())
+				.filter((table) -> table.type == type)
+				.findAny()
+				.map((table) -> new CheckpointKey("litebans_" + table, foreignId)));
+	}
+
 	private class PunishmentRowMapper implements SchemaRowMapper<PortablePunishment> {
 
 		private final LiteBansTable table;
@@ -0,0 +1,353 @@
+/*
+ * LibertyBans
+ * Copyright © 2023 Anand Beh
+ *
+ * LibertyBans is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * LibertyBans is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with LibertyBans. If not, see <https://www.gnu.org/licenses/>
+ * and navigate to version 3 of the GNU Affero General Public License.
+ */
+
+package space.arim.libertybans.core.importing;
+
+import org.jooq.DSLContext;
+import org.jooq.Query;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import space.arim.libertybans.api.punish.Punishment;
+import space.arim.libertybans.core.database.InternalDatabase;
+import space.arim.libertybans.core.database.execute.SQLFunction;
+import space.arim.libertybans.core.punish.Association;
+import space.arim.libertybans.core.punish.BulkEnaction;
+import space.arim.libertybans.core.punish.Enaction;
+import space.arim.libertybans.core.punish.PunishmentCreator;
+import space.arim.libertybans.core.service.SimpleThreadFactory;
+import space.arim.omnibus.util.ThisClass;
+
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * The parallel import. Rows are read from the import source on the calling thread and grouped
+ * into batches, which are written by a pool of writer threads. Each batch is written in its own
+ * transaction. <br>
+ * <br>
+ * The pipeline is bounded: once enough batches are waiting to be written, reading from the import
+ * source pauses until a writer finishes. <br>
+ * <br>
+ * One instance per import. NOT thread safe, except for the writer tasks it creates.
+ *
+ */
+final class ParallelImport {
+
+	private final ImportFunction importFunction;
+	private final InternalDatabase database;
+	private final PunishmentCreator creator;
+	private final ImportConfig.ParallelSettings settings;
+	private final ImportStatistics statistics;
+
+	/**
+	 * Looked up uuids by exact name. Shared across batches, since the same operators tend to appear
+	 * throughout the import
+	 */
+	private final Map<String, CompletableFuture<Optional<UUID>>> uuidLookups = new ConcurrentHashMap<>();
+
+	private static final Duration PROGRESS_INTERVAL = Duration.ofSeconds(10L);
+
+	private static final Logger logger = LoggerFactory.getLogger(ThisClass.get());
+
+	ParallelImport(ImportFunction importFunction, InternalDatabase database, PunishmentCreator creator,
+				   ImportConfig.ParallelSettings settings, ImportStatistics statistics) {
+		this.importFunction = importFunction;
+		this.database = database;
+		this.creator = creator;
+		this.settings = settings;
+		this.statistics = statistics;
+	}
+
+	void run(ImportSource importSource) {
+		try {
+			statistics.expectPunishments(importSource.estimatedPunishmentCount());
+		} catch (ImportException ex) {
+			logger.debug("Unable to estimate punishment count. The time remaining will not be reported.", ex);
+		}
+		ExecutorService writers = Executors.newFixedThreadPool(
+				settings.writerThreads(), SimpleThreadFactory.create("Importer")
+		);
+		try {
+			Pipeline pipeline = new Pipeline(writers);
+			try (Stream<PortablePunishment> punishmentStream = importSource.sourcePunishments()) {
+				forEachBatch(punishmentStream, (batch) -> pipeline.submit(() -> writePunishments(importSource, batch)));
+			}
+			try (Stream<NameAddressRecord> nameAddressHistoryStream = importSource.sourceNameAddressHistory()) {
+				forEachBatch(nameAddressHistoryStream, (batch) -> pipeline.submit(() -> writeNameAddressRecords(batch)));
+			}
+			pipeline.awaitCompletion();
+		} finally {
+			writers.shutdownNow();
+		}
+	}
+
+	private <T> void forEachBatch(Stream<T> stream, Consumer<List<T>> batchAction) {
+		int batchSize = settings.batchSize();
+		List<T> batch = new ArrayList<>(batchSize);
+		for (Iterator<T> iterator = stream.iterator(); iterator.hasNext(); ) {
+			batch.add(iterator.next());
+			if (batch.size() == batchSize) {
+				batchAction.accept(batch);
+				batch = new ArrayList<>(batchSize);
+			}
+		}
+		if (!batch.isEmpty()) {
+			batchAction.accept(batch);
+		}
+	}
+
+	private void writePunishments(ImportSource importSource, List<PortablePunishment> batch) {
+		// Skip punishments imported by a previous, interrupted import
+		List<CheckpointKey> checkpointKeys = new ArrayList<>(batch.size());
+		for (PortablePunishment punishment : batch) {
+			checkpointKeys.add(importSource.checkpointKey(punishment).orElse(null));
+		}
+		Set<CheckpointKey> previouslyImported = findPreviouslyImported(checkpointKeys);
+		List<PortablePunishment> pending = new ArrayList<>(batch.size());
+		List<CheckpointKey> pendingCheckpoints = new ArrayList<>(batch.size());
+		for (int n = 0; n < batch.size(); n++) {
+			CheckpointKey checkpointKey = checkpointKeys.get(n);
+			if (checkpointKey != null && previouslyImported.contains(checkpointKey)) {
+				statistics.skippedPreviouslyImported();
+				continue;
+			}
+			pending.add(batch.get(n));
+			pendingCheckpoints.add(checkpointKey);
+		}
+
+		// Look up all unknown uuids in this batch at once. Names known to the database are found
+		// with a single query, and only the rest are looked up individually
+		Set<String> names = new LinkedHashSet<>();
+		for (PortablePunishment punishment : pending) {
+			ImportFunction.namesRequiringLookup(punishment, names::add);
+		}
+		names.removeIf(uuidLookups::containsKey);
+		if (!names.isEmpty()) {
+			Map<String, UUID> knownUuids = importFunction.lookupKnownUUIDs(names).join();
+			for (String name : names) {
+				UUID knownUuid = knownUuids.get(name);
+				if (knownUuid != null) {
+					uuidLookups.putIfAbsent(name, CompletableFuture.completedFuture(Optional.of(knownUuid)));
+				} else {
+					uuidLookups.computeIfAbsent(name, importFunction::lookupUUID);
+				}
+			}
+		}
+		List<Enaction.OrderDetails> activeOrders = new ArrayList<>();
+		List<CheckpointKey> activeCheckpoints = new ArrayList<>();
+		List<Enaction.OrderDetails> historicalOrders = new ArrayList<>();
+		List<CheckpointKey> historicalCheckpoints = new ArrayList<>();
+		List<NameAddressRecord> nameAddressRecords = new ArrayList<>();
+		for (int n = 0; n < pending.size(); n++) {
+			PortablePunishment punishment = pending.get(n);
+			CheckpointKey checkpointKey = pendingCheckpoints.get(n);
+			Optional<Enaction.OrderDetails> enactionOrder = importFunction.createOrder(
+					punishment,
+					(name) -> uuidLookups.computeIfAbsent(name, importFunction::lookupUUID).join(),
+					nameAddressRecords::add
+			);
+			if (enactionOrder.isEmpty()) {
+				logger.info("Skipped imported punishment with ID {} applying to victim {}",
+						punishment.foreignId(), punishment.victimInfo());
+				continue;
+			}
+			if (importFunction.isActiveAndUnexpired(punishment)) {
+				activeOrders.add(enactionOrder.get());
+				activeCheckpoints.add(checkpointKey);
+			} else {
+				historicalOrders.add(enactionOrder.get());
+				historicalCheckpoints.add(checkpointKey);
+			}
+			ImportFunction.implicitNameAddressRecords(punishment, nameAddressRecords::add);
+		}
+		List<Punishment> enacted = database.queryWithRetry((context, transaction) -> {
+			// Writers may add the same victims concurrently
+			transaction.setIsolation(Connection.TRANSACTION_SERIALIZABLE);
+
+			List<Punishment> enactedActive = new BulkEnaction(
+					activeOrders, creator, database.identifierCache()
+			).enactActive(context, transaction);
+			List<Punishment> enactedHistorical = new BulkEnaction(
+					historicalOrders, creator, database.identifierCache()
+			).enactHistorical(context, transaction);
+			associateAll(context, nameAddressRecords);
+			// Checkpoints are committed together with the punishments they record
+			List<Query> checkpointQueries = new ArrayList<>();
+			addCheckpointQueries(context, activeCheckpoints, enactedActive, checkpointQueries);
+			addCheckpointQueries(context, historicalCheckpoints, enactedHistorical, checkpointQueries);
+			if (!checkpointQueries.isEmpty()) {
+				context.batch(checkpointQueries).execute();
+			}
+			return enactedActive;
+		}).join();
+
+		for (int n = 0; n < enacted.size(); n++) {
+			if (enacted.get(n) == null) {
+				logger.warn(
+						"There is a conflicting active punishment: {}. For example two bans for the same user. " +
+								"This is harmless in most cases. The punishment will be skipped.",
+						activeOrders.get(n));
+				continue;
+			}
+			statistics.transferredActive();
+		}
+		for (int n = 0; n < historicalOrders.size(); n++) {
+			statistics.transferredHistorical();
+		}
+		for (int n = 0; n < nameAddressRecords.size(); n++) {
+			statistics.transferredNameAddressRecord();
+		}
+	}
+
+	private Set<CheckpointKey> findPreviouslyImported(List<CheckpointKey> checkpointKeys) {
+		List<CheckpointKey> presentKeys = new ArrayList<>(checkpointKeys.size());
+		for (CheckpointKey checkpointKey : checkpointKeys) {
+			if (checkpointKey != null) {
+				presentKeys.add(checkpointKey);
+			}
+		}
+		if (presentKeys.isEmpty()) {
+			return Set.of();
+		}
+		return database.query(SQLFunction.readOnly((context) -> {
+			return ImportCheckpoints.findRecorded(context, presentKeys);
+		})).join();
+	}
+
+	private static void addCheckpointQueries(DSLContext context, List<CheckpointKey> checkpointKeys,
+											 List<Punishment> enacted, List<Query> queries) {
+		for (int n = 0; n < checkpointKeys.size(); n++) {
+			CheckpointKey checkpointKey = checkpointKeys.get(n);
+			if (checkpointKey == null) {
+				continue;
+			}
+			Punishment punishment = enacted.get(n);
+			Long punishmentId = (punishment == null) ? null : punishment.getIdentifier();
+			queries.add(ImportCheckpoints.recordQuery(context, checkpointKey, punishmentId));
+		}
+	}
+
+	private void writeNameAddressRecords(List<NameAddressRecord> batch) {
+		database.executeWithRetry((context, transaction) -> {
+			transaction.setIsolation(Connection.TRANSACTION_SERIALIZABLE);
+			associateAll(context, batch);
+		}).join();
+		for (int n = 0; n < batch.size(); n++) {
+			statistics.transferredNameAddressRecord();
+		}
+	}
+
+	private static void associateAll(DSLContext context, List<NameAddressRecord> nameAddressRecords) {
+		List<Query> queries = new ArrayList<>(nameAddressRecords.size());
+		// Use a consistent order so that concurrent writers lock rows in the same order
+		List<NameAddressRecord> sortedRecords = new ArrayList<>(nameAddressRecords);
+		sortedRecords.sort(Comparator.comparing(NameAddressRecord::uuid));
+		for (NameAddressRecord nameAddressRecord : sortedRecords) {
+			Association association = new Association(nameAddressRecord.uuid(), context);
+			nameAddressRecord.name().ifPresent((name) -> {
+				queries.addAll(association.pastNameQueries(name, nameAddressRecord.timeRecorded()));
+			});
+			nameAddressRecord.address().ifPresent((address) -> {
+				queries.add(association.pastAddressQuery(address, nameAddressRecord.timeRecorded()));
+			});
+		}
+		if (!queries.isEmpty()) {
+			context.batch(queries).execute();
+		}
+	}
+
+	/**
+	 * Bounded submission of writer tasks. Tracks the first failure, which aborts the import
+	 *
+	 */
+	private final class Pipeline {
+
+		private final ExecutorService writers;
+		private final int capacity;
+		private final Semaphore permits;
+		private final AtomicReference<Throwable> failure = new AtomicReference<>();
+		private long lastProgressReport = System.nanoTime();
+
+		Pipeline(ExecutorService writers) {
+			this.writers = writers;
+			capacity = settings.writerThreads() + settings.queueCapacity();
+			permits = new Semaphore(capacity);
+		}
+
+		void submit(Runnable writerTask) {
+			checkFailure();
+			try {
+				permits.acquire();
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new ImportException("Interrupted while waiting for writers", ex);
+			}
+			CompletableFuture.runAsync(writerTask, writers).whenComplete((ignore, ex) -> {
+				if (ex != null) {
+					failure.compareAndSet(null, ex);
+				}
+				permits.release();
+			});
+			reportProgressIfDue();
+		}
+
+		void awaitCompletion() {
+			try {
+				permits.acquire(capacity);
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new ImportException("Interrupted while waiting for writers", ex);
+			}
+			permits.release(capacity);
+			checkFailure();
+		}
+
+		private void checkFailure() {
+			Throwable ex = failure.get();
+			if (ex != null) {
+				throw new ImportException("Failed to write imported data", ex);
+			}
+		}
+
+		private void reportProgressIfDue() {
+			long now = System.nanoTime();
+			if (now - lastProgressReport >= PROGRESS_INTERVAL.toNanos()) {
+				lastProgressReport = now;
+				logger.info(statistics.progress());
+			}
+		}
+	}
+}
@@ -37,6 +37,7 @@ import space.arim.libertybans.core.database.StandardDatabase;
 import space.arim.libertybans.core.database.execute.QueryExecutor;
 import space.arim.libertybans.core.database.jooq.BatchTransfer;
 import space.arim.libertybans.core.database.sql.SequenceValue;
+import space.arim.libertybans.core.selector.AccountClustering;
 import space.arim.omnibus.util.ThisClass;
 import space.arim.omnibus.util.concurrent.CentralisedFuture;
 
@@ -48,6 +49,9 @@ import java.util.Set;
 
 import static space.arim.libertybans.core.schema.Sequences.LIBERTYBANS_PUNISHMENT_IDS;
 import static space.arim.libertybans.core.schema.Sequences.LIBERTYBANS_VICTIM_IDS;
+import static space.arim.libertybans.core.schema.tables.AccountClusters.ACCOUNT_CLUSTERS;
+import static space.arim.libertybans.core.schema.tables.AccountClustersState.ACCOUNT_CLUSTERS_STATE;
+import static space.arim.libertybans.core.schema.tables.ImportCheckpoints.IMPORT_CHECKPOINTS;
 import static space.arim.libertybans.core.schema.tables.Messages.MESSAGES;
 import static space.arim.libertybans.core.schema.tables.Punishments.PUNISHMENTS;
 import static space.arim.libertybans.core.schema.tables.Revision.REVISION;
@@ -59,16 +63,19 @@ public final class SelfImportProcess {
 	private final Configs configs;
 	private final DatabaseManager databaseManager;
 	private final Provider<QueryExecutor> queryExecutor;
+	private final AccountClustering accountClustering;
 
 	private static final Logger logger = LoggerFactory.getLogger(ThisClass.get());
 
 	@Inject
 	public SelfImportProcess(@Named("folder") Path folder, Configs configs,
-							 DatabaseManager databaseManager, Provider<QueryExecutor> queryExecutor) {
+							 DatabaseManager databaseManager, Provider<QueryExecutor> queryExecutor,
+							 AccountClustering accountClustering) {
 		this.folder = folder;
 		this.configs = configs;
 		this.databaseManager = databaseManager;
 		this.queryExecutor = queryExecutor;
+		this.accountClustering = accountClustering;
 	}
 
 	public CentralisedFuture<Void> transferAllData() {
@@ -95,7 +102,10 @@ public final class SelfImportProcess {
 				}).join();
 			}
 			logger.info("Completed self-import process");
-		});
+		}).thenCompose((ignore) -> {
+			// Account clusters are not transferred, since they are derived from addresses
+			return accountClustering.rebuild();
+		}).thenApply((ignore) -> null);
 	}
 
 	private static final class SelfImport {
@@ -112,7 +122,8 @@ public final class SelfImportProcess {
 
 		private void runTransfer() {
 			for (Table<?> table : DatabaseConstants.allTables(DatabaseConstants.TableOrder.REFERENTS_FIRST)) {
-				if (table.equals(REVISION) || table.equals(MESSAGES)) {
+				if (table.equals(REVISION) || table.equals(MESSAGES) || table.equals(IMPORT_CHECKPOINTS)
+						|| table.equals(ACCOUNT_CLUSTERS) || table.equals(ACCOUNT_CLUSTERS_STATE)) {
 					continue;
 				}
 				logger.info("Beginning transfer of data from table: {}", table.getName());
@@ -19,14 +19,21 @@
 
 package space.arim.libertybans.core.punish;
 
+import org.jooq.Condition;
 import org.jooq.DSLContext;
+import org.jooq.Query;
 import space.arim.libertybans.api.NetworkAddress;
+import space.arim.libertybans.core.selector.AccountClustering;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.Objects;
 import java.util.UUID;
 
+import static org.jooq.impl.DSL.val;
+import static org.jooq.impl.DSL.when;
 import static space.arim.libertybans.core.schema.tables.Addresses.ADDRESSES;
+import static space.arim.libertybans.core.schema.tables.LatestNames.LATEST_NAMES;
 import static space.arim.libertybans.core.schema.tables.Names.NAMES;
 
 public final class Association {
@@ -40,53 +47,121 @@ public final class Association {
 	}
 
 	public void associateCurrentName(String name, Instant currentTime) {
+		for (Query query : currentNameQueries(name, currentTime)) {
+			query.execute();
+		}
+	}
+
+	/**
+	 * Creates the queries which record a current name. The latest name of the player
+	 * is also updated, so the queries should be executed in the same transaction
+	 *
+	 * @param name the current name
+	 * @param currentTime the current time
+	 * @return the queries, in the order they should be executed
+	 */
+	List<Query> currentNameQueries(String name, Instant currentTime) {
 		Objects.requireNonNull(name, "name");
 		Objects.requireNonNull(currentTime, "currentTime");
-		context
-				.insertInto(NAMES)
-				.columns(NAMES.UUID, NAMES.NAME, NAMES.UPDATED)
-				.values(uuid, name, currentTime)
-				.onConflict(NAMES.UUID, NAMES.NAME)
-				.doUpdate()
-				.set(NAMES.UPDATED, currentTime)
-				.execute();
+		return List.of(
+				context
+						.insertInto(NAMES)
+						.columns(NAMES.UUID, NAMES.NAME, NAMES.UPDATED)
+						.values(uuid, name, currentTime)
+						.onConflict(NAMES.UUID, NAMES.NAME)
+						.doUpdate()
+						.set(NAMES.UPDATED, currentTime),
+				context
+						.insertInto(LATEST_NAMES)
+						.columns(LATEST_NAMES.UUID, LATEST_NAMES.NAME, LATEST_NAMES.UPDATED)
+						.values(uuid, name, currentTime)
+						.onConflict(LATEST_NAMES.UUID)
+						.doUpdate()
+						.set(LATEST_NAMES.NAME, name)
+						.set(LATEST_NAMES.UPDATED, currentTime)
+		);
 	}
 
 	public void associatePastName(String name, Instant pastTime) {
+		for (Query query : pastNameQueries(name, pastTime)) {
+			query.execute();
+		}
+	}
+
+	/**
+	 * Creates the queries which record a past name. The latest name of the player
+	 * is updated only if the past name is more recent than it
+	 *
+	 * @param name the past name
+	 * @param pastTime the time the name was used
+	 * @return the queries, in the order they should be executed
+	 */
+	public List<Query> pastNameQueries(String name, Instant pastTime) {
 		Objects.requireNonNull(name, "name");
 		Objects.requireNonNull(pastTime, "pastTime");
-		context
-				.insertInto(NAMES)
-				.columns(NAMES.UUID, NAMES.NAME, NAMES.UPDATED)
-				.values(uuid, name, pastTime)
-				.onConflict(NAMES.UUID, NAMES.NAME)
-				.doNothing()
-				.execute();
+		// The name must be set before the timestamp, because MySQL assigns columns in order
+		Condition isMoreRecent = LATEST_NAMES.UPDATED.lessThan(pastTime);
+		return List.of(
+				context
+						.insertInto(NAMES)
+						.columns(NAMES.UUID, NAMES.NAME, NAMES.UPDATED)
+						.values(uuid, name, pastTime)
+						.onConflict(NAMES.UUID, NAMES.NAME)
+						.doNothing(),
+				context
+						.insertInto(LATEST_NAMES)
+						.columns(LATEST_NAMES.UUID, LATEST_NAMES.NAME, LATEST_NAMES.UPDATED)
+						.values(uuid, name, pastTime)
+						.onConflict(LATEST_NAMES.UUID)
+						.doUpdate()
+						.set(LATEST_NAMES.NAME, when(isMoreRecent, val(name, LATEST_NAMES.NAME)).otherwise(LATEST_NAMES.NAME))
+						.set(LATEST_NAMES.UPDATED, when(isMoreRecent, val(pastTime, LATEST_NAMES.UPDATED)).otherwise(LATEST_NAMES.UPDATED))
+		);
 	}
 
 	public void associateCurrentAddress(NetworkAddress address, Instant currentTime) {
+		currentAddressQuery(address, currentTime).execute();
+	}
+
+	/**
+	 * Associates a current address, and links this account to the other accounts on the address
+	 * if account clustering is enabled
+	 *
+	 * @param address the current address
+	 * @param currentTime the current time
+	 * @param accountClustering the account clustering
+	 */
+	public void associateCurrentAddress(NetworkAddress address, Instant currentTime,
+										AccountClustering accountClustering) {
+		associateCurrentAddress(address, currentTime);
+		accountClustering.linkAddress(context, uuid, address);
+	}
+
+	Query currentAddressQuery(NetworkAddress address, Instant currentTime) {
 		Objects.requireNonNull(address, "address");
 		Objects.requireNonNull(currentTime, "currentTime");
-		context
+		return context
 				.insertInto(ADDRESSES)
 				.columns(ADDRESSES.UUID, ADDRESSES.ADDRESS, ADDRESSES.UPDATED)
 				.values(uuid, address, currentTime)
 				.onConflict(ADDRESSES.UUID, ADDRESSES.ADDRESS)
 				.doUpdate()
-				.set(ADDRESSES.UPDATED, currentTime)
-				.execute();
+				.set(ADDRESSES.UPDATED, currentTime);
 	}
 
 	public void associatePastAddress(NetworkAddress address, Instant pastTime) {
+		pastAddressQuery(address, pastTime).execute();
+	}
+
+	public Query pastAddressQuery(NetworkAddress address, Instant pastTime) {
 		Objects.requireNonNull(address, "address");
 		Objects.requireNonNull(pastTime, "pastTime");
-		context
+		return context
 				.insertInto(ADDRESSES)
 				.columns(ADDRESSES.UUID, ADDRESSES.ADDRESS, ADDRESSES.UPDATED)
 				.values(uuid, address, pastTime)
 				.onConflict(ADDRESSES.UUID, ADDRESSES.ADDRESS)
-				.doNothing()
-				.execute();
+				.doNothing();
 	}
 
 	@Override
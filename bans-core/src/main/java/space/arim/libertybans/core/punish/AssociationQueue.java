@@ -0,0 +1,330 @@
+/*
+ * LibertyBans
+ * Copyright © 2023 Anand Beh
+ *
+ * LibertyBans is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * LibertyBans is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with LibertyBans. If not, see <https://www.gnu.org/licenses/>
+ * and navigate to version 3 of the GNU Affero General Public License.
+ */
+
+package space.arim.libertybans.core.punish;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Provider;
+import jakarta.inject.Singleton;
+import org.jooq.DSLContext;
+import org.jooq.Query;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import space.arim.libertybans.api.NetworkAddress;
+import space.arim.libertybans.core.Part;
+import space.arim.libertybans.core.config.Configs;
+import space.arim.libertybans.core.config.SqlConfig;
+import space.arim.libertybans.core.database.execute.QueryExecutor;
+import space.arim.libertybans.core.selector.AccountClustering;
+import space.arim.libertybans.core.service.Time;
+import space.arim.omnibus.util.ThisClass;
+import space.arim.omnibus.util.concurrent.CentralisedFuture;
+import space.arim.omnibus.util.concurrent.DelayCalculators;
+import space.arim.omnibus.util.concurrent.EnhancedExecutor;
+import space.arim.omnibus.util.concurrent.FactoryOfTheFuture;
+import space.arim.omnibus.util.concurrent.ScheduledTask;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Write-behind queue for current name and address associations. Repeated associations
+ * of the same account are coalesced, and queued associations are periodically written
+ * to the database in a single batch.
+ *
+ */
+@Singleton
+public final class AssociationQueue implements Part {
+
+	private final Configs configs;
+	private final FactoryOfTheFuture futuresFactory;
+	private final Provider<QueryExecutor> queryExecutor;
+	private final EnhancedExecutor enhancedExecutor;
+	private final AccountClustering accountClustering;
+	private final Time time;
+
+	private final Object lock = new Object();
+	private Map<NameKey, Instant> pendingNames = new LinkedHashMap<>();
+	private Map<AddressKey, Instant> pendingAddresses = new LinkedHashMap<>();
+	private int maxQueueSize;
+	private ScheduledTask flushTask;
+
+	private volatile Statistics statistics = new Statistics(0, Duration.ZERO, Duration.ZERO, 0L);
+
+	private static final Logger logger = LoggerFactory.getLogger(ThisClass.get());
+
+	@Inject
+	public AssociationQueue(Configs configs, FactoryOfTheFuture futuresFactory, Provider<QueryExecutor> queryExecutor,
+							EnhancedExecutor enhancedExecutor, AccountClustering accountClustering, Time time) {
+		this.configs = configs;
+		this.futuresFactory = futuresFactory;
+		this.queryExecutor = queryExecutor;
+		this.enhancedExecutor = enhancedExecutor;
+		this.accountClustering = accountClustering;
+		this.time = time;
+	}
+
+	record NameKey(UUID uuid, String name) { }
+
+	record AddressKey(UUID uuid, NetworkAddress address) { }
+
+	/**
+	 * Queue metrics
+	 *
+	 * @param queueDepth the amount of associations currently queued
+	 * @param lastFlushLatency the time taken by the most recent flush
+	 * @param maxFlushLatency the longest time taken by any flush
+	 * @param flushedAssociations the total amount of associations written
+	 */
+	public record Statistics(int queueDepth, Duration lastFlushLatency, Duration maxFlushLatency,
+							 long flushedAssociations) { }
+
+	@Override
+	public void startup() {
+		SqlConfig.WriteBehindAssociations config = configs.getSqlConfig().writeBehindAssociations();
+		if (!config.enable()) {
+			return;
+		}
+		synchronized (lock) {
+			maxQueueSize = config.maxQueueSize();
+			flushTask = enhancedExecutor.scheduleRepeating(
+					() -> flush().join(),
+					Duration.ofMillis(config.flushIntervalMillis()),
+					DelayCalculators.fixedDelay()
+			);
+		}
+	}
+
+	@Override
+	public void restart() {
+		shutdown();
+		startup();
+	}
+
+	@Override
+	public void shutdown() {
+		ScheduledTask flushTask;
+		synchronized (lock) {
+			flushTask = this.flushTask;
+			this.flushTask = null;
+		}
+		if (flushTask != null) {
+			flushTask.cancel();
+			// Guarantee nothing queued is lost
+			Map<NameKey, Instant> names;
+			Map<AddressKey, Instant> addresses;
+			synchronized (lock) {
+				names = pendingNames;
+				addresses = pendingAddresses;
+				pendingNames = new LinkedHashMap<>();
+				pendingAddresses = new LinkedHashMap<>();
+			}
+			if (names.isEmpty() && addresses.isEmpty()) {
+				return;
+			}
+			// There will be no further flush, so retry once before giving up
+			if (!write(names, addresses).join() && !write(names, addresses).join()) {
+				logger.warn("Discarded {} queued name and address associations which could not be written on shutdown",
+						names.size() + addresses.size());
+			}
+		}
+	}
+
+	/**
+	 * Whether write-behind association is enabled
+	 *
+	 * @return true if enabled
+	 */
+	public boolean isEnabled() {
+		synchronized (lock) {
+			return flushTask != null;
+		}
+	}
+
+	/**
+	 * Queues the association of a current name
+	 *
+	 * @param uuid the uuid
+	 * @param name the current name
+	 * @param currentTime the current time
+	 * @return true if queued, false if disabled or the queue is full, in which case
+	 * the caller should associate the name itself
+	 */
+	public boolean queueCurrentName(UUID uuid, String name, Instant currentTime) {
+		synchronized (lock) {
+			NameKey key = new NameKey(uuid, name);
+			if (!canQueue(pendingNames.containsKey(key))) {
+				return false;
+			}
+			pendingNames.merge(key, currentTime, AssociationQueue::latest);
+			return true;
+		}
+	}
+
+	/**
+	 * Queues the association of a current address
+	 *
+	 * @param uuid the uuid
+	 * @param address the current address
+	 * @param currentTime the current time
+	 * @return true if queued, false if disabled or the queue is full, in which case
+	 * the caller should associate the address itself
+	 */
+	public boolean queueCurrentAddress(UUID uuid, NetworkAddress address, Instant currentTime) {
+		synchronized (lock) {
+			AddressKey key = new AddressKey(uuid, address);
+			if (!canQueue(pendingAddresses.containsKey(key))) {
+				return false;
+			}
+			pendingAddresses.merge(key, currentTime, AssociationQueue::latest);
+			return true;
+		}
+	}
+
+	// Must hold lock
+	private boolean canQueue(boolean alreadyQueued) {
+		if (flushTask == null) {
+			return false;
+		}
+		// Coalescing never increases the queue depth
+		return alreadyQueued || queueDepth() < maxQueueSize;
+	}
+
+	// Must hold lock
+	private int queueDepth() {
+		return pendingNames.size() + pendingAddresses.size();
+	}
+
+	private static Instant latest(Instant first, Instant second) {
+		return (first.isAfter(second)) ? first : second;
+	}
+
+	/**
+	 * Gets current queue metrics
+	 *
+	 * @return the metrics
+	 */
+	public Statistics statistics() {
+		Statistics statistics = this.statistics;
+		int queueDepth;
+		synchronized (lock) {
+			queueDepth = queueDepth();
+		}
+		return new Statistics(
+				queueDepth, statistics.lastFlushLatency(), statistics.maxFlushLatency(), statistics.flushedAssociations()
+		);
+	}
+
+	/**
+	 * Writes all queued associations to the database
+	 *
+	 * @return a future completed once written
+	 */
+	CentralisedFuture<Void> flush() {
+		Map<NameKey, Instant> names;
+		Map<AddressKey, Instant> addresses;
+		synchronized (lock) {
+			if (pendingNames.isEmpty() && pendingAddresses.isEmpty()) {
+				return futuresFactory.completedFuture(null);
+			}
+			names = pendingNames;
+			addresses = pendingAddresses;
+			pendingNames = new LinkedHashMap<>();
+			pendingAddresses = new LinkedHashMap<>();
+		}
+		return write(names, addresses).thenAccept((written) -> {
+			if (!written) {
+				requeue(names, addresses);
+			}
+		});
+	}
+
+	private CentralisedFuture<Boolean> write(Map<NameKey, Instant> names, Map<AddressKey, Instant> addresses) {
+		long startTime = time.arbitraryNanoTime();
+		return queryExecutor.get().executeWithRetry((context, transaction) -> {
+			context.batch(batchedUpserts(context, names, addresses)).execute();
+			for (AddressKey key : addresses.keySet()) {
+				accountClustering.linkAddress(context, key.uuid(), key.address());
+			}
+		}).handle((ignore, ex) -> {
+			if (ex != null) {
+				logger.warn("Failed to write {} queued name and address associations", names.size() + addresses.size(), ex);
+				return false;
+			}
+			Duration latency = Duration.ofNanos(time.arbitraryNanoTime() - startTime);
+			int flushed = names.size() + addresses.size();
+			Statistics previous = statistics;
+			Duration maxLatency = (latency.compareTo(previous.maxFlushLatency()) > 0) ? latency : previous.maxFlushLatency();
+			statistics = new Statistics(0, latency, maxLatency, previous.flushedAssociations() + flushed);
+			logger.debug("Wrote {} queued name and address associations in {} ms", flushed, latency.toMillis());
+			return true;
+		});
+	}
+
+	private static List<Query> batchedUpserts(DSLContext context,
+											  Map<NameKey, Instant> names, Map<AddressKey, Instant> addresses) {
+		List<Query> queries = new ArrayList<>(2 * names.size() + addresses.size());
+		// Use a consistent order so that concurrent writers lock rows in the same order
+		names.entrySet().stream()
+				.sorted(Map.Entry.comparingByKey(
+						Comparator.comparing(NameKey::uuid).thenComparing(NameKey::name)))
+				.forEach((entry) -> {
+					NameKey key = entry.getKey();
+					queries.addAll(new Association(key.uuid(), context).currentNameQueries(key.name(), entry.getValue()));
+				});
+		addresses.entrySet().stream()
+				.sorted(Map.Entry.comparingByKey(
+						Comparator.comparing(AddressKey::uuid).thenComparing(
+								(key) -> key.address().getRawAddress(), Arrays::compare)))
+				.forEach((entry) -> {
+					AddressKey key = entry.getKey();
+					queries.add(new Association(key.uuid(), context).currentAddressQuery(key.address(), entry.getValue()));
+				});
+		return queries;
+	}
+
+	private void requeue(Map<NameKey, Instant> names, Map<AddressKey, Instant> addresses) {
+		synchronized (lock) {
+			if (flushTask == null) {
+				// Shutting down; there will be no further flush
+				logger.warn("Discarded {} queued name and address associations which could not be written on shutdown",
+						names.size() + addresses.size());
+				return;
+			}
+			for (Map.Entry<NameKey, Instant> entry : names.entrySet()) {
+				if (canQueue(pendingNames.containsKey(entry.getKey()))) {
+					pendingNames.merge(entry.getKey(), entry.getValue(), AssociationQueue::latest);
+				}
+			}
+			for (Map.Entry<AddressKey, Instant> entry : addresses.entrySet()) {
+				if (canQueue(pendingAddresses.containsKey(entry.getKey()))) {
+					pendingAddresses.merge(entry.getKey(), entry.getValue(), AssociationQueue::latest);
+				}
+			}
+		}
+	}
+
+}
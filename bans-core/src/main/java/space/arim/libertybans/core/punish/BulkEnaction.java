@@ -0,0 +1,232 @@
+/*
+ * LibertyBans
+ * Copyright © 2023 Anand Beh
+ *
+ * LibertyBans is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * LibertyBans is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with LibertyBans. If not, see <https://www.gnu.org/licenses/>
+ * and navigate to version 3 of the GNU Affero General Public License.
+ */
+
+package space.arim.libertybans.core.punish;
+
+import org.jooq.DSLContext;
+import space.arim.libertybans.api.PunishmentType;
+import space.arim.libertybans.api.Victim;
+import space.arim.libertybans.api.punish.EscalationTrack;
+import space.arim.libertybans.api.punish.Punishment;
+import space.arim.libertybans.api.scope.ServerScope;
+import space.arim.libertybans.core.database.execute.Transaction;
+import space.arim.libertybans.core.database.sql.IdentifierCache;
+import space.arim.libertybans.core.database.sql.ScopeIdSequenceValue;
+import space.arim.libertybans.core.database.sql.SequenceValue;
+import space.arim.libertybans.core.database.sql.TableForType;
+import space.arim.libertybans.core.database.sql.TrackIdSequenceValue;
+import space.arim.libertybans.core.database.sql.VictimIdSequenceValue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.jooq.impl.DSL.val;
+import static space.arim.libertybans.core.schema.Sequences.LIBERTYBANS_PUNISHMENT_IDS;
+import static space.arim.libertybans.core.schema.tables.History.HISTORY;
+import static space.arim.libertybans.core.schema.tables.Punishments.PUNISHMENTS;
+import static space.arim.libertybans.core.schema.tables.Warns.WARNS;
+
+/**
+ * The enaction of multiple punishments in the same transaction. Where possible, rows are
+ * inserted using a single statement for all punishments, split so as to respect the limits
+ * of database drivers on bind parameters. <br>
+ * <br>
+ * Conflicting bans and mutes are detected per punishment, like with {@link Enaction}. Instead of
+ * rolling back, the conflicting punishment's rows are deleted, so that the others are unaffected.
+ *
+ */
+public final class BulkEnaction {
+
+	private final List<Enaction.OrderDetails> orders;
+	private final PunishmentCreator creator;
+	private final IdentifierCache identifierCache;
+
+	/**
+	 * The maximum rows in one insert into the punishments table. Each row binds 9 parameters, which keeps
+	 * each statement below PostgreSQL's limit of 32767 bind parameters, the lowest of all drivers
+	 */
+	static final int MAX_PUNISHMENT_ROWS_PER_INSERT = 3000;
+
+	public BulkEnaction(List<Enaction.OrderDetails> orders, PunishmentCreator creator, IdentifierCache identifierCache) {
+		this.orders = List.copyOf(orders);
+		this.creator = creator;
+		this.identifierCache = identifierCache;
+	}
+
+	/**
+	 * Enacts all punishments as active punishments
+	 *
+	 * @param context the database context, which should be in a serializable transaction
+	 * @param transaction the transaction
+	 * @return the punishments in the same order as the orders, with null elements for conflicts
+	 */
+	public List<Punishment> enactActive(DSLContext context, Transaction transaction) {
+		return enact(context, transaction, true);
+	}
+
+	/**
+	 * Enacts all punishments as historical punishments. There are never conflicts
+	 *
+	 * @param context the database context
+	 * @param transaction the transaction
+	 * @return the punishments in the same order as the orders
+	 */
+	public List<Punishment> enactHistorical(DSLContext context, Transaction transaction) {
+		return enact(context, transaction, false);
+	}
+
+	private List<Punishment> enact(DSLContext context, Transaction transaction, boolean active) {
+		int size = orders.size();
+		if (size == 0) {
+			return List.of();
+		}
+		long[] ids = new long[size];
+		int[] victimIds = new int[size];
+		boolean[] conflicts = new boolean[size];
+
+		// Identifiers are resolved individually, but repeated values are looked up only once
+		SequenceValue<Long> punishmentIdSequence = new SequenceValue<>(context, LIBERTYBANS_PUNISHMENT_IDS);
+		VictimIdSequenceValue victimIdSequence = new VictimIdSequenceValue(
+				context, identifierCache.victimIds(transaction)
+		);
+		TrackIdSequenceValue trackIdSequence = new TrackIdSequenceValue(
+				context, identifierCache.trackIds(transaction)
+		);
+		ScopeIdSequenceValue scopeIdSequence = new ScopeIdSequenceValue(
+				context, identifierCache.scopeIds(transaction)
+		);
+		Map<Victim, Integer> victimIdCache = new HashMap<>();
+		Map<EscalationTrack, Integer> trackIdCache = new HashMap<>();
+		Map<ServerScope, Integer> scopeIdCache = new HashMap<>();
+
+		for (int chunkStart = 0; chunkStart < size; chunkStart += MAX_PUNISHMENT_ROWS_PER_INSERT) {
+			int chunkEnd = Math.min(size, chunkStart + MAX_PUNISHMENT_ROWS_PER_INSERT);
+			var insertPunishments = context
+					.insertInto(PUNISHMENTS)
+					.columns(
+							PUNISHMENTS.ID, PUNISHMENTS.TYPE, PUNISHMENTS.OPERATOR, PUNISHMENTS.REASON,
+							PUNISHMENTS.SCOPE, PUNISHMENTS.START, PUNISHMENTS.END,
+							PUNISHMENTS.TRACK, PUNISHMENTS.SCOPE_ID
+					);
+			for (int n = chunkStart; n < chunkEnd; n++) {
+				Enaction.OrderDetails order = orders.get(n);
+				MiscUtil.checkNoCompositeVictimWildcards(order.victim());
+
+				ids[n] = context.select(punishmentIdSequence.nextValue()).fetchSingle().value1();
+				victimIds[n] = victimIdCache.computeIfAbsent(order.victim(), victimIdSequence::retrieveVictimIdReified);
+				Integer trackId = (order.escalationTrack() == null) ? null : trackIdCache.computeIfAbsent(
+						order.escalationTrack(), trackIdSequence::retrieveTrackIdReified
+				);
+				// Global scope has a null scope ID, which cannot be stored by computeIfAbsent
+				Integer scopeId;
+				if (scopeIdCache.containsKey(order.scope())) {
+					scopeId = scopeIdCache.get(order.scope());
+				} else {
+					scopeId = scopeIdSequence.retrieveScopeIdFieldReified(order.scope());
+					scopeIdCache.put(order.scope(), scopeId);
+				}
+				insertPunishments = insertPunishments.values(
+						val(ids[n], PUNISHMENTS.ID), val(order.type(), PUNISHMENTS.TYPE),
+						val(order.operator(), PUNISHMENTS.OPERATOR), val(order.reason(), PUNISHMENTS.REASON),
+						val("", PUNISHMENTS.SCOPE), val(order.start(), PUNISHMENTS.START), val(order.end(), PUNISHMENTS.END),
+						val(trackId, PUNISHMENTS.TRACK), val(scopeId, PUNISHMENTS.SCOPE_ID)
+				);
+			}
+			insertPunishments.execute();
+		}
+
+		// Historical punishments have no rows in the bans, mutes, or warns tables
+		if (active) {
+			// Bans and mutes must be inserted individually to detect conflicts
+			var insertWarns = context
+					.insertInto(WARNS)
+					.columns(WARNS.ID, WARNS.VICTIM);
+			boolean anyWarns = false;
+			List<Long> conflictingIds = new ArrayList<>();
+			for (int n = 0; n < size; n++) {
+				PunishmentType type = orders.get(n).type();
+				if (type == PunishmentType.WARN) {
+					insertWarns = insertWarns.values(val(ids[n], WARNS.ID), val(victimIds[n], WARNS.VICTIM));
+					anyWarns = true;
+				} else if (type.isSingular()) {
+					var dataTable = new TableForType(type).dataTable();
+					int updateCount = context
+							.insertInto(dataTable.table())
+							.columns(dataTable.id(), dataTable.victimId())
+							.values(val(ids[n], dataTable.id()), val(victimIds[n], dataTable.victimId()))
+							.onDuplicateKeyIgnore()
+							.execute();
+					if (updateCount == 0) {
+						// There is already a punishment of this type for this victim
+						conflicts[n] = true;
+						conflictingIds.add(ids[n]);
+					}
+				}
+			}
+			if (anyWarns) {
+				insertWarns.execute();
+			}
+			if (!conflictingIds.isEmpty()) {
+				context
+						.deleteFrom(PUNISHMENTS)
+						.where(PUNISHMENTS.ID.in(conflictingIds))
+						.execute();
+			}
+		}
+
+		var insertHistory = context
+				.insertInto(HISTORY)
+				.columns(HISTORY.ID, HISTORY.VICTIM);
+		boolean anyHistory = false;
+		for (int n = 0; n < size; n++) {
+			if (!conflicts[n]) {
+				insertHistory = insertHistory.values(val(ids[n], HISTORY.ID), val(victimIds[n], HISTORY.VICTIM));
+				anyHistory = true;
+			}
+		}
+		if (anyHistory) {
+			insertHistory.execute();
+		}
+
+		Punishment[] punishments = new Punishment[size];
+		for (int n = 0; n < size; n++) {
+			if (conflicts[n]) {
+				continue;
+			}
+			Enaction.OrderDetails order = orders.get(n);
+			punishments[n] = creator.createPunishment(
+					ids[n], order.type(), order.victim(), order.operator(), order.reason(),
+					order.scope(), order.start(), order.end(), order.escalationTrack()
+			);
+		}
+		return Arrays.asList(punishments);
+	}
+
+	@Override
+	public String toString() {
+		return "BulkEnaction{" +
+				"orders=" + orders +
+				", creator=" + creator +
+				", identifierCache=" + identifierCache +
+				'}';
+	}
+}
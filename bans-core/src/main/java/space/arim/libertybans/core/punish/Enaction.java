@@ -28,6 +28,7 @@ import space.arim.libertybans.api.punish.EscalationTrack;
 import space.arim.libertybans.api.punish.Punishment;
 import space.arim.libertybans.api.scope.ServerScope;
 import space.arim.libertybans.core.database.execute.Transaction;
+import space.arim.libertybans.core.database.sql.IdentifierCache;
 import space.arim.libertybans.core.database.sql.ScopeIdSequenceValue;
 import space.arim.libertybans.core.database.sql.SequenceValue;
 import space.arim.libertybans.core.database.sql.TableForType;
@@ -49,10 +50,12 @@ public class Enaction {
 
 	private final OrderDetails orderDetails;
 	private final PunishmentCreator creator;
+	private final IdentifierCache identifierCache;
 
-	public Enaction(OrderDetails orderDetails, PunishmentCreator creator) {
+	public Enaction(OrderDetails orderDetails, PunishmentCreator creator, IdentifierCache identifierCache) {
 		this.orderDetails = orderDetails;
 		this.creator = creator;
+		this.identifierCache = identifierCache;
 	}
 
 	public OrderDetails orderDetails() {
@@ -60,11 +63,11 @@ public class Enaction {
 	}
 
 	public Punishment enactActive(DSLContext context, Transaction transaction) {
-		return orderDetails.enact(creator, context, requireNonNull(transaction, "transaction"), true);
+		return orderDetails.enact(creator, identifierCache, context, requireNonNull(transaction, "transaction"), true);
 	}
 
-	public Punishment enactHistorical(DSLContext context) {
-		return orderDetails.enact(creator, context, null, false);
+	public Punishment enactHistorical(DSLContext context, Transaction transaction) {
+		return orderDetails.enact(creator, identifierCache, context, requireNonNull(transaction, "transaction"), false);
 	}
 
 	public record OrderDetails(
@@ -81,12 +84,16 @@ public class Enaction {
 			requireNonNull(end, "end");
 		}
 
-		private Punishment enact(PunishmentCreator creator,
+		private Punishment enact(PunishmentCreator creator, IdentifierCache identifierCache,
 								 DSLContext context, Transaction transaction, boolean active) {
 			MiscUtil.checkNoCompositeVictimWildcards(victim);
 
-			Field<Integer> escalationTrackId = new TrackIdSequenceValue(context).retrieveTrackId(escalationTrack);
-			Field<Integer> scopeId = new ScopeIdSequenceValue(context).retrieveScopeId(scope);
+			Field<Integer> escalationTrackId = new TrackIdSequenceValue(
+					context, identifierCache.trackIds(transaction)
+			).retrieveTrackId(escalationTrack);
+			Field<Integer> scopeId = new ScopeIdSequenceValue(
+					context, identifierCache.scopeIds(transaction)
+			).retrieveScopeId(scope);
 
 			SequenceValue<Long> punishmentIdSequence = new SequenceValue<>(context, LIBERTYBANS_PUNISHMENT_IDS);
 			context
@@ -105,7 +112,9 @@ public class Enaction {
 					.execute();
 
 			Field<Long> punishmentIdField = punishmentIdSequence.lastValueInSession();
-			Field<Integer> victimIdField = new VictimIdSequenceValue(context).retrieveVictimId(victim);
+			Field<Integer> victimIdField = new VictimIdSequenceValue(
+					context, identifierCache.victimIds(transaction)
+			).retrieveVictimId(victim);
 
 			if (active && type != PunishmentType.KICK) {
 				var dataTable = new TableForType(type).dataTable();
@@ -154,6 +163,7 @@ public class Enaction {
 		return "Enaction{" +
 				"orderDetails=" + orderDetails +
 				", creator=" + creator +
+				", identifierCache=" + identifierCache +
 				'}';
 	}
 }
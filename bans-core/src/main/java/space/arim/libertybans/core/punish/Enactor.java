@@ -30,6 +30,7 @@ import space.arim.libertybans.api.punish.CalculablePunishment;
 import space.arim.libertybans.api.punish.CalculablePunishmentBuilder;
 import space.arim.libertybans.api.punish.DraftPunishment;
 import space.arim.libertybans.api.punish.DraftPunishmentBuilder;
+import space.arim.libertybans.api.punish.EnforcementOptions;
 import space.arim.libertybans.api.punish.EscalationTrack;
 import space.arim.libertybans.api.punish.Punishment;
 import space.arim.libertybans.api.punish.PunishmentDrafter;
@@ -44,14 +45,23 @@ import space.arim.libertybans.core.database.execute.Transaction;
 import space.arim.libertybans.core.scope.InternalScopeManager;
 import space.arim.libertybans.core.selector.InternalSelector;
 import space.arim.libertybans.core.selector.SelectionResources;
+import space.arim.libertybans.core.selector.cache.PunishmentCounts;
 import space.arim.libertybans.core.service.Time;
 import space.arim.omnibus.util.concurrent.CentralisedFuture;
 import space.arim.omnibus.util.concurrent.FactoryOfTheFuture;
+import space.arim.omnibus.util.concurrent.ReactionStage;
 
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 
 @Singleton
 public class Enactor implements PunishmentDrafter {
@@ -61,16 +71,24 @@ public class Enactor implements PunishmentDrafter {
 	private final Provider<InternalDatabase> dbProvider;
 	private final InternalSelector selector;
 	private final PunishmentCreator creator;
+	private final PunishmentCounts punishmentCounts;
+	private final Provider<GlobalEnforcement> enforcement;
 	private final Time time;
 
+	/** How many punishments are enacted per transaction by {@link #enactPunishments} */
+	private static final int BULK_CHUNK_SIZE = 100;
+
 	@Inject
 	public Enactor(FactoryOfTheFuture futuresFactory, InternalScopeManager scopeManager, Provider<InternalDatabase> dbProvider,
-				   InternalSelector selector, PunishmentCreator creator, Time time) {
+				   InternalSelector selector, PunishmentCreator creator,
+				   PunishmentCounts punishmentCounts, Provider<GlobalEnforcement> enforcement, Time time) {
 		this.futuresFactory = futuresFactory;
 		this.scopeManager = scopeManager;
 		this.dbProvider = dbProvider;
 		this.selector = selector;
 		this.creator = creator;
+		this.punishmentCounts = punishmentCounts;
+		this.enforcement = enforcement;
 		this.time = time;
 	}
 
@@ -103,7 +121,7 @@ public class Enactor implements PunishmentDrafter {
 						draftPunishment.getReason(), draftPunishment.getScope(),
 						start, end, draftPunishment.getEscalationTrack().orElse(null)
 				),
-				creator);
+				creator, database.identifierCache());
 
 		return database.queryWithRetry((context, transaction) -> {
 			// Make sure concurrent executions do not conflict
@@ -118,6 +136,76 @@ public class Enactor implements PunishmentDrafter {
 		});
 	}
 
+	@Override
+	public ReactionStage<List<Optional<Punishment>>> enactPunishments(Collection<? extends DraftPunishment> draftPunishments,
+																	  EnforcementOptions enforcementOptions) {
+		Objects.requireNonNull(enforcementOptions, "enforcementOptions");
+		final Instant start = time.currentTimestamp();
+
+		List<Enaction.OrderDetails> orders = new ArrayList<>(draftPunishments.size());
+		for (DraftPunishment draftPunishment : draftPunishments) {
+			Duration duration = draftPunishment.getDuration();
+			Instant end = duration.isZero() ?
+					Punishment.PERMANENT_END_DATE : start.plusSeconds(duration.toSeconds());
+			orders.add(new Enaction.OrderDetails(
+					draftPunishment.getType(), draftPunishment.getVictim(), draftPunishment.getOperator(),
+					draftPunishment.getReason(), draftPunishment.getScope(),
+					start, end, draftPunishment.getEscalationTrack().orElse(null)
+			));
+		}
+		// Chunks are enacted one after another, since concurrent transactions would conflict
+		CentralisedFuture<List<Punishment>> futureEnacted = futuresFactory.completedFuture(new ArrayList<>(orders.size()));
+		for (int chunkStart = 0; chunkStart < orders.size(); chunkStart += BULK_CHUNK_SIZE) {
+			List<Enaction.OrderDetails> chunk = orders.subList(
+					chunkStart, Math.min(chunkStart + BULK_CHUNK_SIZE, orders.size())
+			);
+			futureEnacted = futureEnacted.thenCompose((enacted) -> {
+				return enactChunk(chunk).thenApply((enactedChunk) -> {
+					enacted.addAll(enactedChunk);
+					return enacted;
+				});
+			});
+		}
+		return futureEnacted.thenCompose((enacted) -> {
+			List<Punishment> punishments = new ArrayList<>(enacted.size());
+			List<Optional<Punishment>> results = new ArrayList<>(enacted.size());
+			for (int n = 0; n < enacted.size(); n++) {
+				Punishment punishment = enacted.get(n);
+				if (punishment != null) {
+					punishments.add(punishment);
+				} else {
+					// The conflicting punishment was inserted, then deleted in bulk
+					punishmentCounts.invalidate(orders.get(n).victim());
+				}
+				results.add(Optional.ofNullable(punishment));
+			}
+			return enforcement.get()
+					.enforceAll(punishments, (EnforcementOpts) enforcementOptions)
+					.thenApply((ignore) -> results);
+		});
+	}
+
+	private CentralisedFuture<List<Punishment>> enactChunk(List<Enaction.OrderDetails> chunk) {
+		InternalDatabase database = dbProvider.get();
+		BulkEnaction bulkEnaction = new BulkEnaction(chunk, creator, database.identifierCache());
+		Instant start = chunk.get(0).start();
+		Set<PunishmentType> types = EnumSet.noneOf(PunishmentType.class);
+		for (Enaction.OrderDetails order : chunk) {
+			if (order.type() != PunishmentType.KICK) {
+				types.add(order.type());
+			}
+		}
+		return database.queryWithRetry((context, transaction) -> {
+			// Make sure concurrent executions do not conflict
+			transaction.setIsolation(Connection.TRANSACTION_SERIALIZABLE);
+
+			for (PunishmentType type : types) {
+				database.clearExpiredPunishments(context, type, start);
+			}
+			return bulkEnaction.enactActive(context, transaction);
+		});
+	}
+
 	CentralisedFuture<Punishment> calculatePunishment(CalculablePunishment calculablePunishment) {
 
 		final Victim victim = calculablePunishment.getVictim();
@@ -149,7 +237,7 @@ public class Enactor implements PunishmentDrafter {
 							calculationResult.reason(), scope,
 							start, end, escalationTrack
 					),
-					creator);
+					creator, database.identifierCache());
 			// Again, a rollback here does not mandate undoing work from above
 			return transaction.executeNested(enaction::enactActive);
 		});
@@ -209,6 +297,7 @@ public class Enactor implements PunishmentDrafter {
 				() -> contextualExecutor,
 				scopeManager,
 				creator,
+				punishmentCounts,
 				time
 		);
 	}
@@ -23,6 +23,8 @@ import space.arim.libertybans.api.PunishmentType;
 import space.arim.libertybans.api.punish.Punishment;
 import space.arim.omnibus.util.concurrent.CentralisedFuture;
 
+import java.util.List;
+
 /**
  * Enforcement of a punishment across an entire network, as opposed to a single server,
  * hence "global"
@@ -32,6 +34,8 @@ public interface GlobalEnforcement extends Runnable {
 
 	CentralisedFuture<Void> enforce(Punishment punishment, EnforcementOpts enforcementOptions);
 
+	CentralisedFuture<Void> enforceAll(List<Punishment> punishments, EnforcementOpts enforcementOptions);
+
 	CentralisedFuture<Void> unenforce(Punishment punishment, EnforcementOpts enforcementOptions);
 
 	CentralisedFuture<Void> unenforce(long id, PunishmentType type, EnforcementOpts enforcementOptions);
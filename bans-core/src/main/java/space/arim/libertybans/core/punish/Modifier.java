@@ -119,7 +119,8 @@ public final class Modifier {
 					&& escalationTrackBox == null) {
 				return futuresFactory.completedFuture(Optional.of(oldInstance));
 			}
-			return dbProvider.get().queryWithRetry((context, transaction) -> {
+			InternalDatabase database = dbProvider.get();
+			return database.queryWithRetry((context, transaction) -> {
 				var record = context.newRecord(PUNISHMENTS);
 				if (reason != null) {
 					record.setReason(reason);
@@ -129,11 +130,15 @@ public final class Modifier {
 				}
 				Map<Field<?>, Field<?>> furtherModifications = new HashMap<>(4, 0.99f);
 				if (escalationTrackBox != null) {
-					Field<Integer> newTrack = new TrackIdSequenceValue(context).retrieveTrackId(escalationTrackBox.track);
+					Field<Integer> newTrack = new TrackIdSequenceValue(
+							context, database.identifierCache().trackIds(transaction)
+					).retrieveTrackId(escalationTrackBox.track);
 					furtherModifications.put(PUNISHMENTS.TRACK, newTrack);
 				}
 				if (scope != null) {
-					Field<Integer> newScope = new ScopeIdSequenceValue(context).retrieveScopeId(scope);
+					Field<Integer> newScope = new ScopeIdSequenceValue(
+							context, database.identifierCache().scopeIds(transaction)
+					).retrieveScopeId(scope);
 					furtherModifications.put(PUNISHMENTS.SCOPE, newScope);
 				}
 				if (endDateDelta != null) {
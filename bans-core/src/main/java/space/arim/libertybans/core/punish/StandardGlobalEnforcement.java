@@ -30,16 +30,20 @@ import space.arim.libertybans.api.punish.Punishment;
 import space.arim.libertybans.core.config.Configs;
 import space.arim.libertybans.core.punish.sync.MessageReceiver;
 import space.arim.libertybans.core.punish.sync.PacketEnforceUnenforce;
+import space.arim.libertybans.core.punish.sync.PacketEnforceUnenforceBatch;
 import space.arim.libertybans.core.punish.sync.PacketExpunge;
 import space.arim.libertybans.core.punish.sync.PacketUpdateDetails;
 import space.arim.libertybans.core.punish.sync.SynchronizationMessenger;
 import space.arim.libertybans.core.punish.sync.SynchronizationPacket;
 import space.arim.libertybans.core.punish.sync.SynchronizationProtocol;
+import space.arim.libertybans.core.selector.cache.PunishmentCounts;
 import space.arim.libertybans.core.service.Time;
 import space.arim.omnibus.util.concurrent.CentralisedFuture;
 import space.arim.omnibus.util.concurrent.FactoryOfTheFuture;
 import space.arim.omnibus.util.concurrent.ReactionStage;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.function.Supplier;
 
 @Singleton
@@ -51,19 +55,21 @@ public final class StandardGlobalEnforcement implements GlobalEnforcement {
 	private final SynchronizationProtocol synchronizationProtocol;
 	private final Provider<SynchronizationMessenger> synchronizationMessenger;
 	private final MessageReceiver messageReceiver;
+	private final PunishmentCounts punishmentCounts;
 	private final Time time;
 
 	@Inject
 	public StandardGlobalEnforcement(Configs configs, FactoryOfTheFuture futuresFactory, LocalEnforcer enforcer,
 									 SynchronizationProtocol synchronizationProtocol,
 									 Provider<SynchronizationMessenger> synchronizationMessenger,
-									 MessageReceiver messageReceiver, Time time) {
+									 MessageReceiver messageReceiver, PunishmentCounts punishmentCounts, Time time) {
 		this.configs = configs;
 		this.futuresFactory = futuresFactory;
 		this.synchronizationProtocol = synchronizationProtocol;
 		this.enforcer = enforcer;
 		this.synchronizationMessenger = synchronizationMessenger;
 		this.messageReceiver = messageReceiver;
+		this.punishmentCounts = punishmentCounts;
 		this.time = time;
 	}
 
@@ -79,6 +85,29 @@ public final class StandardGlobalEnforcement implements GlobalEnforcement {
 		);
 	}
 
+	// Comes from PunishmentDrafter#enactPunishments
+	@Override
+	public CentralisedFuture<Void> enforceAll(List<Punishment> punishments, EnforcementOpts enforcementOptions) {
+		if (punishments.isEmpty()) {
+			return futuresFactory.completedFuture(null);
+		}
+		List<PacketEnforceUnenforce> packets = new ArrayList<>(punishments.size());
+		for (Punishment punishment : punishments) {
+			packets.add(new PacketEnforceUnenforce(punishment, Mode.DO, enforcementOptions));
+		}
+		return handleSynchronizedEnforcement(
+				() -> {
+					List<CentralisedFuture<Void>> enforcements = new ArrayList<>(punishments.size());
+					for (Punishment punishment : punishments) {
+						enforcements.add(enforcer.enforceWithoutSynchronization(punishment, enforcementOptions));
+					}
+					return futuresFactory.allOf(enforcements).thenAccept((ignore) -> {});
+				},
+				enforcementOptions.enforcement(),
+				new PacketEnforceUnenforceBatch(packets)
+		);
+	}
+
 	// Comes from Punishment#unenforcePunishment
 	@Override
 	public CentralisedFuture<Void> unenforce(Punishment punishment, EnforcementOpts enforcementOptions) {
@@ -111,6 +140,8 @@ public final class StandardGlobalEnforcement implements GlobalEnforcement {
 
 	@Override
 	public CentralisedFuture<Void> updateDetails(Punishment punishment) {
+		// Warns are counted, even though they are not enforced
+		punishmentCounts.enact(punishment);
 		PunishmentType type = punishment.getType();
 		switch (type) {
 		case WARN:
@@ -120,11 +151,14 @@ public final class StandardGlobalEnforcement implements GlobalEnforcement {
 		default:
 			break;
 		}
+		long id = punishment.getIdentifier();
 		if (punishment.isExpired(time.toJdkClock())) {
-			// No need to update anything. The punishment is expired
-			return futuresFactory.completedFuture(null);
+			// The end date was edited into the past. Nothing is enforced, but caches must drop the punishment
+			return unenforce(id, type, EnforcementOpts.builder()
+					.enforcement(EnforcementOptions.Enforcement.GLOBAL)
+					.broadcasting(EnforcementOptions.Broadcasting.NONE)
+					.build());
 		}
-		long id = punishment.getIdentifier();
 		return handleSynchronizedEnforcement(
 				() -> enforcer.updateDetailsWithoutSynchronization(punishment),
 				EnforcementOptions.Enforcement.GLOBAL,
@@ -165,25 +199,7 @@ public final class StandardGlobalEnforcement implements GlobalEnforcement {
 	}
 
 	ReactionStage<?> receiveAllMessages(byte[][] messages) {
-		// Receive the messages in order
-		ReactionStage<?> future = null;
-		for (int n = 0; n < messages.length; n++) {
-			if (future == null) {
-				future = receiveMessage(messages[n]);
-			} else {
-				int finalIndex = n;
-				future = future.thenCompose((ignore) -> receiveMessage(messages[finalIndex]));
-			}
-		}
-		if (future == null) {
-			// Empty
-			return futuresFactory.completedFuture(null);
-		}
-		return future;
-	}
-
-	private ReactionStage<?> receiveMessage(byte[] message) {
-		return synchronizationProtocol.receiveMessage(message, messageReceiver);
+		return synchronizationProtocol.receiveAllMessages(messages, messageReceiver);
 	}
 
 }
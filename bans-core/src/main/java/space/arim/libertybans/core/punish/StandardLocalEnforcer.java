@@ -23,6 +23,7 @@ import jakarta.inject.Inject;
 import jakarta.inject.Provider;
 import jakarta.inject.Singleton;
 import net.kyori.adventure.text.Component;
+import org.jooq.Record1;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import space.arim.api.env.annote.PlatformPlayer;
@@ -53,7 +54,11 @@ import space.arim.libertybans.core.env.TargetMatcher;
 import space.arim.libertybans.core.env.UUIDTargetMatcher;
 import space.arim.libertybans.core.env.message.KickPlayer;
 import space.arim.libertybans.core.punish.permission.PunishmentPermission;
+import space.arim.libertybans.core.selector.AccountClustering;
+import space.arim.libertybans.core.selector.cache.ActiveBanIndex;
 import space.arim.libertybans.core.selector.cache.MuteCache;
+import space.arim.libertybans.core.selector.cache.PunishmentCounts;
+import space.arim.libertybans.core.selector.cache.ServerSwitchBanCache;
 import space.arim.omnibus.util.ThisClass;
 import space.arim.omnibus.util.concurrent.CentralisedFuture;
 import space.arim.omnibus.util.concurrent.FactoryOfTheFuture;
@@ -76,13 +81,19 @@ public final class StandardLocalEnforcer<@PlatformPlayer P> implements LocalEnfo
 	private final InternalFormatter formatter;
 	private final EnvEnforcer<P> envEnforcer;
 	private final MuteCache muteCache;
+	private final ActiveBanIndex activeBanIndex;
+	private final ServerSwitchBanCache serverSwitchBanCache;
+	private final PunishmentCounts punishmentCounts;
+	private final AccountClustering accountClustering;
 
 	private static final Logger logger = LoggerFactory.getLogger(ThisClass.get());
 
 	@Inject
 	public StandardLocalEnforcer(InstanceType instanceType, Configs configs, FactoryOfTheFuture futuresFactory,
 								 Provider<QueryExecutor> queryExecutor, PunishmentSelector selector,
-								 InternalFormatter formatter, EnvEnforcer<P> envEnforcer, MuteCache muteCache) {
+								 InternalFormatter formatter, EnvEnforcer<P> envEnforcer, MuteCache muteCache,
+								 ActiveBanIndex activeBanIndex, ServerSwitchBanCache serverSwitchBanCache,
+								 PunishmentCounts punishmentCounts, AccountClustering accountClustering) {
 		this.instanceType = instanceType;
 		this.configs = configs;
 		this.futuresFactory = futuresFactory;
@@ -91,6 +102,10 @@ public final class StandardLocalEnforcer<@PlatformPlayer P> implements LocalEnfo
 		this.formatter = formatter;
 		this.envEnforcer = envEnforcer;
 		this.muteCache = muteCache;
+		this.activeBanIndex = activeBanIndex;
+		this.serverSwitchBanCache = serverSwitchBanCache;
+		this.punishmentCounts = punishmentCounts;
+		this.accountClustering = accountClustering;
 	}
 
 	@Override
@@ -100,6 +115,11 @@ public final class StandardLocalEnforcer<@PlatformPlayer P> implements LocalEnfo
 
 		PunishmentAdditionSection section = configs.getMessagesConfig().additions().forType(punishment.getType());
 
+		if (punishment.getType() == PunishmentType.BAN) {
+			activeBanIndex.addBan(punishment);
+			serverSwitchBanCache.addBan(punishment);
+		}
+		punishmentCounts.enact(punishment);
 		var arrestsAndNotices = enforceArrestsAndNotices(punishment);
 		if (enforcementOptions.broadcasting() == Broadcasting.NONE) {
 			return arrestsAndNotices;
@@ -125,9 +145,15 @@ public final class StandardLocalEnforcer<@PlatformPlayer P> implements LocalEnfo
 																   EnforcementOpts enforcementOptions) {
 		assert enforcementOptions.enforcement() != EnforcementOptions.Enforcement.NONE : "Handled elsewhere";
 
-		if (punishment.getType() == PunishmentType.MUTE) {
-			muteCache.clearCachedMute(punishment);
+		switch (punishment.getType()) {
+		case MUTE -> muteCache.clearCachedMute(punishment);
+		case BAN -> {
+			activeBanIndex.removeBan(punishment.getIdentifier());
+			serverSwitchBanCache.removeBan(punishment.getIdentifier());
+		}
 		}
+		punishmentCounts.revoke(punishment.getIdentifier());
+		formatter.clearCachedPunishmentMessage(punishment.getIdentifier());
 		if (enforcementOptions.broadcasting() == EnforcementOptions.Broadcasting.NONE) {
 			return completedFuture(null);
 		}
@@ -173,20 +199,36 @@ public final class StandardLocalEnforcer<@PlatformPlayer P> implements LocalEnfo
 				return unenforceWithoutSynchronization(punishment, enforcementOptions);
 			}).toCompletableFuture();
 		}
-		if (type == PunishmentType.MUTE) {
-			muteCache.clearCachedMute(id);
+		switch (type) {
+		case MUTE -> muteCache.clearCachedMute(id);
+		case BAN -> {
+			activeBanIndex.removeBan(id);
+			serverSwitchBanCache.removeBan(id);
+		}
 		}
+		punishmentCounts.revoke(id);
+		formatter.clearCachedPunishmentMessage(id);
 		return completedFuture(null);
 	}
 
 	@Override
 	public CentralisedFuture<Void> clearExpungedWithoutSynchronization(long id) {
 		muteCache.clearCachedMute(id);
+		activeBanIndex.removeBan(id);
+		serverSwitchBanCache.removeBan(id);
+		punishmentCounts.expunge(id);
+		formatter.clearCachedPunishmentMessage(id);
 		return completedFuture(null);
 	}
 
 	@Override
 	public CentralisedFuture<Void> updateDetailsWithoutSynchronization(Punishment punishment) {
+		if (punishment.getType() == PunishmentType.BAN) {
+			// Replace the previous end date and scope
+			activeBanIndex.addBan(punishment);
+			serverSwitchBanCache.updateBan(punishment);
+		}
+		formatter.clearCachedPunishmentMessage(punishment.getIdentifier());
 		return ((SecurePunishment) punishment).enforcePunishment(
 				punishment.enforcementOptionsBuilder()
 						.broadcasting(Broadcasting.NONE)
@@ -291,7 +333,11 @@ public final class StandardLocalEnforcer<@PlatformPlayer P> implements LocalEnfo
 
 	private CentralisedFuture<TargetMatcher<P>> matchAddressPunishmentSternOrStrict(
 			NetworkAddress address, Consumer<P> enforcementCallback) {
+		boolean useAccountClusters = accountClustering.isEnabled();
 		return queryExecutor.get().query(SQLFunction.readOnly((context) -> {
+			if (useAccountClusters) {
+				return context.fetch(AccountClustering.linkedToAddress(address)).intoSet(Record1::value1);
+			}
 			return context
 					.select(STRICT_LINKS.UUID2)
 					.from(STRICT_LINKS)
@@ -306,7 +352,11 @@ public final class StandardLocalEnforcer<@PlatformPlayer P> implements LocalEnfo
 
 	private CentralisedFuture<TargetMatcher<P>> matchUserPunishmentStrict(
 			UUID uuid, Consumer<P> enforcementCallback) {
+		boolean useAccountClusters = accountClustering.isEnabled();
 		return queryExecutor.get().query(SQLFunction.readOnly((context) -> {
+			if (useAccountClusters) {
+				return context.fetch(AccountClustering.linkedToAccount(uuid)).intoSet(Record1::value1);
+			}
 			return context
 					.select(STRICT_LINKS.UUID2)
 					.from(STRICT_LINKS)
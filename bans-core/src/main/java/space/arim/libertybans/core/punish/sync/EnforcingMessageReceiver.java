@@ -24,24 +24,32 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import space.arim.libertybans.api.punish.EnforcementOptions;
 import space.arim.libertybans.api.punish.Punishment;
-import space.arim.libertybans.api.select.PunishmentSelector;
 import space.arim.libertybans.core.punish.EnforcementOpts;
 import space.arim.libertybans.core.punish.LocalEnforcer;
 import space.arim.libertybans.core.punish.Mode;
+import space.arim.libertybans.core.selector.InternalSelector;
 import space.arim.omnibus.util.ThisClass;
+import space.arim.omnibus.util.concurrent.CentralisedFuture;
 import space.arim.omnibus.util.concurrent.FactoryOfTheFuture;
 import space.arim.omnibus.util.concurrent.ReactionStage;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 public final class EnforcingMessageReceiver implements MessageReceiver {
 
 	private final FactoryOfTheFuture futuresFactory;
-	private final PunishmentSelector selector;
+	private final InternalSelector selector;
 	private final LocalEnforcer enforcer;
 
 	private static final Logger logger = LoggerFactory.getLogger(ThisClass.get());
 
 	@Inject
-	public EnforcingMessageReceiver(FactoryOfTheFuture futuresFactory, PunishmentSelector selector, LocalEnforcer enforcer) {
+	public EnforcingMessageReceiver(FactoryOfTheFuture futuresFactory, InternalSelector selector, LocalEnforcer enforcer) {
 		this.futuresFactory = futuresFactory;
 		this.selector = selector;
 		this.enforcer = enforcer;
@@ -62,31 +70,119 @@ public final class EnforcingMessageReceiver implements MessageReceiver {
 	}
 
 	private ReactionStage<?> onReception(PacketEnforceUnenforce message) {
-		EnforcementOpts enforcementOptions = EnforcementOpts
+		if (!requiresPunishmentDetails(message)) {
+			// Optimization: We do not need the full punishment details to simply undo a punishment
+			return enforcer.unenforceWithoutSynchronization(message.id, message.type, enforcementOptions(message));
+		}
+		return selector.getHistoricalPunishmentByIdAndType(message.id, message.type).thenCompose((optPunishment) -> {
+			return onReception(message, optPunishment.orElse(null));
+		});
+	}
+
+	private ReactionStage<?> onReception(PacketEnforceUnenforce message, Punishment punishment) {
+		if (punishment == null || punishment.getType() != message.type) {
+			logger.warn("Received punishment which does not exist: id {} and type {}", message.id, message.type);
+			return futuresFactory.completedFuture(null);
+		}
+		EnforcementOpts enforcementOptions = enforcementOptions(message);
+		if (message.mode == Mode.UNDO) {
+			// Unenforce this punishment
+			return enforcer.unenforceWithoutSynchronization(punishment, enforcementOptions);
+		}
+		// Enforce this punishment
+		assert message.mode == Mode.DO : "Mode " + message.mode;
+		return enforcer.enforceWithoutSynchronization(punishment, enforcementOptions);
+	}
+
+	private static boolean requiresPunishmentDetails(PacketEnforceUnenforce message) {
+		return message.broadcasting != EnforcementOptions.Broadcasting.NONE || message.mode != Mode.UNDO;
+	}
+
+	private static EnforcementOpts enforcementOptions(PacketEnforceUnenforce message) {
+		return EnforcementOpts
 				.builder()
 				.enforcement(EnforcementOptions.Enforcement.SINGLE_SERVER_ONLY)
 				.broadcasting(message.broadcasting)
 				.targetArgument(message.targetArgument)
 				.unOperator(message.unOperator)
 				.build();
-		if (message.broadcasting == EnforcementOptions.Broadcasting.NONE && message.mode == Mode.UNDO) {
-			// Optimization: We do not need the full punishment details to simply undo a punishment
-			return enforcer.unenforceWithoutSynchronization(message.id, message.type, enforcementOptions);
+	}
+
+	/*
+	 * Batch reception
+	 *
+	 * All punishments are fetched in one go, including those of undo packets which do not need
+	 * the details, so that every packet can be grouped by victim. Messages whose victim is unknown,
+	 * such as expunge packets, are placed in a single group. Each group is applied in order,
+	 * while separate groups are applied concurrently.
+	 */
+
+	private static final Object UNKNOWN_VICTIM = new Object();
+
+	@Override
+	public ReactionStage<?> onReceptionOfAll(List<SynchronizationPacket> messages) {
+		if (messages.size() == 1) {
+			return onReception(messages.get(0));
 		}
-		return selector.getHistoricalPunishmentByIdAndType(message.id, message.type).thenCompose((optPunishment) -> {
-			if (optPunishment.isEmpty()) {
-				logger.warn("Received punishment which does not exist: id {} and type {}", message.id, message.type);
-				return futuresFactory.completedFuture(null);
+		Set<Long> idsToFetch = new HashSet<>();
+		for (SynchronizationPacket message : messages) {
+			if (message instanceof PacketEnforceUnenforce packetEnforceUnenforce) {
+				// Fetched regardless of details, to find the victim
+				idsToFetch.add(packetEnforceUnenforce.id);
+			} else if (message instanceof PacketUpdateDetails packetUpdateDetails) {
+				idsToFetch.add(packetUpdateDetails.id);
 			}
-			Punishment punishment = optPunishment.get();
-			if (message.mode == Mode.UNDO) {
-				// Unenforce this punishment
-				return enforcer.unenforceWithoutSynchronization(punishment, enforcementOptions);
+		}
+		return selector.getHistoricalPunishmentsByIds(idsToFetch).thenCompose((punishments) -> {
+			Map<Object, List<SynchronizationPacket>> groups = new LinkedHashMap<>();
+			for (SynchronizationPacket message : messages) {
+				Object groupKey = groupKey(message, punishments);
+				groups.computeIfAbsent(groupKey, (k) -> new ArrayList<>()).add(message);
 			}
-			// Enforce this punishment
-			assert message.mode == Mode.DO : "Mode " + message.mode;
-			return enforcer.enforceWithoutSynchronization(punishment, enforcementOptions);
+			List<CentralisedFuture<?>> futures = new ArrayList<>(groups.size());
+			for (List<SynchronizationPacket> group : groups.values()) {
+				ReactionStage<?> future = onReception(group.get(0), punishments);
+				for (SynchronizationPacket message : group.subList(1, group.size())) {
+					future = future.thenCompose((ignore) -> onReception(message, punishments));
+				}
+				futures.add(future.toCompletableFuture());
+			}
+			return futuresFactory.allOf(futures);
 		});
 	}
 
+	private static Object groupKey(SynchronizationPacket message, Map<Long, Punishment> punishments) {
+		long id;
+		if (message instanceof PacketEnforceUnenforce packetEnforceUnenforce) {
+			id = packetEnforceUnenforce.id;
+		} else if (message instanceof PacketExpunge packetExpunge) {
+			id = packetExpunge.id;
+		} else if (message instanceof PacketUpdateDetails packetUpdateDetails) {
+			id = packetUpdateDetails.id;
+		} else {
+			return UNKNOWN_VICTIM;
+		}
+		Punishment punishment = punishments.get(id);
+		return (punishment == null) ? UNKNOWN_VICTIM : punishment.getVictim();
+	}
+
+	private ReactionStage<?> onReception(SynchronizationPacket message, Map<Long, Punishment> punishments) {
+		if (message instanceof PacketEnforceUnenforce packetEnforceUnenforce) {
+			if (!requiresPunishmentDetails(packetEnforceUnenforce)) {
+				return onReception(packetEnforceUnenforce);
+			}
+			return onReception(packetEnforceUnenforce, punishments.get(packetEnforceUnenforce.id));
+		} else if (message instanceof PacketUpdateDetails packetUpdateDetails) {
+			Punishment punishment = punishments.get(packetUpdateDetails.id);
+			if (punishment == null) {
+				// Possible race condition if punishment is expunged
+				logger.debug("Tried to update details of non-existent punishment with id {}", packetUpdateDetails.id);
+				return futuresFactory.completedFuture(null);
+			}
+			return enforcer.updateDetailsWithoutSynchronization(punishment);
+		} else {
+			return onReception(message);
+		}
+	}
+
 }
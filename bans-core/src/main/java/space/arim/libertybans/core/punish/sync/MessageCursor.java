@@ -0,0 +1,127 @@
+/*
+ * LibertyBans
+ * Copyright © 2023 Anand Beh
+ *
+ * LibertyBans is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * LibertyBans is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with LibertyBans. If not, see <https://www.gnu.org/licenses/>
+ * and navigate to version 3 of the GNU Affero General Public License.
+ */
+
+package space.arim.libertybans.core.punish.sync;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Tracks the position of the last received synchronization message. <br>
+ * <br>
+ * Message identifiers are allocated before their transaction commits, so a message with a lower
+ * identifier may become visible after one with a higher identifier. To avoid missing such messages,
+ * skipped identifiers are remembered as gaps and polled again until they appear or their grace period
+ * elapses. Gaps also result from rolled back transactions, in which case they simply expire. <br>
+ * <br>
+ * Not thread safe
+ *
+ */
+final class MessageCursor {
+
+	private final Duration gapGracePeriod;
+	private final int maxTrackedGap;
+
+	private long position = -1L;
+	private boolean trackGaps;
+	private final TreeMap<Long, Instant> gaps = new TreeMap<>();
+
+	/**
+	 * Creates the cursor
+	 *
+	 * @param gapGracePeriod how long skipped identifiers are polled again
+	 * @param maxTrackedGap the maximum size of a single gap which is tracked. Larger gaps,
+	 *                      such as those caused by sequence caching, are ignored
+	 */
+	MessageCursor(Duration gapGracePeriod, int maxTrackedGap) {
+		this.gapGracePeriod = gapGracePeriod;
+		this.maxTrackedGap = maxTrackedGap;
+	}
+
+	boolean isInitialized() {
+		return position != -1L;
+	}
+
+	/**
+	 * Initializes the cursor at the given position
+	 *
+	 * @param latestId the latest message identifier, or {@code null} if there are no messages
+	 */
+	void initialize(Long latestId) {
+		gaps.clear();
+		if (latestId == null) {
+			// No reference point. The first received message will become the position
+			position = 0L;
+			trackGaps = false;
+		} else {
+			position = latestId;
+			trackGaps = true;
+		}
+	}
+
+	void reset() {
+		position = -1L;
+		gaps.clear();
+	}
+
+	long position() {
+		return position;
+	}
+
+	int gapCount() {
+		return gaps.size();
+	}
+
+	/**
+	 * Expires old gaps and yields the remaining ones
+	 *
+	 * @param currentTime the current time
+	 * @return the identifiers which should be polled again
+	 */
+	Set<Long> pendingGaps(Instant currentTime) {
+		gaps.values().removeIf((deadline) -> deadline.isBefore(currentTime));
+		return Set.copyOf(gaps.keySet());
+	}
+
+	/**
+	 * Records a received message. Messages must be recorded in ascending order of identifier
+	 * for each poll.
+	 *
+	 * @param id the message identifier
+	 * @param currentTime the current time
+	 */
+	void advance(long id, Instant currentTime) {
+		if (id <= position) {
+			gaps.remove(id);
+			return;
+		}
+		long skipped = id - position - 1;
+		if (trackGaps && skipped > 0 && skipped <= maxTrackedGap) {
+			Instant deadline = currentTime.plus(gapGracePeriod);
+			for (long gap = position + 1; gap < id; gap++) {
+				gaps.put(gap, deadline);
+			}
+		}
+		position = id;
+		trackGaps = true;
+	}
+
+}
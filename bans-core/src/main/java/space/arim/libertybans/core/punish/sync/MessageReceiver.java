@@ -21,8 +21,24 @@ package space.arim.libertybans.core.punish.sync;
 
 import space.arim.omnibus.util.concurrent.ReactionStage;
 
+import java.util.List;
+
 public interface MessageReceiver {
 
 	ReactionStage<?> onReception(SynchronizationPacket message);
 
+	/**
+	 * Receives multiple messages. By default, each message is received after the previous one completes.
+	 *
+	 * @param messages the messages in the order they were sent, never empty
+	 * @return a future completed once all messages are received
+	 */
+	default ReactionStage<?> onReceptionOfAll(List<SynchronizationPacket> messages) {
+		ReactionStage<?> future = onReception(messages.get(0));
+		for (SynchronizationPacket message : messages.subList(1, messages.size())) {
+			future = future.thenCompose((ignore) -> onReception(message));
+		}
+		return future;
+	}
+
 }
@@ -0,0 +1,83 @@
+/*
+ * LibertyBans
+ * Copyright © 2023 Anand Beh
+ *
+ * LibertyBans is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * LibertyBans is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with LibertyBans. If not, see <https://www.gnu.org/licenses/>
+ * and navigate to version 3 of the GNU Affero General Public License.
+ */
+
+package space.arim.libertybans.core.punish.sync;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Multiple enforcement packets sent as one message. Upon reception, the contained packets are
+ * received as if they had been sent individually, in order.
+ *
+ */
+public final class PacketEnforceUnenforceBatch implements SynchronizationPacket {
+
+	final List<PacketEnforceUnenforce> packets;
+
+	static final byte PACKET_ID = (byte) 4;
+
+	public PacketEnforceUnenforceBatch(List<PacketEnforceUnenforce> packets) {
+		this.packets = List.copyOf(packets);
+	}
+
+	@Override
+	public byte packetId() {
+		return PACKET_ID;
+	}
+
+	@Override
+	public void writeTo(ProtocolOutputStream output) throws IOException {
+		output.writeInt(packets.size());
+		for (PacketEnforceUnenforce packet : packets) {
+			packet.writeTo(output);
+		}
+	}
+
+	static PacketEnforceUnenforceBatch readFrom(ProtocolInputStream input) throws IOException {
+		int size = input.readInt();
+		List<PacketEnforceUnenforce> packets = new ArrayList<>(size);
+		for (int n = 0; n < size; n++) {
+			packets.add(PacketEnforceUnenforce.readFrom(input));
+		}
+		return new PacketEnforceUnenforceBatch(packets);
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) return true;
+		if (o == null || getClass() != o.getClass()) return false;
+		PacketEnforceUnenforceBatch that = (PacketEnforceUnenforceBatch) o;
+		return packets.equals(that.packets);
+	}
+
+	@Override
+	public int hashCode() {
+		return packets.hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return "PacketEnforceUnenforceBatch{" +
+				"packets=" + packets +
+				'}';
+	}
+
+}
@@ -23,70 +23,183 @@ import jakarta.inject.Inject;
 import jakarta.inject.Provider;
 import jakarta.inject.Singleton;
 import org.jooq.Condition;
-import space.arim.libertybans.core.database.execute.QueryExecutor;
+import org.jooq.DSLContext;
+import org.jooq.Record3;
+import org.jooq.Result;
+import space.arim.libertybans.core.config.Configs;
+import space.arim.libertybans.core.database.DatabaseConstants;
+import space.arim.libertybans.core.database.InternalDatabase;
+import space.arim.libertybans.core.database.RefreshTaskRunnable;
 import space.arim.libertybans.core.database.execute.SQLFunction;
+import space.arim.libertybans.core.database.sql.SequenceValue;
 import space.arim.libertybans.core.service.Time;
 import space.arim.omnibus.util.concurrent.CentralisedFuture;
 import space.arim.omnibus.util.concurrent.FactoryOfTheFuture;
 
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
+import static org.jooq.impl.DSL.max;
+import static org.jooq.impl.DSL.name;
+import static org.jooq.impl.DSL.val;
+import static space.arim.libertybans.core.schema.Sequences.LIBERTYBANS_MESSAGE_IDS;
 import static space.arim.libertybans.core.schema.tables.Messages.MESSAGES;
 
 @Singleton
 public final class SQLSynchronizationMessenger implements SynchronizationMessenger {
 
+	private final Configs configs;
 	private final FactoryOfTheFuture futuresFactory;
-	private final Provider<QueryExecutor> queryExecutor;
+	private final Provider<InternalDatabase> database;
 	private final Time time;
 
-	private Instant lastTimestamp;
+	// Guarded by this
+	private final MessageCursor cursor = new MessageCursor(
+			Duration.ofMillis(RefreshTaskRunnable.MAX_POLL_RATE_MILLIS), MAX_TRACKED_GAP
+	);
+	private CentralisedFuture<byte[][]> currentPoll;
+	private long messagesReceived;
+	private Duration lastLag = Duration.ZERO;
+	private Duration maxLag = Duration.ZERO;
+
+	/** How many messages are read per query */
+	private static final int POLL_BATCH_SIZE = 200;
+	/** Larger gaps in message identifiers are not the result of pending transactions */
+	private static final int MAX_TRACKED_GAP = 1000;
 
 	@Inject
-	public SQLSynchronizationMessenger(FactoryOfTheFuture futuresFactory,
-									   Provider<QueryExecutor> queryExecutor, Time time) {
+	public SQLSynchronizationMessenger(Configs configs, FactoryOfTheFuture futuresFactory,
+									   Provider<InternalDatabase> database, Time time) {
+		this.configs = configs;
 		this.futuresFactory = futuresFactory;
-		this.queryExecutor = queryExecutor;
+		this.database = database;
 		this.time = time;
 	}
 
 	@Override
 	public CentralisedFuture<Void> dispatch(byte[] message) {
-		return queryExecutor.get().execute((context) -> {
+		InternalDatabase database = this.database.get();
+		boolean notify = configs.getSqlConfig().synchronization().pushNotifications()
+				&& database.getVendor().supportsListenNotify();
+		return database.execute((context) -> {
 			context
 					.insertInto(MESSAGES)
-					.columns(MESSAGES.MESSAGE, MESSAGES.TIME)
-					.values(message, time.currentTimestamp())
+					.columns(MESSAGES.ID, MESSAGES.MESSAGE, MESSAGES.TIME)
+					.values(
+							new SequenceValue<>(context, LIBERTYBANS_MESSAGE_IDS).nextValue(),
+							val(message, MESSAGES.MESSAGE),
+							val(time.currentTimestamp(), MESSAGES.TIME)
+					)
 					.execute();
+			if (notify) {
+				// Delivered to listeners once the transaction commits
+				context.query("NOTIFY {0}", name(DatabaseConstants.SYNCHRONIZATION_CHANNEL)).execute();
+			}
 		});
 	}
 
 	@Override
-	public CentralisedFuture<byte[][]> poll() {
+	public synchronized CentralisedFuture<byte[][]> poll() {
+		if (currentPoll != null && !currentPoll.isDone()) {
+			// The previous poll is still running, and will pick up any new messages
+			return futuresFactory.completedFuture(new byte[][] {});
+		}
+		return currentPoll = database.get().query(SQLFunction.readOnly((context) -> {
+			synchronized (this) {
+				return pollMessages(context);
+			}
+		}));
+	}
+
+	private byte[][] pollMessages(DSLContext context) {
 		Instant currentTime = time.currentTimestamp();
-		if (lastTimestamp == null) {
+		if (!cursor.isInitialized()) {
 			// The server has recently started up or LibertyBans has restarted
-			lastTimestamp = currentTime;
-			return futuresFactory.completedFuture(new byte[][] {});
+			cursor.initialize(selectLatestId(context));
+			return new byte[][] {};
 		}
-		Condition timeCondition = MESSAGES.TIME.lessOrEqual(currentTime).and(MESSAGES.TIME.greaterThan(lastTimestamp));
-		var future = queryExecutor.get().query(SQLFunction.readOnly((context) -> {
-			return context
-					.select(MESSAGES.MESSAGE)
+		// Read all batches before updating the cursor, in case the transaction fails
+		long position = cursor.position();
+		Set<Long> gaps = new HashSet<>(cursor.pendingGaps(currentTime));
+		List<Record3<Long, byte[], Instant>> received = new ArrayList<>();
+		Result<Record3<Long, byte[], Instant>> batch;
+		do {
+			Condition condition = MESSAGES.ID.greaterThan(position);
+			if (!gaps.isEmpty()) {
+				condition = condition.or(MESSAGES.ID.in(gaps));
+			}
+			batch = context
+					.select(MESSAGES.ID, MESSAGES.MESSAGE, MESSAGES.TIME)
 					.from(MESSAGES)
-					.where(timeCondition)
-					.orderBy(MESSAGES.TIME.asc())
-					.fetchArray(MESSAGES.MESSAGE);
-		}));
-		lastTimestamp = currentTime;
-		return future;
+					.where(condition)
+					.orderBy(MESSAGES.ID.asc())
+					.limit(POLL_BATCH_SIZE)
+					.fetch();
+			for (Record3<Long, byte[], Instant> record : batch) {
+				long id = record.value1();
+				if (id > position) {
+					position = id;
+				} else {
+					gaps.remove(id);
+				}
+				received.add(record);
+			}
+		} while (batch.size() == POLL_BATCH_SIZE);
+
+		byte[][] messages = new byte[received.size()][];
+		for (int n = 0; n < messages.length; n++) {
+			Record3<Long, byte[], Instant> record = received.get(n);
+			cursor.advance(record.value1(), currentTime);
+			messages[n] = record.value2();
+			recordLag(Duration.between(record.value3(), currentTime));
+		}
+		return messages;
+	}
+
+	private Long selectLatestId(DSLContext context) {
+		return context
+				.select(max(MESSAGES.ID))
+				.from(MESSAGES)
+				.fetchSingle()
+				.value1();
 	}
 
-	public void setInitialTimestamp() {
-		lastTimestamp = time.currentTimestamp();
+	private void recordLag(Duration lag) {
+		messagesReceived++;
+		lastLag = lag;
+		if (lag.compareTo(maxLag) > 0) {
+			maxLag = lag;
+		}
+	}
+
+	/**
+	 * Gets statistics on received messages. Lag is measured from when a message was dispatched
+	 * to when it was received, and therefore includes any clock difference between instances.
+	 *
+	 * @return the current statistics
+	 */
+	public synchronized Statistics statistics() {
+		return new Statistics(cursor.position(), cursor.gapCount(), messagesReceived, lastLag, maxLag);
+	}
+
+	public record Statistics(long lastMessageId, int pendingGaps, long messagesReceived,
+							 Duration lastLag, Duration maxLag) { }
+
+	public void setInitialCursor() {
+		database.get().query(SQLFunction.readOnly((context) -> {
+			synchronized (this) {
+				cursor.initialize(selectLatestId(context));
+			}
+			return null;
+		})).join();
 	}
 
-	public void resetLastTimestamp() {
-		lastTimestamp = null;
+	public synchronized void resetCursor() {
+		cursor.reset();
+		currentPoll = null;
 	}
 }
@@ -32,6 +32,8 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
 @Singleton
@@ -64,6 +66,43 @@ public final class SynchronizationProtocol {
 	}
 
 	public ReactionStage<?> receiveMessage(byte[] messageData, MessageReceiver messageReceiver) {
+		SynchronizationPacket message = readMessage(messageData);
+		if (message == null) {
+			return futuresFactory.completedFuture(null);
+		}
+		if (message instanceof PacketEnforceUnenforceBatch batch) {
+			if (batch.packets.isEmpty()) {
+				return futuresFactory.completedFuture(null);
+			}
+			return messageReceiver.onReceptionOfAll(List.copyOf(batch.packets));
+		}
+		return messageReceiver.onReception(message);
+	}
+
+	/**
+	 * Receives multiple messages at once, allowing the receiver to process them together
+	 *
+	 * @param messageData the serialized messages, in the order they were sent
+	 * @param messageReceiver the receiver
+	 * @return a future completed once all messages are received
+	 */
+	public ReactionStage<?> receiveAllMessages(byte[][] messageData, MessageReceiver messageReceiver) {
+		List<SynchronizationPacket> messages = new ArrayList<>(messageData.length);
+		for (byte[] data : messageData) {
+			SynchronizationPacket message = readMessage(data);
+			if (message instanceof PacketEnforceUnenforceBatch batch) {
+				messages.addAll(batch.packets);
+			} else if (message != null) {
+				messages.add(message);
+			}
+		}
+		if (messages.isEmpty()) {
+			return futuresFactory.completedFuture(null);
+		}
+		return messageReceiver.onReceptionOfAll(messages);
+	}
+
+	private SynchronizationPacket readMessage(byte[] messageData) {
 		try (ByteArrayInputStream byteInput = new ByteArrayInputStream(messageData);
 			 ProtocolInputStream input = new ProtocolInputStream(byteInput)) {
 
@@ -71,23 +110,24 @@ public final class SynchronizationProtocol {
 			if (instanceId.equals(input.readUUID())) {
 				// This is our own message
 				logger.trace("Received own message");
-				return futuresFactory.completedFuture(null);
+				return null;
 			}
 			SynchronizationPacket message = switch (packetId) {
 				case PacketEnforceUnenforce.PACKET_ID -> PacketEnforceUnenforce.readFrom(input);
 				case PacketExpunge.PACKET_ID -> PacketExpunge.readFrom(input);
 				case PacketUpdateDetails.PACKET_ID -> PacketUpdateDetails.readFrom(input);
+				case PacketEnforceUnenforceBatch.PACKET_ID -> PacketEnforceUnenforceBatch.readFrom(input);
 				default -> null; // Exit below
 			};
 			if (message == null) {
 				logger.warn("Unknown synchronization packet ID: {}", packetId);
-				return futuresFactory.completedFuture(null);
+				return null;
 			}
 			long remainingBytes = input.transferTo(OutputStream.nullOutputStream());
 			if (remainingBytes != 0) {
 				throw new IllegalStateException("Stream must be empty after all data has been read");
 			}
-			return messageReceiver.onReception(message);
+			return message;
 
 		} catch (IOException ex) {
 			throw new UncheckedIOException("Failed to read synchronization packet data", ex);
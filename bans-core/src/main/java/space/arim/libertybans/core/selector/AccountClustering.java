@@ -0,0 +1,446 @@
+/*
+ * LibertyBans
+ * Copyright © 2023 Anand Beh
+ *
+ * LibertyBans is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * LibertyBans is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with LibertyBans. If not, see <https://www.gnu.org/licenses/>
+ * and navigate to version 3 of the GNU Affero General Public License.
+ */
+
+package space.arim.libertybans.core.selector;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Provider;
+import jakarta.inject.Singleton;
+import org.jooq.Condition;
+import org.jooq.Cursor;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.InsertValuesStep2;
+import org.jooq.Record1;
+import org.jooq.Record2;
+import org.jooq.Select;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import space.arim.libertybans.api.NetworkAddress;
+import space.arim.libertybans.core.Part;
+import space.arim.libertybans.core.config.Configs;
+import space.arim.libertybans.core.database.execute.QueryExecutor;
+import space.arim.libertybans.core.database.execute.SQLFunction;
+import space.arim.libertybans.core.schema.tables.AccountClusters;
+import space.arim.libertybans.core.schema.tables.records.AccountClustersRecord;
+import space.arim.libertybans.core.service.Time;
+import space.arim.omnibus.util.ThisClass;
+import space.arim.omnibus.util.concurrent.CentralisedFuture;
+import space.arim.omnibus.util.concurrent.FactoryOfTheFuture;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.jooq.impl.DSL.select;
+import static org.jooq.impl.DSL.val;
+import static space.arim.libertybans.core.schema.tables.AccountClusters.ACCOUNT_CLUSTERS;
+import static space.arim.libertybans.core.schema.tables.AccountClustersState.ACCOUNT_CLUSTERS_STATE;
+import static space.arim.libertybans.core.schema.tables.Addresses.ADDRESSES;
+
+/**
+ * Optional materialization of account links. Accounts which have shared an address, directly
+ * or through other accounts, are grouped into a cluster identified by one of its accounts. <br>
+ * <br>
+ * When enabled, clusters are kept current as addresses are associated. At startup, they catch up in
+ * the background: they are built from the addresses table if they never were, and otherwise only the
+ * addresses updated since the clusters were last known to be complete are linked. Once caught up, the
+ * STERN and STRICT address strictness settings find linked accounts through an indexed lookup of the
+ * cluster, rather than the strict_links view.
+ *
+ */
+@Singleton
+public final class AccountClustering implements Part {
+
+	private final Configs configs;
+	private final FactoryOfTheFuture futuresFactory;
+	private final Provider<QueryExecutor> queryExecutor;
+	private final Time time;
+
+	private final Object lock = new Object();
+	/** Whether addresses are linked as they are associated */
+	private volatile boolean linking;
+	/** Whether the clusters have caught up, and may be used to find linked accounts */
+	private volatile boolean enabled;
+	/** Guarded by lock. Changed on every startup and shutdown, so that an outdated catch-up has no effect */
+	private int generation;
+	private volatile CentralisedFuture<?> caughtUp;
+
+	private static final int INSERT_BATCH_SIZE = 500;
+	/** Allows for associations which began just before shutdown, and were not linked */
+	private static final Duration SHUTDOWN_MARGIN = Duration.ofMinutes(1L);
+
+	private static final Logger logger = LoggerFactory.getLogger(ThisClass.get());
+
+	@Inject
+	public AccountClustering(Configs configs, FactoryOfTheFuture futuresFactory,
+							 Provider<QueryExecutor> queryExecutor, Time time) {
+		this.configs = configs;
+		this.futuresFactory = futuresFactory;
+		this.queryExecutor = queryExecutor;
+		this.time = time;
+	}
+
+	@Override
+	public void startup() {
+		if (!configs.getSqlConfig().accountClustering().enable()) {
+			caughtUp = futuresFactory.completedFuture(null);
+			return;
+		}
+		int generation;
+		synchronized (lock) {
+			generation = ++this.generation;
+		}
+		Instant catchUpStart = time.currentTimestamp();
+		caughtUp = queryExecutor.get().query(SQLFunction.readOnly((context) -> {
+			return context
+					.select(ACCOUNT_CLUSTERS_STATE.UPDATED)
+					.from(ACCOUNT_CLUSTERS_STATE)
+					.fetchOne(ACCOUNT_CLUSTERS_STATE.UPDATED);
+		})).thenCompose((linkedUntil) -> {
+			if (linkedUntil == null) {
+				// The clusters were never built in this database
+				return rebuildTable().thenCompose((ignore) -> catchUp(generation, catchUpStart, catchUpStart));
+			}
+			return catchUp(generation, linkedUntil, catchUpStart);
+		}).whenComplete((ignore, ex) -> {
+			if (ex != null) {
+				logger.error("Failed to catch up account clusters. Linked accounts will be found without them", ex);
+			}
+		});
+	}
+
+	private CentralisedFuture<?> catchUp(int generation, Instant since, Instant catchUpStart) {
+		synchronized (lock) {
+			if (this.generation != generation) {
+				return futuresFactory.completedFuture(null);
+			}
+			// From now on, addresses are linked as they are associated
+			linking = true;
+		}
+		long startTime = time.arbitraryNanoTime();
+		return queryExecutor.get().executeWithRetry((context, transaction) -> {
+			int linked = linkAssociatedSince(context, since);
+			recordLinkedUntil(context, catchUpStart);
+			logger.info("Caught up account clusters by linking {} addresses in {} ms",
+					linked, (time.arbitraryNanoTime() - startTime) / 1_000_000L);
+		}).thenRun(() -> {
+			synchronized (lock) {
+				if (this.generation == generation) {
+					enabled = true;
+				}
+			}
+		});
+	}
+
+	@Override
+	public void restart() {
+		shutdown();
+		startup();
+	}
+
+	@Override
+	public void shutdown() {
+		boolean wasEnabled;
+		synchronized (lock) {
+			generation++;
+			wasEnabled = enabled;
+			linking = false;
+			enabled = false;
+		}
+		if (wasEnabled) {
+			// The clusters were kept current until now, so the next startup need only link addresses from here
+			Instant linkedUntil = time.currentTimestamp().minus(SHUTDOWN_MARGIN);
+			queryExecutor.get().executeWithRetry((context, transaction) -> {
+				recordLinkedUntil(context, linkedUntil);
+			}).join();
+		}
+	}
+
+	/**
+	 * Gets a future completed once the clusters have caught up after startup, or have failed to
+	 *
+	 * @return a future completed once caught up
+	 */
+	public CentralisedFuture<?> caughtUp() {
+		return caughtUp;
+	}
+
+	private static void recordLinkedUntil(DSLContext context, Instant linkedUntil) {
+		context.deleteFrom(ACCOUNT_CLUSTERS_STATE).execute();
+		context
+				.insertInto(ACCOUNT_CLUSTERS_STATE)
+				.columns(ACCOUNT_CLUSTERS_STATE.UPDATED)
+				.values(linkedUntil)
+				.execute();
+	}
+
+	/**
+	 * Whether account clusters are enabled and have caught up, such that they may be used
+	 * to find linked accounts
+	 *
+	 * @return true if enabled
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Links an account to the other accounts which have used the given address. Must be called
+	 * in the same transaction which associates the address. Does nothing if disabled, or if the
+	 * clusters have not yet begun catching up
+	 *
+	 * @param context the database context
+	 * @param uuid the account's uuid
+	 * @param address the associated address
+	 */
+	public void linkAddress(DSLContext context, UUID uuid, NetworkAddress address) {
+		if (linking) {
+			link(context, uuid, address);
+		}
+	}
+
+	static void link(DSLContext context, UUID uuid, NetworkAddress address) {
+		UUID ownCluster = context
+				.select(ACCOUNT_CLUSTERS.CLUSTER)
+				.from(ACCOUNT_CLUSTERS)
+				.where(ACCOUNT_CLUSTERS.UUID.eq(uuid))
+				.fetchOne(ACCOUNT_CLUSTERS.CLUSTER);
+		// Accounts sharing an address are already clustered together, so this is usually one cluster
+		Set<UUID> clusters = new HashSet<>(context
+				.selectDistinct(ACCOUNT_CLUSTERS.CLUSTER)
+				.from(ACCOUNT_CLUSTERS)
+				.where(ACCOUNT_CLUSTERS.UUID.in(
+						select(ADDRESSES.UUID).from(ADDRESSES).where(ADDRESSES.ADDRESS.eq(address))
+				))
+				.fetchSet(ACCOUNT_CLUSTERS.CLUSTER));
+		if (ownCluster != null) {
+			if (clusters.size() == 1 && clusters.contains(ownCluster)) {
+				// Already linked
+				return;
+			}
+			clusters.add(ownCluster);
+		}
+		UUID target = clusters.isEmpty() ? uuid : Collections.min(clusters);
+		if (ownCluster == null) {
+			context
+					.insertInto(ACCOUNT_CLUSTERS)
+					.columns(ACCOUNT_CLUSTERS.UUID, ACCOUNT_CLUSTERS.CLUSTER)
+					.values(uuid, target)
+					.onConflict(ACCOUNT_CLUSTERS.UUID)
+					.doNothing()
+					.execute();
+		}
+		clusters.remove(target);
+		if (!clusters.isEmpty()) {
+			// Merge the other clusters
+			context
+					.update(ACCOUNT_CLUSTERS)
+					.set(ACCOUNT_CLUSTERS.CLUSTER, target)
+					.where(ACCOUNT_CLUSTERS.CLUSTER.in(clusters))
+					.execute();
+		}
+	}
+
+	/**
+	 * Rebuilds all clusters from the addresses table. Used after addresses are added in bulk,
+	 * such as by an import. Does nothing if disabled
+	 *
+	 * @return a future completed once rebuilt
+	 */
+	public CentralisedFuture<?> rebuild() {
+		if (!linking) {
+			return futuresFactory.completedFuture(null);
+		}
+		Instant rebuildStart = time.currentTimestamp();
+		return rebuildTable().thenCompose((ignore) -> {
+			return queryExecutor.get().executeWithRetry((context, transaction) -> {
+				linkAssociatedSince(context, rebuildStart);
+			});
+		});
+	}
+
+	private CentralisedFuture<?> rebuildTable() {
+		long startTime = time.arbitraryNanoTime();
+		return queryExecutor.get().executeWithRetry((context, transaction) -> {
+			Components components = new Components();
+			try (Cursor<Record2<UUID, NetworkAddress>> cursor = context
+					.select(ADDRESSES.UUID, ADDRESSES.ADDRESS)
+					.from(ADDRESSES)
+					.orderBy(ADDRESSES.ADDRESS)
+					.fetchLazy()) {
+
+				NetworkAddress previousAddress = null;
+				UUID previousUuid = null;
+				for (Record2<UUID, NetworkAddress> record : cursor) {
+					UUID uuid = record.value1();
+					NetworkAddress address = record.value2();
+					components.add(uuid);
+					if (address.equals(previousAddress)) {
+						components.union(previousUuid, uuid);
+					}
+					previousAddress = address;
+					previousUuid = uuid;
+				}
+			}
+			context.deleteFrom(ACCOUNT_CLUSTERS).execute();
+
+			List<UUID> allAccounts = new ArrayList<>(components.accounts());
+			Iterator<UUID> accounts = allAccounts.iterator();
+			while (accounts.hasNext()) {
+				InsertValuesStep2<AccountClustersRecord, UUID, UUID> insert = context
+						.insertInto(ACCOUNT_CLUSTERS)
+						.columns(ACCOUNT_CLUSTERS.UUID, ACCOUNT_CLUSTERS.CLUSTER);
+				for (int n = 0; n < INSERT_BATCH_SIZE && accounts.hasNext(); n++) {
+					UUID uuid = accounts.next();
+					insert = insert.values(uuid, components.find(uuid));
+				}
+				insert.execute();
+			}
+			logger.info("Rebuilt account clusters for {} accounts in {} ms",
+					allAccounts.size(), (time.arbitraryNanoTime() - startTime) / 1_000_000L);
+		});
+	}
+
+	/*
+	 * Picks up addresses associated without linking, such as while the clusters were rebuilt,
+	 * or by other instances. Returns the number of addresses linked.
+	 */
+	private static int linkAssociatedSince(DSLContext context, Instant since) {
+		List<Record2<UUID, NetworkAddress>> associated = context
+				.select(ADDRESSES.UUID, ADDRESSES.ADDRESS)
+				.from(ADDRESSES)
+				.where(ADDRESSES.UPDATED.greaterOrEqual(since))
+				.fetch();
+		for (Record2<UUID, NetworkAddress> record : associated) {
+			link(context, record.value1(), record.value2());
+		}
+		return associated.size();
+	}
+
+	/**
+	 * Condition that an account is linked to the given account, through their shared cluster. Includes
+	 * the given account itself, even if it belongs to no cluster
+	 *
+	 * @param account the field of the account to check
+	 * @param uuid the given account
+	 * @return the condition
+	 */
+	static Condition linkedTo(Field<UUID> account, UUID uuid) {
+		AccountClusters linked = ACCOUNT_CLUSTERS.as("linked");
+		AccountClusters own = ACCOUNT_CLUSTERS.as("own");
+		return account.eq(uuid).or(account.in(
+				select(linked.UUID)
+						.from(linked)
+						.innerJoin(own)
+						.on(linked.CLUSTER.eq(own.CLUSTER))
+						.where(own.UUID.eq(uuid))
+		));
+	}
+
+	/**
+	 * Selects all accounts linked to the accounts which have used the given address, including
+	 * those accounts themselves
+	 *
+	 * @param address the address
+	 * @return the select statement
+	 */
+	public static Select<Record1<UUID>> linkedToAddress(NetworkAddress address) {
+		AccountClusters linked = ACCOUNT_CLUSTERS.as("linked");
+		return select(linked.UUID)
+				.from(linked)
+				.where(linked.CLUSTER.in(
+						select(ACCOUNT_CLUSTERS.CLUSTER)
+								.from(ACCOUNT_CLUSTERS)
+								.innerJoin(ADDRESSES)
+								.on(ACCOUNT_CLUSTERS.UUID.eq(ADDRESSES.UUID))
+								.where(ADDRESSES.ADDRESS.eq(address))
+				))
+				.union(select(ADDRESSES.UUID).from(ADDRESSES).where(ADDRESSES.ADDRESS.eq(address)));
+	}
+
+	/**
+	 * Selects all accounts linked to the given account, including the account itself
+	 *
+	 * @param uuid the account
+	 * @return the select statement
+	 */
+	public static Select<Record1<UUID>> linkedToAccount(UUID uuid) {
+		AccountClusters linked = ACCOUNT_CLUSTERS.as("linked");
+		AccountClusters own = ACCOUNT_CLUSTERS.as("own");
+		return select(linked.UUID)
+				.from(linked)
+				.innerJoin(own)
+				.on(linked.CLUSTER.eq(own.CLUSTER))
+				.where(own.UUID.eq(uuid))
+				.union(select(val(uuid, linked.UUID)));
+	}
+
+	/**
+	 * Disjoint sets of accounts. NOT thread safe
+	 *
+	 */
+	static final class Components {
+
+		private final Map<UUID, UUID> parents = new HashMap<>();
+
+		void add(UUID account) {
+			parents.putIfAbsent(account, account);
+		}
+
+		Set<UUID> accounts() {
+			return parents.keySet();
+		}
+
+		UUID find(UUID account) {
+			UUID parent = parents.get(account);
+			while (!parent.equals(account)) {
+				// Path halving
+				UUID grandparent = parents.get(parent);
+				parents.put(account, grandparent);
+				account = grandparent;
+				parent = parents.get(account);
+			}
+			return account;
+		}
+
+		void union(UUID first, UUID second) {
+			UUID firstRoot = find(first);
+			UUID secondRoot = find(second);
+			if (firstRoot.equals(secondRoot)) {
+				return;
+			}
+			// Use a deterministic representative
+			if (firstRoot.compareTo(secondRoot) < 0) {
+				parents.put(secondRoot, firstRoot);
+			} else {
+				parents.put(firstRoot, secondRoot);
+			}
+		}
+	}
+
+}
@@ -88,6 +88,33 @@ public interface EnforcementConfig {
 		@DefaultString("ALL_ALTS")
 		WhichAlts showWhichAlts();
 
+		@ConfKey("run-after-login")
+		@ConfComments({
+				"If enabled, the alt-check runs in the background after the player is allowed to join,",
+				"rather than during the login. Staff members may be notified a moment later, but the login",
+				"does not wait on the alt-check. Recommended for large servers."
+		})
+		@ConfDefault.DefaultBoolean(false)
+		boolean runAfterLogin();
+
+		@ConfKey("coalesce-window-seconds")
+		@ConfComments({
+				"When running after login, repeated joins of the same player within this many seconds",
+				"are checked only once. Set to 0 to check every join."
+		})
+		@ConfDefault.DefaultInteger(30)
+		@NumericRange(min = 0)
+		int coalesceWindowSeconds();
+
+		@ConfKey("max-pending-checks")
+		@ConfComments({
+				"When running after login, the maximum number of alt-checks which may wait to be run.",
+				"If more players join at once, the excess alt-checks are skipped."
+		})
+		@ConfDefault.DefaultInteger(1000)
+		@NumericRange(min = 1)
+		int maxPendingChecks();
+
 	}
 
 	@ConfKey("connection-limiter")
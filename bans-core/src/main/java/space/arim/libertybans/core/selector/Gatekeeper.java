@@ -22,12 +22,16 @@ package space.arim.libertybans.core.selector;
 import jakarta.inject.Inject;
 import jakarta.inject.Provider;
 import net.kyori.adventure.text.Component;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import space.arim.libertybans.api.NetworkAddress;
 import space.arim.libertybans.api.PunishmentType;
 import space.arim.libertybans.api.punish.Punishment;
 import space.arim.libertybans.api.scope.ServerScope;
+import space.arim.libertybans.api.select.AddressStrictness;
 import space.arim.libertybans.api.select.SelectionPredicate;
 import space.arim.libertybans.api.select.SortPunishments;
+import space.arim.libertybans.core.alts.AltCheckQueue;
 import space.arim.libertybans.core.alts.AltDetection;
 import space.arim.libertybans.core.alts.AltNotification;
 import space.arim.libertybans.core.alts.ConnectionLimiter;
@@ -36,8 +40,11 @@ import space.arim.libertybans.core.config.Configs;
 import space.arim.libertybans.core.config.InternalFormatter;
 import space.arim.libertybans.core.database.execute.QueryExecutor;
 import space.arim.libertybans.core.punish.Association;
+import space.arim.libertybans.core.punish.AssociationQueue;
+import space.arim.libertybans.core.selector.cache.ActiveBanIndex;
 import space.arim.libertybans.core.service.Time;
 import space.arim.omnibus.util.concurrent.CentralisedFuture;
+import space.arim.omnibus.util.ThisClass;
 import space.arim.omnibus.util.concurrent.FactoryOfTheFuture;
 
 import java.time.Instant;
@@ -54,12 +61,19 @@ public final class Gatekeeper {
 	private final ConnectionLimiter connectionLimiter;
 	private final AltDetection altDetection;
 	private final AltNotification altNotification;
+	private final AltCheckQueue altCheckQueue;
+	private final ActiveBanIndex activeBanIndex;
+	private final AssociationQueue associationQueue;
+	private final AccountClustering accountClustering;
 	private final Time time;
 
+	private static final Logger logger = LoggerFactory.getLogger(ThisClass.get());
+
 	@Inject
 	public Gatekeeper(Configs configs, FactoryOfTheFuture futuresFactory, Provider<QueryExecutor> queryExecutor,
 					  InternalFormatter formatter, ConnectionLimiter connectionLimiter, AltDetection altDetection,
-					  AltNotification altNotification, Time time) {
+					  AltNotification altNotification, AltCheckQueue altCheckQueue, ActiveBanIndex activeBanIndex,
+					  AssociationQueue associationQueue, AccountClustering accountClustering, Time time) {
 		this.configs = configs;
 		this.futuresFactory = futuresFactory;
 		this.queryExecutor = queryExecutor;
@@ -67,25 +81,75 @@ public final class Gatekeeper {
 		this.connectionLimiter = connectionLimiter;
 		this.altDetection = altDetection;
 		this.altNotification = altNotification;
+		this.altCheckQueue = altCheckQueue;
+		this.activeBanIndex = activeBanIndex;
+		this.associationQueue = associationQueue;
+		this.accountClustering = accountClustering;
 		this.time = time;
 	}
 
 	CentralisedFuture<Component> executeAndCheckConnection(UUID uuid, String name, NetworkAddress address,
 														   Set<ServerScope> scopes, SelectorImpl selector) {
+		EnforcementConfig enforcementConfig = configs.getMainConfig().enforcement();
+		ActiveBanIndex.Lookup indexLookup = activeBanIndex.lookupApplicableBan(
+				uuid, address, scopes, enforcementConfig.addressStrictness()
+		);
+		if (indexLookup == null) {
+			// Index unavailable; perform the full check against the database
+			return checkConnectionInTransaction(uuid, name, address, scopes, selector, true)
+					.thenCompose((result) -> {
+						activeBanIndex.addAssociation(uuid, address);
+						return handleResult(uuid, name, address, result);
+					});
+		}
+		activeBanIndex.addAssociation(uuid, address);
+		Punishment ban = indexLookup.ban();
+		// Alt-checks submitted to the queue do not hold up the login
+		boolean altCheckDuringLogin = enforcementConfig.altsAutoShow().enable() && !altCheckQueue.isEnabled();
+		if (ban != null || !enforcementConfig.connectionLimiter().enable() && !altCheckDuringLogin) {
+			// Nothing else requires the database, so the login need not wait on it
+			if (ban == null && altCheckQueue.isEnabled()) {
+				// The alt-check must follow the recording of the current address
+				associateInBackground(uuid, name, address, false)
+						.thenRun(() -> altCheckQueue.submit(uuid, name, address));
+				return futuresFactory.completedFuture(null);
+			}
+			associateInBackground(uuid, name, address, true);
+			return handleResult(uuid, name, address, ban);
+		}
+		return checkConnectionInTransaction(uuid, name, address, scopes, selector, false)
+				.thenCompose((result) -> handleResult(uuid, name, address, result));
+	}
+
+	private CentralisedFuture<Object> checkConnectionInTransaction(UUID uuid, String name, NetworkAddress address,
+																   Set<ServerScope> scopes, SelectorImpl selector,
+																   boolean selectBan) {
+		EnforcementConfig enforcementConfig = configs.getMainConfig().enforcement();
+		// The current address is needed by all but the simplest checks
+		boolean deferAddress = selectBan
+				&& enforcementConfig.addressStrictness() == AddressStrictness.LENIENT
+				&& !enforcementConfig.connectionLimiter().enable()
+				&& !enforcementConfig.altsAutoShow().enable();
 		return queryExecutor.get().queryWithRetry((context, transaction) -> {
 			Instant currentTime = time.currentTimestamp();
 
 			Association association = new Association(uuid, context);
-			association.associateCurrentName(name, currentTime);
-			association.associateCurrentAddress(address, currentTime);
+			if (!associationQueue.queueCurrentName(uuid, name, currentTime)) {
+				association.associateCurrentName(name, currentTime);
+			}
+			if (!deferAddress || !associationQueue.queueCurrentAddress(uuid, address, currentTime)) {
+				association.associateCurrentAddress(address, currentTime, accountClustering);
+			}
 
-			Punishment ban = selector.selectionByApplicabilityBuilder(uuid, address)
-					.type(PunishmentType.BAN)
-					.scopes(SelectionPredicate.matchingAnyOf(scopes))
-					.build()
-					.findFirstSpecificPunishment(context, () -> currentTime, SortPunishments.LATEST_END_DATE_FIRST);
-			if (ban != null) {
-				return ban;
+			if (selectBan) {
+				Punishment ban = selector.selectionByApplicabilityBuilder(uuid, address)
+						.type(PunishmentType.BAN)
+						.scopes(SelectionPredicate.matchingAnyOf(scopes))
+						.build()
+						.findFirstSpecificPunishment(context, () -> currentTime, SortPunishments.LATEST_END_DATE_FIRST);
+				if (ban != null) {
+					return ban;
+				}
 			}
 			Component connectionLimitMessage = connectionLimiter.hasExceededLimit(context, address, currentTime);
 			if (connectionLimitMessage != null) {
@@ -93,24 +157,52 @@ public final class Gatekeeper {
 			}
 			// The player may join, but should be checked for alts
 			EnforcementConfig.AltsAutoShow altsAutoShow = configs.getMainConfig().enforcement().altsAutoShow();
-			if (altsAutoShow.enable()) {
+			if (altsAutoShow.enable() && !altCheckQueue.isEnabled()) {
 				List<DetectedAlt> detectedAlts = altDetection.detectAlts(context, uuid, address, altsAutoShow.showWhichAlts());
 				return detectedAlts;
 			}
 			return null;
-		}).thenCompose((banOrLimitMessageOrDetectedAltsOrNull) -> {
-			if (banOrLimitMessageOrDetectedAltsOrNull instanceof Punishment) {
-				return formatter.getPunishmentMessage((Punishment) banOrLimitMessageOrDetectedAltsOrNull);
-			}
-			if (banOrLimitMessageOrDetectedAltsOrNull instanceof Component) {
-				return futuresFactory.completedFuture((Component) banOrLimitMessageOrDetectedAltsOrNull);
+		});
+	}
+
+	private CentralisedFuture<?> associateInBackground(UUID uuid, String name, NetworkAddress address,
+													   boolean mayQueueAddress) {
+		Instant currentTime = time.currentTimestamp();
+		boolean nameQueued = associationQueue.queueCurrentName(uuid, name, currentTime);
+		boolean addressQueued = mayQueueAddress && associationQueue.queueCurrentAddress(uuid, address, currentTime);
+		if (nameQueued && addressQueued) {
+			return futuresFactory.completedFuture(null);
+		}
+		return queryExecutor.get().executeWithRetry((context, transaction) -> {
+			Association association = new Association(uuid, context);
+			if (!nameQueued) {
+				association.associateCurrentName(name, currentTime);
 			}
-			if (banOrLimitMessageOrDetectedAltsOrNull instanceof List) {
-				@SuppressWarnings("unchecked")
-				List<DetectedAlt> detectedAlts = (List<DetectedAlt>) banOrLimitMessageOrDetectedAltsOrNull;
-				altNotification.notifyFoundAlts(uuid, name, address, detectedAlts);
+			if (!addressQueued) {
+				association.associateCurrentAddress(address, currentTime, accountClustering);
 			}
-			return futuresFactory.completedFuture(null);
+		}).exceptionally((ex) -> {
+			logger.warn("Failed to record name and address of {}", uuid, ex);
+			return null;
 		});
 	}
+
+	private CentralisedFuture<Component> handleResult(UUID uuid, String name, NetworkAddress address,
+													  Object banOrLimitMessageOrDetectedAltsOrNull) {
+		if (banOrLimitMessageOrDetectedAltsOrNull instanceof Punishment) {
+			return formatter.getPunishmentMessage((Punishment) banOrLimitMessageOrDetectedAltsOrNull);
+		}
+		if (banOrLimitMessageOrDetectedAltsOrNull instanceof Component) {
+			return futuresFactory.completedFuture((Component) banOrLimitMessageOrDetectedAltsOrNull);
+		}
+		if (banOrLimitMessageOrDetectedAltsOrNull instanceof List) {
+			@SuppressWarnings("unchecked")
+			List<DetectedAlt> detectedAlts = (List<DetectedAlt>) banOrLimitMessageOrDetectedAltsOrNull;
+			altNotification.notifyFoundAlts(uuid, name, address, detectedAlts);
+		} else if (banOrLimitMessageOrDetectedAltsOrNull == null) {
+			// The current address has been recorded by now, so the alt-check may follow the login
+			altCheckQueue.submit(uuid, name, address);
+		}
+		return futuresFactory.completedFuture(null);
+	}
 }
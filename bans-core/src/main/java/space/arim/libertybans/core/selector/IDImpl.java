@@ -33,6 +33,12 @@ import space.arim.libertybans.core.service.Time;
 import space.arim.omnibus.util.concurrent.CentralisedFuture;
 import space.arim.omnibus.util.concurrent.FactoryOfTheFuture;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 import static space.arim.libertybans.core.schema.tables.SimpleActive.SIMPLE_ACTIVE;
 import static space.arim.libertybans.core.schema.tables.SimpleHistory.SIMPLE_HISTORY;
 
@@ -44,6 +50,8 @@ public class IDImpl {
 	private final PunishmentCreator creator;
 	private final Time time;
 
+	private static final int MAX_IDS_PER_QUERY = 500;
+
 	@Inject
 	public IDImpl(FactoryOfTheFuture futuresFactory, Provider<InternalDatabase> dbProvider,
 				  PunishmentCreator creator, Time time) {
@@ -107,6 +115,35 @@ public class IDImpl {
 		}));
 	}
 
+	CentralisedFuture<Map<Long, Punishment>> getHistoricalPunishmentsByIds(Set<Long> ids) {
+		if (ids.isEmpty()) {
+			return futuresFactory.completedFuture(Map.of());
+		}
+		InternalDatabase database = dbProvider.get();
+		return database.query(SQLFunction.readOnly((context) -> {
+			Map<Long, Punishment> punishments = new HashMap<>(ids.size());
+			List<Long> remainingIds = new ArrayList<>(ids);
+			// Keep the number of bind values reasonable
+			for (int start = 0; start < remainingIds.size(); start += MAX_IDS_PER_QUERY) {
+				List<Long> idsChunk = remainingIds.subList(start, Math.min(start + MAX_IDS_PER_QUERY, remainingIds.size()));
+				List<Punishment> punishmentsChunk = context
+						.select(
+								SIMPLE_HISTORY.ID, SIMPLE_HISTORY.TYPE,
+								SIMPLE_HISTORY.VICTIM_TYPE, SIMPLE_HISTORY.VICTIM_UUID, SIMPLE_HISTORY.VICTIM_ADDRESS,
+								SIMPLE_HISTORY.OPERATOR, SIMPLE_HISTORY.REASON, SIMPLE_HISTORY.SCOPE,
+								SIMPLE_HISTORY.START, SIMPLE_HISTORY.END, SIMPLE_HISTORY.TRACK, SIMPLE_HISTORY.SCOPE_TYPE
+						)
+						.from(SIMPLE_HISTORY)
+						.where(SIMPLE_HISTORY.ID.in(idsChunk))
+						.fetch(creator.punishmentMapper());
+				for (Punishment punishment : punishmentsChunk) {
+					punishments.put(punishment.getIdentifier(), punishment);
+				}
+			}
+			return punishments;
+		}));
+	}
+
 	CentralisedFuture<Punishment> getHistoricalPunishmentByIdAndType(long id, PunishmentType type) {
 		InternalDatabase database = dbProvider.get();
 		return database.query(SQLFunction.readOnly((context) -> {
@@ -24,17 +24,17 @@ import jakarta.inject.Singleton;
 import net.kyori.adventure.text.Component;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import space.arim.libertybans.api.NetworkAddress;
-import space.arim.libertybans.api.PunishmentType;
 import space.arim.libertybans.api.scope.ScopeManager;
-import space.arim.libertybans.api.select.SortPunishments;
 import space.arim.libertybans.core.config.Configs;
 import space.arim.libertybans.core.config.InternalFormatter;
 import space.arim.libertybans.core.selector.cache.MuteCache;
+import space.arim.libertybans.core.selector.cache.ServerSwitchBanCache;
 import space.arim.libertybans.core.uuid.UUIDManager;
 import space.arim.omnibus.util.concurrent.CentralisedFuture;
 import space.arim.omnibus.util.concurrent.FactoryOfTheFuture;
 
 import java.net.InetAddress;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletionException;
 import java.util.concurrent.TimeUnit;
@@ -51,10 +51,14 @@ public final class IntelligentGuardian implements Guardian {
 	private final InternalSelector selector;
 	private final UUIDManager uuidManager;
 	private final MuteCache muteCache;
+	private final ServerSwitchBanCache serverSwitchBanCache;
+
+	private volatile MuteCommandMatcher muteCommandMatcher;
 
 	@Inject
 	public IntelligentGuardian(Configs configs, FactoryOfTheFuture futuresFactory, ScopeManager scopeManager,
-							   InternalFormatter formatter, InternalSelector selector, UUIDManager uuidManager, MuteCache muteCache) {
+							   InternalFormatter formatter, InternalSelector selector, UUIDManager uuidManager, MuteCache muteCache,
+							   ServerSwitchBanCache serverSwitchBanCache) {
 		this.configs = configs;
 		this.futuresFactory = futuresFactory;
 		this.scopeManager = scopeManager;
@@ -62,6 +66,7 @@ public final class IntelligentGuardian implements Guardian {
 		this.selector = selector;
 		this.uuidManager = uuidManager;
 		this.muteCache = muteCache;
+		this.serverSwitchBanCache = serverSwitchBanCache;
 	}
 
 	private static <R> Function<Throwable, R> timeoutHandler(String where) {
@@ -91,6 +96,8 @@ public final class IntelligentGuardian implements Guardian {
 					if (component != null) {
 						return futuresFactory.completedFuture(component);
 					}
+					// Prepare for server switches without delaying the login
+					serverSwitchBanCache.cacheOnLogin(uuid, address);
 					return muteCache.cacheOnLogin(uuid, address).thenApply((ignore) -> null);
 				})
 				.orTimeout(12, TimeUnit.SECONDS)
@@ -103,19 +110,14 @@ public final class IntelligentGuardian implements Guardian {
 		if (!configs.getMainConfig().platforms().proxies().enforceServerSwitch()) {
 			return futuresFactory.completedFuture(null);
 		}
-		return selector
-				.selectionByApplicabilityBuilder(uuid, address)
-				.type(PunishmentType.BAN)
-				.scope(scopeManager.specificScope(destinationServer))
-				.build()
-				.getFirstSpecificPunishment(SortPunishments.LATEST_END_DATE_FIRST)
+		return serverSwitchBanCache
+				.getApplicableBan(uuid, NetworkAddress.of(address), scopeManager.specificScope(destinationServer))
 				.thenCompose((punishment) -> {
 					if (punishment.isEmpty()) {
 						return futuresFactory.completedFuture(null);
 					}
 					return formatter.getPunishmentMessage(punishment.get());
 				})
-				.toCompletableFuture()
 				.orTimeout(12, TimeUnit.SECONDS)
 				.exceptionally(timeoutHandler("server switch"));
 	}
@@ -129,39 +131,14 @@ public final class IntelligentGuardian implements Guardian {
 	}
 
 	private boolean blockForMuted(String command) {
-		String[] words = command.split(" ");
-		// Handle commands with colons
-		if (words[0].indexOf(':') != -1) {
-			words[0] = words[0].split(":", 2)[1];
-		}
-		for (String muteCommand : configs.getMainConfig().enforcement().muteCommands()) {
-			if (muteCommandMatches(words, muteCommand)) {
-				return true;
-			}
-		}
-		return false;
-	}
-
-	private static boolean muteCommandMatches(String[] commandWords, String muteCommand) {
-		// Basic equality check
-		if (commandWords[0].equalsIgnoreCase(muteCommand)) {
-			return true;
-		}
-		// Advanced equality check
-		// Essentially a case-insensitive "startsWith" for arrays
-		if (muteCommand.indexOf(' ') != -1) {
-			String[] muteCommandWords = muteCommand.split(" ");
-			if (muteCommandWords.length > commandWords.length) {
-				return false;
-			}
-			for (int n = 0; n < muteCommandWords.length; n++) {
-				if (!muteCommandWords[n].equalsIgnoreCase(commandWords[n])) {
-					return false;
-				}
-			}
-			return true;
+		Set<String> muteCommands = configs.getMainConfig().enforcement().muteCommands();
+		MuteCommandMatcher matcher = this.muteCommandMatcher;
+		if (matcher == null || matcher.source() != muteCommands) {
+			// The configuration was loaded or reloaded
+			matcher = MuteCommandMatcher.compile(muteCommands);
+			this.muteCommandMatcher = matcher;
 		}
-		return false;
+		return matcher.matches(command);
 	}
 
 }
@@ -21,11 +21,13 @@ package space.arim.libertybans.core.selector;
 
 import net.kyori.adventure.text.Component;
 import space.arim.libertybans.api.NetworkAddress;
+import space.arim.libertybans.api.punish.Punishment;
 import space.arim.libertybans.api.scope.ServerScope;
 import space.arim.libertybans.api.select.PunishmentSelector;
 import space.arim.libertybans.api.select.SelectionOrderBuilder;
 import space.arim.omnibus.util.concurrent.CentralisedFuture;
 
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 
@@ -39,6 +41,14 @@ public interface InternalSelector extends PunishmentSelector {
 	 */
 	SelectionOrderBuilder selectionBuilder(SelectionResources resources);
 
+	/**
+	 * Gets historical punishments by their IDs, using as few queries as possible
+	 *
+	 * @param ids the punishment IDs
+	 * @return a future which yields the punishments found, keyed by ID. IDs of nonexistent punishments are absent
+	 */
+	CentralisedFuture<Map<Long, Punishment>> getHistoricalPunishmentsByIds(Set<Long> ids);
+
 	/**
 	 * Checks a player connection's in a single connection query, enforcing any applicable bans,
 	 * connection limits, and dealing out alt checks
@@ -0,0 +1,153 @@
+/*
+ * LibertyBans
+ * Copyright © 2023 Anand Beh
+ *
+ * LibertyBans is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * LibertyBans is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with LibertyBans. If not, see <https://www.gnu.org/licenses/>
+ * and navigate to version 3 of the GNU Affero General Public License.
+ */
+package space.arim.libertybans.core.selector;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Matches executed commands against the configured mute commands. The mute commands are compiled
+ * into a case-insensitive trie of characters, in which spaces separate the words of a mute command. <br>
+ * <br>
+ * An executed command matches if its leading words are equal to the words of a mute command, ignoring case.
+ * A plugin namespace on the first word, such as in "pluginname:cmd", is ignored. Matching is a single pass
+ * over the executed command and does not allocate.
+ *
+ */
+public final class MuteCommandMatcher {
+
+	private final Collection<String> source;
+	private final Node root;
+
+	private MuteCommandMatcher(Collection<String> source, Node root) {
+		this.source = source;
+		this.root = root;
+	}
+
+	/**
+	 * Compiles the given mute commands
+	 *
+	 * @param muteCommands the mute commands
+	 * @return a matcher for the mute commands
+	 */
+	public static MuteCommandMatcher compile(Collection<String> muteCommands) {
+		Node root = new Node();
+		for (String muteCommand : muteCommands) {
+			// Normalize as if splitting into words. Trailing empty words are discarded
+			String[] words = muteCommand.split(" ");
+			Node node = root;
+			for (int n = 0; n < words.length; n++) {
+				if (n != 0) {
+					node = node.childOrCreate(' ');
+				}
+				String word = words[n];
+				for (int i = 0; i < word.length(); i++) {
+					node = node.childOrCreate(fold(word.charAt(i)));
+				}
+			}
+			node.terminal = true;
+		}
+		return new MuteCommandMatcher(muteCommands, root);
+	}
+
+	/**
+	 * The mute commands from which this matcher was compiled
+	 *
+	 * @return the source mute commands
+	 */
+	public Collection<String> source() {
+		return source;
+	}
+
+	private static char fold(char c) {
+		// Same as the comparison used by String#equalsIgnoreCase
+		return Character.toLowerCase(Character.toUpperCase(c));
+	}
+
+	/**
+	 * Determines whether the executed command matches any mute command
+	 *
+	 * @param command the executed command, without the leading slash
+	 * @return true if the command is a mute command
+	 */
+	public boolean matches(String command) {
+		int length = command.length();
+		int start = 0;
+		// Skip the namespace in the first word, if any
+		for (int i = 0; i < length; i++) {
+			char c = command.charAt(i);
+			if (c == ' ') {
+				break;
+			}
+			if (c == ':') {
+				start = i + 1;
+				break;
+			}
+		}
+		Node node = root;
+		for (int i = start; i < length; i++) {
+			char c = command.charAt(i);
+			if (c == ' ') {
+				if (node.terminal) {
+					// All words of a mute command have been matched
+					return true;
+				}
+			} else {
+				c = fold(c);
+			}
+			node = node.child(c);
+			if (node == null) {
+				return false;
+			}
+		}
+		return node.terminal;
+	}
+
+	private static final class Node {
+
+		private char[] keys = new char[0];
+		private Node[] children = new Node[0];
+		private boolean terminal;
+
+		Node child(char key) {
+			char[] keys = this.keys;
+			for (int n = 0; n < keys.length; n++) {
+				if (keys[n] == key) {
+					return children[n];
+				}
+			}
+			return null;
+		}
+
+		Node childOrCreate(char key) {
+			Node existing = child(key);
+			if (existing != null) {
+				return existing;
+			}
+			Node child = new Node();
+			int size = keys.length;
+			keys = Arrays.copyOf(keys, size + 1);
+			children = Arrays.copyOf(children, size + 1);
+			keys[size] = key;
+			children[size] = child;
+			return child;
+		}
+	}
+
+}
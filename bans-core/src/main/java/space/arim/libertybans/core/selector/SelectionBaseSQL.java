@@ -45,12 +45,15 @@ import space.arim.libertybans.core.database.sql.ScopeCondition;
 import space.arim.libertybans.core.database.sql.SimpleViewFields;
 import space.arim.libertybans.core.database.sql.TableForType;
 import space.arim.libertybans.core.scope.ScopeType;
+import space.arim.libertybans.core.selector.cache.PunishmentCounts;
 import space.arim.omnibus.util.concurrent.ReactionStage;
 
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.function.Function;
 import java.util.function.Supplier;
@@ -392,12 +395,26 @@ public abstract class SelectionBaseSQL extends SelectionBaseImpl {
 		).fetch()));
 	}
 
+	/**
+	 * Gets the single victim whose punishments are selected, if the selection's punishments
+	 * may be counted from that victim's punishments
+	 *
+	 * @return the victim, or {@code null} if there is no such victim
+	 */
+	Victim countableVictim() {
+		return null;
+	}
+
 	@Override
 	public ReactionStage<Integer> countNumberOfPunishments() {
 		if (selectActiveKicks()) {
 			// Kicks cannot possibly be active
 			return resources.futuresFactory().completedFuture(0);
 		}
+		Victim countableVictim = countableVictim();
+		if (countableVictim != null && PunishmentCounts.isCountable(this)) {
+			return countUsingVictimPunishments(countableVictim);
+		}
 		return resources.dbProvider().get().query(SQLFunction.readOnly((context) -> {
 			Query<?> query = requestQuery(
 					new QueryParameters(
@@ -414,4 +431,31 @@ public abstract class SelectionBaseSQL extends SelectionBaseImpl {
 		}));
 	}
 
+	private ReactionStage<Integer> countUsingVictimPunishments(Victim victim) {
+		PunishmentCounts punishmentCounts = resources.punishmentCounts();
+		Integer cachedCount = punishmentCounts.count(victim, this);
+		if (cachedCount != null) {
+			return resources.futuresFactory().completedFuture(cachedCount);
+		}
+		long mutationStamp = punishmentCounts.mutationStamp();
+		return resources.dbProvider().get().query(SQLFunction.readOnly((context) -> {
+			List<Punishment> history = victimPunishments(context, victim, false);
+			Set<Long> activeIds = new HashSet<>();
+			for (Punishment activePunishment : victimPunishments(context, victim, true)) {
+				activeIds.add(activePunishment.getIdentifier());
+			}
+			return punishmentCounts.loadAndCount(victim, mutationStamp, history, activeIds, this);
+		}));
+	}
+
+	private List<Punishment> victimPunishments(DSLContext context, Victim victim, boolean active) {
+		SelectionBaseSQL selection = (SelectionBaseSQL) new SelectionOrderBuilderImpl(resources)
+				.victim(victim)
+				.selectActiveOnly(active)
+				.build();
+		return selection.requestQuery(
+				new QueryParameters(context, 0, resources.time()::currentTimestamp)
+		).fetch();
+	}
+
 }
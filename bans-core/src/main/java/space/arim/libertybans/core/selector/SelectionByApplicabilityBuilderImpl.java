@@ -39,13 +39,21 @@ public final class SelectionByApplicabilityBuilderImpl
 	private final NetworkAddress address;
 	private AddressStrictness strictness;
 	private final AddressStrictness defaultStrictness;
+	private final boolean useAccountClusters;
 
 	SelectionByApplicabilityBuilderImpl(SelectionResources resources,
 										UUID uuid, NetworkAddress address, AddressStrictness defaultStrictness) {
+		this(resources, uuid, address, defaultStrictness, false);
+	}
+
+	SelectionByApplicabilityBuilderImpl(SelectionResources resources,
+										UUID uuid, NetworkAddress address, AddressStrictness defaultStrictness,
+										boolean useAccountClusters) {
 		this.resources = resources;
 		this.uuid = uuid;
 		this.address = address;
 		this.defaultStrictness = defaultStrictness;
+		this.useAccountClusters = useAccountClusters;
 		strictness = defaultStrictness;
 	}
 
@@ -68,7 +76,7 @@ public final class SelectionByApplicabilityBuilderImpl
 	@Override
 	SelectionByApplicability buildWith(SelectionBaseImpl.Details details) {
 		return new SelectionByApplicabilityImpl(
-				details, resources, uuid, address, strictness
+				details, resources, uuid, address, strictness, useAccountClusters
 		);
 	}
 
@@ -45,13 +45,16 @@ public final class SelectionByApplicabilityImpl extends SelectionBaseSQL impleme
 	private final UUID uuid;
 	private final NetworkAddress address;
 	private final AddressStrictness strictness;
+	private final boolean useAccountClusters;
 
 	SelectionByApplicabilityImpl(Details details, SelectionResources resources,
-								 UUID uuid, NetworkAddress address, AddressStrictness strictness) {
+								 UUID uuid, NetworkAddress address, AddressStrictness strictness,
+								 boolean useAccountClusters) {
 		super(details, resources);
 		this.uuid = Objects.requireNonNull(uuid, "uuid");
 		this.address = Objects.requireNonNull(address, "address");
 		this.strictness = Objects.requireNonNull(strictness, "strictness");
+		this.useAccountClusters = useAccountClusters;
 	}
 
 	@Override
@@ -87,6 +90,15 @@ public final class SelectionByApplicabilityImpl extends SelectionBaseSQL impleme
 			}
 			case STERN -> {
 				ApplicableViewFields<?> applView = requestApplicableView();
+				if (useAccountClusters) {
+					fields = applView;
+					table = fields.table();
+					// appl.uuid = uuid
+					// OR victim_type != 'PLAYER' AND appl.uuid is in the same cluster as uuid
+					yield applView.uuid().eq(uuid).or(
+							AccountClustering.linkedTo(applView.uuid(), uuid)
+									.and(applView.victimType().notEqual(inline(VictimType.PLAYER))));
+				}
 				fields = applView;
 				table = fields
 						.table()
@@ -99,6 +111,12 @@ public final class SelectionByApplicabilityImpl extends SelectionBaseSQL impleme
 			}
 			case STRICT -> {
 				ApplicableViewFields<?> applView = requestApplicableView();
+				if (useAccountClusters) {
+					fields = applView;
+					table = fields.table();
+					// appl.uuid is in the same cluster as uuid
+					yield AccountClustering.linkedTo(applView.uuid(), uuid);
+				}
 				fields = applView;
 				table = fields
 						.table()
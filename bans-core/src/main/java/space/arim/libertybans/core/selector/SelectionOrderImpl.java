@@ -22,6 +22,7 @@ package space.arim.libertybans.core.selector;
 import org.jooq.Condition;
 import org.jooq.Field;
 import org.jooq.Record;
+import space.arim.libertybans.api.CompositeVictim;
 import space.arim.libertybans.api.Victim;
 import space.arim.libertybans.api.select.SelectionOrder;
 import space.arim.libertybans.api.select.SelectionPredicate;
@@ -96,6 +97,25 @@ final class SelectionOrderImpl extends SelectionBaseSQL implements SelectionOrde
 		}.constructSelect(additionalColumns, additionalPredication);
 	}
 
+	@Override
+	Victim countableVictim() {
+		if (getVictims().isNotSimpleEquality()) {
+			return null;
+		}
+		Victim victim = getVictims().acceptedValues().iterator().next();
+		if (victim instanceof CompositeVictim compositeVictim
+				&& (compositeVictim.getUUID().equals(CompositeVictim.WILDCARD_UUID)
+				|| compositeVictim.getAddress().equals(CompositeVictim.WILDCARD_ADDRESS))) {
+			// Wildcards match other victims
+			return null;
+		}
+		SelectionPredicate<Victim.VictimType> victimTypes = getVictimTypes();
+		if (!victimTypes.acceptedValues().isEmpty() || !victimTypes.rejectedValues().isEmpty()) {
+			return null;
+		}
+		return victim;
+	}
+
 	@Override
 	public boolean equals(Object o) {
 		if (this == o) return true;
@@ -24,6 +24,7 @@ import jakarta.inject.Provider;
 import space.arim.libertybans.core.database.execute.QueryExecutor;
 import space.arim.libertybans.core.punish.PunishmentCreator;
 import space.arim.libertybans.core.scope.InternalScopeManager;
+import space.arim.libertybans.core.selector.cache.PunishmentCounts;
 import space.arim.libertybans.core.service.Time;
 import space.arim.omnibus.util.concurrent.FactoryOfTheFuture;
 
@@ -31,6 +32,7 @@ public record SelectionResources(FactoryOfTheFuture futuresFactory,
 								 Provider<QueryExecutor> dbProvider,
 								 InternalScopeManager scopeManager,
 								 PunishmentCreator creator,
+								 PunishmentCounts punishmentCounts,
 								 Time time) {
 
 	@Inject
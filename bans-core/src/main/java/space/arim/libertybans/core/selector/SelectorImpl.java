@@ -34,6 +34,7 @@ import space.arim.libertybans.core.selector.cache.MuteCache;
 import space.arim.omnibus.util.concurrent.CentralisedFuture;
 import space.arim.omnibus.util.concurrent.ReactionStage;
 
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
@@ -47,15 +48,18 @@ public class SelectorImpl implements InternalSelector {
 	private final Gatekeeper gatekeeper;
 	private final Provider<MuteCache> muteCache;
 	private final SelectionResources resources;
+	private final AccountClustering accountClustering;
 
 	@Inject
 	public SelectorImpl(Configs configs, IDImpl idImpl, Gatekeeper gatekeeper,
-						Provider<MuteCache> muteCache, SelectionResources resources) {
+						Provider<MuteCache> muteCache, SelectionResources resources,
+						AccountClustering accountClustering) {
 		this.configs = configs;
 		this.idImpl = idImpl;
 		this.gatekeeper = gatekeeper;
 		this.muteCache = muteCache;
 		this.resources = resources;
+		this.accountClustering = accountClustering;
 	}
 
 	@Override
@@ -71,7 +75,9 @@ public class SelectorImpl implements InternalSelector {
 	@Override
 	public SelectionByApplicabilityBuilderImpl selectionByApplicabilityBuilder(UUID uuid, NetworkAddress address) {
 		AddressStrictness strictness = configs.getMainConfig().enforcement().addressStrictness();
-		return new SelectionByApplicabilityBuilderImpl(resources, uuid, address, strictness);
+		return new SelectionByApplicabilityBuilderImpl(
+				resources, uuid, address, strictness, accountClustering.isEnabled()
+		);
 	}
 
 	/*
@@ -100,6 +106,11 @@ public class SelectorImpl implements InternalSelector {
 		return idImpl.getHistoricalPunishmentByIdAndType(id, type).thenApply(Optional::ofNullable);
 	}
 
+	@Override
+	public CentralisedFuture<Map<Long, Punishment>> getHistoricalPunishmentsByIds(Set<Long> ids) {
+		return idImpl.getHistoricalPunishmentsByIds(ids);
+	}
+
 	/*
 	 * 
 	 * Applicability methods
@@ -0,0 +1,458 @@
+/*
+ * LibertyBans
+ * Copyright © 2023 Anand Beh
+ *
+ * LibertyBans is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * LibertyBans is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with LibertyBans. If not, see <https://www.gnu.org/licenses/>
+ * and navigate to version 3 of the GNU Affero General Public License.
+ */
+
+package space.arim.libertybans.core.selector.cache;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Provider;
+import jakarta.inject.Singleton;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import space.arim.libertybans.api.AddressVictim;
+import space.arim.libertybans.api.CompositeVictim;
+import space.arim.libertybans.api.NetworkAddress;
+import space.arim.libertybans.api.PlayerVictim;
+import space.arim.libertybans.api.PunishmentType;
+import space.arim.libertybans.api.Victim;
+import space.arim.libertybans.api.punish.Punishment;
+import space.arim.libertybans.api.scope.ServerScope;
+import space.arim.libertybans.api.select.AddressStrictness;
+import space.arim.libertybans.core.Part;
+import space.arim.libertybans.core.config.Configs;
+import space.arim.libertybans.core.config.SqlConfig;
+import space.arim.libertybans.core.database.execute.QueryExecutor;
+import space.arim.libertybans.core.database.execute.SQLFunction;
+import space.arim.libertybans.core.database.sql.EndTimeCondition;
+import space.arim.libertybans.core.punish.PunishmentCreator;
+import space.arim.libertybans.core.service.Time;
+import space.arim.omnibus.util.ThisClass;
+import space.arim.omnibus.util.concurrent.CentralisedFuture;
+import space.arim.omnibus.util.concurrent.DelayCalculators;
+import space.arim.omnibus.util.concurrent.EnhancedExecutor;
+import space.arim.omnibus.util.concurrent.ScheduledTask;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import static org.jooq.impl.DSL.inline;
+import static org.jooq.impl.DSL.select;
+import static space.arim.libertybans.core.schema.tables.Addresses.ADDRESSES;
+import static space.arim.libertybans.core.schema.tables.SimpleBans.SIMPLE_BANS;
+
+/**
+ * Fully-loaded, in-memory index of active bans. When enabled, incoming connections may be
+ * checked without querying the database. <br>
+ * <br>
+ * The index is kept current by local enforcement, which includes punishments received through
+ * synchronization, and is periodically reconciled with the database in order to pick up
+ * punishments made without enforcement or by other software. <br>
+ * <br>
+ * Only the LENIENT and NORMAL address strictness settings can be answered in memory. For NORMAL
+ * strictness, the index additionally tracks which accounts have used a banned address.
+ *
+ */
+@Singleton
+public final class ActiveBanIndex implements Part {
+
+	private final Configs configs;
+	private final Provider<QueryExecutor> queryExecutor;
+	private final EnhancedExecutor enhancedExecutor;
+	private final PunishmentCreator creator;
+	private final Time time;
+
+	private final Object mutationLock = new Object();
+	private volatile Index index;
+	/** Mutations performed while the index is being reloaded. Guarded by mutationLock */
+	private List<Consumer<Index>> pendingMutations;
+	private ScheduledTask reconciliationTask;
+
+	private static final Logger logger = LoggerFactory.getLogger(ThisClass.get());
+
+	@Inject
+	public ActiveBanIndex(Configs configs, Provider<QueryExecutor> queryExecutor, EnhancedExecutor enhancedExecutor,
+						  PunishmentCreator creator, Time time) {
+		this.configs = configs;
+		this.queryExecutor = queryExecutor;
+		this.enhancedExecutor = enhancedExecutor;
+		this.creator = creator;
+		this.time = time;
+	}
+
+	@Override
+	public void startup() {
+		SqlConfig.BanIndexing banIndexing = configs.getSqlConfig().banIndexing();
+		if (!banIndexing.enable()) {
+			return;
+		}
+		reload().join();
+		reconciliationTask = enhancedExecutor.scheduleRepeating(
+				() -> reload().exceptionally((ex) -> {
+					logger.warn("Failed to reconcile the active ban index with the database", ex);
+					return null;
+				}).join(),
+				Duration.ofSeconds(banIndexing.reconciliationIntervalSeconds()),
+				DelayCalculators.fixedDelay()
+		);
+	}
+
+	@Override
+	public void restart() {
+		shutdown();
+		startup();
+	}
+
+	@Override
+	public void shutdown() {
+		if (reconciliationTask != null) {
+			reconciliationTask.cancel();
+			reconciliationTask = null;
+		}
+		synchronized (mutationLock) {
+			index = null;
+			pendingMutations = null;
+		}
+	}
+
+	/**
+	 * Reloads the whole index from the database. Mutations made during the reload are
+	 * replayed on the new index before it is installed
+	 *
+	 * @return a future completed once the new index is installed
+	 */
+	CentralisedFuture<?> reload() {
+		synchronized (mutationLock) {
+			pendingMutations = new ArrayList<>();
+		}
+		Instant currentTime = time.currentTimestamp();
+		return queryExecutor.get().query(SQLFunction.readOnly((context) -> {
+			Index newIndex = new Index();
+			context
+					.select(
+							SIMPLE_BANS.ID, SIMPLE_BANS.TYPE, SIMPLE_BANS.VICTIM_TYPE,
+							SIMPLE_BANS.VICTIM_UUID, SIMPLE_BANS.VICTIM_ADDRESS, SIMPLE_BANS.OPERATOR,
+							SIMPLE_BANS.REASON, SIMPLE_BANS.SCOPE, SIMPLE_BANS.START, SIMPLE_BANS.END,
+							SIMPLE_BANS.TRACK, SIMPLE_BANS.SCOPE_TYPE
+					)
+					.from(SIMPLE_BANS)
+					.where(new EndTimeCondition(SIMPLE_BANS.END).isNotExpired(currentTime))
+					.fetch(creator.punishmentMapper())
+					.forEach(newIndex::addBan);
+			context
+					.select(ADDRESSES.UUID, ADDRESSES.ADDRESS)
+					.from(ADDRESSES)
+					.where(ADDRESSES.ADDRESS.in(
+							select(SIMPLE_BANS.VICTIM_ADDRESS)
+									.from(SIMPLE_BANS)
+									.where(SIMPLE_BANS.VICTIM_TYPE.notEqual(inline(Victim.VictimType.PLAYER)))
+					))
+					.fetch()
+					.forEach((record) -> newIndex.addAccountOnAddressIfBanned(record.value1(), record.value2()));
+			return newIndex;
+		})).thenAccept((newIndex) -> {
+			synchronized (mutationLock) {
+				List<Consumer<Index>> pendingMutations = this.pendingMutations;
+				if (pendingMutations == null) {
+					// Shutdown while loading
+					return;
+				}
+				pendingMutations.forEach((mutation) -> mutation.accept(newIndex));
+				this.pendingMutations = null;
+				this.index = newIndex;
+			}
+			logger.debug("Loaded {} active bans into the ban index", newIndex.bansById.size());
+		});
+	}
+
+	private void mutate(Consumer<Index> mutation) {
+		synchronized (mutationLock) {
+			Index index = this.index;
+			if (index != null) {
+				mutation.accept(index);
+			}
+			if (pendingMutations != null) {
+				pendingMutations.add(mutation);
+			}
+		}
+	}
+
+	private boolean isInactive() {
+		synchronized (mutationLock) {
+			return index == null && pendingMutations == null;
+		}
+	}
+
+	/**
+	 * Whether the index can answer applicability queries for the given strictness
+	 *
+	 * @param strictness the address strictness
+	 * @return true if lookups for such strictness are answered in memory
+	 */
+	public static boolean supportsStrictness(AddressStrictness strictness) {
+		return strictness == AddressStrictness.LENIENT || strictness == AddressStrictness.NORMAL;
+	}
+
+	/**
+	 * Looks up the applicable ban for a connecting player. Yields {@code null} if the index is disabled,
+	 * not yet loaded, or cannot answer for the address strictness in use.
+	 *
+	 * @param uuid the player's uuid
+	 * @param address the player's current address
+	 * @param scopes the scopes to consider
+	 * @param strictness the address strictness
+	 * @return the lookup result, or null if the database must be consulted
+	 */
+	public @Nullable Lookup lookupApplicableBan(UUID uuid, NetworkAddress address,
+												Set<ServerScope> scopes, AddressStrictness strictness) {
+		Index index = this.index;
+		if (index == null || !supportsStrictness(strictness)) {
+			return null;
+		}
+		return new Lookup(index.findApplicableBan(uuid, address, scopes, strictness, time.toJdkClock()));
+	}
+
+	/**
+	 * The result of a lookup
+	 *
+	 * @param ban the applicable ban, or null if there is none
+	 */
+	public record Lookup(@Nullable Punishment ban) { }
+
+	/**
+	 * Informs the index of a player's association with an address
+	 *
+	 * @param uuid the player uuid
+	 * @param address the address
+	 */
+	public void addAssociation(UUID uuid, NetworkAddress address) {
+		if (isInactive()) {
+			return;
+		}
+		mutate((index) -> index.addAccountOnAddressIfBanned(uuid, address));
+	}
+
+	/**
+	 * Adds or replaces a ban in the index. Replacing a ban updates its details, such as the end date
+	 * or scope, after they are modified.
+	 *
+	 * @param ban the ban
+	 */
+	public void addBan(Punishment ban) {
+		if (ban.getType() != PunishmentType.BAN || isInactive()) {
+			return;
+		}
+		boolean[] replacedDetails = new boolean[1];
+		mutate((index) -> replacedDetails[0] |= index.addBan(ban));
+		NetworkAddress address = addressOf(ban.getVictim());
+		if (address == null || replacedDetails[0]) {
+			// The accounts on the banned address are already known
+			return;
+		}
+		queryExecutor.get().query(SQLFunction.readOnly((context) -> {
+			return context
+					.select(ADDRESSES.UUID)
+					.from(ADDRESSES)
+					.where(ADDRESSES.ADDRESS.eq(address))
+					.fetchSet(ADDRESSES.UUID);
+		})).thenAccept((uuids) -> {
+			mutate((index) -> uuids.forEach((uuid) -> index.addAccountOnAddressIfBanned(uuid, address)));
+		}).exceptionally((ex) -> {
+			logger.warn("Failed to retrieve accounts linked to banned address; index will be reconciled later", ex);
+			return null;
+		});
+	}
+
+	/**
+	 * Removes a ban from the index, if present
+	 *
+	 * @param id the punishment id
+	 */
+	public void removeBan(long id) {
+		if (isInactive()) {
+			return;
+		}
+		mutate((index) -> index.removeBan(id));
+	}
+
+	private static @Nullable UUID uuidOf(Victim victim) {
+		if (victim instanceof PlayerVictim playerVictim) {
+			return playerVictim.getUUID();
+		}
+		if (victim instanceof CompositeVictim compositeVictim) {
+			return compositeVictim.getUUID();
+		}
+		return null;
+	}
+
+	private static @Nullable NetworkAddress addressOf(Victim victim) {
+		if (victim instanceof AddressVictim addressVictim) {
+			return addressVictim.getAddress();
+		}
+		if (victim instanceof CompositeVictim compositeVictim) {
+			return compositeVictim.getAddress();
+		}
+		return null;
+	}
+
+	static final class Index {
+
+		// Writers are serialized by the mutation lock, or else the index is not yet installed.
+		// The sets are concurrent so that lookups may proceed without locking
+
+		final Map<Long, Punishment> bansById = new ConcurrentHashMap<>();
+		private final Map<UUID, Set<Punishment>> bansByUuid = new ConcurrentHashMap<>();
+		private final Map<NetworkAddress, Set<Punishment>> bansByAddress = new ConcurrentHashMap<>();
+		/** For each banned address, the accounts which have used it */
+		private final Map<NetworkAddress, Set<UUID>> accountsOnBannedAddress = new ConcurrentHashMap<>();
+		/** The reverse of accountsOnBannedAddress */
+		private final Map<UUID, Set<NetworkAddress>> bannedAddressesOfAccount = new ConcurrentHashMap<>();
+
+		private static <E> Set<E> newSet() {
+			return ConcurrentHashMap.newKeySet();
+		}
+
+		private static <K, V> void addTo(Map<K, Set<V>> map, K key, V value) {
+			map.computeIfAbsent(key, (k) -> newSet()).add(value);
+		}
+
+		private static <K, V> void removeFrom(Map<K, Set<V>> map, K key, V value) {
+			map.computeIfPresent(key, (k, existing) -> {
+				existing.remove(value);
+				return existing.isEmpty() ? null : existing;
+			});
+		}
+
+		private static void replaceIn(Map<?, Set<Punishment>> map, Object key, Punishment ban) {
+			// Swap in a new set, so that concurrent lookups never miss the ban while it is replaced
+			map.computeIfPresent(key, (k, existing) -> {
+				Set<Punishment> updated = newSet();
+				for (Punishment punishment : existing) {
+					if (punishment.getIdentifier() != ban.getIdentifier()) {
+						updated.add(punishment);
+					}
+				}
+				updated.add(ban);
+				return updated;
+			});
+		}
+
+		/**
+		 * Adds or replaces a ban
+		 *
+		 * @param ban the ban
+		 * @return true if the details of an existing ban on the same victim were replaced
+		 */
+		boolean addBan(Punishment ban) {
+			Punishment previous = bansById.put(ban.getIdentifier(), ban);
+			UUID uuid = uuidOf(ban.getVictim());
+			NetworkAddress address = addressOf(ban.getVictim());
+			if (previous != null && previous.getVictim().equals(ban.getVictim())) {
+				// Keep the accounts on the banned address
+				if (uuid != null) {
+					replaceIn(bansByUuid, uuid, ban);
+				}
+				if (address != null) {
+					replaceIn(bansByAddress, address, ban);
+				}
+				return true;
+			}
+			if (previous != null) {
+				unlink(previous);
+			}
+			if (uuid != null) {
+				addTo(bansByUuid, uuid, ban);
+			}
+			if (address != null) {
+				addTo(bansByAddress, address, ban);
+				accountsOnBannedAddress.computeIfAbsent(address, (k) -> newSet());
+			}
+			return false;
+		}
+
+		void removeBan(long id) {
+			Punishment previous = bansById.remove(id);
+			if (previous != null) {
+				unlink(previous);
+			}
+		}
+
+		private void unlink(Punishment ban) {
+			UUID uuid = uuidOf(ban.getVictim());
+			if (uuid != null) {
+				removeFrom(bansByUuid, uuid, ban);
+			}
+			NetworkAddress address = addressOf(ban.getVictim());
+			if (address != null) {
+				removeFrom(bansByAddress, address, ban);
+				if (!bansByAddress.containsKey(address)) {
+					Set<UUID> accounts = accountsOnBannedAddress.remove(address);
+					if (accounts != null) {
+						for (UUID account : accounts) {
+							removeFrom(bannedAddressesOfAccount, account, address);
+						}
+					}
+				}
+			}
+		}
+
+		void addAccountOnAddressIfBanned(UUID uuid, NetworkAddress address) {
+			Set<UUID> accounts = accountsOnBannedAddress.get(address);
+			if (accounts == null || !accounts.add(uuid)) {
+				return;
+			}
+			addTo(bannedAddressesOfAccount, uuid, address);
+		}
+
+		@Nullable Punishment findApplicableBan(UUID uuid, NetworkAddress address, Set<ServerScope> scopes,
+											   AddressStrictness strictness, Clock clock) {
+			Set<Punishment> candidates = new HashSet<>();
+			// Bans on the player or composite bans including the player
+			candidates.addAll(bansByUuid.getOrDefault(uuid, Set.of()));
+			// Bans on the current address
+			candidates.addAll(bansByAddress.getOrDefault(address, Set.of()));
+			if (strictness == AddressStrictness.NORMAL) {
+				// Bans on any address the player has used
+				for (NetworkAddress pastAddress : bannedAddressesOfAccount.getOrDefault(uuid, Set.of())) {
+					candidates.addAll(bansByAddress.getOrDefault(pastAddress, Set.of()));
+				}
+			}
+			Punishment applicable = null;
+			for (Punishment candidate : candidates) {
+				if (!scopes.contains(candidate.getScope()) || candidate.isExpired(clock)) {
+					continue;
+				}
+				// Sort by latest end date first
+				if (applicable == null || candidate.getEndDate().isAfter(applicable.getEndDate())) {
+					applicable = candidate;
+				}
+			}
+			return applicable;
+		}
+	}
+
+}
@@ -23,14 +23,24 @@ import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 import net.kyori.adventure.text.Component;
 import org.checkerframework.checker.nullness.qual.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import space.arim.libertybans.api.AddressVictim;
+import space.arim.libertybans.api.CompositeVictim;
 import space.arim.libertybans.api.NetworkAddress;
+import space.arim.libertybans.api.PlayerVictim;
+import space.arim.libertybans.api.PunishmentType;
+import space.arim.libertybans.api.Victim;
 import space.arim.libertybans.api.punish.Punishment;
+import space.arim.libertybans.api.select.AddressStrictness;
 import space.arim.libertybans.api.select.PunishmentSelector;
 import space.arim.libertybans.core.config.Configs;
 import space.arim.libertybans.core.config.InternalFormatter;
 import space.arim.libertybans.core.config.SqlConfig;
-import space.arim.libertybans.core.env.EnvUserResolver;
+import space.arim.libertybans.core.env.EnvEnforcer;
+import space.arim.libertybans.core.env.UUIDAndAddress;
 import space.arim.libertybans.core.service.Time;
+import space.arim.omnibus.util.ThisClass;
 import space.arim.omnibus.util.concurrent.CentralisedFuture;
 import space.arim.omnibus.util.concurrent.DelayCalculators;
 import space.arim.omnibus.util.concurrent.EnhancedExecutor;
@@ -38,13 +48,20 @@ import space.arim.omnibus.util.concurrent.FactoryOfTheFuture;
 import space.arim.omnibus.util.concurrent.ScheduledTask;
 
 import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
@@ -60,31 +77,52 @@ import java.util.function.Predicate;
 public final class AlwaysAvailableMuteCache extends BaseMuteCache {
 
 	private final FactoryOfTheFuture futuresFactory;
+	private final PunishmentSelector selector;
 	private final EnhancedExecutor enhancedExecutor;
-	private final EnvUserResolver envUserResolver;
+	private final EnvEnforcer<?> envEnforcer;
 	private final InternalFormatter formatter;
+	private final MuteCacheSnapshot snapshot;
+	private final BulkMuteLookup bulkMuteLookup;
 	private final Time time;
 
 	private volatile Cache cache;
+	private volatile PurgeStatistics purgeStatistics = new PurgeStatistics(Duration.ZERO, Duration.ZERO, 0, 0L);
 
 	static final long GRACE_PERIOD_NANOS = TimeUnit.MINUTES.toNanos(4);
 	static final Duration PURGE_TASK_INTERVAL = Duration.ofMinutes(3L);
+	/**
+	 * Allowance for clock differences between this instance and the database
+	 */
+	private static final Duration SNAPSHOT_CLOCK_TOLERANCE = Duration.ofMinutes(1L);
+
+	private static final Logger logger = LoggerFactory.getLogger(ThisClass.get());
 
 	@Inject
 	public AlwaysAvailableMuteCache(Configs configs, FactoryOfTheFuture futuresFactory,
 									PunishmentSelector selector, EnhancedExecutor enhancedExecutor,
-									EnvUserResolver envUserResolver, InternalFormatter formatter, Time time) {
+									EnvEnforcer<?> envEnforcer, InternalFormatter formatter,
+									MuteCacheSnapshot snapshot, BulkMuteLookup bulkMuteLookup, Time time) {
 		super(configs, selector);
 		this.futuresFactory = futuresFactory;
+		this.selector = selector;
 		this.enhancedExecutor = enhancedExecutor;
-		this.envUserResolver = envUserResolver;
+		this.envEnforcer = envEnforcer;
 		this.formatter = formatter;
+		this.snapshot = snapshot;
+		this.bulkMuteLookup = bulkMuteLookup;
 		this.time = time;
 	}
 
+	private boolean persistAcrossRestarts() {
+		return configs().getSqlConfig().muteCaching().persistAcrossRestarts();
+	}
+
 	@Override
 	void installCache(Duration expirationTime, SqlConfig.MuteCaching.ExpirationSemantic expirationSemantic) {
 		ConcurrentHashMap<MuteCacheKey, Entry> map = new ConcurrentHashMap<>();
+		if (persistAcrossRestarts()) {
+			restoreSnapshot(map, expirationTime);
+		}
 		Cache cache = new Cache(map, expirationTime);
 		cache.startPurgeTask();
 		this.cache = cache;
@@ -92,7 +130,201 @@ public final class AlwaysAvailableMuteCache extends BaseMuteCache {
 
 	@Override
 	void uninstallCache() {
+		Cache cache = this.cache;
 		cache.stopPurgeTask();
+		if (persistAcrossRestarts()) {
+			snapshot.write(takeSnapshot(cache.map));
+		}
+	}
+
+	// Persistence
+
+	private MuteCacheSnapshot.Contents takeSnapshot(Map<MuteCacheKey, Entry> map) {
+		List<MuteCacheSnapshot.Entry> snapshotEntries = new ArrayList<>(map.size());
+		for (Map.Entry<MuteCacheKey, Entry> mapEntry : map.entrySet()) {
+			MuteCacheKey key = mapEntry.getKey();
+			Entry entry = mapEntry.getValue();
+
+			MuteAndMessage value = entry.currentValue;
+			CentralisedFuture<MuteAndMessage> nextValue = entry.nextValue;
+			if (nextValue != null) {
+				if (!nextValue.isDone() || nextValue.isCompletedExceptionally()) {
+					// No reliable value to save. The entry will be queried afresh when the player logs in
+					continue;
+				}
+				value = nextValue.join();
+			}
+			Punishment mute = (value == null) ? null : value.mute();
+			snapshotEntries.add(new MuteCacheSnapshot.Entry(
+					key.uuid(), key.address(),
+					(mute == null) ? 0L : mute.getIdentifier(),
+					(mute == null) ? Instant.EPOCH : mute.getStartDate()
+			));
+		}
+		return new MuteCacheSnapshot.Contents(time.currentTimestamp(), snapshotEntries);
+	}
+
+	private void restoreSnapshot(Map<MuteCacheKey, Entry> map, Duration expirationTime) {
+		MuteCacheSnapshot.Contents contents = snapshot.readAndDelete();
+		if (contents == null || contents.entries().isEmpty()) {
+			return;
+		}
+		// Cached values may have been stale by up to the expiration time when the snapshot was taken
+		Instant newMutesSince = contents.takenAt().minus(expirationTime).minus(SNAPSHOT_CLOCK_TOLERANCE);
+		Instant seekFrom = newMutesSince;
+		Set<Long> snapshottedMuteIds = new HashSet<>();
+		for (MuteCacheSnapshot.Entry snapshotEntry : contents.entries()) {
+			if (snapshotEntry.hasMute()) {
+				snapshottedMuteIds.add(snapshotEntry.muteId());
+				if (snapshotEntry.muteStart().isBefore(seekFrom)) {
+					seekFrom = snapshotEntry.muteStart();
+				}
+			}
+		}
+		// Validate the snapshot with a single query for the relevant active mutes
+		List<Punishment> activeMutes;
+		try {
+			activeMutes = selector.selectionBuilder()
+					.type(PunishmentType.MUTE)
+					.selectActiveOnly()
+					.seekAfter(seekFrom, 0L)
+					.build()
+					.getAllSpecificPunishments()
+					.toCompletableFuture()
+					.join();
+		} catch (CompletionException ex) {
+			logger.warn("Unable to validate the mute cache snapshot. It will be ignored.", ex);
+			return;
+		}
+		Map<Long, Punishment> activeMutesById = new HashMap<>();
+		NewMutes newMutes = new NewMutes();
+		for (Punishment activeMute : activeMutes) {
+			activeMutesById.put(activeMute.getIdentifier(), activeMute);
+			if (!snapshottedMuteIds.contains(activeMute.getIdentifier())
+					&& !activeMute.getStartDate().isBefore(newMutesSince)) {
+				newMutes.add(activeMute.getVictim());
+			}
+		}
+		// Restore the snapshotted mutes which are still active
+		Map<MuteCacheKey, CentralisedFuture<MuteAndMessage>> restoredValues = new HashMap<>();
+		List<MuteCacheKey> keysToRefresh = new ArrayList<>();
+		for (MuteCacheSnapshot.Entry snapshotEntry : contents.entries()) {
+			MuteCacheKey key = new MuteCacheKey(snapshotEntry.uuid(), snapshotEntry.address());
+			Punishment activeMute = null;
+			if (snapshotEntry.hasMute() && (activeMute = activeMutesById.get(snapshotEntry.muteId())) == null) {
+				// The mute expired or was revoked. Another mute might apply instead
+				keysToRefresh.add(key);
+			} else if (newMutes.mightApplyTo(key)) {
+				keysToRefresh.add(key);
+			}
+			restoredValues.put(key, (activeMute == null) ? futuresFactory.completedFuture(null) : formatMessage(activeMute));
+		}
+		try {
+			futuresFactory.allOf(restoredValues.values()).join();
+		} catch (CompletionException ex) {
+			logger.warn("Failed to restore some entries of the mute cache snapshot", ex);
+		}
+		final long currentTime = nanoTime();
+		Map<MuteCacheKey, CentralisedFuture<MuteAndMessage>> refreshedValues = refreshRestoredEntries(keysToRefresh);
+		restoredValues.forEach((key, restoredValue) -> {
+			boolean restoreFailed = restoredValue.isCompletedExceptionally();
+			MuteAndMessage restored = (restoreFailed) ? null : restoredValue.join();
+			CentralisedFuture<MuteAndMessage> nextValue = refreshedValues.get(key);
+			if (nextValue == null && restoreFailed) {
+				nextValue = queryPunishmentAndMessage(key);
+			}
+			if (nextValue != null) {
+				// Keep the restored value if refreshing fails
+				nextValue = nextValue.exceptionally((ex) -> restored);
+			}
+			map.put(key, new Entry(restored, currentTime, nextValue));
+		});
+		logger.debug("Restored {} mute cache entries, of which {} are being refreshed",
+				map.size(), keysToRefresh.size());
+	}
+
+	/**
+	 * The victims of mutes added since a snapshot was taken
+	 *
+	 */
+	private final class NewMutes {
+
+		private final Set<UUID> uuids = new HashSet<>();
+		private final Set<NetworkAddress> addresses = new HashSet<>();
+		private boolean applicableToAnyone;
+		private AddressStrictness strictness;
+
+		void add(Victim victim) {
+			if (applicableToAnyone) {
+				return;
+			}
+			if (strictness == null) {
+				strictness = configs().getMainConfig().enforcement().addressStrictness();
+			}
+			if (strictness == AddressStrictness.LENIENT || strictness == AddressStrictness.NORMAL) {
+				if (victim instanceof PlayerVictim playerVictim) {
+					uuids.add(playerVictim.getUUID());
+					return;
+				}
+				if (strictness == AddressStrictness.LENIENT) {
+					if (victim instanceof AddressVictim addressVictim) {
+						addresses.add(addressVictim.getAddress());
+						return;
+					}
+					if (victim instanceof CompositeVictim compositeVictim) {
+						uuids.add(compositeVictim.getUUID());
+						addresses.add(compositeVictim.getAddress());
+						return;
+					}
+				}
+			}
+			// Depends on the addresses which players have used, or on links between accounts
+			applicableToAnyone = true;
+		}
+
+		boolean mightApplyTo(MuteCacheKey key) {
+			return applicableToAnyone || uuids.contains(key.uuid()) || addresses.contains(key.address());
+		}
+	}
+
+	/**
+	 * Begins to query the current mutes of restored entries, using a bulk lookup where possible
+	 *
+	 * @param keys the keys of the entries to refresh
+	 * @return the refreshed values of each entry
+	 */
+	private Map<MuteCacheKey, CentralisedFuture<MuteAndMessage>> refreshRestoredEntries(List<MuteCacheKey> keys) {
+		if (keys.isEmpty()) {
+			return Map.of();
+		}
+		Map<MuteCacheKey, CentralisedFuture<MuteAndMessage>> refreshedValues = new HashMap<>(keys.size());
+		List<UUIDAndAddress> users = new ArrayList<>(keys.size());
+		for (MuteCacheKey key : keys) {
+			users.add(new UUIDAndAddress(key.uuid(), key.address()));
+		}
+		var bulkLookup = bulkMuteLookup.lookupApplicableMutes(users);
+		if (bulkLookup == null) {
+			// The address strictness requires a query per user
+			for (MuteCacheKey key : keys) {
+				refreshedValues.put(key, queryPunishmentAndMessage(key));
+			}
+			return refreshedValues;
+		}
+		bulkLookup.exceptionally((ex) -> {
+			logger.warn("Failed to refresh restored entries of the mute cache. They will be refreshed later.", ex);
+			return null;
+		});
+		for (UUIDAndAddress user : users) {
+			MuteCacheKey key = new MuteCacheKey(user.uuid(), user.address());
+			refreshedValues.put(key, bulkLookup.thenCompose((applicableMutes) -> {
+				Optional<Punishment> applicableMute = applicableMutes.getOrDefault(user, Optional.empty());
+				if (applicableMute.isEmpty()) {
+					return futuresFactory.completedFuture(null);
+				}
+				return formatMessage(applicableMute.get());
+			}));
+		}
+		return refreshedValues;
 	}
 
 	private long nanoTime() {
@@ -219,6 +451,43 @@ public final class AlwaysAvailableMuteCache extends BaseMuteCache {
 		return futuresFactory.completedFuture(null);
 	}
 
+	@Override
+	public CentralisedFuture<?> cacheInBulk(Collection<UUIDAndAddress> users) {
+		Cache cache = this.cache;
+		List<UUIDAndAddress> uncachedUsers = new ArrayList<>(users.size());
+		for (UUIDAndAddress user : users) {
+			if (!cache.map.containsKey(new MuteCacheKey(user.uuid(), user.address()))) {
+				uncachedUsers.add(user);
+			}
+		}
+		if (uncachedUsers.isEmpty()) {
+			return futuresFactory.completedFuture(null);
+		}
+		var bulkLookup = bulkMuteLookup.lookupApplicableMutes(uncachedUsers);
+		if (bulkLookup == null) {
+			// The address strictness requires a query per user
+			List<CentralisedFuture<?>> futures = new ArrayList<>(uncachedUsers.size());
+			for (UUIDAndAddress user : uncachedUsers) {
+				futures.add(cacheOnLogin(user.uuid(), user.address()));
+			}
+			return futuresFactory.allOf(futures);
+		}
+		final long queryTime = nanoTime();
+		return bulkLookup.thenCompose((applicableMutes) -> {
+			List<CentralisedFuture<MuteAndMessage>> messages = new ArrayList<>();
+			applicableMutes.forEach((user, optMute) -> {
+				CentralisedFuture<MuteAndMessage> message = optMute.map(this::formatMessage).orElse(null);
+				// Defer to entries added in the meantime, such as by a login
+				Entry existing = cache.map.putIfAbsent(
+						new MuteCacheKey(user.uuid(), user.address()), new Entry(null, queryTime, message));
+				if (existing == null && message != null) {
+					messages.add(message);
+				}
+			});
+			return futuresFactory.allOf(messages);
+		});
+	}
+
 	@Override
 	void setCachedMute(MuteCacheKey cacheKey, Punishment mute) {
 		cache.map.compute(cacheKey, (key, entry) -> {
@@ -257,6 +526,7 @@ public final class AlwaysAvailableMuteCache extends BaseMuteCache {
 		private final ConcurrentHashMap<MuteCacheKey, Entry> map;
 		private final long expirationTimeNanos;
 		private ScheduledTask purgeTask;
+		private final AtomicBoolean purgeInProgress = new AtomicBoolean();
 
 		private Cache(ConcurrentHashMap<MuteCacheKey, Entry> map, Duration expirationTime) {
 			this.map = map;
@@ -264,40 +534,48 @@ public final class AlwaysAvailableMuteCache extends BaseMuteCache {
 		}
 
 		private void startPurgeTask() {
-			purgeTask = enhancedExecutor.scheduleRepeating(() -> {
-
-				Collection<CentralisedFuture<Void>> removalFutures = new ArrayList<>(map.size() + 10);
-				long currentTime = nanoTime();
+			purgeTask = enhancedExecutor.scheduleRepeating(this::purge, PURGE_TASK_INTERVAL, DelayCalculators.fixedDelay());
+		}
 
+		private void purge() {
+			if (!purgeInProgress.compareAndSet(false, true)) {
+				// The previous purge has not yet finished
+				return;
+			}
+			long currentTime = nanoTime();
+			onlineUuids(envEnforcer).thenAccept((onlineUuids) -> {
+				int evicted = 0;
 				for (Map.Entry<MuteCacheKey, Entry> mapEntry : map.entrySet()) {
 					MuteCacheKey key = mapEntry.getKey();
-					var thisFuture = envUserResolver.lookupName(key.uuid()).thenAccept((nameIfOnline) -> {
-						if (nameIfOnline.isPresent()) {
-							// The player is online
-							return;
-						}
-						Entry entry = mapEntry.getValue();
-						if (currentTime - entry.lastUpdated <= GRACE_PERIOD_NANOS) {
-							/*
-							Not enough time has passed. This allows a grace period in which cache entries may exist
-							despite the player is not logged in.
-
-							This solves the login process conundrum which occurs when the client is between
-							the login event and join event (AsyncPlayerPreLoginEvent and PlayerJoinEvent on Bukkit).
-							We reasonably assume the time between login event and join event < 4 minutes.
-							 */
-							return;
-						}
-						// The player is offline and the grace period has passed
-						// IMPORTANT: This relies on the exact Entry instance for concurrent correctness
-						map.remove(key, entry);
-					});
-					removalFutures.add(thisFuture);
+					if (onlineUuids.contains(key.uuid())) {
+						// The player is online
+						continue;
+					}
+					Entry entry = mapEntry.getValue();
+					if (currentTime - entry.lastUpdated <= GRACE_PERIOD_NANOS) {
+						/*
+						Not enough time has passed. This allows a grace period in which cache entries may exist
+						despite the player is not logged in.
+
+						This solves the login process conundrum which occurs when the client is between
+						the login event and join event (AsyncPlayerPreLoginEvent and PlayerJoinEvent on Bukkit).
+						We reasonably assume the time between login event and join event < 4 minutes.
+						 */
+						continue;
+					}
+					// The player is offline and the grace period has passed
+					// IMPORTANT: This relies on the exact Entry instance for concurrent correctness
+					if (map.remove(key, entry)) {
+						evicted++;
+					}
 				}
-				// Wait for all futures to complete
-				futuresFactory.allOf(removalFutures).join();
-
-			}, PURGE_TASK_INTERVAL, DelayCalculators.fixedDelay());
+				recordPurge(Duration.ofNanos(nanoTime() - currentTime), evicted);
+			}).whenComplete((ignore, ex) -> {
+				purgeInProgress.set(false);
+				if (ex != null) {
+					logger.warn("Failed to purge the mute cache of offline players", ex);
+				}
+			});
 		}
 
 		private void stopPurgeTask() {
@@ -305,6 +583,42 @@ public final class AlwaysAvailableMuteCache extends BaseMuteCache {
 		}
 	}
 
+	private static <P> CentralisedFuture<Set<UUID>> onlineUuids(EnvEnforcer<P> envEnforcer) {
+		Set<UUID> onlineUuids = new HashSet<>();
+		return envEnforcer.doForAllPlayers((players) -> {
+			for (P player : players) {
+				onlineUuids.add(envEnforcer.getUniqueIdFor(player));
+			}
+		}).thenApply((ignore) -> onlineUuids);
+	}
+
+	private void recordPurge(Duration duration, int evicted) {
+		PurgeStatistics previous = purgeStatistics;
+		Duration maxDuration = (duration.compareTo(previous.maxPurgeDuration()) > 0) ? duration : previous.maxPurgeDuration();
+		purgeStatistics = new PurgeStatistics(duration, maxDuration, evicted, previous.totalEvicted() + evicted);
+		logger.trace("Purged {} mute cache entries of offline players in {} ms", evicted, duration.toMillis());
+	}
+
+	/**
+	 * Purge task metrics
+	 *
+	 * @param lastPurgeDuration the time taken by the most recent purge
+	 * @param maxPurgeDuration the longest time taken by any purge
+	 * @param lastEvicted the amount of entries evicted by the most recent purge
+	 * @param totalEvicted the total amount of entries evicted
+	 */
+	public record PurgeStatistics(Duration lastPurgeDuration, Duration maxPurgeDuration,
+								  int lastEvicted, long totalEvicted) { }
+
+	/**
+	 * Gets current purge task metrics
+	 *
+	 * @return the metrics
+	 */
+	public PurgeStatistics purgeStatistics() {
+		return purgeStatistics;
+	}
+
 	private record Entry(@Nullable MuteAndMessage currentValue, long lastUpdated,
 						 @Nullable CentralisedFuture<MuteAndMessage> nextValue) { }
 
@@ -43,6 +43,10 @@ abstract class BaseMuteCache implements MuteCache {
 		this.selector = selector;
 	}
 
+	final Configs configs() {
+		return configs;
+	}
+
 	// Setup
 
 	@Override
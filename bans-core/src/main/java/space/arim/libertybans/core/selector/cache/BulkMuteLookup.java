@@ -0,0 +1,213 @@
+/*
+ * LibertyBans
+ * Copyright © 2023 Anand Beh
+ *
+ * LibertyBans is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * LibertyBans is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with LibertyBans. If not, see <https://www.gnu.org/licenses/>
+ * and navigate to version 3 of the GNU Affero General Public License.
+ */
+package space.arim.libertybans.core.selector.cache;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Provider;
+import jakarta.inject.Singleton;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import space.arim.libertybans.api.AddressVictim;
+import space.arim.libertybans.api.CompositeVictim;
+import space.arim.libertybans.api.NetworkAddress;
+import space.arim.libertybans.api.PlayerVictim;
+import space.arim.libertybans.api.Victim;
+import space.arim.libertybans.api.punish.Punishment;
+import space.arim.libertybans.api.select.AddressStrictness;
+import space.arim.libertybans.core.config.Configs;
+import space.arim.libertybans.core.database.execute.QueryExecutor;
+import space.arim.libertybans.core.database.execute.SQLFunction;
+import space.arim.libertybans.core.database.sql.EndTimeCondition;
+import space.arim.libertybans.core.env.UUIDAndAddress;
+import space.arim.libertybans.core.punish.PunishmentCreator;
+import space.arim.libertybans.core.service.Time;
+import space.arim.omnibus.util.concurrent.CentralisedFuture;
+import space.arim.omnibus.util.concurrent.FactoryOfTheFuture;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.jooq.impl.DSL.inline;
+import static space.arim.libertybans.core.schema.tables.ApplicableMutes.APPLICABLE_MUTES;
+import static space.arim.libertybans.core.schema.tables.SimpleMutes.SIMPLE_MUTES;
+
+/**
+ * Finds the applicable mutes of many users at once, using batched queries rather than one query per user.
+ * Used to fill the mute cache for all online players, such as after a restart. <br>
+ * <br>
+ * Like the {@link ActiveBanIndex}, only the LENIENT and NORMAL address strictness settings are supported.
+ *
+ */
+@Singleton
+public final class BulkMuteLookup {
+
+	private final Configs configs;
+	private final FactoryOfTheFuture futuresFactory;
+	private final Provider<QueryExecutor> queryExecutor;
+	private final PunishmentCreator creator;
+	private final Time time;
+
+	private static final int MAX_USERS_PER_QUERY = 500;
+
+	@Inject
+	public BulkMuteLookup(Configs configs, FactoryOfTheFuture futuresFactory, Provider<QueryExecutor> queryExecutor,
+						  PunishmentCreator creator, Time time) {
+		this.configs = configs;
+		this.futuresFactory = futuresFactory;
+		this.queryExecutor = queryExecutor;
+		this.creator = creator;
+		this.time = time;
+	}
+
+	/**
+	 * Finds the applicable mute for each of the given users. For each user, the mute found is the same
+	 * as with {@code PunishmentSelector#getApplicablePunishment}, except where multiple mutes have the
+	 * same end date.
+	 *
+	 * @param users the users
+	 * @return a future yielding the applicable mute, if any, of every user; or {@code null} if the
+	 * address strictness in use does not support bulk lookups
+	 */
+	public @Nullable CentralisedFuture<Map<UUIDAndAddress, Optional<Punishment>>> lookupApplicableMutes(
+			Collection<UUIDAndAddress> users) {
+		AddressStrictness strictness = configs.getMainConfig().enforcement().addressStrictness();
+		if (!ActiveBanIndex.supportsStrictness(strictness)) {
+			return null;
+		}
+		if (users.isEmpty()) {
+			return futuresFactory.completedFuture(Map.of());
+		}
+		Instant currentTime = time.currentTimestamp();
+		List<UUIDAndAddress> remainingUsers = List.copyOf(users);
+		return queryExecutor.get().query(SQLFunction.readOnly((context) -> {
+			Map<UUIDAndAddress, Optional<Punishment>> applicableMutes = new HashMap<>(remainingUsers.size());
+			// Keep the number of bind values reasonable
+			for (int start = 0; start < remainingUsers.size(); start += MAX_USERS_PER_QUERY) {
+				List<UUIDAndAddress> usersChunk = remainingUsers.subList(
+						start, Math.min(start + MAX_USERS_PER_QUERY, remainingUsers.size()));
+				Map<UUID, List<UUIDAndAddress>> usersByUuid = new HashMap<>(usersChunk.size());
+				Map<NetworkAddress, List<UUIDAndAddress>> usersByAddress = new HashMap<>(usersChunk.size());
+				for (UUIDAndAddress user : usersChunk) {
+					applicableMutes.put(user, Optional.empty());
+					usersByUuid.computeIfAbsent(user.uuid(), (u) -> new ArrayList<>(1)).add(user);
+					usersByAddress.computeIfAbsent(user.address(), (a) -> new ArrayList<>(1)).add(user);
+				}
+				Set<UUID> uuids = usersByUuid.keySet();
+				if (strictness == AddressStrictness.LENIENT) {
+					// Match victims to users here, rather than in the database
+					Set<NetworkAddress> addresses = usersByAddress.keySet();
+					List<Punishment> mutes = context
+							.select(
+									SIMPLE_MUTES.ID, SIMPLE_MUTES.TYPE, SIMPLE_MUTES.VICTIM_TYPE,
+									SIMPLE_MUTES.VICTIM_UUID, SIMPLE_MUTES.VICTIM_ADDRESS, SIMPLE_MUTES.OPERATOR,
+									SIMPLE_MUTES.REASON, SIMPLE_MUTES.SCOPE, SIMPLE_MUTES.START, SIMPLE_MUTES.END,
+									SIMPLE_MUTES.TRACK, SIMPLE_MUTES.SCOPE_TYPE
+							)
+							.from(SIMPLE_MUTES)
+							.where(new EndTimeCondition(SIMPLE_MUTES.END).isNotExpired(currentTime))
+							.and(SIMPLE_MUTES.VICTIM_UUID.in(uuids)
+									.and(SIMPLE_MUTES.VICTIM_TYPE.notEqual(inline(Victim.VictimType.ADDRESS)))
+									.or(SIMPLE_MUTES.VICTIM_ADDRESS.in(addresses)
+											.and(SIMPLE_MUTES.VICTIM_TYPE.notEqual(inline(Victim.VictimType.PLAYER)))))
+							.fetch(creator.punishmentMapper());
+					for (Punishment mute : mutes) {
+						Set<UUIDAndAddress> matchingUsers = new HashSet<>();
+						UUID victimUuid = uuidOf(mute.getVictim());
+						if (victimUuid != null) {
+							matchingUsers.addAll(usersByUuid.getOrDefault(victimUuid, List.of()));
+						}
+						NetworkAddress victimAddress = addressOf(mute.getVictim());
+						if (victimAddress != null) {
+							matchingUsers.addAll(usersByAddress.getOrDefault(victimAddress, List.of()));
+						}
+						for (UUIDAndAddress user : matchingUsers) {
+							applicableMutes.put(user, Optional.of(
+									expiresLeastSoon(applicableMutes.get(user).orElse(null), mute)));
+						}
+					}
+				} else {
+					// The applicable view already matches victims to users, by uuid
+					Map<UUID, Punishment> mutesByUuid = new HashMap<>();
+					context
+							.select(
+									APPLICABLE_MUTES.UUID,
+									APPLICABLE_MUTES.ID, APPLICABLE_MUTES.TYPE, APPLICABLE_MUTES.VICTIM_TYPE,
+									APPLICABLE_MUTES.VICTIM_UUID, APPLICABLE_MUTES.VICTIM_ADDRESS, APPLICABLE_MUTES.OPERATOR,
+									APPLICABLE_MUTES.REASON, APPLICABLE_MUTES.SCOPE, APPLICABLE_MUTES.START, APPLICABLE_MUTES.END,
+									APPLICABLE_MUTES.TRACK, APPLICABLE_MUTES.SCOPE_TYPE
+							)
+							.from(APPLICABLE_MUTES)
+							.where(new EndTimeCondition(APPLICABLE_MUTES.END).isNotExpired(currentTime))
+							.and(APPLICABLE_MUTES.UUID.in(uuids))
+							.fetch()
+							.forEach((record) -> {
+								Punishment mute = creator.punishmentMapper().map(record.into(
+										APPLICABLE_MUTES.ID, APPLICABLE_MUTES.TYPE, APPLICABLE_MUTES.VICTIM_TYPE,
+										APPLICABLE_MUTES.VICTIM_UUID, APPLICABLE_MUTES.VICTIM_ADDRESS, APPLICABLE_MUTES.OPERATOR,
+										APPLICABLE_MUTES.REASON, APPLICABLE_MUTES.SCOPE, APPLICABLE_MUTES.START, APPLICABLE_MUTES.END,
+										APPLICABLE_MUTES.TRACK, APPLICABLE_MUTES.SCOPE_TYPE
+								));
+								mutesByUuid.merge(record.get(APPLICABLE_MUTES.UUID), mute, BulkMuteLookup::expiresLeastSoon);
+							});
+					mutesByUuid.forEach((uuid, mute) -> {
+						for (UUIDAndAddress user : usersByUuid.get(uuid)) {
+							applicableMutes.put(user, Optional.of(mute));
+						}
+					});
+				}
+			}
+			return applicableMutes;
+		}));
+	}
+
+	private static @Nullable UUID uuidOf(Victim victim) {
+		if (victim instanceof PlayerVictim playerVictim) {
+			return playerVictim.getUUID();
+		}
+		if (victim instanceof CompositeVictim compositeVictim) {
+			return compositeVictim.getUUID();
+		}
+		return null;
+	}
+
+	private static @Nullable NetworkAddress addressOf(Victim victim) {
+		if (victim instanceof AddressVictim addressVictim) {
+			return addressVictim.getAddress();
+		}
+		if (victim instanceof CompositeVictim compositeVictim) {
+			return compositeVictim.getAddress();
+		}
+		return null;
+	}
+
+	private static Punishment expiresLeastSoon(@Nullable Punishment current, Punishment candidate) {
+		if (current == null || candidate.getEndDate().isAfter(current.getEndDate())) {
+			return candidate;
+		}
+		return current;
+	}
+
+}
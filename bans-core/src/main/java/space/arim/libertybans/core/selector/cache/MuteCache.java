@@ -23,8 +23,10 @@ import net.kyori.adventure.text.Component;
 import space.arim.libertybans.api.NetworkAddress;
 import space.arim.libertybans.api.punish.Punishment;
 import space.arim.libertybans.core.Part;
+import space.arim.libertybans.core.env.UUIDAndAddress;
 import space.arim.omnibus.util.concurrent.CentralisedFuture;
 
+import java.util.Collection;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -43,6 +45,15 @@ public interface MuteCache extends Part {
 	 */
 	CentralisedFuture<?> cacheOnLogin(UUID uuid, NetworkAddress address);
 
+	/**
+	 * Fills the cache for many users at once, such as all online players after a restart.
+	 * Users already cached are skipped. Uses as few queries as possible
+	 *
+	 * @param users the users' uuids and addresses
+	 * @return a future completed when the cache is adequately filled
+	 */
+	CentralisedFuture<?> cacheInBulk(Collection<UUIDAndAddress> users);
+
 	void setCachedMute(UUID uuid, NetworkAddress address, Punishment punishment);
 
 	void clearCachedMute(Punishment punishment);
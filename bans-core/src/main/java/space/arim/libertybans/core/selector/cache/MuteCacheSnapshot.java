@@ -0,0 +1,146 @@
+/*
+ * LibertyBans
+ * Copyright © 2023 Anand Beh
+ *
+ * LibertyBans is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * LibertyBans is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with LibertyBans. If not, see <https://www.gnu.org/licenses/>
+ * and navigate to version 3 of the GNU Affero General Public License.
+ */
+package space.arim.libertybans.core.selector.cache;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Named;
+import jakarta.inject.Singleton;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import space.arim.libertybans.api.NetworkAddress;
+import space.arim.omnibus.util.ThisClass;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Stores the contents of the mute cache in a compact local file, so that the cache may be
+ * warmed after a restart. The snapshot is only a hint: its mutes must be validated before use.
+ *
+ */
+@Singleton
+public final class MuteCacheSnapshot {
+
+	private final Path file;
+
+	private static final int FORMAT_VERSION = 1;
+	private static final Logger logger = LoggerFactory.getLogger(ThisClass.get());
+
+	@Inject
+	public MuteCacheSnapshot(@Named("folder") Path folder) {
+		file = folder.resolve("internal").resolve("mute-cache-snapshot.dat");
+	}
+
+	/**
+	 * A cached entry
+	 *
+	 * @param uuid the player's uuid
+	 * @param address the player's address
+	 * @param muteId the ID of the cached mute, or {@code 0} if the player was not muted
+	 * @param muteStart the start time of the cached mute, or {@code Instant.EPOCH} if the player was not muted
+	 */
+	record Entry(UUID uuid, NetworkAddress address, long muteId, Instant muteStart) {
+
+		boolean hasMute() {
+			return muteId != 0L;
+		}
+	}
+
+	/**
+	 * The contents of a snapshot
+	 *
+	 * @param takenAt when the snapshot was taken
+	 * @param entries the cached entries
+	 */
+	record Contents(Instant takenAt, List<Entry> entries) { }
+
+	void write(Contents contents) {
+		Path temporaryFile = file.resolveSibling(file.getFileName() + ".tmp");
+		try {
+			Files.createDirectories(file.getParent());
+			try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(
+					Files.newOutputStream(temporaryFile)))) {
+				output.writeInt(FORMAT_VERSION);
+				output.writeLong(contents.takenAt().getEpochSecond());
+				output.writeInt(contents.entries().size());
+				for (Entry entry : contents.entries()) {
+					output.writeLong(entry.uuid().getMostSignificantBits());
+					output.writeLong(entry.uuid().getLeastSignificantBits());
+					byte[] rawAddress = entry.address().getRawAddress();
+					output.writeByte(rawAddress.length);
+					output.write(rawAddress);
+					output.writeLong(entry.muteId());
+					output.writeLong(entry.muteStart().getEpochSecond());
+				}
+			}
+			Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException ex) {
+			logger.warn("Failed to save the mute cache snapshot", ex);
+		}
+	}
+
+	/**
+	 * Reads and then deletes the snapshot, so that it is never used twice
+	 *
+	 * @return the snapshot contents, or {@code null} if there is no usable snapshot
+	 */
+	@Nullable Contents readAndDelete() {
+		try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+			if (input.readInt() != FORMAT_VERSION) {
+				return null;
+			}
+			Instant takenAt = Instant.ofEpochSecond(input.readLong());
+			int size = input.readInt();
+			List<Entry> entries = new ArrayList<>(size);
+			for (int n = 0; n < size; n++) {
+				UUID uuid = new UUID(input.readLong(), input.readLong());
+				byte[] rawAddress = new byte[input.readUnsignedByte()];
+				input.readFully(rawAddress);
+				long muteId = input.readLong();
+				Instant muteStart = Instant.ofEpochSecond(input.readLong());
+				entries.add(new Entry(uuid, NetworkAddress.of(rawAddress), muteId, muteStart));
+			}
+			return new Contents(takenAt, entries);
+		} catch (NoSuchFileException ex) {
+			return null;
+		} catch (IOException | IllegalArgumentException ex) {
+			logger.warn("Failed to read the mute cache snapshot. It will be ignored.", ex);
+			return null;
+		} finally {
+			try {
+				Files.deleteIfExists(file);
+			} catch (IOException ex) {
+				logger.warn("Failed to delete the mute cache snapshot", ex);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,76 @@
+/*
+ * LibertyBans
+ * Copyright © 2023 Anand Beh
+ *
+ * LibertyBans is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * LibertyBans is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with LibertyBans. If not, see <https://www.gnu.org/licenses/>
+ * and navigate to version 3 of the GNU Affero General Public License.
+ */
+package space.arim.libertybans.core.selector.cache;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import space.arim.libertybans.core.env.EnvEnforcer;
+import space.arim.libertybans.core.env.UUIDAndAddress;
+import space.arim.omnibus.util.ThisClass;
+import space.arim.omnibus.util.concurrent.CentralisedFuture;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fills the mute cache for all online players at once. Used when players are already online
+ * as the mute cache is created, such as after a restart.
+ *
+ */
+@Singleton
+public final class MuteCacheWarmup {
+
+	private final EnvEnforcer<?> envEnforcer;
+	private final MuteCache muteCache;
+
+	private static final Logger logger = LoggerFactory.getLogger(ThisClass.get());
+
+	@Inject
+	public MuteCacheWarmup(EnvEnforcer<?> envEnforcer, MuteCache muteCache) {
+		this.envEnforcer = envEnforcer;
+		this.muteCache = muteCache;
+	}
+
+	/**
+	 * Begins filling the mute cache for online players. Failures are logged
+	 *
+	 * @return a future completed when the cache is filled
+	 */
+	public CentralisedFuture<?> warmup() {
+		return onlinePlayers(envEnforcer).thenCompose((users) -> {
+			logger.trace("Warming up the mute cache for {} online players", users.size());
+			return muteCache.cacheInBulk(users);
+		}).exceptionally((ex) -> {
+			logger.warn("Failed to warm up the mute cache for online players", ex);
+			return null;
+		});
+	}
+
+	private static <P> CentralisedFuture<List<UUIDAndAddress>> onlinePlayers(EnvEnforcer<P> envEnforcer) {
+		List<UUIDAndAddress> users = new ArrayList<>();
+		return envEnforcer.doForAllPlayers((players) -> {
+			for (P player : players) {
+				users.add(new UUIDAndAddress(envEnforcer.getUniqueIdFor(player), envEnforcer.getAddressFor(player)));
+			}
+		}).thenApply((ignore) -> users);
+	}
+
+}
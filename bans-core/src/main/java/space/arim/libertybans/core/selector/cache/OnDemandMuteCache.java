@@ -32,11 +32,15 @@ import space.arim.libertybans.api.select.PunishmentSelector;
 import space.arim.libertybans.core.config.Configs;
 import space.arim.libertybans.core.config.InternalFormatter;
 import space.arim.libertybans.core.config.SqlConfig;
+import space.arim.libertybans.core.env.UUIDAndAddress;
 import space.arim.libertybans.core.service.Time;
 import space.arim.omnibus.util.concurrent.CentralisedFuture;
 import space.arim.omnibus.util.concurrent.FactoryOfTheFuture;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.function.Predicate;
@@ -51,16 +55,19 @@ public final class OnDemandMuteCache extends BaseMuteCache {
 
 	private final FactoryOfTheFuture futuresFactory;
 	private final InternalFormatter formatter;
+	private final BulkMuteLookup bulkMuteLookup;
 	private final Time time;
 
 	private volatile AsyncLoadingCache<MuteCacheKey, Optional<Punishment>> cache;
 
 	@Inject
 	public OnDemandMuteCache(Configs configs, FactoryOfTheFuture futuresFactory,
-							 PunishmentSelector selector, InternalFormatter formatter, Time time) {
+							 PunishmentSelector selector, InternalFormatter formatter,
+							 BulkMuteLookup bulkMuteLookup, Time time) {
 		super(configs, selector);
 		this.futuresFactory = futuresFactory;
 		this.formatter = formatter;
+		this.bulkMuteLookup = bulkMuteLookup;
 		this.time = time;
 	}
 
@@ -134,6 +141,29 @@ public final class OnDemandMuteCache extends BaseMuteCache {
 		return futuresFactory.completedFuture(null);
 	}
 
+	@Override
+	public CentralisedFuture<?> cacheInBulk(Collection<UUIDAndAddress> users) {
+		var cache = this.cache;
+		List<UUIDAndAddress> uncachedUsers = new ArrayList<>(users.size());
+		for (UUIDAndAddress user : users) {
+			if (cache.getIfPresent(new MuteCacheKey(user.uuid(), user.address())) == null) {
+				uncachedUsers.add(user);
+			}
+		}
+		var bulkLookup = bulkMuteLookup.lookupApplicableMutes(uncachedUsers);
+		if (bulkLookup == null) {
+			// The address strictness requires a query per user. Let mutes be queried on demand
+			return futuresFactory.completedFuture(null);
+		}
+		return bulkLookup.thenAccept((applicableMutes) -> {
+			applicableMutes.forEach((user, optMute) -> {
+				// Defer to computations started in the meantime
+				cache.asMap().putIfAbsent(
+						new MuteCacheKey(user.uuid(), user.address()), futuresFactory.completedFuture(optMute));
+			});
+		});
+	}
+
 	@Override
 	void setCachedMute(MuteCacheKey cacheKey, Punishment mute) {
 		cache.asMap().compute(cacheKey, (key, future) -> {
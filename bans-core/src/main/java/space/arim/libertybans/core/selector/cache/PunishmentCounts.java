@@ -0,0 +1,294 @@
+/*
+ * LibertyBans
+ * Copyright © 2023 Anand Beh
+ *
+ * LibertyBans is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * LibertyBans is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with LibertyBans. If not, see <https://www.gnu.org/licenses/>
+ * and navigate to version 3 of the GNU Affero General Public License.
+ */
+package space.arim.libertybans.core.selector.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import space.arim.libertybans.api.Operator;
+import space.arim.libertybans.api.PunishmentType;
+import space.arim.libertybans.api.Victim;
+import space.arim.libertybans.api.punish.EscalationTrack;
+import space.arim.libertybans.api.punish.Punishment;
+import space.arim.libertybans.api.select.SelectionBase;
+import space.arim.libertybans.api.select.SelectionPredicate;
+import space.arim.libertybans.core.Part;
+import space.arim.libertybans.core.service.Time;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the punishments of recently counted victims in memory, so that counting the punishments
+ * of a single victim does not require a database query. This is used for escalation tracks and
+ * warn actions, which count punishments each time a punishment is enacted. <br>
+ * <br>
+ * The punishments of a victim are loaded when first counted. They are then kept current by local
+ * enforcement, which includes punishments received through synchronization. Punishments which
+ * are not enforced, or which are made by other software, are picked up when the cached punishments
+ * expire after a few minutes. Bulk changes made directly in the database, such as imports and
+ * staff rollbacks, invalidate the cached punishments.
+ *
+ */
+@Singleton
+public final class PunishmentCounts implements Part {
+
+	private final Time time;
+
+	private final Cache<Victim, Map<Long, CountedPunishment>> victims;
+	/**
+	 * The cached punishments of each victim, by punishment ID, so that revocations need not scan every victim.
+	 * Entries are removed when the victim's punishments are evicted, and only if still mapped to the same map
+	 */
+	private final Map<Long, Map<Long, CountedPunishment>> byPunishmentId = new ConcurrentHashMap<>();
+	/** Incremented for each mutation, so that loads racing with mutations are not cached */
+	private final AtomicLong mutations = new AtomicLong();
+
+	@Inject
+	public PunishmentCounts(Time time) {
+		this.time = time;
+		victims = Caffeine.newBuilder()
+				.expireAfterWrite(Duration.ofMinutes(5L))
+				.maximumSize(10_000L)
+				.ticker(time.toCaffeineTicker())
+				.removalListener((Victim victim, Map<Long, CountedPunishment> punishments, RemovalCause cause) -> {
+					if (punishments != null) {
+						for (Long id : punishments.keySet()) {
+							byPunishmentId.remove(id, punishments);
+						}
+					}
+				})
+				.build();
+	}
+
+	@Override
+	public void startup() {}
+
+	@Override
+	public void restart() {
+		invalidateAll();
+	}
+
+	@Override
+	public void shutdown() {
+		invalidateAll();
+	}
+
+	record CountedPunishment(long id, PunishmentType type, Operator operator, Optional<EscalationTrack> track,
+							 Instant start, Instant end, boolean active) {
+
+		static CountedPunishment of(Punishment punishment, boolean active) {
+			return new CountedPunishment(
+					punishment.getIdentifier(), punishment.getType(), punishment.getOperator(),
+					punishment.getEscalationTrack(), punishment.getStartDate(), punishment.getEndDate(), active
+			);
+		}
+
+		CountedPunishment withActive(boolean active) {
+			return new CountedPunishment(id, type, operator, track, start, end, active);
+		}
+
+		boolean matches(SelectionBase selection, Instant currentTime) {
+			if (!test(selection.getTypes(), type)
+					|| !test(selection.getOperators(), operator)
+					|| !test(selection.getEscalationTracks(), track)) {
+				return false;
+			}
+			if (selection.selectActiveOnly() && (!active || !end.isAfter(currentTime))) {
+				return false;
+			}
+			Instant seekAfterStartTime = selection.seekAfterStartTime();
+			if (!seekAfterStartTime.equals(Instant.EPOCH)) {
+				int comparison = start.compareTo(seekAfterStartTime);
+				if (comparison < 0 || comparison == 0 && id < selection.seekAfterId()) {
+					return false;
+				}
+			}
+			Instant seekBeforeStartTime = selection.seekBeforeStartTime();
+			if (!seekBeforeStartTime.equals(Instant.MAX)) {
+				int comparison = start.compareTo(seekBeforeStartTime);
+				if (comparison > 0 || comparison == 0 && id > selection.seekBeforeId()) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private static <U> boolean test(SelectionPredicate<U> predicate, U value) {
+			Set<U> acceptedValues = predicate.acceptedValues();
+			return (acceptedValues.isEmpty() || acceptedValues.contains(value))
+					&& !predicate.rejectedValues().contains(value);
+		}
+	}
+
+	/**
+	 * Determines whether a selection of a single victim's punishments can be counted in memory
+	 *
+	 * @param selection the selection
+	 * @return true if countable
+	 */
+	public static boolean isCountable(SelectionBase selection) {
+		SelectionPredicate<?> scopes = selection.getScopes();
+		// Scopes are matched with categories and globality in the database
+		return scopes.acceptedValues().isEmpty() && scopes.rejectedValues().isEmpty()
+				&& selection.skipCount() == 0;
+	}
+
+	/**
+	 * Counts the punishments of a victim in memory, if they are cached
+	 *
+	 * @param victim the victim
+	 * @param selection the selection, which must be countable per {@link #isCountable(SelectionBase)}
+	 * @return the count, or {@code null} if the victim's punishments are not cached
+	 */
+	public Integer count(Victim victim, SelectionBase selection) {
+		Map<Long, CountedPunishment> punishments = victims.getIfPresent(victim);
+		if (punishments == null) {
+			return null;
+		}
+		return count(punishments.values(), selection);
+	}
+
+	private int count(Collection<CountedPunishment> punishments, SelectionBase selection) {
+		Instant currentTime = time.currentTimestamp();
+		int count = 0;
+		for (CountedPunishment punishment : punishments) {
+			if (punishment.matches(selection, currentTime)) {
+				count++;
+			}
+		}
+		int limit = selection.limitToRetrieve();
+		return (limit == 0) ? count : Math.min(count, limit);
+	}
+
+	/**
+	 * Gets the current mutation stamp, which must be obtained before loading a victim's punishments
+	 *
+	 * @return the mutation stamp
+	 */
+	public long mutationStamp() {
+		return mutations.get();
+	}
+
+	/**
+	 * Caches the loaded punishments of a victim, then counts them
+	 *
+	 * @param victim the victim
+	 * @param stamp the mutation stamp from before the punishments were loaded
+	 * @param history all punishments of the victim
+	 * @param activeIds the IDs of the victim's active punishments
+	 * @param selection the selection to count
+	 * @return the count
+	 */
+	public int loadAndCount(Victim victim, long stamp, List<Punishment> history, Set<Long> activeIds,
+							SelectionBase selection) {
+		Map<Long, CountedPunishment> punishments = new ConcurrentHashMap<>(history.size());
+		for (Punishment punishment : history) {
+			long id = punishment.getIdentifier();
+			punishments.put(id, CountedPunishment.of(punishment, activeIds.contains(id)));
+		}
+		if (mutations.get() == stamp) {
+			Map<Long, CountedPunishment> existing = victims.asMap().putIfAbsent(victim, punishments);
+			if (existing == null) {
+				for (Long id : punishments.keySet()) {
+					byPunishmentId.put(id, punishments);
+				}
+				if (mutations.get() != stamp) {
+					// A mutation may have been missed
+					victims.asMap().remove(victim, punishments);
+				}
+			}
+		}
+		return count(punishments.values(), selection);
+	}
+
+	/**
+	 * Adds an enacted punishment, or updates the details of an existing punishment
+	 *
+	 * @param punishment the punishment
+	 */
+	public void enact(Punishment punishment) {
+		mutations.incrementAndGet();
+		Map<Long, CountedPunishment> punishments = victims.getIfPresent(punishment.getVictim());
+		if (punishments != null) {
+			// Kicks are never active
+			CountedPunishment enacted = CountedPunishment.of(punishment, punishment.getType() != PunishmentType.KICK);
+			punishments.merge(
+					punishment.getIdentifier(), enacted,
+					(existing, updated) -> updated.withActive(existing.active())
+			);
+			byPunishmentId.put(punishment.getIdentifier(), punishments);
+		}
+	}
+
+	/**
+	 * Marks a punishment as no longer active
+	 *
+	 * @param id the punishment ID
+	 */
+	public void revoke(long id) {
+		mutations.incrementAndGet();
+		Map<Long, CountedPunishment> punishments = byPunishmentId.get(id);
+		if (punishments != null) {
+			punishments.computeIfPresent(id, (i, punishment) -> punishment.withActive(false));
+		}
+	}
+
+	/**
+	 * Removes an expunged punishment
+	 *
+	 * @param id the punishment ID
+	 */
+	public void expunge(long id) {
+		mutations.incrementAndGet();
+		Map<Long, CountedPunishment> punishments = byPunishmentId.remove(id);
+		if (punishments != null) {
+			punishments.remove(id);
+		}
+	}
+
+	/**
+	 * Discards the cached punishments of a victim, after they were changed in the database
+	 * without being enforced
+	 *
+	 * @param victim the victim
+	 */
+	public void invalidate(Victim victim) {
+		mutations.incrementAndGet();
+		victims.invalidate(victim);
+	}
+
+	/**
+	 * Discards all cached punishments, after bulk changes in the database such as an import or rollback
+	 */
+	public void invalidateAll() {
+		mutations.incrementAndGet();
+		victims.invalidateAll();
+	}
+
+}
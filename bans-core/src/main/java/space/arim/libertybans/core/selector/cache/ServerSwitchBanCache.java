@@ -0,0 +1,227 @@
+/*
+ * LibertyBans
+ * Copyright © 2023 Anand Beh
+ *
+ * LibertyBans is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * LibertyBans is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with LibertyBans. If not, see <https://www.gnu.org/licenses/>
+ * and navigate to version 3 of the GNU Affero General Public License.
+ */
+package space.arim.libertybans.core.selector.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import space.arim.libertybans.api.NetworkAddress;
+import space.arim.libertybans.api.PlayerVictim;
+import space.arim.libertybans.api.PunishmentType;
+import space.arim.libertybans.api.punish.Punishment;
+import space.arim.libertybans.api.scope.ServerScope;
+import space.arim.libertybans.core.Part;
+import space.arim.libertybans.core.config.Configs;
+import space.arim.libertybans.core.env.InstanceType;
+import space.arim.libertybans.core.env.UUIDAndAddress;
+import space.arim.libertybans.core.scope.SpecificServerScope;
+import space.arim.libertybans.core.selector.InternalSelector;
+import space.arim.libertybans.core.service.Time;
+import space.arim.omnibus.util.concurrent.CentralisedFuture;
+import space.arim.omnibus.util.concurrent.FactoryOfTheFuture;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Predicate;
+
+/**
+ * Cache used by proxies to check server switches. For each player, the bans applicable to them
+ * which are scoped to a specific server are loaded in a single query, at login or upon the first
+ * server switch. Server switches are then checked without querying the database. <br>
+ * <br>
+ * Entries are invalidated by local enforcement, which includes punishments received through
+ * synchronization. Entries also expire a fixed time after they are loaded, in order to pick up
+ * punishments made without enforcement or by other software.
+ *
+ */
+@Singleton
+public final class ServerSwitchBanCache implements Part {
+
+	private final InstanceType instanceType;
+	private final Configs configs;
+	private final FactoryOfTheFuture futuresFactory;
+	private final InternalSelector selector;
+	private final Time time;
+
+	private volatile AsyncLoadingCache<UUIDAndAddress, List<Punishment>> cache;
+
+	static final Duration EXPIRATION_TIME = Duration.ofMinutes(5L);
+
+	@Inject
+	public ServerSwitchBanCache(InstanceType instanceType, Configs configs, FactoryOfTheFuture futuresFactory,
+								InternalSelector selector, Time time) {
+		this.instanceType = instanceType;
+		this.configs = configs;
+		this.futuresFactory = futuresFactory;
+		this.selector = selector;
+		this.time = time;
+	}
+
+	@Override
+	public void startup() {
+		cache = Caffeine.newBuilder()
+				.expireAfterWrite(EXPIRATION_TIME)
+				.scheduler(Scheduler.disabledScheduler())
+				.ticker(time.toCaffeineTicker())
+				// Failed loads are not cached, and are reported to the caller
+				.buildAsync((key, executor) -> queryServerScopedBans(key));
+	}
+
+	@Override
+	public void restart() {
+		shutdown();
+		startup();
+	}
+
+	@Override
+	public void shutdown() {
+		cache = null;
+	}
+
+	private CentralisedFuture<List<Punishment>> queryServerScopedBans(UUIDAndAddress key) {
+		// No scope is selected, so that bans for every server are retrieved at once
+		return selector
+				.selectionByApplicabilityBuilder(key.uuid(), key.address())
+				.type(PunishmentType.BAN)
+				.build()
+				.getAllSpecificPunishments()
+				.thenApply((bans) -> {
+					return bans.stream()
+							.filter((ban) -> ban.getScope() instanceof SpecificServerScope)
+							.toList();
+				})
+				.toCompletableFuture();
+	}
+
+	private boolean isEnabled() {
+		return instanceType == InstanceType.PROXY
+				&& configs.getMainConfig().platforms().proxies().enforceServerSwitch();
+	}
+
+	/**
+	 * Loads the server-scoped bans of a player who is logging in. The login itself need not
+	 * wait for the returned future.
+	 *
+	 * @param uuid the player's uuid
+	 * @param address the player's address
+	 * @return a future completed once the player's bans are loaded
+	 */
+	public CentralisedFuture<?> cacheOnLogin(UUID uuid, NetworkAddress address) {
+		var cache = this.cache;
+		if (cache == null || !isEnabled()) {
+			return futuresFactory.completedFuture(null);
+		}
+		UUIDAndAddress key = new UUIDAndAddress(uuid, address);
+		// Punishments may have changed while the player was offline. Re-compute them
+		cache.synchronous().invalidate(key);
+		return futuresFactory.copyFuture(cache.get(key));
+	}
+
+	/**
+	 * Finds the ban applicable to a player switching to a server. If the player's bans are not
+	 * yet cached, they are loaded.
+	 *
+	 * @param uuid the player's uuid
+	 * @param address the player's address
+	 * @param destination the scope of the destination server
+	 * @return a future yielding the applicable ban, the one expiring last, if there is any
+	 */
+	public CentralisedFuture<Optional<Punishment>> getApplicableBan(UUID uuid, NetworkAddress address,
+																	ServerScope destination) {
+		var cache = this.cache;
+		if (cache == null) {
+			// Starting or restarting
+			return futuresFactory.completedFuture(Optional.empty());
+		}
+		return futuresFactory.copyFuture(cache.get(new UUIDAndAddress(uuid, address))).thenApply((bans) -> {
+			Clock clock = time.toJdkClock();
+			Punishment applicable = null;
+			for (Punishment ban : bans) {
+				if (!ban.getScope().equals(destination) || ban.isExpired(clock)) {
+					continue;
+				}
+				// Sort by latest end date first
+				if (applicable == null || ban.getEndDate().isAfter(applicable.getEndDate())) {
+					applicable = ban;
+				}
+			}
+			return Optional.ofNullable(applicable);
+		});
+	}
+
+	/**
+	 * Informs the cache of a ban which has been enforced
+	 *
+	 * @param ban the ban
+	 */
+	public void addBan(Punishment ban) {
+		var cache = this.cache;
+		if (cache == null || ban.getType() != PunishmentType.BAN
+				|| !(ban.getScope() instanceof SpecificServerScope)) {
+			return;
+		}
+		if (ban.getVictim() instanceof PlayerVictim playerVictim
+				&& ActiveBanIndex.supportsStrictness(configs.getMainConfig().enforcement().addressStrictness())) {
+			// With these strictness settings, a ban on a player applies to that player only
+			UUID uuid = playerVictim.getUUID();
+			// The asynchronous view includes loads in progress, which may not include the ban
+			cache.asMap().keySet().removeIf((key) -> key.uuid().equals(uuid));
+			return;
+		}
+		// Otherwise, the players to whom the ban applies cannot be determined without a query
+		cache.asMap().clear();
+	}
+
+	/**
+	 * Informs the cache that the details of a ban were updated. Whatever the previous and new scope,
+	 * entries holding the ban are invalidated, and the updated ban is then added as if enforced
+	 *
+	 * @param ban the updated ban
+	 */
+	public void updateBan(Punishment ban) {
+		removeBan(ban.getIdentifier());
+		addBan(ban);
+	}
+
+	/**
+	 * Removes a ban from the cache, if present
+	 *
+	 * @param id the punishment id
+	 */
+	public void removeBan(long id) {
+		var cache = this.cache;
+		if (cache == null) {
+			return;
+		}
+		Predicate<Punishment> matchesId = (ban) -> ban.getIdentifier() == id;
+		cache.asMap().values().removeIf((futureBans) -> {
+			if (!futureBans.isDone() || futureBans.isCompletedExceptionally()) {
+				// A load in progress may yet yield the removed ban
+				return true;
+			}
+			return futureBans.join().stream().anyMatch(matchesId);
+		});
+	}
+
+}
@@ -37,7 +37,10 @@ import space.arim.omnibus.util.concurrent.CentralisedFuture;
 import space.arim.omnibus.util.concurrent.FactoryOfTheFuture;
 
 import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
@@ -150,6 +153,40 @@ public final class CachingUUIDManager implements UUIDManager {
 		});
 	}
 
+	@Override
+	public CentralisedFuture<Map<String, UUID>> lookupKnownUUIDsFromExactNames(Collection<String> names) {
+		boolean offline = uuidResolution().serverType() == ServerType.OFFLINE;
+		Map<String, UUID> found = new HashMap<>();
+		Map<String, String> queriedNames = new HashMap<>();
+		for (String name : names) {
+			if (!nameValidator.validateNameArgument(name)) {
+				continue;
+			}
+			String lowerName = name.toLowerCase(Locale.ROOT);
+			UUID cachedResolve = nameToUuidCache.getIfPresent(lowerName);
+			if (cachedResolve != null) {
+				found.put(name, cachedResolve);
+			} else if (offline) {
+				UUID offlineUuid = OfflineUUID.computeOfflineUuid(name);
+				addCache(offlineUuid, name);
+				found.put(name, offlineUuid);
+			} else {
+				queriedNames.put(lowerName, name);
+			}
+		}
+		if (queriedNames.isEmpty()) {
+			return completedFuture(found);
+		}
+		return queryingImpl.resolveAll(queriedNames.keySet()).thenApply((queriedUuids) -> {
+			queriedUuids.forEach((lowerName, uuid) -> {
+				String name = queriedNames.get(lowerName);
+				addCache(uuid, name);
+				found.put(name, uuid);
+			});
+			return found;
+		});
+	}
+
 	private CentralisedFuture<Optional<UUID>> lookupUUIDUncached(String name) {
 		// 1. Resolve by environment
 		return envResolver.lookupUUID(name).thenCompose((envResolve) -> {
@@ -19,6 +19,9 @@
 
 package space.arim.libertybans.core.uuid;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.UUID;
 
 import jakarta.inject.Provider;
@@ -32,6 +35,7 @@ import space.arim.libertybans.core.database.InternalDatabase;
 
 import static org.jooq.impl.DSL.lower;
 import static space.arim.libertybans.core.schema.tables.Addresses.ADDRESSES;
+import static space.arim.libertybans.core.schema.tables.LatestNames.LATEST_NAMES;
 import static space.arim.libertybans.core.schema.tables.Names.NAMES;
 
 class QueryingImpl {
@@ -55,16 +59,30 @@ class QueryingImpl {
 		}));
 	}
 
-	CentralisedFuture<String> resolve(UUID uuid) {
+	CentralisedFuture<Map<String, UUID>> resolveAll(Collection<String> lowerNames) {
 		InternalDatabase database = dbProvider.get();
 		return database.query(SQLFunction.readOnly((context) -> {
-			return context
-					.select(NAMES.NAME)
+			Map<String, UUID> uuids = new HashMap<>();
+			// Most recent first, so that the latest owner of each name is kept
+			context
+					.select(NAMES.LOWER_NAME, NAMES.UUID)
 					.from(NAMES)
-					.where(NAMES.UUID.eq(uuid))
+					.where(NAMES.LOWER_NAME.in(lowerNames))
 					.orderBy(NAMES.UPDATED.desc())
-					.limit(1)
-					.fetchOne(NAMES.NAME);
+					.fetch()
+					.forEach((record) -> uuids.putIfAbsent(record.value1(), record.value2()));
+			return uuids;
+		}));
+	}
+
+	CentralisedFuture<String> resolve(UUID uuid) {
+		InternalDatabase database = dbProvider.get();
+		return database.query(SQLFunction.readOnly((context) -> {
+			return context
+					.select(LATEST_NAMES.NAME)
+					.from(LATEST_NAMES)
+					.where(LATEST_NAMES.UUID.eq(uuid))
+					.fetchOne(LATEST_NAMES.NAME);
 		}));
 	}
 
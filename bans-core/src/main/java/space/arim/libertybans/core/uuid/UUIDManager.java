@@ -18,6 +18,8 @@
  */
 package space.arim.libertybans.core.uuid;
 
+import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -51,6 +53,19 @@ public interface UUIDManager extends UserResolver, Part {
 	 */
 	CentralisedFuture<Optional<UUID>> lookupUUIDFromExactName(String name);
 
+	/**
+	 * Looks up the uuids of many players by exact name at once, using the cache and a single
+	 * database query. Names which are not found are absent from the result, and may then be looked
+	 * up individually using {@link #lookupUUIDFromExactName(String)}. <br>
+	 * <br>
+	 * Unlike the full lookup, online players are not checked before the database. This method is
+	 * intended for bulk operations such as imports.
+	 *
+	 * @param names the exact player names. Must be correctly cased
+	 * @return a future yielding the uuids found, keyed by name
+	 */
+	CentralisedFuture<Map<String, UUID>> lookupKnownUUIDsFromExactNames(Collection<String> names);
+
 	/**
 	 * Looks up player details from a player name
 	 *
@@ -0,0 +1,8 @@
+
+-- Synchronization messages are transient, so existing messages can be discarded
+DELETE FROM "${tableprefix}messages";
+
+-- Messages are polled by identifier rather than by timestamp
+ALTER TABLE "${tableprefix}messages" ADD COLUMN "id" BIGINT NOT NULL;
+
+ALTER TABLE "${tableprefix}messages" ADD CONSTRAINT "${tableprefix}message_id_uniqueness" UNIQUE ("id");
@@ -0,0 +1,9 @@
+
+-- Records punishments imported from other plugins, so that an interrupted import can be resumed
+-- "source" identifies the foreign table, and "punishment" is null if the punishment was skipped
+CREATE TABLE "${tableprefix}import_checkpoints" (
+  "source" CHARACTER VARYING(64) NOT NULL,
+  "foreign_id" INT NOT NULL,
+  "punishment" BIGINT NULL,
+  CONSTRAINT "${tableprefix}import_checkpoint_uniqueness" UNIQUE ("source", "foreign_id")
+)${extratableoptions};
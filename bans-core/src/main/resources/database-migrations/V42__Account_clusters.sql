@@ -0,0 +1,17 @@
+
+-- Optional materialization of account links, maintained only if enabled
+-- Accounts linked through shared addresses, directly or indirectly, belong to the same cluster
+-- A cluster is identified by the uuid of one of its accounts
+CREATE TABLE "${tableprefix}account_clusters" (
+  "uuid" ${uuidtype} NOT NULL,
+  "cluster" ${uuidtype} NOT NULL,
+  CONSTRAINT "${tableprefix}account_cluster_uniqueness" UNIQUE ("uuid")
+)${extratableoptions};
+
+CREATE INDEX "${tableprefix}account_cluster_index" ON "${tableprefix}account_clusters" ("cluster");
+
+-- Records the time up to which the account clusters are known to be complete, in a single row
+-- Addresses updated since then may need to be linked. If there is no row, the clusters must be built
+CREATE TABLE "${tableprefix}account_clusters_state" (
+  "updated" BIGINT NOT NULL
+)${extratableoptions};
@@ -0,0 +1,24 @@
+
+-- Replace the latest_names view with a table which is maintained when names are recorded
+-- The view's outer join of the names table with itself became slow for large names tables
+
+DROP VIEW "${tableprefix}latest_names";
+
+CREATE TABLE "${tableprefix}latest_names" (
+  "uuid" ${uuidtype} NOT NULL,
+  "name" CHARACTER VARYING(16) NOT NULL,
+  "updated" BIGINT NOT NULL,
+  CONSTRAINT "${tableprefix}latest_name_uniqueness" UNIQUE ("uuid")
+)${extratableoptions};
+
+-- Backfill from the names table. If several names of one player share the most recent
+-- timestamp, the view returned all of them; only one can be kept.
+
+INSERT INTO "${tableprefix}latest_names" ("uuid", "name", "updated")
+  SELECT "names1"."uuid", MAX("names1"."name"), "names1"."updated"
+  FROM "${tableprefix}names" "names1"
+  LEFT JOIN "${tableprefix}names" "names2"
+  ON "names1"."uuid" = "names2"."uuid"
+  AND "names1"."updated" < "names2"."updated"
+  WHERE "names2"."uuid" IS NULL
+  GROUP BY "names1"."uuid", "names1"."updated";
@@ -0,0 +1,138 @@
+/*
+ * LibertyBans
+ * Copyright © 2023 Anand Beh
+ *
+ * LibertyBans is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * LibertyBans is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with LibertyBans. If not, see <https://www.gnu.org/licenses/>
+ * and navigate to version 3 of the GNU Affero General Public License.
+ */
+
+package space.arim.libertybans.core.alts;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import space.arim.libertybans.api.NetworkAddress;
+import space.arim.libertybans.core.config.Configs;
+import space.arim.libertybans.core.config.MainConfig;
+import space.arim.libertybans.core.selector.EnforcementConfig;
+import space.arim.libertybans.core.service.SettableTime;
+import space.arim.libertybans.core.service.SettableTimeImpl;
+import space.arim.libertybans.it.util.RandomUtil;
+import space.arim.omnibus.util.concurrent.FactoryOfTheFuture;
+import space.arim.omnibus.util.concurrent.impl.IndifferentFactoryOfTheFuture;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class AltCheckQueueTest {
+
+	private final FactoryOfTheFuture futuresFactory = new IndifferentFactoryOfTheFuture();
+	private final AltDetection altDetection;
+	private final AltNotification altNotification;
+	private final EnforcementConfig.AltsAutoShow altsAutoShow;
+	private final SettableTime time = new SettableTimeImpl(Instant.EPOCH);
+
+	private AltCheckQueue queue;
+
+	public AltCheckQueueTest(@Mock AltDetection altDetection, @Mock AltNotification altNotification,
+							 @Mock EnforcementConfig.AltsAutoShow altsAutoShow) {
+		this.altDetection = altDetection;
+		this.altNotification = altNotification;
+		this.altsAutoShow = altsAutoShow;
+	}
+
+	@BeforeEach
+	public void setQueue(@Mock Configs configs, @Mock MainConfig mainConfig,
+						 @Mock EnforcementConfig enforcementConfig) {
+		when(configs.getMainConfig()).thenReturn(mainConfig);
+		when(mainConfig.enforcement()).thenReturn(enforcementConfig);
+		when(enforcementConfig.altsAutoShow()).thenReturn(altsAutoShow);
+		queue = new AltCheckQueue(configs, altDetection, altNotification, time);
+	}
+
+	@AfterEach
+	public void shutdownQueue() {
+		queue.shutdown();
+	}
+
+	private void startEnabled() {
+		when(altsAutoShow.enable()).thenReturn(true);
+		when(altsAutoShow.runAfterLogin()).thenReturn(true);
+		when(altsAutoShow.coalesceWindowSeconds()).thenReturn(30);
+		when(altsAutoShow.maxPendingChecks()).thenReturn(10);
+		lenient().when(altsAutoShow.showWhichAlts()).thenReturn(WhichAlts.ALL_ALTS);
+		queue.startup();
+	}
+
+	@Test
+	public void disabled() {
+		when(altsAutoShow.enable()).thenReturn(true);
+		when(altsAutoShow.runAfterLogin()).thenReturn(false);
+		queue.startup();
+		assertFalse(queue.isEnabled());
+
+		queue.submit(UUID.randomUUID(), "A248", RandomUtil.randomAddress());
+		verifyNoInteractions(altDetection, altNotification);
+	}
+
+	@Test
+	public void runAfterLogin() {
+		startEnabled();
+		assertTrue(queue.isEnabled());
+		UUID uuid = UUID.randomUUID();
+		NetworkAddress address = RandomUtil.randomAddress();
+		List<DetectedAlt> alts = List.of(new DetectedAlt(
+				UUID.randomUUID(), "Alt", address, Instant.EPOCH, DetectionKind.NORMAL
+		));
+		when(altDetection.detectAlts(uuid, address, WhichAlts.ALL_ALTS))
+				.thenReturn(futuresFactory.completedFuture(alts));
+
+		queue.submit(uuid, "A248", address);
+		verify(altNotification, timeout(1000L)).notifyFoundAlts(uuid, "A248", address, alts);
+	}
+
+	@Test
+	public void coalesceRepeatedJoins() {
+		startEnabled();
+		UUID uuid = UUID.randomUUID();
+		NetworkAddress address = RandomUtil.randomAddress();
+		when(altDetection.detectAlts(uuid, address, WhichAlts.ALL_ALTS))
+				.thenReturn(futuresFactory.completedFuture(List.of()));
+
+		queue.submit(uuid, "A248", address);
+		queue.submit(uuid, "A248", address);
+		time.advanceBy(Duration.ofSeconds(10L));
+		queue.submit(uuid, "A248", address);
+		verify(altDetection, timeout(1000L).times(1)).detectAlts(uuid, address, WhichAlts.ALL_ALTS);
+
+		time.advanceBy(Duration.ofSeconds(30L));
+		queue.submit(uuid, "A248", address);
+		verify(altDetection, timeout(1000L).times(2)).detectAlts(uuid, address, WhichAlts.ALL_ALTS);
+	}
+
+}
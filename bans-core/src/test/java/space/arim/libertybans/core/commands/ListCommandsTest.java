@@ -25,6 +25,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import space.arim.libertybans.api.select.PunishmentSelector;
+import space.arim.libertybans.core.commands.extra.ListPagination;
 import space.arim.libertybans.core.commands.extra.TabCompletion;
 import space.arim.libertybans.core.config.InternalFormatter;
 import space.arim.libertybans.core.env.CmdSender;
@@ -43,17 +44,19 @@ public class ListCommandsTest {
 	private final PunishmentSelector selector;
 	private final InternalFormatter formatter;
 	private final TabCompletion tabCompletion;
+	private final ListPagination pagination;
 
 	public ListCommandsTest(@Mock PunishmentSelector selector, @Mock InternalFormatter formatter,
-							@Mock TabCompletion tabCompletion) {
+							@Mock TabCompletion tabCompletion, @Mock ListPagination pagination) {
 		this.selector = selector;
 		this.formatter = formatter;
 		this.tabCompletion = tabCompletion;
+		this.pagination = pagination;
 	}
 
 	@BeforeEach
 	public void setListCommands(AbstractSubCommandGroup.Dependencies dependencies) {
-		listCommands = new ListCommands(dependencies, selector, formatter, tabCompletion);
+		listCommands = new ListCommands(dependencies, selector, formatter, tabCompletion, pagination);
 	}
 
 	@Test
@@ -0,0 +1,97 @@
+/*
+ * LibertyBans
+ * Copyright © 2023 Anand Beh
+ *
+ * LibertyBans is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * LibertyBans is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with LibertyBans. If not, see <https://www.gnu.org/licenses/>
+ * and navigate to version 3 of the GNU Affero General Public License.
+ */
+package space.arim.libertybans.core.commands.extra;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import space.arim.libertybans.api.ConsoleOperator;
+import space.arim.libertybans.api.punish.Punishment;
+import space.arim.libertybans.api.select.SelectionBase;
+import space.arim.libertybans.core.service.SettableTime;
+import space.arim.libertybans.core.service.SettableTimeImpl;
+import space.arim.omnibus.util.concurrent.impl.IndifferentFactoryOfTheFuture;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ListPaginationTest {
+
+	private final SettableTime time = new SettableTimeImpl(Instant.EPOCH);
+	private final ListPagination pagination = new ListPagination(new IndifferentFactoryOfTheFuture(), time);
+
+	private static Punishment punishment(long startTime, long id) {
+		Punishment punishment = mock(Punishment.class);
+		when(punishment.getStartDate()).thenReturn(Instant.ofEpochSecond(startTime));
+		when(punishment.getIdentifier()).thenReturn(id);
+		return punishment;
+	}
+
+	@Test
+	public void unknownPages(@Mock SelectionBase listing) {
+		ListPagination.PageKey pageKey = new ListPagination.PageKey(ConsoleOperator.INSTANCE, listing, 2, 1);
+		assertNull(pagination.cursorForPage(pageKey));
+		assertNull(pagination.cursorForPage(pageKey.withPage(4)));
+	}
+
+	@Test
+	public void nextAndPreviousPage(@Mock SelectionBase listing) {
+		ListPagination.PageKey pageKey = new ListPagination.PageKey(ConsoleOperator.INSTANCE, listing, 2, 3);
+		pagination.recordPage(pageKey, List.of(punishment(20L, 7L), punishment(10L, 5L)));
+		assertEquals(
+				new ListPagination.Cursor(Instant.ofEpochSecond(20L), 7L),
+				pagination.cursorForPage(pageKey)
+		);
+		assertEquals(
+				new ListPagination.Cursor(Instant.ofEpochSecond(10L), 4L),
+				pagination.cursorForPage(pageKey.withPage(4))
+		);
+	}
+
+	@Test
+	public void lastPageHasNoNextPage(@Mock SelectionBase listing) {
+		ListPagination.PageKey pageKey = new ListPagination.PageKey(ConsoleOperator.INSTANCE, listing, 2, 2);
+		pagination.recordPage(pageKey, List.of(punishment(20L, 7L)));
+		assertNull(pagination.cursorForPage(pageKey.withPage(3)));
+	}
+
+	@Test
+	public void cacheTotalCount(@Mock SelectionBase listing) {
+		when(listing.countNumberOfPunishments())
+				.thenReturn(new IndifferentFactoryOfTheFuture().completedFuture(11));
+		assertEquals(11, pagination.estimateTotal(listing).toCompletableFuture().join());
+		assertEquals(11, pagination.estimateTotal(listing).toCompletableFuture().join());
+		verify(listing, times(1)).countNumberOfPunishments();
+
+		time.advanceBy(Duration.ofMinutes(1L));
+		assertEquals(11, pagination.estimateTotal(listing).toCompletableFuture().join());
+		verify(listing, times(2)).countNumberOfPunishments();
+	}
+
+}
@@ -40,6 +40,7 @@ import space.arim.libertybans.api.punish.Punishment;
 import space.arim.libertybans.api.scope.ServerScope;
 import space.arim.libertybans.core.scope.InternalScopeManager;
 import space.arim.libertybans.core.service.FixedTime;
+import space.arim.libertybans.core.service.SettableTimeImpl;
 import space.arim.libertybans.core.uuid.UUIDManager;
 import space.arim.omnibus.util.concurrent.CentralisedFuture;
 import space.arim.omnibus.util.concurrent.FactoryOfTheFuture;
@@ -51,12 +52,15 @@ import java.time.ZoneOffset;
 import java.time.temporal.ChronoUnit;
 import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.same;
 import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -162,9 +166,9 @@ public class FormatterTest {
 		MainConfig.DateFormatting dateFormatting = mock(MainConfig.DateFormatting.class);
 
 		when(configs.getMainConfig()).thenReturn(mainConfig);
-		when(mainConfig.dateFormatting()).thenReturn(dateFormatting);
-		when(dateFormatting.formatAndPattern()).thenReturn(new DateTimeFormatterWithPattern("dd/MM/yyyy kk:mm"));
-		when(dateFormatting.zoneId()).thenReturn(ZoneOffset.UTC);
+		lenient().when(mainConfig.dateFormatting()).thenReturn(dateFormatting);
+		lenient().when(dateFormatting.formatAndPattern()).thenReturn(new DateTimeFormatterWithPattern("dd/MM/yyyy kk:mm"));
+		lenient().when(dateFormatting.zoneId()).thenReturn(ZoneOffset.UTC);
 	}
 
 	private void setSimpleMessagesFormatting() {
@@ -180,13 +184,13 @@ public class FormatterTest {
 		MessagesConfig.Formatting.PunishmentExpiredDisplay expiredDisplay = mock(MessagesConfig.Formatting.PunishmentExpiredDisplay.class);
 		lenient().when(expiredDisplay.notExpired()).thenReturn("not expired");
 		lenient().when(expiredDisplay.expired()).thenReturn("expired");
-		when(formatting.punishmentExpiredDisplay()).thenReturn(expiredDisplay);
+		lenient().when(formatting.punishmentExpiredDisplay()).thenReturn(expiredDisplay);
 		MessagesConfig.Formatting.TrackDisplay trackDisplay = mock(MessagesConfig.Formatting.TrackDisplay.class);
 		lenient().when(trackDisplay.noTrack()).thenReturn("no track");
 		lenient().when(trackDisplay.noTrackId()).thenReturn("no track id");
 		lenient().when(trackDisplay.noTrackNamespace()).thenReturn("no track namespace");
 		lenient().when(trackDisplay.trackDisplayNames()).thenReturn(Map.of("simpletrack", "SimpleTrack"));
-		when(formatting.trackDisplay()).thenReturn(trackDisplay);
+		lenient().when(formatting.trackDisplay()).thenReturn(trackDisplay);
 	}
 
 	private void setupSimpleDefaults() {
@@ -298,6 +302,123 @@ public class FormatterTest {
 		assertEquals(expectedFormat, format(punishment, layout));
 	}
 
+	@Test
+	public void cachedPunishmentMessage() {
+		setupSimpleDefaults();
+		SettableTimeImpl time = new SettableTimeImpl(INSTANT_2021_01_05);
+		Formatter formatter = new Formatter(futuresFactory, configs, scopeManager, uuidManager, time);
+
+		FormatterTestInfo testInfo = new FormatterTestInfo(
+				PunishmentType.BAN,
+				DisplayableVictim.ObWolf, DisplayableOperator.CONSOLE,
+				"global", "the message should be cached");
+		Punishment punishment = punishmentFor(testInfo, INSTANT_2021_01_01, INSTANT_2021_01_05.plus(Duration.ofHours(3L)));
+		when(punishment.getIdentifier()).thenReturn(1L);
+		setLayout(PunishmentType.BAN, "%VICTIM% - %REASON% - %TIME_REMAINING%");
+
+		String expectedFormat = testInfo.formatVariables("%VICTIM% - %REASON% - ");
+		assertEquals(expectedFormat + "3 hours", getPunishmentMessage(formatter, punishment));
+		time.advanceBy(Duration.ofHours(1L));
+		assertEquals(expectedFormat + "2 hours", getPunishmentMessage(formatter, punishment));
+		verify(messagesConfig, times(1)).additions();
+
+		formatter.clearCachedPunishmentMessage(1L);
+		assertEquals(expectedFormat + "2 hours", getPunishmentMessage(formatter, punishment));
+		verify(messagesConfig, times(2)).additions();
+	}
+
+	@Test
+	public void cachedPunishmentMessageShowsCurrentName() {
+		setupSimpleDefaults();
+
+		FormatterTestInfo testInfo = new FormatterTestInfo(
+				PunishmentType.BAN,
+				DisplayableVictim.ObWolf, DisplayableOperator.CONSOLE,
+				"global", "renamed");
+		Punishment punishment = punishmentFor(testInfo, INSTANT_2021_01_01, INSTANT_2021_01_05.plus(Duration.ofHours(3L)));
+		when(punishment.getIdentifier()).thenReturn(1L);
+		setLayout(PunishmentType.BAN, "%VICTIM% - %REASON%");
+		UUID victimUuid = ((PlayerVictim) testInfo.victim().victim()).getUUID();
+		assertEquals(testInfo.formatVariables("%VICTIM% - %REASON%"), getPunishmentMessage(formatter, punishment));
+
+		when(uuidManager.lookupName(victimUuid)).thenReturn(completedFuture(Optional.of("NewName")));
+		assertEquals("NewName - renamed", getPunishmentMessage(formatter, punishment));
+		verify(messagesConfig, times(1)).additions();
+	}
+
+	@Test
+	public void cachedPunishmentMessageModifiedDetails() {
+		setupSimpleDefaults();
+
+		FormatterTestInfo testInfo = new FormatterTestInfo(
+				PunishmentType.MUTE,
+				DisplayableVictim.ObWolf, DisplayableOperator.CONSOLE,
+				"global", "original reason");
+		Instant end = INSTANT_2021_01_05.plus(Duration.ofHours(3L));
+		Punishment punishment = punishmentFor(testInfo, INSTANT_2021_01_01, end);
+		when(punishment.getIdentifier()).thenReturn(1L);
+		setLayout(PunishmentType.MUTE, "Muted for %REASON%");
+		assertEquals("Muted for original reason", getPunishmentMessage(formatter, punishment));
+
+		Punishment modified = punishmentFor(testInfo, INSTANT_2021_01_01, end);
+		when(modified.getIdentifier()).thenReturn(1L);
+		lenient().when(modified.getReason()).thenReturn("modified reason");
+		assertEquals("Muted for modified reason", getPunishmentMessage(formatter, modified));
+	}
+
+	@Test
+	public void cachedPunishmentMessageDoesNotExpandValues() {
+		setupSimpleDefaults();
+
+		FormatterTestInfo testInfo = new FormatterTestInfo(
+				PunishmentType.BAN,
+				DisplayableVictim.ObWolf, DisplayableOperator.CONSOLE,
+				"global", "reason with %TIME_REMAINING%");
+		Punishment punishment = punishmentFor(testInfo, INSTANT_2021_01_01, INSTANT_2021_01_05.plus(Duration.ofHours(3L)));
+		when(punishment.getIdentifier()).thenReturn(1L);
+		setLayout(PunishmentType.BAN, "%REASON% - %TIME_REMAINING%");
+		for (int n = 0; n < 2; n++) {
+			assertEquals("reason with %TIME_REMAINING% - 3 hours", getPunishmentMessage(formatter, punishment));
+		}
+	}
+
+	@Test
+	public void concurrentPunishmentMessagesShareFormatting() {
+		setupSimpleDefaults();
+
+		FormatterTestInfo testInfo = new FormatterTestInfo(
+				PunishmentType.BAN,
+				DisplayableVictim.ObWolf, DisplayableOperator.CONSOLE,
+				"global", "formatted once");
+		Punishment punishment = punishmentFor(testInfo, INSTANT_2021_01_01, INSTANT_2021_01_05.plus(Duration.ofHours(3L)));
+		when(punishment.getIdentifier()).thenReturn(1L);
+		setLayout(PunishmentType.BAN, "%VICTIM% - %REASON%");
+		UUID victimUuid = ((PlayerVictim) testInfo.victim().victim()).getUUID();
+		CentralisedFuture<Optional<String>> victimName = futuresFactory.newIncompleteFuture();
+		when(uuidManager.lookupName(victimUuid)).thenReturn(victimName);
+
+		CentralisedFuture<Component> first = formatter.getPunishmentMessage(punishment);
+		CentralisedFuture<Component> second = formatter.getPunishmentMessage(punishment);
+		victimName.complete(Optional.of(testInfo.victim().name()));
+
+		String expected = testInfo.formatVariables("%VICTIM% - %REASON%");
+		assertEquals(expected, PlainComponentSerializer.plain().serialize(first.join()));
+		assertEquals(expected, PlainComponentSerializer.plain().serialize(second.join()));
+		verify(messagesConfig, times(1)).additions();
+	}
+
+	private void setLayout(PunishmentType type, String layout) {
+		AdditionsSection additions = mock(AdditionsSection.class);
+		PunishmentAdditionSection.WithLayout section = mock(PunishmentAdditionSection.WithLayout.class);
+		when(messagesConfig.additions()).thenReturn(additions);
+		when(additions.forType(type)).thenReturn(section);
+		when(section.layout()).thenReturn(ComponentText.create(Component.text(layout)));
+	}
+
+	private String getPunishmentMessage(Formatter formatter, Punishment punishment) {
+		return PlainComponentSerializer.plain().serialize(formatter.getPunishmentMessage(punishment).join());
+	}
+
 	private String format(Punishment punishment, String layout) {
 		ComponentText layoutMessage = ComponentText.create(Component.text(layout));
 		var formatFuture = formatter.formatWithPunishment(layoutMessage, punishment);
@@ -306,20 +427,20 @@ public class FormatterTest {
 
 	private Punishment punishmentFor(FormatterTestInfo testInfo, Instant start, Instant end) {
 		Punishment punishment = mock(Punishment.class);
-		when(punishment.getType()).thenReturn(testInfo.type());
+		lenient().when(punishment.getType()).thenReturn(testInfo.type());
 
 		setVictim(punishment, testInfo.victim());
 		setOperator(punishment, testInfo.operator());
 
-		when(punishment.getReason()).thenReturn(testInfo.reason());
+		lenient().when(punishment.getReason()).thenReturn(testInfo.reason());
 
 		// Scope
 		String serverScope = testInfo.serverScope();
 		if (serverScope.isEmpty()) {
-			when(punishment.getScope()).thenReturn(globalScope);
+			lenient().when(punishment.getScope()).thenReturn(globalScope);
 		} else {
 			ServerScope scope = specificScope(serverScope);
-			when(punishment.getScope()).thenReturn(scope);
+			lenient().when(punishment.getScope()).thenReturn(scope);
 		}
 
 		// Start and end
@@ -339,7 +460,7 @@ public class FormatterTest {
 
 	private void setVictim(Punishment punishment, DisplayableVictim displayableVictim) {
 		Victim victim = displayableVictim.victim();
-		when(punishment.getVictim()).thenReturn(victim);
+		lenient().when(punishment.getVictim()).thenReturn(victim);
 		if (victim instanceof PlayerVictim) {
 			when(uuidManager.lookupName(((PlayerVictim) victim).getUUID()))
 					.thenReturn(completedFuture(Optional.of(displayableVictim.name())));
@@ -348,7 +469,7 @@ public class FormatterTest {
 
 	private void setOperator(Punishment punishment, DisplayableOperator displayableOperator) {
 		Operator operator = displayableOperator.operator();
-		when(punishment.getOperator()).thenReturn(operator);
+		lenient().when(punishment.getOperator()).thenReturn(operator);
 		if (operator instanceof PlayerOperator) {
 			when(uuidManager.lookupName(((PlayerOperator) operator).getUUID()))
 					.thenReturn(completedFuture(Optional.of(displayableOperator.name())));
@@ -356,15 +477,15 @@ public class FormatterTest {
 	}
 
 	private void setStartAndEnd(Punishment punishment, Instant start, Instant end) {
-		when(punishment.getStartDate()).thenReturn(start);
-		when(punishment.getEndDate()).thenReturn(end);
-		when(punishment.getStartDateSeconds()).thenReturn(start.getEpochSecond());
-		when(punishment.getEndDateSeconds()).thenReturn(end.getEpochSecond());
-		when(punishment.isPermanent()).thenReturn(end.equals(Instant.MAX));
+		lenient().when(punishment.getStartDate()).thenReturn(start);
+		lenient().when(punishment.getEndDate()).thenReturn(end);
+		lenient().when(punishment.getStartDateSeconds()).thenReturn(start.getEpochSecond());
+		lenient().when(punishment.getEndDateSeconds()).thenReturn(end.getEpochSecond());
+		lenient().when(punishment.isPermanent()).thenReturn(end.equals(Instant.MAX));
 	}
 
 	private void setEscalationTrack(Punishment punishment, EscalationTrack escalationTrack) {
-		when(punishment.getEscalationTrack()).thenReturn(Optional.ofNullable(escalationTrack));
+		lenient().when(punishment.getEscalationTrack()).thenReturn(Optional.ofNullable(escalationTrack));
 	}
 
 }
@@ -0,0 +1,104 @@
+/*
+ * LibertyBans
+ * Copyright © 2023 Anand Beh
+ *
+ * LibertyBans is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * LibertyBans is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with LibertyBans. If not, see <https://www.gnu.org/licenses/>
+ * and navigate to version 3 of the GNU Affero General Public License.
+ */
+
+package space.arim.libertybans.core.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MessageTemplateTest {
+
+	private static final Map<String, String> VALUES = Map.of(
+			"ID", "5", "REASON", "Hacking", "TYPE", "Ban"
+	);
+
+	private String render(String text) {
+		return MessageTemplate.compile(text, Set.of("ID", "REASON", "TYPE", "VICTIM")::contains).render(VALUES::get);
+	}
+
+	@Test
+	public void literalOnly() {
+		assertEquals("", render(""));
+		assertEquals("No variables here", render("No variables here"));
+		assertEquals("100% sure", render("100% sure"));
+	}
+
+	@Test
+	public void variables() {
+		assertEquals("Ban #5 for Hacking", render("%TYPE% #%ID% for %REASON%"));
+		assertEquals("5Hacking", render("%ID%%REASON%"));
+	}
+
+	@Test
+	public void unknownNames() {
+		assertEquals("%FOO5%", render("%FOO%ID%%"));
+		assertEquals("%5", render("%%ID%"));
+		assertEquals("50% of Hacking", render("%ID%0% of %REASON%"));
+	}
+
+	@Test
+	public void unclosedPercent() {
+		assertEquals("Hacking %ID", render("%REASON% %ID"));
+	}
+
+	@Test
+	public void missingValueLeftAsIs() {
+		assertEquals("%VICTIM% banned for Hacking", render("%VICTIM% banned for %REASON%"));
+	}
+
+	@Test
+	public void valuesAreNotReplacedAgain() {
+		MessageTemplate template = MessageTemplate.compile("%REASON% (%ID%)", Set.of("ID", "REASON")::contains);
+		assertEquals("%ID% (5)", template.render(Map.of("ID", "5", "REASON", "%ID%")::get));
+	}
+
+	@Test
+	public void renderPartially() {
+		MessageTemplate template = MessageTemplate.compile(
+				"%TYPE% for %REASON%, %ID% left", Set.of("ID", "REASON", "TYPE")::contains
+		);
+		MessageTemplate partial = template.renderPartially(Map.of("TYPE", "Ban", "REASON", "%ID%")::get);
+		assertTrue(partial.hasVariables());
+		assertEquals("Ban for %ID%, 5 left", partial.render(VALUES::get));
+
+		MessageTemplate complete = partial.renderPartially(VALUES::get);
+		assertFalse(complete.hasVariables());
+		assertEquals("Ban for %ID%, 5 left", complete.render((variable) -> null));
+	}
+
+	@Test
+	public void onlyPresentVariablesAreComputed() {
+		List<String> computed = new ArrayList<>();
+		MessageTemplate template = MessageTemplate.compile("Reason: %REASON%", VALUES::containsKey);
+		template.render((variable) -> {
+			computed.add(variable);
+			return VALUES.get(variable);
+		});
+		assertEquals(List.of("REASON"), computed);
+	}
+
+}
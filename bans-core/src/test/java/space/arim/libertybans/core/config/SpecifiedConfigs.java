@@ -52,6 +52,9 @@ public class SpecifiedConfigs implements Configs {
 				if (methodName.equals("vendor")) {
 					return spec.vendor();
 				}
+				if (methodName.equals("accountClustering")) {
+					return (SqlConfig.AccountClustering) spec::accountClustering;
+				}
 				if (methodName.equals("authDetails")) {
 					return new SqlConfig.AuthDetails() {
 						@Override
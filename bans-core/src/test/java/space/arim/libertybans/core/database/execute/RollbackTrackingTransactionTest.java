@@ -0,0 +1,105 @@
+/*
+ * LibertyBans
+ * Copyright © 2023 Anand Beh
+ *
+ * LibertyBans is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * LibertyBans is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with LibertyBans. If not, see <https://www.gnu.org/licenses/>
+ * and navigate to version 3 of the GNU Affero General Public License.
+ */
+
+package space.arim.libertybans.core.database.execute;
+
+import org.jooq.DSLContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+
+@ExtendWith(MockitoExtension.class)
+public class RollbackTrackingTransactionTest {
+
+	private final Connection connection;
+	private RollbackTrackingTransaction transaction;
+	private final List<String> ran = new ArrayList<>();
+
+	public RollbackTrackingTransactionTest(@Mock Connection connection) {
+		this.connection = connection;
+	}
+
+	@BeforeEach
+	public void setTransaction() throws SQLException {
+		lenient().when(connection.setSavepoint(anyString())).thenAnswer((i) -> mock(Savepoint.class));
+		transaction = new RollbackTrackingTransaction(mock(DSLContext.class), connection);
+	}
+
+	private Runnable record(String name) {
+		return () -> ran.add(name);
+	}
+
+	@Test
+	public void runCommitActions() {
+		transaction.afterCommit(record("first"));
+		transaction.afterCommit(record("second"));
+		assertEquals(List.of(), ran);
+		transaction.runCommitActions();
+		assertEquals(List.of("first", "second"), ran);
+		// Not run twice
+		transaction.runCommitActions();
+		assertEquals(List.of("first", "second"), ran);
+	}
+
+	@Test
+	public void rollbackDiscardsCommitActions() {
+		transaction.afterCommit(record("discarded"));
+		transaction.rollback();
+		transaction.runCommitActions();
+		assertEquals(List.of(), ran);
+	}
+
+	@Test
+	public void nestedCommitActions() {
+		transaction.afterCommit(record("outer"));
+		transaction.executeNested((context, nested) -> {
+			nested.afterCommit(record("nested"));
+			return null;
+		});
+		transaction.runCommitActions();
+		assertEquals(List.of("outer", "nested"), ran);
+	}
+
+	@Test
+	public void nestedRollbackDiscardsOnlyNestedCommitActions() {
+		transaction.afterCommit(record("outer"));
+		transaction.executeNested((context, nested) -> {
+			nested.afterCommit(record("discarded"));
+			nested.rollback();
+			nested.afterCommit(record("after rollback"));
+			return null;
+		});
+		transaction.afterCommit(record("later"));
+		transaction.runCommitActions();
+		assertEquals(List.of("outer", "after rollback", "later"), ran);
+	}
+}
@@ -0,0 +1,231 @@
+/*
+ * LibertyBans
+ * Copyright © 2023 Anand Beh
+ *
+ * LibertyBans is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * LibertyBans is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with LibertyBans. If not, see <https://www.gnu.org/licenses/>
+ * and navigate to version 3 of the GNU Affero General Public License.
+ */
+package space.arim.libertybans.core.env;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import space.arim.libertybans.it.util.RandomUtil;
+import space.arim.omnibus.util.concurrent.CentralisedFuture;
+import space.arim.omnibus.util.concurrent.FactoryOfTheFuture;
+import space.arim.omnibus.util.concurrent.impl.IndifferentFactoryOfTheFuture;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class EnforcementBatcherTest {
+
+	private final FactoryOfTheFuture futuresFactory = new IndifferentFactoryOfTheFuture();
+	private final EnvEnforcer<TestPlayer> envEnforcer;
+
+	private final List<Consumer<Collection<? extends TestPlayer>>> scheduledTasks = new ArrayList<>();
+	private List<TestPlayer> players;
+	private EnforcementBatcher<TestPlayer> batcher;
+
+	public EnforcementBatcherTest(@Mock EnvEnforcer<TestPlayer> envEnforcer) {
+		this.envEnforcer = envEnforcer;
+	}
+
+	record TestPlayer(UUID uuid, InetAddress address, Set<String> permissions) {
+
+		TestPlayer(InetAddress address, String...permissions) {
+			this(UUID.randomUUID(), address, Set.of(permissions));
+		}
+	}
+
+	@BeforeEach
+	public void setup() {
+		InetAddress sharedAddress = RandomUtil.randomAddress().toInetAddress();
+		players = List.of(
+				new TestPlayer(sharedAddress, "notify"),
+				new TestPlayer(sharedAddress),
+				new TestPlayer(RandomUtil.randomAddress().toInetAddress(), "notify")
+		);
+		// Simulates a platform which runs the task later, on the main thread
+		lenient().when(envEnforcer.doForAllPlayers(any())).thenAnswer((invocation) -> {
+			scheduledTasks.add(invocation.getArgument(0));
+			return futuresFactory.completedFuture(null);
+		});
+		lenient().when(envEnforcer.getUniqueIdFor(any())).thenAnswer((i) -> i.<TestPlayer>getArgument(0).uuid());
+		lenient().when(envEnforcer.getAddressFor(any())).thenAnswer((i) -> i.<TestPlayer>getArgument(0).address());
+		lenient().when(envEnforcer.hasPermission(any(), anyString())).thenAnswer((i) -> {
+			return i.<TestPlayer>getArgument(0).permissions().contains(i.<String>getArgument(1));
+		});
+		batcher = new EnforcementBatcher<>(
+				futuresFactory, envEnforcer, new StaffAudience<>(envEnforcer, System::nanoTime), null
+		);
+	}
+
+	private void runScheduledTasks() {
+		List<Consumer<Collection<? extends TestPlayer>>> tasks = List.copyOf(scheduledTasks);
+		scheduledTasks.clear();
+		tasks.forEach((task) -> task.accept(players));
+	}
+
+	@Test
+	public void coalescePendingActions() {
+		List<CentralisedFuture<Void>> futures = new ArrayList<>();
+		for (int n = 0; n < 50; n++) {
+			futures.add(batcher.submit((onlinePlayers) -> {}));
+		}
+		assertEquals(1, scheduledTasks.size());
+		futures.forEach((future) -> assertFalse(future.isDone()));
+
+		runScheduledTasks();
+		futures.forEach((future) -> assertTrue(future.isDone()));
+
+		batcher.submit((onlinePlayers) -> {});
+		assertEquals(1, scheduledTasks.size(), "A new batch is scheduled");
+	}
+
+	@Test
+	public void indexOnlinePlayers() {
+		TestPlayer first = players.get(0), second = players.get(1), third = players.get(2);
+		List<Set<TestPlayer>> matches = new ArrayList<>();
+		batcher.submit((onlinePlayers) -> {
+			matches.add(onlinePlayers.matching(new UUIDTargetMatcher<>(Set.of(second.uuid()), (p) -> {})));
+			matches.add(onlinePlayers.matching(new ExactTargetMatcher<>(first.address(), (p) -> {})));
+			matches.add(onlinePlayers.matching(new AdditionalUUIDTargetMatcher<>(
+					third.uuid(), new ExactTargetMatcher<>(first.address(), (p) -> {}))));
+			assertNull(onlinePlayers.byUuid(UUID.randomUUID()));
+		});
+		batcher.submit((onlinePlayers) -> {
+			matches.add(onlinePlayers.matching(new UUIDTargetMatcher<>(Set.of(first.uuid(), third.uuid()), (p) -> {})));
+		});
+		runScheduledTasks();
+
+		assertEquals(List.of(
+				Set.of(second), Set.of(first, second), Set.of(first, second, third), Set.of(first, third)
+		), matches);
+		// Each index is computed once for the whole batch
+		verify(envEnforcer, times(players.size())).getUniqueIdFor(any());
+		verify(envEnforcer, times(players.size())).getAddressFor(any());
+	}
+
+	@Test
+	public void checkPermissionsOncePerBatch() {
+		List<Set<TestPlayer>> permitted = new ArrayList<>();
+		for (int n = 0; n < 10; n++) {
+			batcher.submit((onlinePlayers) -> permitted.add(Set.copyOf(onlinePlayers.withPermission("notify"))));
+		}
+		runScheduledTasks();
+
+		assertEquals(10, permitted.size());
+		permitted.forEach((players) -> assertEquals(Set.of(this.players.get(0), this.players.get(2)), players));
+		verify(envEnforcer, times(players.size())).hasPermission(any(), anyString());
+	}
+
+	@Test
+	public void failingActionDoesNotAffectOthers() {
+		CentralisedFuture<Void> failing = batcher.submit((onlinePlayers) -> {
+			throw new IllegalStateException("Expected exception");
+		});
+		CentralisedFuture<Void> succeeding = batcher.submit((onlinePlayers) -> {});
+		runScheduledTasks();
+
+		assertTrue(failing.isCompletedExceptionally());
+		assertTrue(succeeding.isDone());
+		assertFalse(succeeding.isCompletedExceptionally());
+	}
+
+	@Test
+	public void lookUpDirectlyForSingleAction() {
+		Map<UUID, TestPlayer> playersByUuid = Map.of(players.get(1).uuid(), players.get(1));
+		batcher = new EnforcementBatcher<>(
+				futuresFactory, envEnforcer, new StaffAudience<>(envEnforcer, System::nanoTime), playersByUuid::get
+		);
+		List<TestPlayer> found = new ArrayList<>();
+		batcher.submit((onlinePlayers) -> found.add(onlinePlayers.byUuid(players.get(1).uuid())));
+		runScheduledTasks();
+
+		assertEquals(List.of(players.get(1)), found);
+		verify(envEnforcer, never()).getUniqueIdFor(any());
+
+		batcher.submit((onlinePlayers) -> found.add(onlinePlayers.byUuid(players.get(0).uuid())));
+		batcher.submit((onlinePlayers) -> found.add(onlinePlayers.byUuid(players.get(2).uuid())));
+		runScheduledTasks();
+
+		assertEquals(List.of(players.get(1), players.get(0), players.get(2)), found);
+		verify(envEnforcer, times(players.size())).getUniqueIdFor(any());
+	}
+
+	@Test
+	public void failedBatchDoesNotAffectNextBatch() {
+		CentralisedFuture<Void> firstRun = futuresFactory.newIncompleteFuture();
+		when(envEnforcer.doForAllPlayers(any())).thenAnswer((invocation) -> {
+			scheduledTasks.add(invocation.getArgument(0));
+			return firstRun;
+		}).thenAnswer((invocation) -> {
+			scheduledTasks.add(invocation.getArgument(0));
+			return futuresFactory.completedFuture(null);
+		});
+		CentralisedFuture<Void> first = batcher.submit((onlinePlayers) -> {});
+		runScheduledTasks();
+		CentralisedFuture<Void> second = batcher.submit((onlinePlayers) -> {});
+		// The platform reports a failure after the first batch ran
+		firstRun.completeExceptionally(new IllegalStateException("Expected exception"));
+
+		assertTrue(first.isDone());
+		assertFalse(first.isCompletedExceptionally());
+		assertFalse(second.isDone());
+		runScheduledTasks();
+		assertTrue(second.isDone());
+		assertFalse(second.isCompletedExceptionally());
+	}
+
+	@Test
+	public void unscheduledBatchFails() {
+		when(envEnforcer.doForAllPlayers(any())).thenReturn(
+				futuresFactory.failedFuture(new IllegalStateException("Expected exception"))
+		).thenAnswer((invocation) -> {
+			scheduledTasks.add(invocation.getArgument(0));
+			return futuresFactory.completedFuture(null);
+		});
+		CentralisedFuture<Void> failed = batcher.submit((onlinePlayers) -> {});
+		assertTrue(failed.isCompletedExceptionally());
+
+		CentralisedFuture<Void> next = batcher.submit((onlinePlayers) -> {});
+		assertEquals(1, scheduledTasks.size(), "A new batch is scheduled");
+		runScheduledTasks();
+		assertTrue(next.isDone());
+		assertFalse(next.isCompletedExceptionally());
+	}
+
+}
@@ -0,0 +1,138 @@
+/*
+ * LibertyBans
+ * Copyright © 2023 Anand Beh
+ *
+ * LibertyBans is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * LibertyBans is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with LibertyBans. If not, see <https://www.gnu.org/licenses/>
+ * and navigate to version 3 of the GNU Affero General Public License.
+ */
+package space.arim.libertybans.core.env;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class StaffAudienceTest {
+
+	private final EnvEnforcer<UUID> envEnforcer;
+	private final AtomicLong nanoTime = new AtomicLong();
+
+	private StaffAudience<UUID> staffAudience;
+	private UUID staff;
+	private UUID player;
+
+	private static final String NOTIFY = "libertybans.ban.do.notify";
+
+	public StaffAudienceTest(@Mock EnvEnforcer<UUID> envEnforcer) {
+		this.envEnforcer = envEnforcer;
+	}
+
+	@BeforeEach
+	public void setup() {
+		staff = UUID.randomUUID();
+		player = UUID.randomUUID();
+		lenient().when(envEnforcer.getUniqueIdFor(any())).thenAnswer((i) -> i.getArgument(0));
+		staffAudience = new StaffAudience<>(envEnforcer, nanoTime::get);
+	}
+
+	private Set<UUID> withPermission(String permission, UUID...onlinePlayers) {
+		return Set.copyOf(staffAudience.withPermission(permission, List.of(onlinePlayers)));
+	}
+
+	@Test
+	public void rememberPermissionHolders() {
+		when(envEnforcer.hasPermission(staff, NOTIFY)).thenReturn(true);
+		when(envEnforcer.hasPermission(player, NOTIFY)).thenReturn(false);
+
+		for (int n = 0; n < 5; n++) {
+			assertEquals(Set.of(staff), withPermission(NOTIFY, staff, player));
+		}
+		verify(envEnforcer, times(1)).hasPermission(staff, NOTIFY);
+		verify(envEnforcer, times(1)).hasPermission(player, NOTIFY);
+	}
+
+	@Test
+	public void trackJoinsAndQuits() {
+		UUID joiningStaff = UUID.randomUUID();
+		when(envEnforcer.hasPermission(staff, NOTIFY)).thenReturn(true);
+		when(envEnforcer.hasPermission(player, NOTIFY)).thenReturn(false);
+		when(envEnforcer.hasPermission(joiningStaff, NOTIFY)).thenReturn(true);
+		assertEquals(Set.of(staff), withPermission(NOTIFY, staff, player));
+
+		staffAudience.playerJoined(joiningStaff);
+		assertEquals(Set.of(staff, joiningStaff), withPermission(NOTIFY, staff, player, joiningStaff));
+		staffAudience.playerQuit(staff);
+		assertEquals(Set.of(joiningStaff), withPermission(NOTIFY, player, joiningStaff));
+		// Only the joining player was checked again
+		verify(envEnforcer, times(1)).hasPermission(staff, NOTIFY);
+		verify(envEnforcer, times(1)).hasPermission(player, NOTIFY);
+	}
+
+	@Test
+	public void joinBeforePermissionNeeded() {
+		staffAudience.playerJoined(staff);
+		staffAudience.playerQuit(player);
+		verify(envEnforcer, never()).hasPermission(any(), any());
+	}
+
+	@Test
+	public void refreshPermissionHoldersPeriodically() {
+		when(envEnforcer.hasPermission(player, NOTIFY)).thenReturn(false, true);
+
+		assertEquals(Set.of(), withPermission(NOTIFY, player));
+		nanoTime.addAndGet(StaffAudience.REFRESH_INTERVAL_NANOS / 2);
+		assertEquals(Set.of(), withPermission(NOTIFY, player), "Not yet refreshed");
+
+		nanoTime.addAndGet(StaffAudience.REFRESH_INTERVAL_NANOS);
+		assertEquals(Set.of(player), withPermission(NOTIFY, player), "Permission was granted");
+		verify(envEnforcer, times(2)).hasPermission(player, NOTIFY);
+	}
+
+	@Test
+	public void rebuildAfterClear() {
+		when(envEnforcer.hasPermission(staff, NOTIFY)).thenReturn(true);
+		assertEquals(Set.of(staff), withPermission(NOTIFY, staff));
+
+		staffAudience.clear();
+		assertEquals(Set.of(), withPermission(NOTIFY), "Staff quit while untracked");
+	}
+
+	@Test
+	public void trackEachPermissionSeparately() {
+		String otherNotify = "libertybans.mute.do.notify";
+		when(envEnforcer.hasPermission(staff, NOTIFY)).thenReturn(true);
+		when(envEnforcer.hasPermission(staff, otherNotify)).thenReturn(false);
+
+		assertEquals(Set.of(staff), withPermission(NOTIFY, staff));
+		assertEquals(Set.of(), withPermission(otherNotify, staff));
+		assertEquals(Set.of(staff), withPermission(NOTIFY, staff));
+		verify(envEnforcer, times(1)).hasPermission(staff, otherNotify);
+	}
+
+}
@@ -73,8 +73,8 @@ public class DatabaseStreamTest {
 		}
 	}
 
-	private Set<Row> sourceRows() {
-		return databaseStream.streamRows(new SchemaRowMapper<Row>() {
+	private static SchemaRowMapper<Row> rowMapper() {
+		return new SchemaRowMapper<>() {
 
 			@Override
 			public String selectStatement() {
@@ -86,7 +86,11 @@ public class DatabaseStreamTest {
 				return Optional.of(new Row(
 						resultSet.getInt("tally"), resultSet.getString("textual"), resultSet.getBoolean("flag")));
 			}
-		}).collect(Collectors.toUnmodifiableSet());
+		};
+	}
+
+	private Set<Row> sourceRows() {
+		return databaseStream.streamRows(rowMapper()).collect(Collectors.toUnmodifiableSet());
 	}
 
 	@Test
@@ -94,6 +98,16 @@ public class DatabaseStreamTest {
 		assertEquals(Set.of(), sourceRows());
 	}
 
+	@Test
+	public void countRows() {
+		assertEquals(0L, databaseStream.countRows(rowMapper()));
+		insertAllData(Set.of(
+				new Row(-1, "some text", true),
+				new Row(2, "second row", false),
+				new Row(3, "third row", false)));
+		assertEquals(3L, databaseStream.countRows(rowMapper()));
+	}
+
 	@Test
 	public void fetchSingleRow() throws SQLException {
 		Set<Row> expectedRows = Set.of(new Row(-1, "some text", true));
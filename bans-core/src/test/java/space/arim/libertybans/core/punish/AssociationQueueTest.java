@@ -0,0 +1,164 @@
+/*
+ * LibertyBans
+ * Copyright © 2023 Anand Beh
+ *
+ * LibertyBans is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * LibertyBans is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with LibertyBans. If not, see <https://www.gnu.org/licenses/>
+ * and navigate to version 3 of the GNU Affero General Public License.
+ */
+
+package space.arim.libertybans.core.punish;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import space.arim.libertybans.api.NetworkAddress;
+import space.arim.libertybans.core.config.Configs;
+import space.arim.libertybans.core.config.SqlConfig;
+import space.arim.libertybans.core.database.execute.QueryExecutor;
+import space.arim.libertybans.core.database.execute.SQLTransactionalRunnable;
+import space.arim.libertybans.core.selector.AccountClustering;
+import space.arim.libertybans.core.service.SettableTime;
+import space.arim.libertybans.core.service.SettableTimeImpl;
+import space.arim.libertybans.it.util.RandomUtil;
+import space.arim.omnibus.util.concurrent.EnhancedExecutor;
+import space.arim.omnibus.util.concurrent.FactoryOfTheFuture;
+import space.arim.omnibus.util.concurrent.ScheduledTask;
+import space.arim.omnibus.util.concurrent.impl.IndifferentFactoryOfTheFuture;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class AssociationQueueTest {
+
+	private final FactoryOfTheFuture futuresFactory = new IndifferentFactoryOfTheFuture();
+	private final Configs configs;
+	private final QueryExecutor queryExecutor;
+	private final EnhancedExecutor enhancedExecutor;
+	private final SettableTime time = new SettableTimeImpl(Instant.EPOCH);
+
+	private SqlConfig.WriteBehindAssociations config;
+	private AssociationQueue queue;
+
+	private static final int MAX_QUEUE_SIZE = 3;
+
+	public AssociationQueueTest(@Mock Configs configs, @Mock QueryExecutor queryExecutor,
+								@Mock EnhancedExecutor enhancedExecutor) {
+		this.configs = configs;
+		this.queryExecutor = queryExecutor;
+		this.enhancedExecutor = enhancedExecutor;
+	}
+
+	@BeforeEach
+	public void setQueue(@Mock SqlConfig sqlConfig, @Mock SqlConfig.WriteBehindAssociations config) {
+		when(configs.getSqlConfig()).thenReturn(sqlConfig);
+		when(sqlConfig.writeBehindAssociations()).thenReturn(config);
+		this.config = config;
+		queue = new AssociationQueue(
+				configs, futuresFactory, () -> queryExecutor, enhancedExecutor,
+				new AccountClustering(configs, futuresFactory, () -> queryExecutor, time), time
+		);
+	}
+
+	private void startEnabled(ScheduledTask flushTask) {
+		when(config.enable()).thenReturn(true);
+		when(config.maxQueueSize()).thenReturn(MAX_QUEUE_SIZE);
+		when(config.flushIntervalMillis()).thenReturn(2000L);
+		when(enhancedExecutor.scheduleRepeating((Runnable) any(), any(), any())).thenReturn(flushTask);
+		queue.startup();
+	}
+
+	@Test
+	public void disabled() {
+		when(config.enable()).thenReturn(false);
+		queue.startup();
+		assertFalse(queue.isEnabled());
+		assertFalse(queue.queueCurrentName(UUID.randomUUID(), "A248", time.currentTimestamp()));
+		queue.shutdown();
+		verify(queryExecutor, never()).executeWithRetry(any());
+	}
+
+	@Test
+	public void coalesceAndBound(@Mock ScheduledTask flushTask) {
+		startEnabled(flushTask);
+		UUID uuid = UUID.randomUUID();
+		NetworkAddress address = RandomUtil.randomAddress();
+
+		assertTrue(queue.queueCurrentName(uuid, "A248", time.currentTimestamp()));
+		assertTrue(queue.queueCurrentName(uuid, "A248", time.currentTimestamp()));
+		assertTrue(queue.queueCurrentAddress(uuid, address, time.currentTimestamp()));
+		assertEquals(2, queue.statistics().queueDepth());
+
+		assertTrue(queue.queueCurrentName(uuid, "Other", time.currentTimestamp()));
+		assertFalse(queue.queueCurrentName(UUID.randomUUID(), "Full", time.currentTimestamp()), "Queue is full");
+		// Coalescing is still possible when full
+		assertTrue(queue.queueCurrentAddress(uuid, address, time.currentTimestamp()));
+		assertEquals(MAX_QUEUE_SIZE, queue.statistics().queueDepth());
+	}
+
+	@Test
+	public void flushOnShutdown(@Mock ScheduledTask flushTask) {
+		startEnabled(flushTask);
+		when(queryExecutor.executeWithRetry((SQLTransactionalRunnable) any()))
+				.thenReturn(futuresFactory.completedFuture(null));
+		assertTrue(queue.queueCurrentName(UUID.randomUUID(), "A248", time.currentTimestamp()));
+		assertTrue(queue.queueCurrentAddress(UUID.randomUUID(), RandomUtil.randomAddress(), time.currentTimestamp()));
+
+		queue.shutdown();
+		verify(flushTask).cancel();
+		verify(queryExecutor).executeWithRetry((SQLTransactionalRunnable) any());
+		AssociationQueue.Statistics statistics = queue.statistics();
+		assertEquals(0, statistics.queueDepth());
+		assertEquals(2L, statistics.flushedAssociations());
+		assertFalse(queue.isEnabled());
+	}
+
+	@Test
+	public void retryFlushOnShutdown(@Mock ScheduledTask flushTask) {
+		startEnabled(flushTask);
+		when(queryExecutor.executeWithRetry((SQLTransactionalRunnable) any()))
+				.thenReturn(futuresFactory.failedFuture(new IllegalStateException("Expected exception")))
+				.thenReturn(futuresFactory.completedFuture(null));
+		assertTrue(queue.queueCurrentName(UUID.randomUUID(), "A248", time.currentTimestamp()));
+
+		queue.shutdown();
+		verify(queryExecutor, times(2)).executeWithRetry((SQLTransactionalRunnable) any());
+		assertEquals(1L, queue.statistics().flushedAssociations());
+	}
+
+	@Test
+	public void discardAfterRetryOnShutdown(@Mock ScheduledTask flushTask) {
+		startEnabled(flushTask);
+		when(queryExecutor.executeWithRetry((SQLTransactionalRunnable) any()))
+				.thenReturn(futuresFactory.failedFuture(new IllegalStateException("Expected exception")));
+		assertTrue(queue.queueCurrentName(UUID.randomUUID(), "A248", time.currentTimestamp()));
+
+		queue.shutdown();
+		verify(queryExecutor, times(2)).executeWithRetry((SQLTransactionalRunnable) any());
+		AssociationQueue.Statistics statistics = queue.statistics();
+		assertEquals(0, statistics.queueDepth());
+		assertEquals(0L, statistics.flushedAssociations());
+	}
+}
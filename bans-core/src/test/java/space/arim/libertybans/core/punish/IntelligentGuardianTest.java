@@ -36,6 +36,7 @@ import space.arim.libertybans.core.selector.Guardian;
 import space.arim.libertybans.core.selector.IntelligentGuardian;
 import space.arim.libertybans.core.selector.InternalSelector;
 import space.arim.libertybans.core.selector.cache.MuteCache;
+import space.arim.libertybans.core.selector.cache.ServerSwitchBanCache;
 import space.arim.libertybans.core.uuid.UUIDManager;
 import space.arim.libertybans.it.util.RandomUtil;
 import space.arim.omnibus.util.concurrent.CentralisedFuture;
@@ -68,11 +69,13 @@ public class IntelligentGuardianTest {
 
 	@BeforeEach
 	public void setup(@Mock Configs configs, @Mock ScopeManager scopeManager, @Mock InternalFormatter formatter,
-					  @Mock InternalSelector selector, @Mock UUIDManager uuidManager) {
+					  @Mock InternalSelector selector, @Mock UUIDManager uuidManager,
+					  @Mock ServerSwitchBanCache serverSwitchBanCache) {
 		uuid = UUID.randomUUID();
 		address = RandomUtil.randomAddress();
 
-		guardian = new IntelligentGuardian(configs, futuresFactory, scopeManager, formatter, selector, uuidManager, muteCache);
+		guardian = new IntelligentGuardian(configs, futuresFactory, scopeManager, formatter, selector, uuidManager, muteCache,
+				serverSwitchBanCache);
 
 		MainConfig mainConfig = mock(MainConfig.class);
 		EnforcementConfig enforcementConfig = mock(EnforcementConfig.class);
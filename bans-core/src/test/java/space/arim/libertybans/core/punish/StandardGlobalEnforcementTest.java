@@ -34,6 +34,7 @@ import space.arim.libertybans.core.config.SqlConfig;
 import space.arim.libertybans.core.punish.sync.MessageReceiver;
 import space.arim.libertybans.core.punish.sync.SynchronizationMessenger;
 import space.arim.libertybans.core.punish.sync.SynchronizationProtocol;
+import space.arim.libertybans.core.selector.cache.PunishmentCounts;
 import space.arim.libertybans.core.service.Time;
 import space.arim.omnibus.util.concurrent.FactoryOfTheFuture;
 import space.arim.omnibus.util.concurrent.impl.IndifferentFactoryOfTheFuture;
@@ -87,7 +88,7 @@ public class StandardGlobalEnforcementTest {
 		globalEnforcement = new StandardGlobalEnforcement(
 				configs, futuresFactory, enforcer,
 				synchronizationProtocol, () -> synchronizationMessenger, mock(MessageReceiver.class),
-				time
+				mock(PunishmentCounts.class), time
 		);
 	}
 
@@ -278,7 +279,14 @@ public class StandardGlobalEnforcementTest {
 		when(punishment.isExpired(clock)).thenReturn(true);
 
 		globalEnforcement.updateDetails(punishment).join();
-		verifyNoInteractions(enforcer);
+		// The expired punishment is removed from caches, without notifications
+		verify(enforcer).unenforceWithoutSynchronization(
+				punishment.getIdentifier(), PunishmentType.MUTE,
+				EnforcementOpts.builder()
+						.enforcement(EnforcementOptions.Enforcement.GLOBAL)
+						.broadcasting(EnforcementOptions.Broadcasting.NONE)
+						.build()
+		);
 	}
 
 	@Test
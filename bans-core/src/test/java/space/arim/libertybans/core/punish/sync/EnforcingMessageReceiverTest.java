@@ -0,0 +1,182 @@
+/*
+ * LibertyBans
+ * Copyright © 2023 Anand Beh
+ *
+ * LibertyBans is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * LibertyBans is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with LibertyBans. If not, see <https://www.gnu.org/licenses/>
+ * and navigate to version 3 of the GNU Affero General Public License.
+ */
+
+package space.arim.libertybans.core.punish.sync;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import space.arim.libertybans.api.PlayerVictim;
+import space.arim.libertybans.api.PunishmentType;
+import space.arim.libertybans.api.Victim;
+import space.arim.libertybans.api.punish.EnforcementOptions;
+import space.arim.libertybans.api.punish.Punishment;
+import space.arim.libertybans.core.punish.LocalEnforcer;
+import space.arim.libertybans.core.punish.Mode;
+import space.arim.libertybans.core.selector.InternalSelector;
+import space.arim.omnibus.util.concurrent.CentralisedFuture;
+import space.arim.omnibus.util.concurrent.FactoryOfTheFuture;
+import space.arim.omnibus.util.concurrent.impl.IndifferentFactoryOfTheFuture;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class EnforcingMessageReceiverTest {
+
+	private final FactoryOfTheFuture futuresFactory = new IndifferentFactoryOfTheFuture();
+	private final InternalSelector selector;
+	private final LocalEnforcer enforcer;
+
+	private EnforcingMessageReceiver messageReceiver;
+
+	public EnforcingMessageReceiverTest(@Mock InternalSelector selector, @Mock LocalEnforcer enforcer) {
+		this.selector = selector;
+		this.enforcer = enforcer;
+	}
+
+	@BeforeEach
+	public void setMessageReceiver() {
+		messageReceiver = new EnforcingMessageReceiver(futuresFactory, selector, enforcer);
+		CentralisedFuture<Void> completed = futuresFactory.completedFuture(null);
+		lenient().when(enforcer.enforceWithoutSynchronization(any(), any())).thenReturn(completed);
+		lenient().when(enforcer.unenforceWithoutSynchronization(any(), any())).thenReturn(completed);
+		lenient().when(enforcer.unenforceWithoutSynchronization(anyLong(), any(), any())).thenReturn(completed);
+		lenient().when(enforcer.updateDetailsWithoutSynchronization(any(Punishment.class))).thenReturn(completed);
+		lenient().when(enforcer.clearExpungedWithoutSynchronization(anyLong())).thenReturn(completed);
+	}
+
+	private static Punishment punishment(long id, PunishmentType type, Victim victim) {
+		Punishment punishment = mock(Punishment.class);
+		lenient().when(punishment.getIdentifier()).thenReturn(id);
+		lenient().when(punishment.getType()).thenReturn(type);
+		lenient().when(punishment.getVictim()).thenReturn(victim);
+		return punishment;
+	}
+
+	private static PacketEnforceUnenforce packet(long id, PunishmentType type, Mode mode,
+												 EnforcementOptions.Broadcasting broadcasting) {
+		return new PacketEnforceUnenforce(id, type, mode, broadcasting, null, null);
+	}
+
+	private void fetchPunishments(Set<Long> ids, Punishment...punishments) {
+		Map<Long, Punishment> result = new HashMap<>();
+		for (Punishment punishment : punishments) {
+			result.put(punishment.getIdentifier(), punishment);
+		}
+		when(selector.getHistoricalPunishmentsByIds(ids)).thenReturn(futuresFactory.completedFuture(result));
+	}
+
+	@Test
+	public void fetchAllPunishmentsAtOnce() {
+		Punishment ban = punishment(1L, PunishmentType.BAN, PlayerVictim.of(UUID.randomUUID()));
+		Punishment mute = punishment(2L, PunishmentType.MUTE, PlayerVictim.of(UUID.randomUUID()));
+		fetchPunishments(Set.of(1L, 2L, 3L), ban, mute);
+
+		messageReceiver.onReceptionOfAll(List.of(
+				packet(1L, PunishmentType.BAN, Mode.DO, EnforcementOptions.Broadcasting.NORMAL),
+				new PacketUpdateDetails(2L),
+				packet(3L, PunishmentType.BAN, Mode.UNDO, EnforcementOptions.Broadcasting.NONE),
+				new PacketExpunge(4L)
+		)).toCompletableFuture().join();
+
+		verify(selector, never()).getHistoricalPunishmentByIdAndType(anyLong(), any());
+		verify(selector, never()).getHistoricalPunishmentById(anyLong());
+		verify(enforcer).enforceWithoutSynchronization(eq(ban), any());
+		verify(enforcer).updateDetailsWithoutSynchronization(mute);
+		verify(enforcer).unenforceWithoutSynchronization(eq(3L), eq(PunishmentType.BAN), any());
+		verify(enforcer).clearExpungedWithoutSynchronization(4L);
+	}
+
+	@Test
+	public void sameVictimInOrderOtherVictimsConcurrently() {
+		UUID uuid = UUID.randomUUID();
+		Punishment ban = punishment(1L, PunishmentType.BAN, PlayerVictim.of(uuid));
+		Punishment mute = punishment(2L, PunishmentType.MUTE, PlayerVictim.of(uuid));
+		Punishment otherBan = punishment(3L, PunishmentType.BAN, PlayerVictim.of(UUID.randomUUID()));
+		fetchPunishments(Set.of(1L, 2L, 3L), ban, mute, otherBan);
+
+		CentralisedFuture<Void> banEnforcement = futuresFactory.newIncompleteFuture();
+		when(enforcer.enforceWithoutSynchronization(eq(ban), any())).thenReturn(banEnforcement);
+
+		var reception = messageReceiver.onReceptionOfAll(List.of(
+				packet(1L, PunishmentType.BAN, Mode.DO, EnforcementOptions.Broadcasting.NORMAL),
+				packet(2L, PunishmentType.MUTE, Mode.DO, EnforcementOptions.Broadcasting.NORMAL),
+				packet(3L, PunishmentType.BAN, Mode.DO, EnforcementOptions.Broadcasting.NORMAL)
+		)).toCompletableFuture();
+
+		verify(enforcer).enforceWithoutSynchronization(eq(otherBan), any());
+		verify(enforcer, never()).enforceWithoutSynchronization(eq(mute), any());
+
+		banEnforcement.complete(null);
+		reception.join();
+		verify(enforcer).enforceWithoutSynchronization(eq(mute), any());
+	}
+
+	@Test
+	public void undoWithoutBroadcastInOrderWithSameVictim() {
+		UUID uuid = UUID.randomUUID();
+		Punishment ban = punishment(1L, PunishmentType.BAN, PlayerVictim.of(uuid));
+		Punishment otherBan = punishment(2L, PunishmentType.BAN, PlayerVictim.of(uuid));
+		fetchPunishments(Set.of(1L, 2L), ban, otherBan);
+
+		CentralisedFuture<Void> unenforcement = futuresFactory.newIncompleteFuture();
+		when(enforcer.unenforceWithoutSynchronization(eq(1L), eq(PunishmentType.BAN), any())).thenReturn(unenforcement);
+
+		var reception = messageReceiver.onReceptionOfAll(List.of(
+				packet(1L, PunishmentType.BAN, Mode.UNDO, EnforcementOptions.Broadcasting.NONE),
+				packet(2L, PunishmentType.BAN, Mode.DO, EnforcementOptions.Broadcasting.NORMAL)
+		)).toCompletableFuture();
+
+		verify(enforcer, never()).enforceWithoutSynchronization(eq(otherBan), any());
+
+		unenforcement.complete(null);
+		reception.join();
+		verify(enforcer).enforceWithoutSynchronization(eq(otherBan), any());
+	}
+
+	@Test
+	public void nonexistentPunishment() {
+		Punishment warn = punishment(1L, PunishmentType.WARN, PlayerVictim.of(UUID.randomUUID()));
+		fetchPunishments(Set.of(1L, 2L), warn);
+
+		messageReceiver.onReceptionOfAll(List.of(
+				// Type mismatch
+				packet(1L, PunishmentType.BAN, Mode.DO, EnforcementOptions.Broadcasting.NORMAL),
+				packet(2L, PunishmentType.BAN, Mode.UNDO, EnforcementOptions.Broadcasting.NORMAL)
+		)).toCompletableFuture().join();
+
+		verifyNoInteractions(enforcer);
+	}
+}
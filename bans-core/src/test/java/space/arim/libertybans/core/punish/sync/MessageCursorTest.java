@@ -0,0 +1,99 @@
+/*
+ * LibertyBans
+ * Copyright © 2023 Anand Beh
+ *
+ * LibertyBans is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * LibertyBans is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with LibertyBans. If not, see <https://www.gnu.org/licenses/>
+ * and navigate to version 3 of the GNU Affero General Public License.
+ */
+
+package space.arim.libertybans.core.punish.sync;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MessageCursorTest {
+
+	private final Instant now = Instant.ofEpochSecond(1_000_000L);
+	private MessageCursor cursor;
+
+	@BeforeEach
+	public void setCursor() {
+		cursor = new MessageCursor(Duration.ofSeconds(30L), 10);
+	}
+
+	@Test
+	public void uninitialized() {
+		assertFalse(cursor.isInitialized());
+		cursor.initialize(5L);
+		assertTrue(cursor.isInitialized());
+		cursor.reset();
+		assertFalse(cursor.isInitialized());
+	}
+
+	@Test
+	public void advanceContiguous() {
+		cursor.initialize(5L);
+		cursor.advance(6L, now);
+		cursor.advance(7L, now);
+		assertEquals(7L, cursor.position());
+		assertEquals(Set.of(), cursor.pendingGaps(now));
+	}
+
+	@Test
+	public void trackGapUntilFilled() {
+		cursor.initialize(5L);
+		cursor.advance(8L, now);
+		assertEquals(8L, cursor.position());
+		assertEquals(Set.of(6L, 7L), cursor.pendingGaps(now));
+
+		cursor.advance(7L, now);
+		assertEquals(8L, cursor.position());
+		assertEquals(Set.of(6L), cursor.pendingGaps(now));
+	}
+
+	@Test
+	public void gapExpires() {
+		cursor.initialize(5L);
+		cursor.advance(7L, now);
+		assertEquals(Set.of(6L), cursor.pendingGaps(now.plusSeconds(30L)));
+		assertEquals(Set.of(), cursor.pendingGaps(now.plusSeconds(31L)));
+	}
+
+	@Test
+	public void ignoreLargeGap() {
+		cursor.initialize(5L);
+		cursor.advance(100L, now);
+		assertEquals(100L, cursor.position());
+		assertEquals(Set.of(), cursor.pendingGaps(now));
+	}
+
+	@Test
+	public void noGapsBeforeFirstMessage() {
+		cursor.initialize(null);
+		cursor.advance(4L, now);
+		assertEquals(4L, cursor.position());
+		assertEquals(Set.of(), cursor.pendingGaps(now));
+
+		cursor.advance(6L, now);
+		assertEquals(Set.of(5L), cursor.pendingGaps(now));
+	}
+}
@@ -33,6 +33,8 @@ import space.arim.libertybans.core.punish.Mode;
 import space.arim.omnibus.util.concurrent.FactoryOfTheFuture;
 import space.arim.omnibus.util.concurrent.impl.IndifferentFactoryOfTheFuture;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.ThreadLocalRandom;
 
@@ -92,6 +94,29 @@ public class SynchronizationProtocolTest {
 		communicateMessageSuccessfully(new PacketUpdateDetails(id));
 	}
 
+	@Test
+	public void enforcementBatch() {
+		List<PacketEnforceUnenforce> packets = List.of(
+				new PacketEnforceUnenforce(
+						id, PunishmentType.BAN, Mode.DO, EnforcementOptions.Broadcasting.NORMAL, "user1", null
+				),
+				new PacketEnforceUnenforce(
+						id + 1, PunishmentType.WARN, Mode.DO, EnforcementOptions.Broadcasting.SILENT, null,
+						ConsoleOperator.INSTANCE
+				)
+		);
+		// Use a separate instance, otherwise the message is recognized as our own
+		byte[] serializedMessage = new SynchronizationProtocol(futuresFactory)
+				.serializeMessage(new PacketEnforceUnenforceBatch(packets));
+
+		List<SynchronizationPacket> receivedMessages = new ArrayList<>();
+		synchronizationProtocol.receiveAllMessages(new byte[][] {serializedMessage}, receivedMessage -> {
+			receivedMessages.add(receivedMessage);
+			return futuresFactory.completedFuture(null);
+		}).toCompletableFuture().join();
+		assertEquals(packets, receivedMessages);
+	}
+
 	private void communicateMessageSuccessfully(SynchronizationPacket message) {
 		byte[] serializedMessage = synchronizationProtocol.serializeMessage(message);
 
@@ -0,0 +1,99 @@
+/*
+ * LibertyBans
+ * Copyright © 2023 Anand Beh
+ *
+ * LibertyBans is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * LibertyBans is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with LibertyBans. If not, see <https://www.gnu.org/licenses/>
+ * and navigate to version 3 of the GNU Affero General Public License.
+ */
+
+package space.arim.libertybans.core.selector;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+public class AccountClusteringComponentsTest {
+
+	private AccountClustering.Components components;
+
+	@BeforeEach
+	public void setComponents() {
+		components = new AccountClustering.Components();
+	}
+
+	@Test
+	public void unlinkedAccountsAreTheirOwnCluster() {
+		UUID first = UUID.randomUUID();
+		UUID second = UUID.randomUUID();
+		components.add(first);
+		components.add(second);
+
+		assertEquals(first, components.find(first));
+		assertEquals(second, components.find(second));
+		assertEquals(Set.of(first, second), components.accounts());
+	}
+
+	@Test
+	public void linksAreTransitive() {
+		UUID first = new UUID(0L, 3L);
+		UUID second = new UUID(0L, 1L);
+		UUID third = new UUID(0L, 2L);
+		UUID unrelated = new UUID(0L, 4L);
+		for (UUID uuid : new UUID[] {first, second, third, unrelated}) {
+			components.add(uuid);
+		}
+		components.union(first, second);
+		components.union(third, first);
+
+		// The least uuid represents the cluster
+		assertEquals(second, components.find(first));
+		assertEquals(second, components.find(second));
+		assertEquals(second, components.find(third));
+		assertNotEquals(second, components.find(unrelated));
+	}
+
+	@Test
+	public void repeatedLinksAreHarmless() {
+		UUID first = UUID.randomUUID();
+		UUID second = UUID.randomUUID();
+		components.add(first);
+		components.add(second);
+		components.add(first);
+		components.union(first, second);
+		components.union(second, first);
+
+		assertEquals(components.find(first), components.find(second));
+		assertEquals(2, components.accounts().size());
+	}
+
+	@Test
+	public void longChain() {
+		UUID[] chain = new UUID[1000];
+		for (int n = 0; n < chain.length; n++) {
+			chain[n] = new UUID(0L, n);
+			components.add(chain[n]);
+		}
+		for (int n = chain.length - 1; n > 0; n--) {
+			components.union(chain[n], chain[n - 1]);
+		}
+		for (UUID uuid : chain) {
+			assertEquals(chain[0], components.find(uuid));
+		}
+	}
+}
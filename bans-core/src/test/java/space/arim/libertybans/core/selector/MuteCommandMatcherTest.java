@@ -0,0 +1,120 @@
+/*
+ * LibertyBans
+ * Copyright © 2023 Anand Beh
+ *
+ * LibertyBans is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * LibertyBans is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with LibertyBans. If not, see <https://www.gnu.org/licenses/>
+ * and navigate to version 3 of the GNU Affero General Public License.
+ */
+package space.arim.libertybans.core.selector;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MuteCommandMatcherTest {
+
+	private final MuteCommandMatcher matcher = MuteCommandMatcher.compile(
+			Set.of("me", "msg", "r", "clan chat", "Party Chat Send")
+	);
+
+	@Test
+	public void singleWord() {
+		assertTrue(matcher.matches("msg"));
+		assertTrue(matcher.matches("msg Player1 hello"));
+		assertTrue(matcher.matches("MSG Player1"));
+		assertTrue(matcher.matches("r hi"));
+		assertFalse(matcher.matches("msgs"));
+		assertFalse(matcher.matches("ms"));
+		assertFalse(matcher.matches("help msg"));
+		assertFalse(matcher.matches("rules"));
+	}
+
+	@Test
+	public void multipleWords() {
+		assertTrue(matcher.matches("clan chat"));
+		assertTrue(matcher.matches("clan chat hello there"));
+		assertTrue(matcher.matches("CLAN Chat hello"));
+		assertTrue(matcher.matches("party chat send hi"));
+		assertFalse(matcher.matches("clan"));
+		assertFalse(matcher.matches("clan chatter"));
+		assertFalse(matcher.matches("clan invite"));
+		assertFalse(matcher.matches("party chat"));
+	}
+
+	@Test
+	public void namespacedCommands() {
+		assertTrue(matcher.matches("essentials:msg Player1 hello"));
+		assertTrue(matcher.matches("clans:clan chat hello"));
+		assertTrue(matcher.matches("a:me"));
+		assertFalse(matcher.matches("essentials:help"));
+		assertFalse(matcher.matches("msg:help"));
+	}
+
+	@Test
+	public void edgeCases() {
+		assertFalse(matcher.matches(""));
+		assertFalse(matcher.matches(" "));
+		assertFalse(matcher.matches(":"));
+		assertTrue(matcher.matches("msg "));
+		assertFalse(matcher.matches("clan  chat"));
+		assertFalse(MuteCommandMatcher.compile(Set.of()).matches("msg"));
+	}
+
+	@Test
+	public void sameAsSplittingIntoWords() {
+		Set<String> muteCommands = Set.of("me", "say", "msg", "tell", "clan chat", "Party Chat", "w ");
+		MuteCommandMatcher matcher = MuteCommandMatcher.compile(muteCommands);
+		for (String command : List.of(
+				"me", "me waves", "say hi", "Say", "ess:say hi", "msg", "msg a", "tell", "tel",
+				"clan chat", "clan chat x", "clan chatx", "clan", "party chat", "PARTY CHAT hello",
+				"w", "w Player", "wx", "ns:w x", "help", "a b c", "x:y:z", "msg:say")) {
+			assertEquals(matchesBySplitting(command, muteCommands), matcher.matches(command), command);
+		}
+	}
+
+	// The previous implementation, which split commands into words
+	private static boolean matchesBySplitting(String command, Set<String> muteCommands) {
+		String[] words = command.split(" ");
+		if (words[0].indexOf(':') != -1) {
+			words[0] = words[0].split(":", 2)[1];
+		}
+		for (String muteCommand : muteCommands) {
+			if (words[0].equalsIgnoreCase(muteCommand)) {
+				return true;
+			}
+			if (muteCommand.indexOf(' ') != -1) {
+				String[] muteCommandWords = muteCommand.split(" ");
+				if (muteCommandWords.length > words.length) {
+					continue;
+				}
+				boolean matches = true;
+				for (int n = 0; n < muteCommandWords.length; n++) {
+					if (!muteCommandWords[n].equalsIgnoreCase(words[n])) {
+						matches = false;
+						break;
+					}
+				}
+				if (matches) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+}
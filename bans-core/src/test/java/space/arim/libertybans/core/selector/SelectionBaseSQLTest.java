@@ -32,6 +32,7 @@ import space.arim.libertybans.core.database.execute.QueryExecutor;
 import space.arim.libertybans.core.database.jooq.JooqContext;
 import space.arim.libertybans.core.punish.PunishmentCreator;
 import space.arim.libertybans.core.scope.InternalScopeManager;
+import space.arim.libertybans.core.selector.cache.PunishmentCounts;
 import space.arim.libertybans.core.service.Time;
 import space.arim.omnibus.util.concurrent.impl.IndifferentFactoryOfTheFuture;
 
@@ -49,7 +50,8 @@ public class SelectionBaseSQLTest {
 	public void optimizedApplicabilityQuery(AddressStrictness strictness) {
 		SelectionResources selectionResources = new SelectionResources(
 				new IndifferentFactoryOfTheFuture(), () -> mock(QueryExecutor.class),
-				mock(InternalScopeManager.class), mock(PunishmentCreator.class), mock(Time.class)
+				mock(InternalScopeManager.class), mock(PunishmentCreator.class),
+				mock(PunishmentCounts.class), mock(Time.class)
 		);
 		UUID uuid = UUID.randomUUID();
 		NetworkAddress address = NetworkAddress.of(InetAddress.getLoopbackAddress());
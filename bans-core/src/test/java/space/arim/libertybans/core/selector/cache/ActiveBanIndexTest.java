@@ -0,0 +1,162 @@
+/*
+ * LibertyBans
+ * Copyright © 2023 Anand Beh
+ *
+ * LibertyBans is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * LibertyBans is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with LibertyBans. If not, see <https://www.gnu.org/licenses/>
+ * and navigate to version 3 of the GNU Affero General Public License.
+ */
+
+package space.arim.libertybans.core.selector.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import space.arim.libertybans.api.AddressVictim;
+import space.arim.libertybans.api.NetworkAddress;
+import space.arim.libertybans.api.PlayerVictim;
+import space.arim.libertybans.api.Victim;
+import space.arim.libertybans.api.punish.Punishment;
+import space.arim.libertybans.api.scope.ServerScope;
+import space.arim.libertybans.api.select.AddressStrictness;
+import space.arim.libertybans.core.config.Configs;
+import space.arim.libertybans.core.database.execute.QueryExecutor;
+import space.arim.libertybans.core.punish.PunishmentCreator;
+import space.arim.libertybans.core.service.Time;
+import space.arim.libertybans.it.util.RandomUtil;
+import space.arim.omnibus.util.concurrent.CentralisedFuture;
+import space.arim.omnibus.util.concurrent.EnhancedExecutor;
+import space.arim.omnibus.util.concurrent.impl.IndifferentFactoryOfTheFuture;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ActiveBanIndexTest {
+
+	private final ServerScope scope;
+	private final ActiveBanIndex.Index index = new ActiveBanIndex.Index();
+	private final Clock clock = Clock.fixed(Instant.EPOCH, ZoneOffset.UTC);
+
+	private final UUID uuid = UUID.randomUUID();
+	private final NetworkAddress address = RandomUtil.randomAddress();
+
+	public ActiveBanIndexTest(@Mock ServerScope scope) {
+		this.scope = scope;
+	}
+
+	private Punishment ban(long id, Victim victim, ServerScope scope) {
+		Punishment ban = mock(Punishment.class);
+		lenient().when(ban.getIdentifier()).thenReturn(id);
+		lenient().when(ban.getVictim()).thenReturn(victim);
+		lenient().when(ban.getScope()).thenReturn(scope);
+		lenient().when(ban.getEndDate()).thenReturn(Punishment.PERMANENT_END_DATE);
+		lenient().when(ban.isExpired(any())).thenReturn(false);
+		return ban;
+	}
+
+	private Punishment find(AddressStrictness strictness) {
+		return index.findApplicableBan(uuid, address, Set.of(scope), strictness, clock);
+	}
+
+	@Test
+	public void findPlayerBan() {
+		Punishment ban = ban(1L, PlayerVictim.of(uuid), scope);
+		index.addBan(ban);
+		assertEquals(ban, find(AddressStrictness.LENIENT));
+		index.removeBan(1L);
+		assertNull(find(AddressStrictness.LENIENT));
+	}
+
+	@Test
+	public void ignoreBanInOtherScope(@Mock ServerScope otherScope) {
+		index.addBan(ban(1L, PlayerVictim.of(uuid), otherScope));
+		assertNull(find(AddressStrictness.NORMAL));
+	}
+
+	@Test
+	public void findBanOnPastAddressOnlyIfNormal() {
+		NetworkAddress pastAddress = RandomUtil.randomAddress();
+		Punishment ban = ban(1L, AddressVictim.of(pastAddress), scope);
+		index.addBan(ban);
+		index.addAccountOnAddressIfBanned(uuid, pastAddress);
+		assertNull(find(AddressStrictness.LENIENT));
+		assertEquals(ban, find(AddressStrictness.NORMAL));
+
+		index.removeBan(1L);
+		assertNull(find(AddressStrictness.NORMAL));
+		// Association is no longer tracked once the address is unbanned
+		index.addBan(ban);
+		assertNull(find(AddressStrictness.NORMAL));
+	}
+
+	@Test
+	public void replaceDetailsKeepingAccounts(@Mock ServerScope otherScope) {
+		NetworkAddress pastAddress = RandomUtil.randomAddress();
+		AddressVictim victim = AddressVictim.of(pastAddress);
+		assertFalse(index.addBan(ban(1L, victim, scope)));
+		index.addAccountOnAddressIfBanned(uuid, pastAddress);
+
+		// Scope modified
+		assertTrue(index.addBan(ban(1L, victim, otherScope)));
+		assertNull(find(AddressStrictness.NORMAL));
+
+		Punishment modifiedAgain = ban(1L, victim, scope);
+		assertTrue(index.addBan(modifiedAgain));
+		assertEquals(modifiedAgain, find(AddressStrictness.NORMAL));
+	}
+
+	@Test
+	public void replayAssociationMadeDuringLoad(@Mock QueryExecutor queryExecutor, @Mock Time time) {
+		ActiveBanIndex banIndex = new ActiveBanIndex(
+				mock(Configs.class), () -> queryExecutor, mock(EnhancedExecutor.class),
+				mock(PunishmentCreator.class), time
+		);
+		when(time.toJdkClock()).thenReturn(clock);
+		CentralisedFuture<ActiveBanIndex.Index> loading = new IndifferentFactoryOfTheFuture().newIncompleteFuture();
+		doReturn(loading).when(queryExecutor).query(any());
+
+		NetworkAddress pastAddress = RandomUtil.randomAddress();
+		Punishment ban = ban(1L, AddressVictim.of(pastAddress), scope);
+		index.addBan(ban);
+		CentralisedFuture<?> reload = banIndex.reload();
+		banIndex.addAssociation(uuid, pastAddress);
+		loading.complete(index);
+		reload.join();
+
+		ActiveBanIndex.Lookup lookup = banIndex.lookupApplicableBan(uuid, address, Set.of(scope), AddressStrictness.NORMAL);
+		assertEquals(new ActiveBanIndex.Lookup(ban), lookup);
+	}
+
+	@Test
+	public void supportsStrictness() {
+		assertTrue(ActiveBanIndex.supportsStrictness(AddressStrictness.LENIENT));
+		assertTrue(ActiveBanIndex.supportsStrictness(AddressStrictness.NORMAL));
+		assertFalse(ActiveBanIndex.supportsStrictness(AddressStrictness.STERN));
+		assertFalse(ActiveBanIndex.supportsStrictness(AddressStrictness.STRICT));
+	}
+}
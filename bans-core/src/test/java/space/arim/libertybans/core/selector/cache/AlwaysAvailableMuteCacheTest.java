@@ -27,12 +27,19 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import space.arim.libertybans.api.NetworkAddress;
+import space.arim.libertybans.api.PlayerVictim;
 import space.arim.libertybans.api.PunishmentType;
 import space.arim.libertybans.api.punish.Punishment;
+import space.arim.libertybans.api.select.AddressStrictness;
+import space.arim.libertybans.api.select.SelectionOrder;
+import space.arim.libertybans.api.select.SelectionOrderBuilder;
 import space.arim.libertybans.core.config.Configs;
 import space.arim.libertybans.core.config.InternalFormatter;
+import space.arim.libertybans.core.config.MainConfig;
 import space.arim.libertybans.core.config.SqlConfig;
-import space.arim.libertybans.core.env.EnvUserResolver;
+import space.arim.libertybans.core.env.EnvEnforcer;
+import space.arim.libertybans.core.env.UUIDAndAddress;
+import space.arim.libertybans.core.selector.EnforcementConfig;
 import space.arim.libertybans.core.selector.InternalSelector;
 import space.arim.libertybans.core.service.SettableTime;
 import space.arim.libertybans.core.service.SettableTimeImpl;
@@ -40,19 +47,30 @@ import space.arim.libertybans.it.util.RandomUtil;
 import space.arim.omnibus.util.concurrent.CentralisedFuture;
 import space.arim.omnibus.util.concurrent.EnhancedExecutor;
 import space.arim.omnibus.util.concurrent.FactoryOfTheFuture;
+import space.arim.omnibus.util.concurrent.ScheduledTask;
 import space.arim.omnibus.util.concurrent.impl.IndifferentFactoryOfTheFuture;
 
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -66,10 +84,15 @@ public class AlwaysAvailableMuteCacheTest {
 	private final InternalSelector selector;
 	private final EnhancedExecutor enhancedExecutor;
 	private final List<Runnable> scheduledTasks = new ArrayList<>();
-	private final EnvUserResolver envUserResolver;
+	private final EnvEnforcer<UUID> envEnforcer;
+	private final Set<UUID> onlinePlayers = new HashSet<>();
 	private final InternalFormatter formatter;
+	private final MuteCacheSnapshot snapshot;
+	private final BulkMuteLookup bulkMuteLookup;
 	private final SettableTime time = new SettableTimeImpl(Instant.EPOCH);
 
+	private Configs configs;
+	private SqlConfig.MuteCaching muteCaching;
 	private UUID uuid;
 	private NetworkAddress address;
 	private MuteCache muteCache;
@@ -80,18 +103,23 @@ public class AlwaysAvailableMuteCacheTest {
 			.plus(Duration.ofSeconds(20L));
 
 	public AlwaysAvailableMuteCacheTest(@Mock InternalSelector selector, @Mock EnhancedExecutor enhancedExecutor,
-										@Mock EnvUserResolver envUserResolver, @Mock InternalFormatter formatter) {
+										@Mock EnvEnforcer<UUID> envEnforcer, @Mock InternalFormatter formatter,
+										@Mock MuteCacheSnapshot snapshot, @Mock BulkMuteLookup bulkMuteLookup) {
 		this.selector = selector;
 		this.enhancedExecutor = enhancedExecutor;
-		this.envUserResolver = envUserResolver;
+		this.envEnforcer = envEnforcer;
 		this.formatter = formatter;
+		this.snapshot = snapshot;
+		this.bulkMuteLookup = bulkMuteLookup;
 	}
 
 	@BeforeEach
 	public void setMuteCache(@Mock Configs configs, @Mock SqlConfig sqlConfig,
 							 @Mock SqlConfig.MuteCaching muteCaching, @Mock SqlConfig.Synchronization synchronization) {
+		this.configs = configs;
 		when(configs.getSqlConfig()).thenReturn(sqlConfig);
 		when(sqlConfig.muteCaching()).thenReturn(muteCaching);
+		this.muteCaching = muteCaching;
 		when(muteCaching.expirationTimeSeconds()).thenReturn((int) EXPIRATION_TIME.toSeconds());
 		when(muteCaching.expirationSemantic()).thenReturn(SqlConfig.MuteCaching.ExpirationSemantic.EXPIRE_AFTER_WRITE);
 		when(sqlConfig.synchronization()).thenReturn(synchronization);
@@ -99,16 +127,23 @@ public class AlwaysAvailableMuteCacheTest {
 		when(enhancedExecutor.scheduleRepeating((Runnable) any(), any(), any())).thenAnswer((invocation) -> {
 			Runnable command = invocation.getArgument(0);
 			scheduledTasks.add(command);
-			return null;
+			return mock(ScheduledTask.class);
 		});
 
 		muteCache = new AlwaysAvailableMuteCache(
-				configs, futuresFactory, selector, enhancedExecutor, envUserResolver, formatter, time);
+				configs, futuresFactory, selector, enhancedExecutor, envEnforcer, formatter, snapshot, bulkMuteLookup, time);
 		muteCache.startup();
 
 		uuid = UUID.randomUUID();
 		address = RandomUtil.randomAddress();
-		when(envUserResolver.lookupName(uuid)).thenReturn(futuresFactory.completedFuture(Optional.of("Username")));
+		onlinePlayers.add(uuid);
+		// Players are represented by their UUIDs
+		lenient().when(envEnforcer.doForAllPlayers(any())).thenAnswer((invocation) -> {
+			Consumer<Collection<? extends UUID>> action = invocation.getArgument(0);
+			action.accept(Set.copyOf(onlinePlayers));
+			return futuresFactory.completedFuture(null);
+		});
+		lenient().when(envEnforcer.getUniqueIdFor(any())).thenAnswer((invocation) -> invocation.getArgument(0));
 	}
 
 	private void assertAvailableCacheResult(@Nullable Component muteMessage) {
@@ -207,6 +242,37 @@ public class AlwaysAvailableMuteCacheTest {
 		assertAvailableCacheResult(null);
 	}
 
+	// cacheInBulk
+
+	@Test
+	public void muteIsAvailableAfterBulkCaching(@Mock Punishment mute) {
+		Component muteMessage = Component.text("You are muted");
+		UUIDAndAddress user = new UUIDAndAddress(uuid, address);
+		UUIDAndAddress otherUser = new UUIDAndAddress(UUID.randomUUID(), RandomUtil.randomAddress());
+		when(bulkMuteLookup.lookupApplicableMutes(List.of(user, otherUser))).thenReturn(futuresFactory.completedFuture(
+				Map.of(user, Optional.of(mute), otherUser, Optional.empty())
+		));
+		when(formatter.getPunishmentMessage(mute)).thenReturn(futuresFactory.completedFuture(muteMessage));
+		muteCache.cacheInBulk(List.of(user, otherUser)).join();
+
+		assertAvailableCacheResult(muteMessage);
+		CentralisedFuture<Optional<Punishment>> otherUserMute = muteCache.getCachedMute(otherUser.uuid(), otherUser.address());
+		assertTrue(otherUserMute.isDone());
+		assertEquals(Optional.empty(), otherUserMute.join());
+		verify(selector, times(0)).getApplicablePunishment(any(), any(), any());
+	}
+
+	@Test
+	public void bulkCachingFallsBackToQueryPerUser() {
+		UUIDAndAddress user = new UUIDAndAddress(uuid, address);
+		when(bulkMuteLookup.lookupApplicableMutes(List.of(user))).thenReturn(null);
+		when(selector.getApplicablePunishment(uuid, address, PunishmentType.MUTE))
+				.thenReturn(futuresFactory.completedFuture(Optional.empty()));
+		muteCache.cacheInBulk(List.of(user)).join();
+
+		assertAvailableCacheResult(null);
+	}
+
 	// cacheRequest
 
 	@Test
@@ -391,7 +457,7 @@ public class AlwaysAvailableMuteCacheTest {
 		when(selector.getApplicablePunishment(uuid, address, PunishmentType.MUTE))
 				.thenReturn(databaseQuery);
 
-		when(envUserResolver.lookupName(uuid)).thenReturn(futuresFactory.completedFuture(Optional.empty()));
+		onlinePlayers.remove(uuid);
 		// Player is now logged out, but mute is still cached
 		assertAvailableCacheResult(null);
 
@@ -404,6 +470,7 @@ public class AlwaysAvailableMuteCacheTest {
 		time.advanceBy(PURGE_TASK_INTERVAL);
 		runScheduledTasks();
 		// Player is logged out and mute is purged
+		assertEquals(1, ((AlwaysAvailableMuteCache) muteCache).purgeStatistics().lastEvicted());
 
 		CentralisedFuture<Optional<Punishment>> cachedMute = muteCache.getCachedMute(uuid, address);
 		assertFalse(cachedMute.isDone());
@@ -412,4 +479,111 @@ public class AlwaysAvailableMuteCacheTest {
 		assertTrue(cachedMute.isDone());
 		assertEquals(Optional.empty(), cachedMute.join());
 	}
+
+	// Persistence
+
+	@Test
+	public void restoreFromSnapshotWithoutQueryingEachPlayer(@Mock Punishment mute,
+															 @Mock SelectionOrderBuilder selectionBuilder,
+															 @Mock SelectionOrder selection) {
+		time.advanceBy(Duration.ofDays(3L));
+		Instant muteStart = time.currentTimestamp().minus(Duration.ofHours(2L));
+		Component muteMessage = Component.text("Muted for a while");
+		when(muteCaching.persistAcrossRestarts()).thenReturn(true);
+		when(mute.getIdentifier()).thenReturn(7L);
+		when(mute.getStartDate()).thenReturn(muteStart);
+		when(selector.getApplicablePunishment(uuid, address, PunishmentType.MUTE))
+				.thenReturn(futuresFactory.completedFuture(Optional.of(mute)));
+		when(formatter.getPunishmentMessage(mute)).thenReturn(futuresFactory.completedFuture(muteMessage));
+		muteCache.cacheOnLogin(uuid, address).join();
+
+		AtomicReference<MuteCacheSnapshot.Contents> savedContents = new AtomicReference<>();
+		doAnswer((invocation) -> {
+			savedContents.set(invocation.getArgument(0));
+			return null;
+		}).when(snapshot).write(any());
+		when(snapshot.readAndDelete()).thenAnswer((invocation) -> savedContents.get());
+		when(selector.selectionBuilder()).thenReturn(selectionBuilder);
+		when(selectionBuilder.type(PunishmentType.MUTE)).thenReturn(selectionBuilder);
+		when(selectionBuilder.selectActiveOnly()).thenReturn(selectionBuilder);
+		when(selectionBuilder.seekAfter(eq(muteStart), eq(0L))).thenReturn(selectionBuilder);
+		when(selectionBuilder.build()).thenReturn(selection);
+		when(selection.getAllSpecificPunishments()).thenReturn(futuresFactory.completedFuture(List.of(mute)));
+
+		muteCache.restart();
+
+		assertEquals(
+				List.of(new MuteCacheSnapshot.Entry(uuid, address, 7L, muteStart)),
+				savedContents.get().entries()
+		);
+		assertAvailableCacheResult(muteMessage);
+		// Only the query made at login
+		verify(selector, times(1)).getApplicablePunishment(uuid, address, PunishmentType.MUTE);
+	}
+
+	@Test
+	public void restoreFromSnapshotRefreshingOnlyPlayersAffectedByNewMutes(
+			@Mock Punishment mute, @Mock Punishment newMute, @Mock MainConfig mainConfig,
+			@Mock EnforcementConfig enforcementConfig, @Mock SelectionOrderBuilder selectionBuilder,
+			@Mock SelectionOrder selection) {
+		time.advanceBy(Duration.ofDays(3L));
+		Instant muteStart = time.currentTimestamp().minus(Duration.ofHours(2L));
+		UUIDAndAddress otherUser = new UUIDAndAddress(UUID.randomUUID(), RandomUtil.randomAddress());
+		when(muteCaching.persistAcrossRestarts()).thenReturn(true);
+		when(snapshot.readAndDelete()).thenReturn(new MuteCacheSnapshot.Contents(time.currentTimestamp(), List.of(
+				new MuteCacheSnapshot.Entry(uuid, address, 7L, muteStart),
+				new MuteCacheSnapshot.Entry(otherUser.uuid(), otherUser.address(), 0L, Instant.EPOCH)
+		)));
+		when(mute.getIdentifier()).thenReturn(7L);
+		when(newMute.getIdentifier()).thenReturn(8L);
+		when(newMute.getStartDate()).thenReturn(time.currentTimestamp().minus(Duration.ofMinutes(1L)));
+		when(newMute.getVictim()).thenReturn(PlayerVictim.of(otherUser.uuid()));
+		when(configs.getMainConfig()).thenReturn(mainConfig);
+		when(mainConfig.enforcement()).thenReturn(enforcementConfig);
+		when(enforcementConfig.addressStrictness()).thenReturn(AddressStrictness.NORMAL);
+		when(selector.selectionBuilder()).thenReturn(selectionBuilder);
+		when(selectionBuilder.type(PunishmentType.MUTE)).thenReturn(selectionBuilder);
+		when(selectionBuilder.selectActiveOnly()).thenReturn(selectionBuilder);
+		when(selectionBuilder.seekAfter(eq(muteStart), eq(0L))).thenReturn(selectionBuilder);
+		when(selectionBuilder.build()).thenReturn(selection);
+		when(selection.getAllSpecificPunishments()).thenReturn(futuresFactory.completedFuture(List.of(mute, newMute)));
+		when(bulkMuteLookup.lookupApplicableMutes(List.of(otherUser))).thenReturn(futuresFactory.completedFuture(
+				Map.of(otherUser, Optional.of(newMute))
+		));
+		Component muteMessage = Component.text("Muted for a while");
+		when(formatter.getPunishmentMessage(mute)).thenReturn(futuresFactory.completedFuture(muteMessage));
+		when(formatter.getPunishmentMessage(newMute)).thenReturn(futuresFactory.completedFuture(Component.text("Muted")));
+
+		muteCache.restart();
+
+		assertAvailableCacheResult(muteMessage);
+		CentralisedFuture<Optional<Punishment>> otherUserMute = muteCache.getCachedMute(otherUser.uuid(), otherUser.address());
+		assertTrue(otherUserMute.isDone());
+		assertEquals(Optional.of(newMute), otherUserMute.join());
+		verify(selector, times(0)).getApplicablePunishment(any(), any(), any());
+	}
+
+	@Test
+	public void purgeLooksUpOnlinePlayersOnce() {
+		when(selector.getApplicablePunishment(any(), any(), any()))
+				.thenReturn(futuresFactory.completedFuture(Optional.empty()));
+		List<UUID> offlinePlayers = new ArrayList<>();
+		for (int n = 0; n < 5; n++) {
+			UUID offlinePlayer = UUID.randomUUID();
+			offlinePlayers.add(offlinePlayer);
+			muteCache.cacheOnLogin(offlinePlayer, RandomUtil.randomAddress()).join();
+		}
+		muteCache.cacheOnLogin(uuid, address).join();
+
+		time.advanceBy(Duration.ofNanos(GRACE_PERIOD_NANOS));
+		time.advanceBy(PURGE_TASK_INTERVAL);
+		runScheduledTasks();
+
+		verify(envEnforcer, times(1)).doForAllPlayers(any());
+		AlwaysAvailableMuteCache.PurgeStatistics statistics = ((AlwaysAvailableMuteCache) muteCache).purgeStatistics();
+		assertEquals(offlinePlayers.size(), statistics.lastEvicted());
+		assertEquals(offlinePlayers.size(), statistics.totalEvicted());
+		// The online player is still cached
+		assertAvailableCacheResult(null);
+	}
 }
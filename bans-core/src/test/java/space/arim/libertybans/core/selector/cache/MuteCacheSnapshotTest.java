@@ -0,0 +1,71 @@
+/*
+ * LibertyBans
+ * Copyright © 2023 Anand Beh
+ *
+ * LibertyBans is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * LibertyBans is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with LibertyBans. If not, see <https://www.gnu.org/licenses/>
+ * and navigate to version 3 of the GNU Affero General Public License.
+ */
+package space.arim.libertybans.core.selector.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import space.arim.libertybans.api.NetworkAddress;
+import space.arim.libertybans.it.util.RandomUtil;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class MuteCacheSnapshotTest {
+
+	@TempDir
+	public Path folder;
+
+	@Test
+	public void writeThenRead() {
+		MuteCacheSnapshot snapshot = new MuteCacheSnapshot(folder);
+		NetworkAddress ipv4 = NetworkAddress.of(new byte[] {127, 0, 0, 1});
+		NetworkAddress otherAddress = RandomUtil.randomAddress();
+		MuteCacheSnapshot.Contents contents = new MuteCacheSnapshot.Contents(
+				Instant.ofEpochSecond(1_600_000_000L), List.of(
+						new MuteCacheSnapshot.Entry(UUID.randomUUID(), ipv4, 0L, Instant.EPOCH),
+						new MuteCacheSnapshot.Entry(UUID.randomUUID(), otherAddress, 42L, Instant.ofEpochSecond(1_500_000_000L))
+				)
+		);
+		snapshot.write(contents);
+		assertEquals(contents, snapshot.readAndDelete());
+		assertNull(snapshot.readAndDelete(), "Snapshot should be deleted after reading");
+	}
+
+	@Test
+	public void readWithoutSnapshot() {
+		assertNull(new MuteCacheSnapshot(folder).readAndDelete());
+	}
+
+	@Test
+	public void ignoreCorruptSnapshot() throws IOException {
+		Path internalFolder = Files.createDirectories(folder.resolve("internal"));
+		Path file = internalFolder.resolve("mute-cache-snapshot.dat");
+		Files.write(file, new byte[] {0, 0, 0, 1, 5});
+		assertNull(new MuteCacheSnapshot(folder).readAndDelete());
+		assertFalse(Files.exists(file));
+	}
+}
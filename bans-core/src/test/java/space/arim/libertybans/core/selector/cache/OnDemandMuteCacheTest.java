@@ -30,6 +30,7 @@ import space.arim.libertybans.api.punish.Punishment;
 import space.arim.libertybans.core.config.Configs;
 import space.arim.libertybans.core.config.InternalFormatter;
 import space.arim.libertybans.core.config.SqlConfig;
+import space.arim.libertybans.core.env.UUIDAndAddress;
 import space.arim.libertybans.core.selector.InternalSelector;
 import space.arim.libertybans.core.service.SettableTime;
 import space.arim.libertybans.core.service.SettableTimeImpl;
@@ -39,6 +40,8 @@ import space.arim.omnibus.util.concurrent.impl.IndifferentFactoryOfTheFuture;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -53,6 +56,7 @@ public class OnDemandMuteCacheTest {
 
 	private final FactoryOfTheFuture futuresFactory = new IndifferentFactoryOfTheFuture();
 	private final InternalSelector selector;
+	private final BulkMuteLookup bulkMuteLookup;
 	private final SettableTime time = new SettableTimeImpl(Instant.EPOCH);
 
 	private UUID uuid;
@@ -61,8 +65,9 @@ public class OnDemandMuteCacheTest {
 
 	private static final Duration EXPIRATION_TIME = Duration.ofSeconds(20L);
 
-	public OnDemandMuteCacheTest(@Mock InternalSelector selector) {
+	public OnDemandMuteCacheTest(@Mock InternalSelector selector, @Mock BulkMuteLookup bulkMuteLookup) {
 		this.selector = selector;
+		this.bulkMuteLookup = bulkMuteLookup;
 	}
 
 	@BeforeEach
@@ -75,7 +80,7 @@ public class OnDemandMuteCacheTest {
 		when(sqlConfig.synchronization()).thenReturn(synchronization);
 		when(synchronization.enabled()).thenReturn(false);
 
-		muteCache = new OnDemandMuteCache(configs, futuresFactory, selector, formatter, time);
+		muteCache = new OnDemandMuteCache(configs, futuresFactory, selector, formatter, bulkMuteLookup, time);
 		muteCache.startup();
 
 		uuid = UUID.randomUUID();
@@ -170,4 +175,20 @@ public class OnDemandMuteCacheTest {
 
 		assertEquals(Optional.of(newMute), muteCache.getCachedMute(uuid, address).join());
 	}
+
+	@Test
+	public void cacheInBulk(@Mock Punishment punishment) {
+		UUIDAndAddress user = new UUIDAndAddress(uuid, address);
+		when(bulkMuteLookup.lookupApplicableMutes(List.of(user)))
+				.thenReturn(futuresFactory.completedFuture(Map.of(user, Optional.of(punishment))));
+		when(punishment.isExpired(any())).thenReturn(false);
+
+		muteCache.cacheInBulk(List.of(user)).join();
+		assertEquals(Optional.of(punishment), muteCache.getCachedMute(uuid, address).join());
+
+		// Already cached users are skipped
+		when(bulkMuteLookup.lookupApplicableMutes(List.of())).thenReturn(futuresFactory.completedFuture(Map.of()));
+		muteCache.cacheInBulk(List.of(user)).join();
+		verify(selector, times(0)).getApplicablePunishment(uuid, address, PunishmentType.MUTE);
+	}
 }
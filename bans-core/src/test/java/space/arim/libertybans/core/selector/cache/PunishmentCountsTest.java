@@ -0,0 +1,177 @@
+/*
+ * LibertyBans
+ * Copyright © 2023 Anand Beh
+ *
+ * LibertyBans is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * LibertyBans is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with LibertyBans. If not, see <https://www.gnu.org/licenses/>
+ * and navigate to version 3 of the GNU Affero General Public License.
+ */
+package space.arim.libertybans.core.selector.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import space.arim.libertybans.api.ConsoleOperator;
+import space.arim.libertybans.api.PlayerVictim;
+import space.arim.libertybans.api.PunishmentType;
+import space.arim.libertybans.api.Victim;
+import space.arim.libertybans.api.punish.Punishment;
+import space.arim.libertybans.api.select.SelectionBase;
+import space.arim.libertybans.api.select.SelectionPredicate;
+import space.arim.libertybans.core.service.SettableTime;
+import space.arim.libertybans.core.service.SettableTimeImpl;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+
+@ExtendWith(MockitoExtension.class)
+public class PunishmentCountsTest {
+
+	private final SettableTime time = new SettableTimeImpl(Instant.ofEpochSecond(1_000L));
+	private final PunishmentCounts counts = new PunishmentCounts(time);
+	private final Victim victim = PlayerVictim.of(UUID.randomUUID());
+
+	private Punishment punishment(long id, PunishmentType type, long start, Instant end) {
+		Punishment punishment = mock(Punishment.class);
+		lenient().when(punishment.getIdentifier()).thenReturn(id);
+		lenient().when(punishment.getType()).thenReturn(type);
+		lenient().when(punishment.getVictim()).thenReturn(victim);
+		lenient().when(punishment.getOperator()).thenReturn(ConsoleOperator.INSTANCE);
+		lenient().when(punishment.getEscalationTrack()).thenReturn(Optional.empty());
+		lenient().when(punishment.getStartDate()).thenReturn(Instant.ofEpochSecond(start));
+		lenient().when(punishment.getEndDate()).thenReturn(end);
+		return punishment;
+	}
+
+	private SelectionBase warns(boolean activeOnly) {
+		SelectionBase selection = mock(SelectionBase.class);
+		lenient().when(selection.getTypes()).thenReturn(SelectionPredicate.matchingOnly(PunishmentType.WARN));
+		lenient().when(selection.getOperators()).thenReturn(SelectionPredicate.matchingAll());
+		lenient().when(selection.getEscalationTracks()).thenReturn(SelectionPredicate.matchingAll());
+		lenient().when(selection.getScopes()).thenReturn(SelectionPredicate.matchingAll());
+		lenient().when(selection.selectActiveOnly()).thenReturn(activeOnly);
+		lenient().when(selection.seekAfterStartTime()).thenReturn(Instant.EPOCH);
+		lenient().when(selection.seekBeforeStartTime()).thenReturn(Instant.MAX);
+		return selection;
+	}
+
+	private int load(List<Punishment> history, Set<Long> activeIds, SelectionBase selection) {
+		return counts.loadAndCount(victim, counts.mutationStamp(), history, activeIds, selection);
+	}
+
+	@Test
+	public void coldVictim() {
+		assertNull(counts.count(victim, warns(true)));
+	}
+
+	@Test
+	public void countActiveAndHistorical() {
+		List<Punishment> history = List.of(
+				punishment(1L, PunishmentType.WARN, 10L, Punishment.PERMANENT_END_DATE),
+				punishment(2L, PunishmentType.WARN, 20L, Instant.ofEpochSecond(1_500L)),
+				punishment(3L, PunishmentType.WARN, 30L, Instant.ofEpochSecond(500L)),
+				punishment(4L, PunishmentType.BAN, 40L, Punishment.PERMANENT_END_DATE)
+		);
+		assertEquals(2, load(history, Set.of(1L, 2L, 3L, 4L), warns(true)));
+		assertEquals(3, counts.count(victim, warns(false)));
+
+		time.advanceBy(Duration.ofSeconds(1_000L));
+		assertEquals(1, counts.count(victim, warns(true)));
+	}
+
+	@Test
+	public void seekBefore() {
+		List<Punishment> history = List.of(
+				punishment(1L, PunishmentType.WARN, 10L, Punishment.PERMANENT_END_DATE),
+				punishment(2L, PunishmentType.WARN, 10L, Punishment.PERMANENT_END_DATE),
+				punishment(3L, PunishmentType.WARN, 20L, Punishment.PERMANENT_END_DATE)
+		);
+		SelectionBase selection = warns(true);
+		lenient().when(selection.seekBeforeStartTime()).thenReturn(Instant.ofEpochSecond(10L));
+		lenient().when(selection.seekBeforeId()).thenReturn(1L);
+		assertEquals(1, load(history, Set.of(1L, 2L, 3L), selection));
+	}
+
+	@Test
+	public void enactRevokeAndExpunge() {
+		load(List.of(punishment(1L, PunishmentType.WARN, 10L, Punishment.PERMANENT_END_DATE)), Set.of(1L), warns(true));
+
+		counts.enact(punishment(2L, PunishmentType.WARN, 20L, Punishment.PERMANENT_END_DATE));
+		assertEquals(2, counts.count(victim, warns(true)));
+
+		counts.revoke(1L);
+		assertEquals(1, counts.count(victim, warns(true)));
+		assertEquals(2, counts.count(victim, warns(false)));
+
+		counts.expunge(1L);
+		assertEquals(1, counts.count(victim, warns(false)));
+	}
+
+	@Test
+	public void updateKeepsRevocation() {
+		load(List.of(punishment(1L, PunishmentType.WARN, 10L, Punishment.PERMANENT_END_DATE)), Set.of(), warns(true));
+		counts.enact(punishment(1L, PunishmentType.WARN, 10L, Instant.ofEpochSecond(5_000L)));
+		assertEquals(0, counts.count(victim, warns(true)));
+		assertEquals(1, counts.count(victim, warns(false)));
+	}
+
+	@Test
+	public void doNotCacheLoadRacingWithMutation() {
+		long stamp = counts.mutationStamp();
+		counts.revoke(1L);
+		List<Punishment> history = List.of(punishment(1L, PunishmentType.WARN, 10L, Punishment.PERMANENT_END_DATE));
+		assertEquals(1, counts.loadAndCount(victim, stamp, history, Set.of(1L), warns(true)));
+		assertNull(counts.count(victim, warns(true)));
+	}
+
+	@Test
+	public void invalidateAfterBulkChanges() {
+		load(List.of(punishment(1L, PunishmentType.WARN, 10L, Punishment.PERMANENT_END_DATE)), Set.of(1L), warns(true));
+		counts.invalidate(victim);
+		assertNull(counts.count(victim, warns(true)));
+
+		load(List.of(punishment(1L, PunishmentType.WARN, 10L, Punishment.PERMANENT_END_DATE)), Set.of(1L), warns(true));
+		counts.invalidateAll();
+		assertNull(counts.count(victim, warns(true)));
+	}
+
+	@Test
+	public void revokeAfterReload() {
+		List<Punishment> history = List.of(punishment(1L, PunishmentType.WARN, 10L, Punishment.PERMANENT_END_DATE));
+		load(history, Set.of(1L), warns(true));
+		counts.invalidate(victim);
+		load(history, Set.of(1L), warns(true));
+
+		counts.revoke(1L);
+		assertEquals(0, counts.count(victim, warns(true)));
+		assertEquals(1, counts.count(victim, warns(false)));
+	}
+
+	@Test
+	public void expireCachedPunishments() {
+		load(List.of(), Set.of(), warns(true));
+		assertEquals(0, counts.count(victim, warns(true)));
+		time.advanceBy(Duration.ofMinutes(10L));
+		assertNull(counts.count(victim, warns(true)));
+	}
+
+}
@@ -0,0 +1,245 @@
+/*
+ * LibertyBans
+ * Copyright © 2023 Anand Beh
+ *
+ * LibertyBans is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * LibertyBans is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with LibertyBans. If not, see <https://www.gnu.org/licenses/>
+ * and navigate to version 3 of the GNU Affero General Public License.
+ */
+package space.arim.libertybans.core.selector.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import space.arim.libertybans.api.NetworkAddress;
+import space.arim.libertybans.api.PlayerVictim;
+import space.arim.libertybans.api.PunishmentType;
+import space.arim.libertybans.api.punish.Punishment;
+import space.arim.libertybans.api.scope.ServerScope;
+import space.arim.libertybans.api.select.AddressStrictness;
+import space.arim.libertybans.api.select.SelectionByApplicability;
+import space.arim.libertybans.api.select.SelectionByApplicabilityBuilder;
+import space.arim.libertybans.core.config.Configs;
+import space.arim.libertybans.core.config.MainConfig;
+import space.arim.libertybans.core.env.InstanceType;
+import space.arim.libertybans.core.scope.SpecificServerScope;
+import space.arim.libertybans.core.selector.EnforcementConfig;
+import space.arim.libertybans.core.selector.InternalSelector;
+import space.arim.libertybans.core.service.SettableTime;
+import space.arim.libertybans.core.service.SettableTimeImpl;
+import space.arim.libertybans.it.util.RandomUtil;
+import space.arim.omnibus.util.concurrent.CentralisedFuture;
+import space.arim.omnibus.util.concurrent.FactoryOfTheFuture;
+import space.arim.omnibus.util.concurrent.impl.IndifferentFactoryOfTheFuture;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ServerSwitchBanCacheTest {
+
+	private final FactoryOfTheFuture futuresFactory = new IndifferentFactoryOfTheFuture();
+	private final Configs configs;
+	private final InternalSelector selector;
+	private final SettableTime time = new SettableTimeImpl(Instant.EPOCH);
+
+	private UUID uuid;
+	private NetworkAddress address;
+	private EnforcementConfig enforcementConfig;
+	private SelectionByApplicabilityBuilder selectionBuilder;
+	private ServerSwitchBanCache cache;
+
+	private static final ServerScope LOBBY = new SpecificServerScope("lobby");
+	private static final ServerScope SURVIVAL = new SpecificServerScope("survival");
+
+	public ServerSwitchBanCacheTest(@Mock Configs configs, @Mock InternalSelector selector) {
+		this.configs = configs;
+		this.selector = selector;
+	}
+
+	@BeforeEach
+	public void setup() {
+		uuid = UUID.randomUUID();
+		address = RandomUtil.randomAddress();
+
+		MainConfig mainConfig = mock(MainConfig.class);
+		MainConfig.Platforms platforms = mock(MainConfig.Platforms.class);
+		MainConfig.Platforms.Proxies proxies = mock(MainConfig.Platforms.Proxies.class);
+		enforcementConfig = mock(EnforcementConfig.class);
+		lenient().when(configs.getMainConfig()).thenReturn(mainConfig);
+		lenient().when(mainConfig.platforms()).thenReturn(platforms);
+		lenient().when(platforms.proxies()).thenReturn(proxies);
+		lenient().when(proxies.enforceServerSwitch()).thenReturn(true);
+		lenient().when(mainConfig.enforcement()).thenReturn(enforcementConfig);
+
+		selectionBuilder = mock(SelectionByApplicabilityBuilder.class);
+		lenient().when(selector.selectionByApplicabilityBuilder(any(UUID.class), any(NetworkAddress.class)))
+				.thenReturn(selectionBuilder);
+		lenient().when(selectionBuilder.type(PunishmentType.BAN)).thenReturn(selectionBuilder);
+
+		cache = new ServerSwitchBanCache(InstanceType.PROXY, configs, futuresFactory, selector, time);
+		cache.startup();
+	}
+
+	private Punishment ban(long id, ServerScope scope, Instant end) {
+		Punishment ban = mock(Punishment.class);
+		lenient().when(ban.getIdentifier()).thenReturn(id);
+		lenient().when(ban.getType()).thenReturn(PunishmentType.BAN);
+		lenient().when(ban.getScope()).thenReturn(scope);
+		lenient().when(ban.getEndDate()).thenReturn(end);
+		lenient().when(ban.isExpired(any())).thenAnswer((invocation) -> {
+			return !end.equals(Instant.MAX) && !time.currentTimestamp().isBefore(end);
+		});
+		return ban;
+	}
+
+	private void setBansInDatabase(Punishment...bans) {
+		SelectionByApplicability selection = mock(SelectionByApplicability.class);
+		when(selectionBuilder.build()).thenReturn(selection);
+		when(selection.getAllSpecificPunishments()).thenReturn(futuresFactory.completedFuture(List.of(bans)));
+	}
+
+	private CompletableFuture<List<Punishment>> setBansInDatabaseLater() {
+		SelectionByApplicability selection = mock(SelectionByApplicability.class);
+		CentralisedFuture<List<Punishment>> futureBans = futuresFactory.newIncompleteFuture();
+		when(selectionBuilder.build()).thenReturn(selection);
+		when(selection.getAllSpecificPunishments()).thenReturn(futureBans);
+		return futureBans;
+	}
+
+	private Optional<Punishment> switchTo(ServerScope destination) {
+		return cache.getApplicableBan(uuid, address, destination).join();
+	}
+
+	@Test
+	public void answerServerSwitchesFromMemory() {
+		Punishment lobbyBan = ban(1L, LOBBY, Instant.MAX);
+		Punishment otherBan = ban(2L, mock(ServerScope.class), Instant.MAX);
+		setBansInDatabase(lobbyBan, otherBan);
+
+		cache.cacheOnLogin(uuid, address).join();
+		assertEquals(Optional.of(lobbyBan), switchTo(LOBBY));
+		assertEquals(Optional.empty(), switchTo(SURVIVAL));
+		assertEquals(Optional.of(lobbyBan), switchTo(LOBBY));
+		verify(selectionBuilder, times(1)).build();
+	}
+
+	@Test
+	public void preferLatestEndDateAndSkipExpired() {
+		Punishment temporaryBan = ban(1L, LOBBY, Instant.EPOCH.plusSeconds(60L));
+		Punishment longerBan = ban(2L, LOBBY, Instant.EPOCH.plusSeconds(120L));
+		setBansInDatabase(temporaryBan, longerBan);
+
+		assertEquals(Optional.of(longerBan), switchTo(LOBBY));
+		time.advanceBy(Duration.ofSeconds(150L));
+		assertEquals(Optional.empty(), switchTo(LOBBY));
+	}
+
+	@Test
+	public void removedBanIsNoLongerApplicable() {
+		Punishment lobbyBan = ban(1L, LOBBY, Instant.MAX);
+		setBansInDatabase(lobbyBan);
+		assertEquals(Optional.of(lobbyBan), switchTo(LOBBY));
+
+		setBansInDatabase();
+		cache.removeBan(1L);
+		assertEquals(Optional.empty(), switchTo(LOBBY));
+		verify(selectionBuilder, times(2)).build();
+	}
+
+	@Test
+	public void removedBanDuringLoad() {
+		Punishment lobbyBan = ban(1L, LOBBY, Instant.MAX);
+		CompletableFuture<List<Punishment>> futureBans = setBansInDatabaseLater();
+		CompletableFuture<?> login = cache.cacheOnLogin(uuid, address);
+
+		cache.removeBan(1L);
+		futureBans.complete(List.of(lobbyBan));
+		login.join();
+
+		setBansInDatabase();
+		assertEquals(Optional.empty(), switchTo(LOBBY));
+		verify(selectionBuilder, times(2)).build();
+	}
+
+	@Test
+	public void addedBanDuringLoad() {
+		when(enforcementConfig.addressStrictness()).thenReturn(AddressStrictness.NORMAL);
+		CompletableFuture<List<Punishment>> futureBans = setBansInDatabaseLater();
+		CompletableFuture<?> login = cache.cacheOnLogin(uuid, address);
+
+		Punishment lobbyBan = ban(1L, LOBBY, Instant.MAX);
+		when(lobbyBan.getVictim()).thenReturn(PlayerVictim.of(uuid));
+		cache.addBan(lobbyBan);
+		futureBans.complete(List.of());
+		login.join();
+
+		setBansInDatabase(lobbyBan);
+		assertEquals(Optional.of(lobbyBan), switchTo(LOBBY));
+		verify(selectionBuilder, times(2)).build();
+	}
+
+	@Test
+	public void addedPlayerBanInvalidatesOnlyThatPlayer() {
+		when(enforcementConfig.addressStrictness()).thenReturn(AddressStrictness.NORMAL);
+		UUID otherUuid = UUID.randomUUID();
+		setBansInDatabase();
+		assertEquals(Optional.empty(), switchTo(LOBBY));
+		assertEquals(Optional.empty(), cache.getApplicableBan(otherUuid, address, LOBBY).join());
+		verify(selectionBuilder, times(2)).build();
+
+		Punishment lobbyBan = ban(1L, LOBBY, Instant.MAX);
+		when(lobbyBan.getVictim()).thenReturn(PlayerVictim.of(uuid));
+		setBansInDatabase(lobbyBan);
+		cache.addBan(lobbyBan);
+
+		assertEquals(Optional.of(lobbyBan), switchTo(LOBBY));
+		// The other player's entry is retained
+		assertEquals(Optional.empty(), cache.getApplicableBan(otherUuid, address, LOBBY).join());
+		verify(selectionBuilder, times(3)).build();
+	}
+
+	@Test
+	public void banEditedToOtherScopeIsNoLongerApplicable() {
+		Punishment lobbyBan = ban(1L, LOBBY, Instant.MAX);
+		setBansInDatabase(lobbyBan);
+		assertEquals(Optional.of(lobbyBan), switchTo(LOBBY));
+
+		Punishment globalBan = ban(1L, mock(ServerScope.class), Instant.MAX);
+		setBansInDatabase();
+		cache.updateBan(globalBan);
+		assertEquals(Optional.empty(), switchTo(LOBBY));
+		verify(selectionBuilder, times(2)).build();
+	}
+
+	@Test
+	public void noApplicableBanWhileShutDown() {
+		cache.shutdown();
+		assertEquals(Optional.empty(), switchTo(LOBBY));
+	}
+
+}
@@ -36,7 +36,10 @@ import space.arim.omnibus.util.concurrent.CentralisedFuture;
 import space.arim.omnibus.util.concurrent.FactoryOfTheFuture;
 import space.arim.omnibus.util.concurrent.impl.IndifferentFactoryOfTheFuture;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -268,6 +271,24 @@ public class CachingUUIDManagerTest {
 		assertEquals(uuid, lookupUUID(name), "uuid should be cached");
 	}
 
+	@Test
+	public void resolveKnownUUIDsInBulk() {
+		UUID otherUuid = UUID.randomUUID();
+		String otherName = "Aerodactyl_";
+		uuidManager.addCache(otherUuid, otherName);
+		String unknownName = "Cxleos";
+		when(nameValidator.validateNameArgument(otherName)).thenReturn(true);
+		when(nameValidator.validateNameArgument(unknownName)).thenReturn(true);
+		when(queryingImpl.resolveAll(Set.of("a248", "cxleos"))).thenReturn(completedFuture(Map.of("a248", uuid)));
+
+		assertEquals(
+				Map.of(name, uuid, otherName, otherUuid),
+				uuidManager.lookupKnownUUIDsFromExactNames(List.of(name, otherName, unknownName)).join()
+		);
+		assertEquals(uuid, lookupUUIDExact(name), "uuid should be cached");
+		verify(queryingImpl).resolveAll(Set.of("a248", "cxleos"));
+	}
+
 	@Test
 	public void resolveUUIDExplicitlyCached() {
 		uuidManager.addCache(uuid, name);
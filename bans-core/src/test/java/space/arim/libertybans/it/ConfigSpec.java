@@ -28,7 +28,7 @@ import java.time.Instant;
 import java.util.Objects;
 
 public record ConfigSpec(Vendor vendor, AddressStrictness addressStrictness, ServerType serverType,
-						 InstanceType instanceType, boolean pluginMessaging, long unixTime) {
+						 InstanceType instanceType, boolean pluginMessaging, boolean accountClustering, long unixTime) {
 
 	public ConfigSpec {
 		Objects.requireNonNull(vendor, "vendor");
@@ -42,9 +42,11 @@ class ConfigSpecPossiblities {
 		for (Vendor vendor : Vendor.values()) {
 			for (AddressStrictness addressStrictness : AddressStrictness.values()) {
 				for (ServerType serverType : ServerType.values()) {
-					possibilities.add(new ConfigSpec(
-							vendor, addressStrictness, serverType, instanceType, pluginMessaging, time
-					));
+					for (boolean accountClustering : new boolean[] {false, true}) {
+						possibilities.add(new ConfigSpec(
+								vendor, addressStrictness, serverType, instanceType, pluginMessaging, accountClustering, time
+						));
+					}
 				}
 			}
 		}
@@ -54,7 +56,7 @@ class ConfigSpecPossiblities {
 	private ConfigConstraints getConstraints(PlatformSpecs platformSpecs) {
 		if (element.getAnnotation(NoDbAccess.class) != null) {
 			return new ConfigConstraints(
-					Set.of(Vendor.HSQLDB), Set.of(AddressStrictness.NORMAL), Set.of(ServerType.ONLINE));
+					Set.of(Vendor.HSQLDB), Set.of(AddressStrictness.NORMAL), Set.of(ServerType.ONLINE), false);
 		}
 		Set<AddressStrictness> addressStrictnesses;
 		{
@@ -85,16 +87,18 @@ class ConfigSpecPossiblities {
 				vendors = Set.of(vendorConstraint.value());
 			}
 		}
-		return new ConfigConstraints(vendors, addressStrictnesses, serverTypes);
+		boolean accountClustering = element.getAnnotation(SetAccountClustering.class) != null;
+		return new ConfigConstraints(vendors, addressStrictnesses, serverTypes, accountClustering);
 	}
 
 	private record ConfigConstraints(Set<Vendor> vendors, Set<AddressStrictness> strictnesses,
-									 Set<ServerType> serverTypes) {
+									 Set<ServerType> serverTypes, boolean accountClustering) {
 
 		boolean allows(ConfigSpec configSpec) {
 				return vendors.contains(configSpec.vendor())
 						&& strictnesses.contains(configSpec.addressStrictness())
-						&& serverTypes.contains(configSpec.serverType());
+						&& serverTypes.contains(configSpec.serverType())
+						&& accountClustering == configSpec.accountClustering();
 		}
 
 	}
@@ -20,6 +20,7 @@
 package space.arim.libertybans.it.test.alts;
 
 import jakarta.inject.Inject;
+import jakarta.inject.Provider;
 import org.junit.jupiter.api.TestTemplate;
 import org.junit.jupiter.api.extension.ExtendWith;
 import space.arim.libertybans.api.AddressVictim;
@@ -27,6 +28,8 @@ import space.arim.libertybans.api.NetworkAddress;
 import space.arim.libertybans.api.PlayerVictim;
 import space.arim.libertybans.api.user.KnownAccount;
 import space.arim.libertybans.core.alts.AccountHistory;
+import space.arim.libertybans.core.database.InternalDatabase;
+import space.arim.libertybans.core.punish.Association;
 import space.arim.libertybans.core.selector.Guardian;
 import space.arim.libertybans.core.service.SettableTime;
 import space.arim.libertybans.it.InjectionInvocationContextProvider;
@@ -106,6 +109,31 @@ public class AccountHistoryIT {
 				accountHistory.knownAccounts(AddressVictim.of(sharedAddress)).join());
 	}
 
+	@TestTemplate
+	@SetTime(unixTime = 1636233200)
+	public void listAccountHistoryAfterNameChange(Guardian guardian, SettableTime time,
+												  Provider<InternalDatabase> dbProvider) {
+		final Instant startTime = Instant.ofEpochSecond(1636233200);
+		final Instant oneDayLater = startTime.plus(ONE_DAY);
+
+		UUID player = UUID.randomUUID();
+		NetworkAddress firstAddress = randomAddress();
+		NetworkAddress secondAddress = randomAddress();
+
+		guardian.executeAndCheckConnection(player, "OldName", firstAddress).join();
+		time.advanceBy(ONE_DAY);
+		guardian.executeAndCheckConnection(player, "NewName", secondAddress).join();
+		// An imported name which is older than the current name
+		dbProvider.get().execute((context) -> {
+			new Association(player, context).associatePastName("ImportedName", startTime.minus(ONE_DAY));
+		}).join();
+
+		assertEquals(
+				List.of(accountHistory.newAccount(player, "NewName", firstAddress, startTime),
+						accountHistory.newAccount(player, "NewName", secondAddress, oneDayLater)),
+				accountHistory.knownAccounts(PlayerVictim.of(player)).join());
+	}
+
 	@TestTemplate
 	@SetTime(unixTime = 1636233200)
 	public void deleteAccount(Guardian guardian, SettableTime time) {
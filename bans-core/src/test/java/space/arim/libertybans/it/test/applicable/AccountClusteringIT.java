@@ -0,0 +1,165 @@
+/*
+ * LibertyBans
+ * Copyright © 2023 Anand Beh
+ *
+ * LibertyBans is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * LibertyBans is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with LibertyBans. If not, see <https://www.gnu.org/licenses/>
+ * and navigate to version 3 of the GNU Affero General Public License.
+ */
+
+package space.arim.libertybans.it.test.applicable;
+
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.TestTemplate;
+import org.junit.jupiter.api.extension.ExtendWith;
+import space.arim.libertybans.api.AddressVictim;
+import space.arim.libertybans.api.NetworkAddress;
+import space.arim.libertybans.api.PlayerVictim;
+import space.arim.libertybans.api.select.AddressStrictness;
+import space.arim.libertybans.core.selector.AccountClustering;
+import space.arim.libertybans.it.InjectionInvocationContextProvider;
+import space.arim.libertybans.it.SetAccountClustering;
+import space.arim.libertybans.it.SetAddressStrictness;
+import space.arim.libertybans.it.util.RandomUtil;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(InjectionInvocationContextProvider.class)
+public class AccountClusteringIT {
+
+	private final StrictnessAssertHelper assertHelper;
+	private final AccountClustering accountClustering;
+
+	@Inject
+	public AccountClusteringIT(StrictnessAssertHelper helper, AccountClustering accountClustering) {
+		this.assertHelper = helper;
+		this.accountClustering = accountClustering;
+	}
+
+	@BeforeEach
+	public void awaitClusters() {
+		accountClustering.caughtUp().join();
+		assertTrue(accountClustering.isEnabled(), "Account clusters are in use");
+	}
+
+	@TestTemplate
+	@SetAddressStrictness({AddressStrictness.STERN, AddressStrictness.STRICT})
+	@SetAccountClustering
+	public void enforceAddressBan() {
+		NetworkAddress commonAddress = RandomUtil.randomAddress();
+
+		User userOne = User.randomUser();
+		User userTwo = User.randomUser();
+		User userThree = User.randomUser();
+		User unrelatedUser = User.randomUser();
+
+		// Connect users + Assume no one is banned yet
+		assertHelper.connectAndAssumeUnbannedUser(userOne.uuid(), "clusterone", commonAddress);
+		assertHelper.connectAndAssumeUnbannedUser(userOne.uuid(), "clusterone", userOne.address());
+		assertHelper.connectAndAssumeUnbannedUser(userTwo.uuid(), "clustertwo", commonAddress);
+		assertHelper.connectAndAssumeUnbannedUser(userTwo.uuid(), "clustertwo", userTwo.address());
+		assertHelper.connectAndAssumeUnbannedUser(userThree.uuid(), "clusterthree", userTwo.address());
+		assertHelper.connectAndAssumeUnbannedUser(userThree.uuid(), "clusterthree", userThree.address());
+		assertHelper.connectAndAssumeUnbannedUser(unrelatedUser.uuid(), "unclustered", unrelatedUser.address());
+
+		// Ban address
+		assertHelper.banVictim(AddressVictim.of(userOne.address()), "Address is banned");
+
+		assertHelper.assertBanned(userOne.uuid(), userOne.address(), "Address is banned");
+		assertHelper.assertBanned(userOne.uuid(), commonAddress, "Past address is banned");
+		assertHelper.assertBanned(userTwo.uuid(), userTwo.address(), "User is in the cluster of the banned address");
+		// Clusters are transitive
+		assertHelper.assertBanned(userThree.uuid(), userThree.address(), "User is linked through another account");
+
+		assertHelper.assertNotBanned(unrelatedUser.uuid(), unrelatedUser.address(), "Unrelated user not banned");
+	}
+
+	@TestTemplate
+	@SetAddressStrictness(AddressStrictness.STERN)
+	@SetAccountClustering
+	public void enforceUserBanOnStern() {
+		NetworkAddress commonAddress = RandomUtil.randomAddress();
+
+		User userOne = User.randomUser();
+		User userTwo = User.randomUser();
+
+		assertHelper.connectAndAssumeUnbannedUser(userOne.uuid(), "clusterone", commonAddress);
+		assertHelper.connectAndAssumeUnbannedUser(userOne.uuid(), "clusterone", userOne.address());
+		assertHelper.connectAndAssumeUnbannedUser(userTwo.uuid(), "clustertwo", commonAddress);
+		assertHelper.connectAndAssumeUnbannedUser(userTwo.uuid(), "clustertwo", userTwo.address());
+
+		// Ban user
+		assertHelper.banVictim(PlayerVictim.of(userOne.uuid()), "User is banned");
+
+		assertHelper.assertBanned(userOne.uuid(), userOne.address(), "UUID is banned");
+		// STERN does not extend user bans to linked accounts
+		assertHelper.assertNotBanned(userTwo.uuid(), commonAddress, "Not banned despite a common address");
+		assertHelper.assertNotBanned(userTwo.uuid(), userTwo.address(), "Not banned despite a linked address");
+	}
+
+	@TestTemplate
+	@SetAddressStrictness(AddressStrictness.STRICT)
+	@SetAccountClustering
+	public void enforceUserBanOnStrict() {
+		NetworkAddress commonAddress = RandomUtil.randomAddress();
+
+		User userOne = User.randomUser();
+		User userTwo = User.randomUser();
+		User userThree = User.randomUser();
+		User unrelatedUser = User.randomUser();
+
+		assertHelper.connectAndAssumeUnbannedUser(userOne.uuid(), "clusterone", commonAddress);
+		assertHelper.connectAndAssumeUnbannedUser(userOne.uuid(), "clusterone", userOne.address());
+		assertHelper.connectAndAssumeUnbannedUser(userTwo.uuid(), "clustertwo", commonAddress);
+		assertHelper.connectAndAssumeUnbannedUser(userTwo.uuid(), "clustertwo", userTwo.address());
+		assertHelper.connectAndAssumeUnbannedUser(userThree.uuid(), "clusterthree", userTwo.address());
+		assertHelper.connectAndAssumeUnbannedUser(unrelatedUser.uuid(), "unclustered", unrelatedUser.address());
+
+		// Ban user
+		assertHelper.banVictim(PlayerVictim.of(userOne.uuid()), "User is banned");
+
+		assertHelper.assertBanned(userOne.uuid(), userOne.address(), "UUID is banned");
+		assertHelper.assertBanned(userTwo.uuid(), userTwo.address(), "User is in the cluster of the banned user");
+		assertHelper.assertBanned(userThree.uuid(), userTwo.address(), "User is linked through another account");
+
+		assertHelper.assertNotBanned(unrelatedUser.uuid(), unrelatedUser.address(), "Unrelated user not banned");
+	}
+
+	@TestTemplate
+	@SetAddressStrictness(AddressStrictness.STRICT)
+	@SetAccountClustering
+	public void linkAddressesAssociatedWhileShutDown() {
+		NetworkAddress commonAddress = RandomUtil.randomAddress();
+
+		User userOne = User.randomUser();
+		UUID userTwo = UUID.randomUUID();
+
+		accountClustering.shutdown();
+		try {
+			assertHelper.connectAndAssumeUnbannedUser(userOne.uuid(), "clusterone", commonAddress);
+			assertHelper.connectAndAssumeUnbannedUser(userTwo, "clustertwo", commonAddress);
+		} finally {
+			accountClustering.startup();
+		}
+		awaitClusters();
+
+		// Ban user
+		assertHelper.banVictim(PlayerVictim.of(userOne.uuid()), "User is banned");
+
+		assertHelper.assertBanned(userTwo, commonAddress, "Linked at startup");
+	}
+
+}
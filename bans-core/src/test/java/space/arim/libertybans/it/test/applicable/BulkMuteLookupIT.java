@@ -0,0 +1,128 @@
+/*
+ * LibertyBans
+ * Copyright © 2023 Anand Beh
+ *
+ * LibertyBans is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * LibertyBans is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with LibertyBans. If not, see <https://www.gnu.org/licenses/>
+ * and navigate to version 3 of the GNU Affero General Public License.
+ */
+package space.arim.libertybans.it.test.applicable;
+
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.TestTemplate;
+import org.junit.jupiter.api.extension.ExtendWith;
+import space.arim.libertybans.api.AddressVictim;
+import space.arim.libertybans.api.CompositeVictim;
+import space.arim.libertybans.api.NetworkAddress;
+import space.arim.libertybans.api.PlayerVictim;
+import space.arim.libertybans.api.PunishmentType;
+import space.arim.libertybans.api.Victim;
+import space.arim.libertybans.api.punish.Punishment;
+import space.arim.libertybans.api.punish.PunishmentDrafter;
+import space.arim.libertybans.api.select.PunishmentSelector;
+import space.arim.libertybans.core.config.Configs;
+import space.arim.libertybans.core.env.UUIDAndAddress;
+import space.arim.libertybans.core.selector.cache.ActiveBanIndex;
+import space.arim.libertybans.core.selector.cache.BulkMuteLookup;
+import space.arim.libertybans.it.InjectionInvocationContextProvider;
+import space.arim.libertybans.it.SetAddressStrictness;
+import space.arim.libertybans.it.util.RandomUtil;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@ExtendWith(InjectionInvocationContextProvider.class)
+public class BulkMuteLookupIT {
+
+	private final StrictnessAssertHelper assertHelper;
+	private final PunishmentDrafter drafter;
+	private final PunishmentSelector selector;
+	private final BulkMuteLookup bulkMuteLookup;
+	private final Configs configs;
+
+	@Inject
+	public BulkMuteLookupIT(StrictnessAssertHelper assertHelper, PunishmentDrafter drafter,
+							PunishmentSelector selector, BulkMuteLookup bulkMuteLookup, Configs configs) {
+		this.assertHelper = assertHelper;
+		this.drafter = drafter;
+		this.selector = selector;
+		this.bulkMuteLookup = bulkMuteLookup;
+		this.configs = configs;
+	}
+
+	private void mute(Victim victim, Duration duration) {
+		Punishment mute = drafter.draftBuilder()
+				.type(PunishmentType.MUTE)
+				.victim(victim)
+				.reason("Bulk lookup")
+				.duration(duration)
+				.build()
+				.enactPunishment().toCompletableFuture().join().orElse(null);
+		assertNotNull(mute, "Conflicting punishment");
+	}
+
+	@TestTemplate
+	@SetAddressStrictness(all = true)
+	public void sameAsIndividualLookups() {
+		NetworkAddress commonAddress = RandomUtil.randomAddress();
+		User playerMuted = User.randomUser();
+		User addressMuted = User.randomUser();
+		User compositeMuted = User.randomUser();
+		UUID altOfPlayerMuted = UUID.randomUUID();
+		User unrelatedUser = User.randomUser();
+
+		assertHelper.connectAndAssumeUnbannedUser(playerMuted.uuid(), "playermuted", playerMuted.address());
+		assertHelper.connectAndAssumeUnbannedUser(playerMuted.uuid(), "playermuted", commonAddress);
+		assertHelper.connectAndAssumeUnbannedUser(addressMuted.uuid(), "addressmuted", addressMuted.address());
+		assertHelper.connectAndAssumeUnbannedUser(addressMuted.uuid(), "addressmuted", commonAddress);
+		assertHelper.connectAndAssumeUnbannedUser(compositeMuted.uuid(), "compositemuted", compositeMuted.address());
+		assertHelper.connectAndAssumeUnbannedUser(altOfPlayerMuted, "altofplayermuted", playerMuted.address());
+		assertHelper.connectAndAssumeUnbannedUser(unrelatedUser.uuid(), "unrelated", unrelatedUser.address());
+
+		mute(PlayerVictim.of(playerMuted.uuid()), Duration.ofHours(1L));
+		mute(AddressVictim.of(addressMuted.address()), Duration.ofHours(2L));
+		mute(CompositeVictim.of(compositeMuted.uuid(), compositeMuted.address()), Duration.ofHours(3L));
+		mute(AddressVictim.of(commonAddress), Duration.ofHours(4L));
+
+		List<UUIDAndAddress> users = List.of(
+				new UUIDAndAddress(playerMuted.uuid(), playerMuted.address()),
+				new UUIDAndAddress(playerMuted.uuid(), commonAddress),
+				new UUIDAndAddress(addressMuted.uuid(), addressMuted.address()),
+				new UUIDAndAddress(compositeMuted.uuid(), compositeMuted.address()),
+				new UUIDAndAddress(compositeMuted.uuid(), RandomUtil.randomAddress()),
+				new UUIDAndAddress(altOfPlayerMuted, playerMuted.address()),
+				new UUIDAndAddress(unrelatedUser.uuid(), unrelatedUser.address())
+		);
+		var bulkLookup = bulkMuteLookup.lookupApplicableMutes(users);
+		if (!ActiveBanIndex.supportsStrictness(configs.getMainConfig().enforcement().addressStrictness())) {
+			assertNull(bulkLookup);
+			return;
+		}
+		assertNotNull(bulkLookup);
+		Map<UUIDAndAddress, Optional<Punishment>> applicableMutes = bulkLookup.join();
+		assertEquals(users.size(), applicableMutes.size());
+		for (UUIDAndAddress user : users) {
+			Optional<Punishment> individualLookup = selector
+					.getApplicablePunishment(user.uuid(), user.address(), PunishmentType.MUTE)
+					.toCompletableFuture().join();
+			assertEquals(individualLookup, applicableMutes.get(user), "For user " + user);
+		}
+	}
+}
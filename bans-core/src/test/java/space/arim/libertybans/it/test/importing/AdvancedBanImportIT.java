@@ -74,6 +74,10 @@ public class AdvancedBanImportIT {
 
 	private void importFrom(String dataFile, ImportStatistics expectedStatistics) {
 		pluginDatabaseSetup.runSqlFromResource("import-data/advancedban/" + dataFile + ".sql");
+		importAgain(expectedStatistics);
+	}
+
+	private void importAgain(ImportStatistics expectedStatistics) {
 		ImportSource importSource = pluginDatabaseSetup.createAdvancedBanImportSource(scopeManager);
 		CompletableFuture<ImportStatistics> futureImport = importExecutor.performImport(importSource);
 		assertDoesNotThrow(futureImport::join, "Import failed: error");
@@ -88,6 +92,15 @@ public class AdvancedBanImportIT {
 		importFrom("sample-one-offline", new ImportStatistics(103, 332, 768));
 	}
 
+	@TestTemplate
+	@SetTime(unixTime = SetTime.DEFAULT_TIME)
+	@PlatformSpecs(serverTypes = @PlatformSpecs.ServerTypes(ServerType.OFFLINE))
+	public void sampleOneOfflineImportedAgain() {
+		importFrom("sample-one-offline", new ImportStatistics(103, 332, 768));
+		// Checkpoints are cleared after a completed import, so nothing is skipped
+		importAgain(new ImportStatistics(103, 332, 768));
+	}
+
 	@TestTemplate
 	@SetTime(unixTime = SetTime.DEFAULT_TIME)
 	@PlatformSpecs(serverTypes = @PlatformSpecs.ServerTypes(ServerType.ONLINE))
@@ -26,6 +26,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
 import space.arim.libertybans.api.scope.ScopeManager;
 import space.arim.libertybans.core.importing.ConnectionSource;
+import space.arim.libertybans.core.importing.ImportConfig;
 import space.arim.libertybans.core.importing.ImportExecutor;
 import space.arim.libertybans.core.importing.ImportSource;
 import space.arim.libertybans.core.importing.ImportStatistics;
@@ -39,6 +40,9 @@ import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 @ExtendWith(InjectionInvocationContextProvider.class)
 @ExtendWith(MockitoExtension.class)
@@ -64,7 +68,34 @@ public class LiteBansImportIT {
 	private void importFrom(String dataFile, ImportStatistics expectedStatistics) {
 		pluginDatabaseSetup.runSqlFromResource("import-data/litebans/" + dataFile + ".sql");
 		ImportSource importSource = pluginDatabaseSetup.createLiteBansImportSource(scopeManager);
-		CompletableFuture<ImportStatistics> futureImport = importExecutor.performImport(importSource);
+		assertImport(importExecutor.performImport(importSource), expectedStatistics);
+	}
+
+	private void importFromInParallel(String dataFile, ImportStatistics expectedStatistics) {
+		pluginDatabaseSetup.runSqlFromResource("import-data/litebans/" + dataFile + ".sql");
+		ImportSource importSource = pluginDatabaseSetup.createLiteBansImportSource(scopeManager);
+		assertImport(importExecutor.performImport(importSource, parallelSettings()), expectedStatistics);
+	}
+
+	private static ImportConfig.ParallelSettings parallelSettings() {
+		ImportConfig.ParallelSettings parallelSettings = mock(ImportConfig.ParallelSettings.class);
+		when(parallelSettings.enable()).thenReturn(true);
+		when(parallelSettings.writerThreads()).thenReturn(3);
+		when(parallelSettings.batchSize()).thenReturn(100);
+		when(parallelSettings.queueCapacity()).thenReturn(2);
+		return parallelSettings;
+	}
+
+	private void assertNothingImportedTwice(CompletableFuture<ImportStatistics> futureImport,
+											int previouslyImported) {
+		assertDoesNotThrow(futureImport::join, "Import failed: error");
+		ImportStatistics statistics = futureImport.join();
+		assertTrue(statistics.success(), "Import failed: " + statistics);
+		assertEquals(0, statistics.transferredPunishments());
+		assertEquals(previouslyImported, statistics.previouslyImportedPunishments());
+	}
+
+	private void assertImport(CompletableFuture<ImportStatistics> futureImport, ImportStatistics expectedStatistics) {
 		assertDoesNotThrow(futureImport::join, "Import failed: error");
 		assertEquals(expectedStatistics, futureImport.join(),
 				"Import failed: unexpected import statistics");
@@ -84,4 +115,33 @@ public class LiteBansImportIT {
 		importFrom("sample-two", new ImportStatistics(348, 336, 2087));
 	}
 
+	@TestTemplate
+	@SetTime(unixTime = 1621390560)
+	public void sampleOneInParallel() {
+		pluginDatabaseSetup.initLiteBansSchema();
+		importFromInParallel("sample-one", new ImportStatistics(71, 1625, 34236));
+	}
+
+	@TestTemplate
+	@SetTime(unixTime = 1622836000)
+	public void sampleTwoInParallel() {
+		importFromInParallel("sample-two", new ImportStatistics(348, 336, 2087));
+	}
+
+	@TestTemplate
+	@SetTime(unixTime = 1622836000)
+	public void sampleTwoImportedAgain() {
+		importFrom("sample-two", new ImportStatistics(348, 336, 2087));
+		ImportSource importSource = pluginDatabaseSetup.createLiteBansImportSource(scopeManager);
+		assertNothingImportedTwice(importExecutor.performImport(importSource), 348 + 336);
+	}
+
+	@TestTemplate
+	@SetTime(unixTime = 1622836000)
+	public void sampleTwoImportedAgainInParallel() {
+		importFromInParallel("sample-two", new ImportStatistics(348, 336, 2087));
+		ImportSource importSource = pluginDatabaseSetup.createLiteBansImportSource(scopeManager);
+		assertNothingImportedTwice(importExecutor.performImport(importSource, parallelSettings()), 348 + 336);
+	}
+
 }
@@ -0,0 +1,123 @@
+/*
+ * LibertyBans
+ * Copyright © 2023 Anand Beh
+ *
+ * LibertyBans is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * LibertyBans is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with LibertyBans. If not, see <https://www.gnu.org/licenses/>
+ * and navigate to version 3 of the GNU Affero General Public License.
+ */
+
+package space.arim.libertybans.it.test.punish;
+
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.TestTemplate;
+import org.junit.jupiter.api.extension.ExtendWith;
+import space.arim.libertybans.api.ConsoleOperator;
+import space.arim.libertybans.api.PlayerVictim;
+import space.arim.libertybans.api.PunishmentType;
+import space.arim.libertybans.api.Victim;
+import space.arim.libertybans.api.punish.DraftPunishment;
+import space.arim.libertybans.api.punish.EnforcementOptions;
+import space.arim.libertybans.api.punish.Punishment;
+import space.arim.libertybans.api.punish.PunishmentDrafter;
+import space.arim.libertybans.api.select.PunishmentSelector;
+import space.arim.libertybans.core.punish.EnforcementOpts;
+import space.arim.libertybans.it.InjectionInvocationContextProvider;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static space.arim.libertybans.it.util.TestingUtil.assertEqualDetails;
+
+@ExtendWith(InjectionInvocationContextProvider.class)
+public class BulkEnactmentIT {
+
+	private final PunishmentDrafter drafter;
+	private final PunishmentSelector selector;
+
+	@Inject
+	public BulkEnactmentIT(PunishmentDrafter drafter, PunishmentSelector selector) {
+		this.drafter = drafter;
+		this.selector = selector;
+	}
+
+	private DraftPunishment draftPunishment(PunishmentType type, Victim victim) {
+		return drafter.draftBuilder()
+				.type(type)
+				.victim(victim)
+				.operator(ConsoleOperator.INSTANCE)
+				.reason("bulk")
+				.build();
+	}
+
+	private static EnforcementOptions noEnforcement() {
+		return EnforcementOpts.builder().enforcement(EnforcementOptions.Enforcement.NONE).build();
+	}
+
+	@TestTemplate
+	public void enactManyPunishments() {
+		List<DraftPunishment> drafts = new ArrayList<>();
+		// Spans multiple transactions
+		for (int n = 0; n < 250; n++) {
+			PunishmentType type = (n % 2 == 0) ? PunishmentType.BAN : PunishmentType.WARN;
+			drafts.add(draftPunishment(type, PlayerVictim.of(UUID.randomUUID())));
+		}
+		List<Optional<Punishment>> results = drafter.enactPunishments(drafts, noEnforcement())
+				.toCompletableFuture().join();
+		assertEquals(drafts.size(), results.size());
+
+		Set<Long> ids = new HashSet<>();
+		for (int n = 0; n < drafts.size(); n++) {
+			Punishment punishment = results.get(n).orElseThrow(AssertionError::new);
+			assertEqualDetails(drafts.get(n), punishment);
+			assertTrue(ids.add(punishment.getIdentifier()), "Duplicate ID");
+			assertEquals(
+					Optional.of(punishment),
+					selector.getActivePunishmentById(punishment.getIdentifier()).toCompletableFuture().join()
+			);
+		}
+	}
+
+	@TestTemplate
+	public void conflictsAreIndependent() {
+		Victim victim = PlayerVictim.of(UUID.randomUUID());
+		DraftPunishment existingBan = draftPunishment(PunishmentType.BAN, victim);
+		existingBan.enactPunishment(noEnforcement()).toCompletableFuture().join().orElseThrow(AssertionError::new);
+
+		Victim otherVictim = PlayerVictim.of(UUID.randomUUID());
+		List<Optional<Punishment>> results = drafter.enactPunishments(List.of(
+				draftPunishment(PunishmentType.BAN, victim),
+				draftPunishment(PunishmentType.MUTE, victim),
+				draftPunishment(PunishmentType.MUTE, otherVictim),
+				draftPunishment(PunishmentType.MUTE, otherVictim),
+				draftPunishment(PunishmentType.WARN, victim)
+		), noEnforcement()).toCompletableFuture().join();
+
+		assertTrue(results.get(0).isEmpty(), "Conflicts with existing ban");
+		assertTrue(results.get(1).isPresent());
+		assertTrue(results.get(2).isPresent());
+		assertTrue(results.get(3).isEmpty(), "Conflicts with preceding mute");
+		assertTrue(results.get(4).isPresent());
+	}
+
+	@TestTemplate
+	public void enactNothing() {
+		assertEquals(List.of(), drafter.enactPunishments(List.of(), noEnforcement()).toCompletableFuture().join());
+	}
+}
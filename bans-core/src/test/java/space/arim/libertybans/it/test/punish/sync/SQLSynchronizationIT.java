@@ -48,13 +48,13 @@ public class SQLSynchronizationIT {
 
 	@BeforeEach
 	public void initialPoll() {
-		synchronizationMessenger.setInitialTimestamp();
+		synchronizationMessenger.setInitialCursor();
 		time.advanceBy(Duration.ofMinutes(1L));
 	}
 
 	@AfterEach
 	public void resetState() {
-		synchronizationMessenger.resetLastTimestamp();
+		synchronizationMessenger.resetCursor();
 	}
 
 	@TestTemplate
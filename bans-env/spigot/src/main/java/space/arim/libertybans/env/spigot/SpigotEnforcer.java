@@ -51,7 +51,7 @@ public class SpigotEnforcer extends AbstractEnvEnforcer<Player> {
 						  Interlocutor interlocutor, AudienceRepresenter<CommandSender> audienceRepresenter,
 						  Server server, MorePaperLibAdventure morePaperLibAdventure,
 						  SpigotMessageChannel messageChannel) {
-		super(futuresFactory, formatter, interlocutor, audienceRepresenter);
+		super(futuresFactory, formatter, interlocutor, audienceRepresenter, server::getPlayer);
 		this.server = server;
 		this.morePaperLibAdventure = morePaperLibAdventure;
 		this.messageChannel = messageChannel;
@@ -91,12 +91,7 @@ public class SpigotEnforcer extends AbstractEnvEnforcer<Player> {
 			}
 			return completedVoid();
 		}
-		return runSync(() -> {
-			Player player = server.getPlayer(uuid);
-			if (player != null) {
-				callback.accept(player);
-			}
-		});
+		return doForPlayerIfOnlineInBatch(uuid, callback);
 	}
 
 	@Override
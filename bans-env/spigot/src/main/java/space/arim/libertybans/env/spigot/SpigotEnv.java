@@ -31,16 +31,19 @@ public final class SpigotEnv implements Environment {
 
 	private final Provider<ConnectionListener> connectionListener;
 	private final Provider<ChatListener> chatListener;
+	private final Provider<StaffAudienceListener> staffAudienceListener;
 	private final Provider<ServerNameListener> serverNameListener;
 	private final Provider<SpigotMessageChannel> pluginMessageChannel;
 	private final CommandHandler.CommandHelper commandHelper;
 
 	@Inject
 	public SpigotEnv(Provider<ConnectionListener> connectionListener, Provider<ChatListener> chatListener,
+					 Provider<StaffAudienceListener> staffAudienceListener,
 					 Provider<ServerNameListener> serverNameListener, Provider<SpigotMessageChannel> pluginMessageChannel,
 					 CommandHandler.CommandHelper commandHelper) {
 		this.connectionListener = connectionListener;
 		this.chatListener = chatListener;
+		this.staffAudienceListener = staffAudienceListener;
 		this.serverNameListener = serverNameListener;
 		this.pluginMessageChannel = pluginMessageChannel;
 		this.commandHelper = commandHelper;
@@ -51,6 +54,7 @@ public final class SpigotEnv implements Environment {
 		return Set.of(
 				connectionListener.get(),
 				chatListener.get(),
+				staffAudienceListener.get(),
 				serverNameListener.get(),
 				pluginMessageChannel.get(),
 				new CommandHandler(commandHelper, Commands.BASE_COMMAND_NAME, false)
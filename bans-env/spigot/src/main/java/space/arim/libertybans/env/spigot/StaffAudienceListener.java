@@ -0,0 +1,66 @@
+/*
+ * LibertyBans
+ * Copyright © 2023 Anand Beh
+ *
+ * LibertyBans is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * LibertyBans is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with LibertyBans. If not, see <https://www.gnu.org/licenses/>
+ * and navigate to version 3 of the GNU Affero General Public License.
+ */
+
+package space.arim.libertybans.env.spigot;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.plugin.Plugin;
+import space.arim.libertybans.core.env.PlatformListener;
+
+@Singleton
+public final class StaffAudienceListener implements PlatformListener, Listener {
+
+	private final Plugin plugin;
+	private final SpigotEnforcer enforcer;
+
+	@Inject
+	public StaffAudienceListener(Plugin plugin, SpigotEnforcer enforcer) {
+		this.plugin = plugin;
+		this.enforcer = enforcer;
+	}
+
+	@Override
+	public void register() {
+		plugin.getServer().getPluginManager().registerEvents(this, plugin);
+		enforcer.refreshStaffAudience();
+	}
+
+	@Override
+	public void unregister() {
+		HandlerList.unregisterAll(this);
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR)
+	public void onJoin(PlayerJoinEvent event) {
+		enforcer.playerJoined(event.getPlayer());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR)
+	public void onQuit(PlayerQuitEvent event) {
+		enforcer.playerQuit(event.getPlayer());
+	}
+
+}
@@ -20,6 +20,7 @@
 package space.arim.libertybans.env.sponge;
 
 import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
 import net.kyori.adventure.text.Component;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -40,6 +41,7 @@ import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 
+@Singleton
 public final class SpongeEnforcer extends AbstractEnvEnforcer<ServerPlayer> {
 
 	private final Game game;
@@ -48,7 +50,8 @@ public final class SpongeEnforcer extends AbstractEnvEnforcer<ServerPlayer> {
 	@Inject
 	public SpongeEnforcer(FactoryOfTheFuture futuresFactory, InternalFormatter formatter,
 						  Interlocutor interlocutor, Game game, SpongeMessageChannel messageChannel) {
-		super(futuresFactory, formatter, interlocutor, AudienceRepresenter.identity());
+		super(futuresFactory, formatter, interlocutor, AudienceRepresenter.identity(),
+				(uuid) -> game.server().player(uuid).orElse(null));
 		this.game = game;
 		this.messageChannel = messageChannel;
 	}
@@ -66,7 +69,7 @@ public final class SpongeEnforcer extends AbstractEnvEnforcer<ServerPlayer> {
 
 	@Override
 	public CentralisedFuture<Void> doForPlayerIfOnline(UUID uuid, Consumer<ServerPlayer> callback) {
-		return runSync(() -> game.server().player(uuid).ifPresent(callback));
+		return doForPlayerIfOnlineInBatch(uuid, callback);
 	}
 
 	@Override
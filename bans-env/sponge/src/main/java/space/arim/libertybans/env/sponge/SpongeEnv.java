@@ -31,14 +31,17 @@ public final class SpongeEnv implements Environment {
 
 	private final Provider<ConnectionListener> connectionListener;
 	private final Provider<ChatListener> chatListener;
+	private final Provider<StaffAudienceListener> staffAudienceListener;
 	private final Provider<ServerNameListener> serverNameListener;
 	private final PlatformAccess platformAccess;
 
 	@Inject
 	public SpongeEnv(Provider<ConnectionListener> connectionListener, Provider<ChatListener> chatListener,
+					 Provider<StaffAudienceListener> staffAudienceListener,
 					 Provider<ServerNameListener> serverNameListener, PlatformAccess platformAccess) {
 		this.connectionListener = connectionListener;
 		this.chatListener = chatListener;
+		this.staffAudienceListener = staffAudienceListener;
 		this.serverNameListener = serverNameListener;
 		this.platformAccess = platformAccess;
 	}
@@ -48,6 +51,7 @@ public final class SpongeEnv implements Environment {
 		return Set.of(
 				connectionListener.get(),
 				chatListener.get(),
+				staffAudienceListener.get(),
 				serverNameListener.get()
 		);
 	}
@@ -0,0 +1,63 @@
+/*
+ * LibertyBans
+ * Copyright © 2023 Anand Beh
+ *
+ * LibertyBans is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * LibertyBans is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with LibertyBans. If not, see <https://www.gnu.org/licenses/>
+ * and navigate to version 3 of the GNU Affero General Public License.
+ */
+
+package space.arim.libertybans.env.sponge;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.spongepowered.api.event.Listener;
+import org.spongepowered.api.event.Order;
+import org.spongepowered.api.event.network.ServerSideConnectionEvent;
+import space.arim.libertybans.core.env.PlatformListener;
+import space.arim.libertybans.env.sponge.listener.RegisterListeners;
+
+@Singleton
+public final class StaffAudienceListener implements PlatformListener {
+
+	private final RegisterListeners registerListeners;
+	private final SpongeEnforcer enforcer;
+
+	@Inject
+	public StaffAudienceListener(RegisterListeners registerListeners, SpongeEnforcer enforcer) {
+		this.registerListeners = registerListeners;
+		this.enforcer = enforcer;
+	}
+
+	@Override
+	public void register() {
+		registerListeners.register(this);
+		enforcer.refreshStaffAudience();
+	}
+
+	@Override
+	public void unregister() {
+		registerListeners.unregister(this);
+	}
+
+	@Listener(order = Order.POST)
+	public void onJoin(ServerSideConnectionEvent.Join event) {
+		enforcer.playerJoined(event.player());
+	}
+
+	@Listener(order = Order.POST)
+	public void onDisconnect(ServerSideConnectionEvent.Disconnect event) {
+		enforcer.playerQuit(event.player());
+	}
+
+}
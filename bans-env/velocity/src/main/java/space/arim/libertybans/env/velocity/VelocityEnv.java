@@ -31,13 +31,16 @@ public final class VelocityEnv implements Environment {
 
 	private final Provider<ConnectionListener> connectionListener;
 	private final Provider<ChatListener> chatListener;
+	private final Provider<StaffAudienceListener> staffAudienceListener;
 	private final CommandHandler.CommandHelper commandHelper;
 
 	@Inject
 	public VelocityEnv(Provider<ConnectionListener> connectionListener, Provider<ChatListener> chatListener,
+					   Provider<StaffAudienceListener> staffAudienceListener,
 					   CommandHandler.CommandHelper commandHelper) {
 		this.connectionListener = connectionListener;
 		this.chatListener = chatListener;
+		this.staffAudienceListener = staffAudienceListener;
 		this.commandHelper = commandHelper;
 	}
 
@@ -46,6 +49,7 @@ public final class VelocityEnv implements Environment {
 		return Set.of(
 				connectionListener.get(),
 				chatListener.get(),
+				staffAudienceListener.get(),
 				new CommandHandler(commandHelper, Commands.BASE_COMMAND_NAME, false)
 		);
 	}